@@ -244,6 +244,84 @@ public class ClickHouseCityHash {
         return new long[] { hashLen16(x + v[1], w[1]) + y, hashLen16(x + w[1], y + v[1]) };
     }
 
+    private static long hashLen17to32(byte[] s, int pos, int len) {
+        long a = fetch64(s, pos) * k1;
+        long b = fetch64(s, pos + 8);
+        long c = fetch64(s, pos + len - 8) * k2;
+        long d = fetch64(s, pos + len - 16) * k0;
+        return hashLen16(rotate(a - b, 43) + rotate(c, 30) + d, a + rotate(b ^ k3, 20) - c + len);
+    }
+
+    private static long hashLen33to64(byte[] s, int pos, int len) {
+        long z = fetch64(s, pos + 24);
+        long a = fetch64(s, pos) + (len + fetch64(s, pos + len - 16)) * k0;
+        long b = rotate(a + z, 52);
+        long c = rotate(a, 37);
+        a += fetch64(s, pos + 8);
+        c += rotate(a, 7);
+        a += fetch64(s, pos + 16);
+        long vf = a + z;
+        long vs = b + rotate(a, 31) + c;
+        a = fetch64(s, pos + 16) + fetch64(s, pos + len - 32);
+        z = fetch64(s, pos + len - 8);
+        b = rotate(a + z, 52);
+        c = rotate(a, 37);
+        a += fetch64(s, pos + len - 24);
+        c += rotate(a, 7);
+        a += fetch64(s, pos + len - 16);
+        long wf = a + z;
+        long ws = b + rotate(a, 31) + c;
+        long r = shiftMix((vf + ws) * k2 + (wf + vs) * k0);
+        return shiftMix(r * k0 + vs) * k2;
+    }
+
+    /**
+     * Computes 64-bit hash the same way as {@code cityHash64(String)} function of ClickHouse.
+     *
+     * @param s   bytes to hash
+     * @param pos start position
+     * @param len number of bytes
+     * @return hash
+     */
+    public static long cityHash64(byte[] s, int pos, int len) {
+        if (len <= 32) {
+            return len <= 16 ? hashLen0to16(s, pos, len) : hashLen17to32(s, pos, len);
+        } else if (len <= 64) {
+            return hashLen33to64(s, pos, len);
+        }
+
+        // For strings over 64 bytes we hash the end first, and then as we
+        // loop we keep 56 bytes of state: v, w, x, y, and z.
+        long x = fetch64(s, pos);
+        long y = fetch64(s, pos + len - 16) ^ k1;
+        long z = fetch64(s, pos + len - 56) ^ k0;
+        long[] v = weakHashLen32WithSeeds(s, pos + len - 64, len, y);
+        long[] w = weakHashLen32WithSeeds(s, pos + len - 32, len * k1, k0);
+        z += shiftMix(v[1]) * k1;
+        x = rotate(z + x, 39) * k1;
+        y = rotate(y, 33) * k1;
+
+        // Decrease len to the nearest multiple of 64, and operate on 64-byte chunks.
+        len = (len - 1) & ~63;
+        do {
+            x = rotate(x + y + v[0] + fetch64(s, pos + 16), 37) * k1;
+            y = rotate(y + v[1] + fetch64(s, pos + 48), 42) * k1;
+            x ^= w[1];
+            y ^= v[0];
+            z = rotate(z ^ w[0], 33);
+            v = weakHashLen32WithSeeds(s, pos, v[1] * k1, x + w[0]);
+            w = weakHashLen32WithSeeds(s, pos + 32, z + w[1], y);
+            {
+                long swap = z;
+                z = x;
+                x = swap;
+            }
+            pos += 64;
+            len -= 64;
+        } while (len != 0);
+        return hashLen16(hashLen16(v[0], w[0]) + shiftMix(y) * k1 + z, hashLen16(v[1], w[1]) + x);
+    }
+
     public static long[] cityHash128(byte[] s, int pos, int len) {
         if (len >= 16) {
             return cityHash128WithSeed(s, pos + 16, len - 16, fetch64(s, pos) ^ k3, fetch64(s, pos + 8));
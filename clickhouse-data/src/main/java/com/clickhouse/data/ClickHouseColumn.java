@@ -73,6 +73,20 @@ public final class ClickHouseColumn implements Serializable {
     private static final String KEYWORD_NESTED = ClickHouseDataType.Nested.name();
     private static final String KEYWORD_VARIANT = ClickHouseDataType.Variant.name();
 
+    /**
+     * Placeholder name for parsing a type. Any non-empty name gives the same result.
+     */
+    private static final String TYPE_CACHE_COLUMN_NAME = "_";
+    private static final int TYPE_CACHE_SIZE = 1000;
+    private static final long TYPE_CACHE_EXPIRE_SECONDS = 3600L;
+
+    /**
+     * Parsed columns keyed by type. Cached columns are never returned directly,
+     * only their copies bound to a column name.
+     */
+    private static final ClickHouseCache<String, ClickHouseColumn> typeCache = ClickHouseCache
+            .create(TYPE_CACHE_SIZE, TYPE_CACHE_EXPIRE_SECONDS, ClickHouseColumn::parseType);
+
     private int columnCount;
     private int columnIndex;
     private String columnName;
@@ -591,11 +605,31 @@ public final class ClickHouseColumn implements Serializable {
                 new ClickHouseColumn(dataType, columnName, null, nullable, false, null, Arrays.asList(nestedColumns)));
     }
 
+    /**
+     * Creates a column of the given type. Parsed types are cached, so creating
+     * columns of a recurring type is cheap.
+     *
+     * @param columnName non-null column name
+     * @param columnType non-null column type
+     * @return new column
+     */
     public static ClickHouseColumn of(String columnName, String columnType) {
         if (columnName == null || columnType == null) {
             throw new IllegalArgumentException("Non-null columnName and columnType are required");
         }
 
+        if (columnName.isEmpty()) {
+            // type may start with a column name, see readColumn
+            return parseColumn(columnName, columnType);
+        }
+        return typeCache.get(columnType).copy(columnName);
+    }
+
+    private static ClickHouseColumn parseType(String columnType) {
+        return parseColumn(TYPE_CACHE_COLUMN_NAME, columnType);
+    }
+
+    private static ClickHouseColumn parseColumn(String columnName, String columnType) {
         List<ClickHouseColumn> list = new ArrayList<>(1);
         readColumn(columnType, 0, columnType.length(), columnName, list);
         if (list.size() != 1) { // should not happen
@@ -680,6 +714,38 @@ public final class ClickHouseColumn implements Serializable {
         this.enumConstants = enumConstants;
     }
 
+    /**
+     * Creates a shallow copy of this column with another name. Nested columns
+     * and parameters are shared as they are not modified after parsing.
+     *
+     * @param columnName column name
+     * @return new column
+     */
+    private ClickHouseColumn copy(String columnName) {
+        ClickHouseColumn column = new ClickHouseColumn(dataType, columnName, originalTypeName, nullable,
+                lowCardinality, null, null, enumConstants);
+        column.columnCount = columnCount;
+        column.columnIndex = columnIndex;
+        column.aggFuncType = aggFuncType;
+        column.hasDefault = hasDefault;
+        column.lowCardinalityDisabled = lowCardinalityDisabled;
+        column.timeZone = timeZone;
+        column.precision = precision;
+        column.scale = scale;
+        column.nested = nested;
+        column.parameters = parameters;
+        column.arrayLevel = arrayLevel;
+        column.arrayBaseColumn = arrayBaseColumn;
+        column.fixedByteLength = fixedByteLength;
+        column.estimatedByteLength = estimatedByteLength;
+        column.template = template;
+        column.classToVariantOrdNumMap = classToVariantOrdNumMap;
+        column.arrayToVariantOrdNumMap = arrayToVariantOrdNumMap;
+        column.mapKeyToVariantOrdNumMap = mapKeyToVariantOrdNumMap;
+        column.mapValueToVariantOrdNumMap = mapValueToVariantOrdNumMap;
+        return column;
+    }
+
     /**
      * Sets zero-based column index and column count.
      * 
@@ -0,0 +1,49 @@
+package com.clickhouse.data;
+
+import java.nio.charset.StandardCharsets;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ClickHouseCityHashTest {
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    // hash of the first N characters of repeated alphabet:
+    // SELECT cityHash64(substring(repeat('0123456789abcdefghijklmnopqrstuvwxyz', 10), 1, N))
+    @DataProvider(name = "cityHash64Provider")
+    private Object[][] getCityHash64Args() {
+        return new Object[][] {
+                { 0, "11160318154034397263" },
+                { 3, "10004111379364466413" },
+                { 5, "8787974383643421255" },
+                { 12, "14832532229494343379" },
+                { 20, "8330036288721083378" },
+                { 32, "16253081498054822198" },
+                { 50, "7591103109074824951" },
+                { 64, "10468116966210066938" },
+                { 65, "476434738369417949" },
+                { 128, "11704703788785913162" },
+                { 200, "14461546958697500938" },
+        };
+    }
+
+    private static byte[] repeatedAlphabet(int length) {
+        StringBuilder builder = new StringBuilder(length + ALPHABET.length());
+        while (builder.length() < length) {
+            builder.append(ALPHABET);
+        }
+        return builder.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test(dataProvider = "cityHash64Provider", groups = { "unit" })
+    public void testCityHash64(int length, String expected) {
+        byte[] bytes = repeatedAlphabet(length);
+        Assert.assertEquals(Long.toUnsignedString(ClickHouseCityHash.cityHash64(bytes, 0, length)), expected);
+
+        // same bytes at an offset of a larger array
+        byte[] padded = new byte[length + 10];
+        System.arraycopy(bytes, 0, padded, 7, length);
+        Assert.assertEquals(Long.toUnsignedString(ClickHouseCityHash.cityHash64(padded, 7, length)), expected);
+    }
+}
@@ -4,6 +4,7 @@ import java.math.BigInteger;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.TimeZone;
 
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -440,4 +441,34 @@ public class ClickHouseColumnTest {
             }
         }
     }
+
+    @Test(groups = { "unit" })
+    public void testTypeCache() {
+        String type = "Map(String, Array(Tuple(a Nullable(DateTime64(9, 'UTC')), b Decimal(18, 4))))";
+        ClickHouseColumn c1 = ClickHouseColumn.of("c1", type);
+        ClickHouseColumn c2 = ClickHouseColumn.of("c2", type);
+        Assert.assertNotSame(c1, c2);
+        Assert.assertEquals(c1.getColumnName(), "c1");
+        Assert.assertEquals(c2.getColumnName(), "c2");
+        Assert.assertEquals(c2.getOriginalTypeName(), type);
+        Assert.assertSame(c1.getNestedColumns(), c2.getNestedColumns());
+
+        List<ClickHouseColumn> list = new LinkedList<>();
+        ClickHouseColumn.readColumn(type, 0, type.length(), "c1", list);
+        Assert.assertEquals(c1, list.get(0));
+        Assert.assertEquals(c1.getValueInfo().getArrayBaseColumn().getNestedColumns().get(0).getTimeZone(),
+                TimeZone.getTimeZone("UTC"));
+
+        // changes of a copy do not affect other columns
+        c1.setColumnIndex(1, 2);
+        c1.setHasDefault(true);
+        ClickHouseColumn c3 = ClickHouseColumn.of("c1", type);
+        Assert.assertEquals(c3.getColumnIndex(), 0);
+        Assert.assertFalse(c3.hasDefault());
+        Assert.assertEquals(c3, list.get(0));
+
+        // type may start with a name when column name is empty
+        Assert.assertEquals(ClickHouseColumn.of("", "a Int32").getColumnName(), "a");
+        Assert.assertEquals(ClickHouseColumn.of("b", "Int32").getDataType(), ClickHouseDataType.Int32);
+    }
 }
@@ -13,6 +13,7 @@ import com.clickhouse.client.api.data_formats.internal.BinaryStreamReader;
 import com.clickhouse.client.api.data_formats.internal.MapBackedRecord;
 import com.clickhouse.client.api.data_formats.internal.ProcessParser;
 import com.clickhouse.client.api.data_formats.internal.SerializerUtils;
+import com.clickhouse.client.api.enums.CompressionMethod;
 import com.clickhouse.client.api.enums.Protocol;
 import com.clickhouse.client.api.enums.ProxyType;
 import com.clickhouse.client.api.http.ClickHouseHttpProto;
@@ -20,18 +21,28 @@ import com.clickhouse.client.api.insert.DataSerializationException;
 import com.clickhouse.client.api.insert.InsertResponse;
 import com.clickhouse.client.api.insert.InsertSettings;
 import com.clickhouse.client.api.insert.POJOSerializer;
+import com.clickhouse.client.api.insert.ShardedInsertWriter;
+import com.clickhouse.client.api.insert.ShardingKey;
 import com.clickhouse.client.api.internal.ClickHouseLZ4OutputStream;
 import com.clickhouse.client.api.internal.ClientStatisticsHolder;
+import com.clickhouse.client.api.internal.CompressionCodec;
+import com.clickhouse.client.api.internal.ExternalTablesWriter;
 import com.clickhouse.client.api.internal.HttpAPIClientHelper;
+import com.clickhouse.client.api.internal.LoadBalancer;
 import com.clickhouse.client.api.internal.MapUtils;
+import com.clickhouse.client.api.internal.PrefetchEntity;
+import com.clickhouse.client.api.internal.RequestTrackingEntity;
+import com.clickhouse.client.api.internal.SchemaCache;
 import com.clickhouse.client.api.internal.TableSchemaParser;
 import com.clickhouse.client.api.internal.ValidationUtils;
+import com.clickhouse.client.api.internal.VirtualThreads;
 import com.clickhouse.client.api.metadata.ColumnToMethodMatchingStrategy;
 import com.clickhouse.client.api.metadata.DefaultColumnToMethodMatchingStrategy;
 import com.clickhouse.client.api.metadata.TableSchema;
 import com.clickhouse.client.api.metrics.ClientMetrics;
 import com.clickhouse.client.api.metrics.OperationMetrics;
 import com.clickhouse.client.api.query.GenericRecord;
+import com.clickhouse.client.api.query.MultiNodeQueryResponse;
 import com.clickhouse.client.api.query.POJOSetter;
 import com.clickhouse.client.api.query.QueryResponse;
 import com.clickhouse.client.api.query.QuerySettings;
@@ -44,8 +55,10 @@ import net.jpountz.lz4.LZ4Factory;
 import org.apache.hc.core5.concurrent.DefaultThreadFactory;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.io.IOCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +67,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
@@ -65,6 +79,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -72,13 +87,17 @@ import java.util.StringJoiner;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static java.time.temporal.ChronoUnit.MILLIS;
 import static java.time.temporal.ChronoUnit.SECONDS;
@@ -124,15 +143,22 @@ public class Client implements AutoCloseable {
 
     private final List<ClickHouseNode> serverNodes = new ArrayList<>();
 
+    private final LoadBalancer loadBalancer;
+
     // POJO serializer mapping (class -> (schema -> (format -> serializer)))
     private final Map<Class<?>, Map<String, Map<String, POJOSerializer>>> serializers;
 
+    // Compiled serializers writing whole row. Key is schema key (table name or query)
+    private final Map<Class<?>, Map<String, POJOSerializer>> rowSerializers;
+
     // POJO deserializer mapping (class -> (schema -> (format -> deserializer)))
     private final Map<Class<?>, Map<String, Map<String, POJOSetter>>> deserializers;
 
     private static final Logger LOG = LoggerFactory.getLogger(Client.class);
     private final ExecutorService sharedOperationExecutor;
 
+    private final boolean asyncHttpTransport;
+
     private final boolean isSharedOpExecutorOwned;
 
     private final Map<String, ClientStatisticsHolder> globalClientStats = new ConcurrentHashMap<>();
@@ -140,6 +166,16 @@ public class Client implements AutoCloseable {
     private Map<String, TableSchema> tableSchemaCache = new ConcurrentHashMap<>();
     private Map<String, Boolean> tableSchemaHasDefaults = new ConcurrentHashMap<>();
 
+    // schemas fetched from server. null when disabled
+    private final SchemaCache schemaCache;
+
+    private final ExecutorService schemaRefreshExecutor;
+
+    private final ExecutorService prefetchExecutor;
+
+    // runs blocking requests of queryNodes() when there is no shared operation executor. Created on first use
+    private ExecutorService fanOutExecutor;
+
     private final ColumnToMethodMatchingStrategy columnToMethodMatchingStrategy;
 
     // Server context
@@ -163,12 +199,23 @@ public class Client implements AutoCloseable {
         });
         this.metricsRegistry = metricsRegistry;
         this.serializers = new ConcurrentHashMap<>();
+        this.rowSerializers = new ConcurrentHashMap<>();
         this.deserializers = new ConcurrentHashMap<>();
 
         boolean isAsyncEnabled = MapUtils.getFlag(this.configuration, ClientConfigProperties.ASYNC_OPERATIONS.getKey(), false);
-        if (isAsyncEnabled && sharedOperationExecutor == null) {
+        this.asyncHttpTransport = MapUtils.getFlag(this.configuration, ClientConfigProperties.ASYNC_HTTP_TRANSPORT.getKey(), false);
+        if ((isAsyncEnabled || asyncHttpTransport) && sharedOperationExecutor == null) {
             this.isSharedOpExecutorOwned = true;
-            this.sharedOperationExecutor = Executors.newCachedThreadPool(new DefaultThreadFactory("chc-operation"));
+            boolean useVirtualThreads = MapUtils.getFlag(this.configuration, ClientConfigProperties.USE_VIRTUAL_THREADS.getKey(), false);
+            if (useVirtualThreads && VirtualThreads.isSupported()) {
+                this.sharedOperationExecutor = VirtualThreads.newExecutor("chc-operation-");
+            } else {
+                if (useVirtualThreads) {
+                    LOG.warn("Virtual threads are not supported by Java {}, using platform threads",
+                            System.getProperty("java.version"));
+                }
+                this.sharedOperationExecutor = Executors.newCachedThreadPool(new DefaultThreadFactory("chc-operation"));
+            }
         } else {
             this.isSharedOpExecutorOwned = false;
             this.sharedOperationExecutor = sharedOperationExecutor;
@@ -179,12 +226,42 @@ public class Client implements AutoCloseable {
 
         String retry = configuration.get(ClientConfigProperties.RETRY_ON_FAILURE.getKey());
         this.retries = retry == null ? 0 : Integer.parseInt(retry);
+        LoadBalancingPolicy loadBalancingPolicy = LoadBalancingPolicy.valueOf(configuration.getOrDefault(
+                ClientConfigProperties.LOAD_BALANCING_POLICY.getKey(), LoadBalancingPolicy.FIRST_ALIVE.name()));
+        long nodeCheckInterval = MapUtils.getLong(configuration, ClientConfigProperties.NODE_CHECK_INTERVAL.getKey());
+        this.loadBalancer = new LoadBalancer(serverNodes, loadBalancingPolicy, this::checkNode, nodeCheckInterval);
+        this.loadBalancer.startHealthChecks(MapUtils.getLong(configuration, ClientConfigProperties.HEALTH_CHECK_INTERVAL.getKey()));
         boolean useNativeCompression = !MapUtils.getFlag(configuration, ClientConfigProperties.DISABLE_NATIVE_COMPRESSION.getKey(), false);
         if (useNativeCompression) {
             this.lz4Factory = LZ4Factory.fastestInstance();
         } else {
             this.lz4Factory = LZ4Factory.fastestJavaInstance();
         }
+
+        long schemaCacheTTL = MapUtils.getLong(configuration, ClientConfigProperties.SCHEMA_CACHE_TTL.getKey());
+        if (schemaCacheTTL > 0) {
+            this.schemaRefreshExecutor = MapUtils.getFlag(configuration,
+                    ClientConfigProperties.SCHEMA_CACHE_REFRESH_AHEAD.getKey(), false)
+                    ? Executors.newSingleThreadExecutor(new DefaultThreadFactory("chc-schema-refresh", true))
+                    : null;
+            this.schemaCache = new SchemaCache(
+                    MapUtils.getInt(configuration, ClientConfigProperties.SCHEMA_CACHE_SIZE.getKey()),
+                    schemaCacheTTL, schemaRefreshExecutor);
+        } else {
+            this.schemaCache = null;
+            this.schemaRefreshExecutor = null;
+        }
+
+        if (MapUtils.getInt(configuration, ClientConfigProperties.RESPONSE_PREFETCH_BUFFER_SIZE.getKey()) > 0) {
+            // each response being read occupies a thread
+            boolean useVirtualThreads = MapUtils.getFlag(configuration,
+                    ClientConfigProperties.USE_VIRTUAL_THREADS.getKey(), false);
+            this.prefetchExecutor = useVirtualThreads && VirtualThreads.isSupported()
+                    ? VirtualThreads.newExecutor("chc-prefetch-")
+                    : Executors.newCachedThreadPool(new DefaultThreadFactory("chc-prefetch", true));
+        } else {
+            this.prefetchExecutor = null;
+        }
     }
 
     /**
@@ -235,6 +312,22 @@ public class Client implements AutoCloseable {
             LOG.debug("Skip closing operation executor because not owned by client");
         }
 
+        loadBalancer.close();
+
+        if (schemaRefreshExecutor != null) {
+            schemaRefreshExecutor.shutdownNow();
+        }
+
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+
+        synchronized (this) {
+            if (fanOutExecutor != null) {
+                fanOutExecutor.shutdownNow();
+            }
+        }
+
         if (httpClientHelper != null) {
             httpClientHelper.close();
         }
@@ -252,7 +345,7 @@ public class Client implements AutoCloseable {
         private ColumnToMethodMatchingStrategy columnToMethodMatchingStrategy;
         private Object metricRegistry = null;
         public Builder() {
-            this.endpoints = new HashSet<>();
+            this.endpoints = new LinkedHashSet<>();
             this.configuration = new HashMap<String, String>();
         }
 
@@ -461,6 +554,47 @@ public class Client implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Sets how an endpoint is selected for a request when multiple endpoints are configured.
+         * Default is {@link LoadBalancingPolicy#FIRST_ALIVE}.
+         *
+         * @param policy - load balancing policy
+         * @return this builder instance
+         */
+        public Builder setLoadBalancingPolicy(LoadBalancingPolicy policy) {
+            this.configuration.put(ClientConfigProperties.LOAD_BALANCING_POLICY.getKey(), policy.name());
+            return this;
+        }
+
+        /**
+         * Sets how often endpoints marked faulty after a connection error are checked in background.
+         * Default is 5 seconds.
+         *
+         * @param interval - check interval
+         * @param unit - time unit of the interval
+         * @return this builder instance
+         */
+        public Builder setNodeCheckInterval(long interval, ChronoUnit unit) {
+            this.configuration.put(ClientConfigProperties.NODE_CHECK_INTERVAL.getKey(),
+                    String.valueOf(Duration.of(interval, unit).toMillis()));
+            return this;
+        }
+
+        /**
+         * Enables background checks of all endpoints with the {@code /ping} request. An endpoint failing a check
+         * is excluded from selection until it passes a check. Check results are available with
+         * {@link Client#getNodeStates()}. Default is 0 - checks are disabled.
+         *
+         * @param interval - delay between checks
+         * @param unit - time unit of the interval
+         * @return this builder instance
+         */
+        public Builder setHealthCheckInterval(long interval, ChronoUnit unit) {
+            this.configuration.put(ClientConfigProperties.HEALTH_CHECK_INTERVAL.getKey(),
+                    String.valueOf(Duration.of(interval, unit).toMillis()));
+            return this;
+        }
+
         // SOCKET SETTINGS
 
         /**
@@ -609,6 +743,50 @@ public class Client implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Sets number of threads compressing request data in parallel with its serialization. Applies to
+         * client request compression in native LZ4 format. Each thread works on a frame of
+         * {@link #setLZ4UncompressedBufferSize(int)} bytes. Frames are sent in order by the thread writing the
+         * request, so compression threads are not held by slow connections.
+         * Default is 0 - data is compressed by the thread writing it.
+         *
+         * @param threads - number of compression threads
+         * @return same instance of the builder
+         */
+        public Builder setCompressionThreads(int threads) {
+            this.configuration.put(ClientConfigProperties.COMPRESSION_THREADS.getKey(), String.valueOf(threads));
+            return this;
+        }
+
+        /**
+         * Sets compression method for request and response data when compression is enabled by
+         * {@link #compressClientRequest(boolean)} or {@link #compressServerResponse(boolean)}.
+         * {@link CompressionMethod#ZSTD} requires {@code com.github.luben:zstd-jni} in the classpath.
+         * {@link CompressionMethod#NONE} turns compression off. Default is {@link CompressionMethod#LZ4}.
+         * <p>Responses compressed by the server in native block format ({@link #compressServerResponse(boolean)}
+         * without {@link #useHttpCompression(boolean)}) stay LZ4 - the server picks the method for them and
+         * this setting does not change it. Such responses are still decoded whatever method they use.</p>
+         *
+         * @param method - compression method
+         * @return same instance of the builder
+         */
+        public Builder setCompressionMethod(CompressionMethod method) {
+            this.configuration.put(ClientConfigProperties.COMPRESSION_METHOD.getKey(), method.name());
+            return this;
+        }
+
+        /**
+         * Sets compression level for {@link CompressionMethod#ZSTD}. Higher level gives better ratio
+         * for more CPU time. Default is {@value CompressionCodec#DEFAULT_ZSTD_LEVEL}.
+         *
+         * @param level - compression level from 1 to 22
+         * @return same instance of the builder
+         */
+        public Builder setZstdCompressionLevel(int level) {
+            this.configuration.put(ClientConfigProperties.COMPRESSION_ZSTD_LEVEL.getKey(), String.valueOf(level));
+            return this;
+        }
+
         /**
          * Sets the default database name that will be used by operations if not specified.
          * @param database - actual default database name.
@@ -783,6 +961,119 @@ public class Client implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Configures client to use non-blocking HTTP transport. Query and insert requests are sent by I/O threads
+         * and returned futures are completed when response headers are received, so waiting for a response
+         * does not occupy a thread. Response body is received as it is read by the application.
+         * Insert data is written by a thread of the shared operation executor while it is being sent.
+         *
+         * <p>Futures are completed by I/O threads. Dependent actions that read a response should be
+         * scheduled with an executor (for example, {@code thenApplyAsync()}) to not block the I/O thread.</p>
+         *
+         * Default is {@code false}.
+         *
+         * @param enable - if to use non-blocking transport
+         * @return this builder instance
+         */
+        public Builder useAsyncHttpTransport(boolean enable) {
+            this.configuration.put(ClientConfigProperties.ASYNC_HTTP_TRANSPORT.getKey(), String.valueOf(enable));
+            return this;
+        }
+
+        /**
+         * Makes client run async operations in virtual threads. Each operation gets its own thread so number of
+         * concurrent operations is not limited by a thread pool size. Requires Java 21 or later, on older
+         * versions default executor is used. Has no effect when {@link #setSharedOperationExecutor(ExecutorService)}
+         * is used.
+         *
+         * <p>Connection pool lets virtual threads wait for a free connection without pinning a carrier thread.
+         * It is still recommended to set {@link #setMaxConnections(int)} to a value matching server capacity.</p>
+         *
+         * Default is {@code false}.
+         *
+         * @param enable - if to use virtual threads
+         * @return this builder instance
+         */
+        public Builder useVirtualThreads(boolean enable) {
+            this.configuration.put(ClientConfigProperties.USE_VIRTUAL_THREADS.getKey(), String.valueOf(enable));
+            return this;
+        }
+
+        /**
+         * Makes client read query responses ahead in background while the application processes data already
+         * read. It keeps the network busy when the application reads rows slower than the server sends them.
+         * Number of buffers grows while the application is behind the network, up to the given size.
+         * Each response being read occupies a thread, a virtual one when {@link #useVirtualThreads(boolean)}
+         * is enabled.
+         *
+         * <p>Time the application waited for data and time data waited for the application are reported in
+         * {@link com.clickhouse.client.api.metrics.ClientMetrics#RESPONSE_READ_STALL} and
+         * {@link com.clickhouse.client.api.metrics.ClientMetrics#RESPONSE_PREFETCH_STALL}
+         * metrics of a response after it is read or closed.</p>
+         *
+         * Default is {@code 0} - prefetch is disabled.
+         *
+         * @param size - maximum number of bytes read ahead
+         * @return this builder instance
+         */
+        public Builder setResponsePrefetchBufferSize(int size) {
+            this.configuration.put(ClientConfigProperties.RESPONSE_PREFETCH_BUFFER_SIZE.getKey(), String.valueOf(size));
+            return this;
+        }
+
+        /**
+         * Enables cache of table schemas returned by {@link Client#getTableSchema(String, String)} and
+         * {@link Client#getTableSchemaFromQuery(String)}. Cached schema is used until it expires or
+         * is invalidated by {@link Client#invalidateTableSchema(String, String)}.
+         * Default is {@code 0} - schemas are not cached.
+         *
+         * @param ttl - time to live of a cached schema
+         * @param unit - time unit
+         * @return this builder instance
+         */
+        public Builder setSchemaCacheTTL(long ttl, ChronoUnit unit) {
+            this.configuration.put(ClientConfigProperties.SCHEMA_CACHE_TTL.getKey(), String.valueOf(Duration.of(ttl, unit).toMillis()));
+            return this;
+        }
+
+        /**
+         * Sets maximum number of cached table schemas. Least recently used schemas are evicted first.
+         * Default is 1000.
+         *
+         * @param size - maximum number of schemas
+         * @return this builder instance
+         */
+        public Builder setSchemaCacheSize(int size) {
+            this.configuration.put(ClientConfigProperties.SCHEMA_CACHE_SIZE.getKey(), String.valueOf(size));
+            return this;
+        }
+
+        /**
+         * Makes cached schema reloaded in background when it is requested close to its expiration, so frequently
+         * used schemas do not expire. Default is {@code false}.
+         *
+         * @param enable - if to refresh schemas ahead of expiration
+         * @return this builder instance
+         */
+        public Builder useSchemaCacheRefreshAhead(boolean enable) {
+            this.configuration.put(ClientConfigProperties.SCHEMA_CACHE_REFRESH_AHEAD.getKey(), String.valueOf(enable));
+            return this;
+        }
+
+        /**
+         * Makes {@link Client#queryAll(String, Class, TableSchema, Supplier)} replace {@code *} in a query like
+         * {@code SELECT * FROM ...} with the columns of the registered schema that have setters in the class.
+         * Server then does not read and send columns that would be skipped.
+         * Default is {@code false}.
+         *
+         * @param enable - if to rewrite column list of POJO queries
+         * @return this builder instance
+         */
+        public Builder usePOJOQueryProjection(boolean enable) {
+            this.configuration.put(ClientConfigProperties.POJO_QUERY_PROJECTION.getKey(), String.valueOf(enable));
+            return this;
+        }
+
         /**
          * Sets an executor for running operations. If async operations are enabled and no executor is specified
          * client will create a default executor.
@@ -1086,6 +1377,30 @@ public class Client implements AutoCloseable {
                 disableNativeCompression(false);
             }
 
+            if (!configuration.containsKey(ClientConfigProperties.COMPRESSION_THREADS.getKey())) {
+                setCompressionThreads(0);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.COMPRESSION_METHOD.getKey())) {
+                setCompressionMethod(CompressionMethod.LZ4);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.COMPRESSION_ZSTD_LEVEL.getKey())) {
+                setZstdCompressionLevel(CompressionCodec.DEFAULT_ZSTD_LEVEL);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.SCHEMA_CACHE_TTL.getKey())) {
+                setSchemaCacheTTL(0, ChronoUnit.MILLIS);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.SCHEMA_CACHE_SIZE.getKey())) {
+                setSchemaCacheSize(1000);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.SCHEMA_CACHE_REFRESH_AHEAD.getKey())) {
+                useSchemaCacheRefreshAhead(false);
+            }
+
             if (!configuration.containsKey(ClientConfigProperties.USE_SERVER_TIMEZONE.getKey())) {
                 useServerTimeZone(true);
             }
@@ -1098,6 +1413,22 @@ public class Client implements AutoCloseable {
                 useAsyncRequests(false);
             }
 
+            if (!configuration.containsKey(ClientConfigProperties.ASYNC_HTTP_TRANSPORT.getKey())) {
+                useAsyncHttpTransport(false);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.USE_VIRTUAL_THREADS.getKey())) {
+                useVirtualThreads(false);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.RESPONSE_PREFETCH_BUFFER_SIZE.getKey())) {
+                setResponsePrefetchBufferSize(0);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.POJO_QUERY_PROJECTION.getKey())) {
+                usePOJOQueryProjection(false);
+            }
+
             if (!configuration.containsKey(ClientConfigProperties.HTTP_MAX_OPEN_CONNECTIONS.getKey())) {
                 setMaxConnections(10);
             }
@@ -1114,6 +1445,18 @@ public class Client implements AutoCloseable {
                 enableConnectionPool(true);
             }
 
+            if (!configuration.containsKey(ClientConfigProperties.LOAD_BALANCING_POLICY.getKey())) {
+                setLoadBalancingPolicy(LoadBalancingPolicy.FIRST_ALIVE);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.NODE_CHECK_INTERVAL.getKey())) {
+                setNodeCheckInterval(5, SECONDS);
+            }
+
+            if (!configuration.containsKey(ClientConfigProperties.HEALTH_CHECK_INTERVAL.getKey())) {
+                setHealthCheckInterval(0, MILLIS);
+            }
+
             if (!configuration.containsKey(ClientConfigProperties.CONNECTION_TTL.getKey())) {
                 setConnectionTTL(-1, MILLIS);
             }
@@ -1173,13 +1516,8 @@ public class Client implements AutoCloseable {
         }
     }
 
-    private ClickHouseNode getServerNode() {
-        // TODO: implement load balancing using existing logic
-        return this.serverNodes.get(0);
-    }
-
     /**
-     * Pings the server to check if it is alive
+     * Pings the server to check if it is alive. See {@link #ping(long)}.
      * @return true if the server is alive, false otherwise
      */
     public boolean ping() {
@@ -1187,14 +1525,33 @@ public class Client implements AutoCloseable {
     }
 
     /**
-     * Pings the server to check if it is alive. Maximum timeout is 10 minutes.
+     * Pings the server to check if it is alive. Uses the {@code /ping} endpoint of the server that
+     * does not run a query. The endpoint does not check credentials, so {@code true} does not mean
+     * the client is able to run queries - use {@link #ping(long, boolean)} to check that too.
      *
      * @param timeout timeout in milliseconds
      * @return true if the server is alive, false otherwise
      */
     public boolean ping(long timeout) {
+        return ping(timeout, false);
+    }
+
+    /**
+     * Pings the server to check if it is alive.
+     *
+     * @param timeout timeout in milliseconds
+     * @param authenticated - if true, runs {@code SELECT 1} with client credentials instead of calling
+     *                      the {@code /ping} endpoint, so wrong credentials make the check fail
+     * @return true if the server is alive (and accepted credentials when requested), false otherwise
+     */
+    public boolean ping(long timeout, boolean authenticated) {
+        if (!authenticated) {
+            return httpClientHelper.ping(loadBalancer.select().getNode(), timeout);
+        }
+
         long startTime = System.nanoTime();
-        try (QueryResponse response = query("SELECT 1 FORMAT TabSeparated").get(timeout, TimeUnit.MILLISECONDS)) {
+        CompletableFuture<QueryResponse> future = query("SELECT 1 FORMAT TabSeparated");
+        try (QueryResponse response = timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get()) {
             return true;
         } catch (Exception e) {
             LOG.debug("Failed to connect to the server (Duration: {})", System.nanoTime() - startTime, e);
@@ -1202,6 +1559,15 @@ public class Client implements AutoCloseable {
         }
     }
 
+    /**
+     * Returns endpoints with their health and load statistics.
+     *
+     * @return list of endpoint states in the order endpoints were configured
+     */
+    public List<LoadBalancer.NodeState> getNodeStates() {
+        return loadBalancer.getNodes();
+    }
+
     /**
      * <p>Registers a POJO class and maps its fields to a table schema</p>
      * <p>Note: table schema will be stored in cache to be used while other operations. Cache key is
@@ -1240,12 +1606,14 @@ public class Client implements AutoCloseable {
 
         Map<String, POJOSerializer> schemaSerializers = new HashMap<>();
         Map<String, POJOSetter> schemaDeserializers = new ConcurrentHashMap<>();
+        List<Method> rowGetters = new ArrayList<>();
         boolean defaultsSupport = schema.hasDefaults();
         tableSchemaHasDefaults.put(schemaKey, defaultsSupport);
         for (ClickHouseColumn column : schema.getColumns()) {
             String propertyName = columnToMethodMatchingStrategy.normalizeColumnName(column.getColumnName());
             Method getterMethod = classGetters.get(propertyName);
             if (getterMethod != null) {
+                rowGetters.add(getterMethod);
                 schemaSerializers.put(column.getColumnName(), (obj, stream) -> {
                     Object value = getterMethod.invoke(obj);
 
@@ -1271,6 +1639,32 @@ public class Client implements AutoCloseable {
 
         classSerializers.put(schemaKey, schemaSerializers);
         classDeserializers.put(schemaKey, schemaDeserializers);
+
+        Map<String, POJOSerializer> classRowSerializers = rowSerializers.computeIfAbsent(clazz, k -> new ConcurrentHashMap<>());
+        classRowSerializers.remove(schemaKey);
+        if (rowGetters.size() == schema.getColumns().size() && isAccessible(clazz, rowGetters)) {
+            try {
+                classRowSerializers.put(schemaKey,
+                        SerializerUtils.compilePOJOSerializer(clazz, rowGetters, schema.getColumns(), defaultsSupport));
+            } catch (Exception e) {
+                LOG.debug("Failed to compile serializer for {}. Falling back to reflection", clazz.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Generated serializer can call only public methods of public classes.
+     */
+    private static boolean isAccessible(Class<?> clazz, List<Method> getters) {
+        if (!Modifier.isPublic(clazz.getModifiers())) {
+            return false;
+        }
+        for (Method getter : getters) {
+            if (!Modifier.isPublic(getter.getDeclaringClass().getModifiers()) || getter.getParameterCount() != 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -1346,6 +1740,13 @@ public class Client implements AutoCloseable {
             }
             serializersForTable.add(serializer);
         }
+        POJOSerializer rowSerializer = rowSerializers.getOrDefault(data.get(0).getClass(), Collections.emptyMap())
+                .get(tableName);
+        if (rowSerializer != null) {
+            // compiled serializer writes all columns at once
+            serializersForTable = Collections.singletonList(rowSerializer);
+        }
+        final List<POJOSerializer> finalSerializers = serializersForTable;
 
 
         String retry = configuration.get(ClientConfigProperties.RETRY_ON_FAILURE.getKey());
@@ -1353,57 +1754,55 @@ public class Client implements AutoCloseable {
 
         settings.setOption(ClientConfigProperties.INPUT_OUTPUT_FORMAT.getKey(), format.name());
         final InsertSettings finalSettings = settings;
+        IOCallback<OutputStream> bodyWriter = out -> {
+            out.write("INSERT INTO ".getBytes());
+            out.write(tableName.getBytes());
+            out.write(" \n FORMAT ".getBytes());
+            out.write(format.name().getBytes());
+            out.write(" \n".getBytes());
+            for (Object obj : data) {
+
+                for (POJOSerializer serializer : finalSerializers) {
+                    try {
+                        serializer.serialize(obj, out);
+                    } catch (InvocationTargetException | IllegalAccessException | IOException e) {
+                        throw new DataSerializationException(obj, serializer, e);
+                    }
+                }
+            }
+            out.close();
+        };
+        if (asyncHttpTransport) {
+            return executeRequestAsync(finalSettings.getAllSettings(), bodyWriter, true, false, null,
+                    httpResponse -> newInsertResponse(httpResponse, finalSettings, globalClientStats.remove(operationId)));
+        }
         Supplier<InsertResponse> supplier = () -> {
             long startTime = System.nanoTime();
             // Selecting some node
-            ClickHouseNode selectedNode = getNextAliveNode();
+            LoadBalancer.NodeState selectedNode = loadBalancer.select();
 
             RuntimeException lastException = null;
             for (int i = 0; i <= maxRetries; i++) {
                 // Execute request
                 try (ClassicHttpResponse httpResponse =
-                        httpClientHelper.executeRequest(selectedNode, finalSettings.getAllSettings(), lz4Factory,
-                                out -> {
-                                    out.write("INSERT INTO ".getBytes());
-                                    out.write(tableName.getBytes());
-                                    out.write(" \n FORMAT ".getBytes());
-                                    out.write(format.name().getBytes());
-                                    out.write(" \n".getBytes());
-                                    for (Object obj : data) {
-
-                                        for (POJOSerializer serializer : serializersForTable) {
-                                            try {
-                                                serializer.serialize(obj, out);
-                                            } catch (InvocationTargetException | IllegalAccessException | IOException e) {
-                                                throw new DataSerializationException(obj, serializer, e);
-                                            }
-                                        }
-                                    }
-                                    out.close();
-                                })) {
+                        executeRequest(selectedNode, finalSettings.getAllSettings(), bodyWriter)) {
 
 
                     // Check response
                     if (httpResponse.getCode() == HttpStatus.SC_SERVICE_UNAVAILABLE) {
                         LOG.warn("Failed to get response. Server returned {}. Retrying. (Duration: {})", httpResponse.getCode(), System.nanoTime() - startTime);
-                        selectedNode = getNextAliveNode();
+                        loadBalancer.markFaulty(selectedNode);
+                        selectedNode = loadBalancer.select();
                         continue;
                     }
 
-                    ClientStatisticsHolder clientStats = globalClientStats.remove(operationId);
-                    OperationMetrics metrics = new OperationMetrics(clientStats);
-                    String summary = HttpAPIClientHelper.getHeaderVal(httpResponse.getFirstHeader(ClickHouseHttpProto.HEADER_SRV_SUMMARY), "{}");
-                    ProcessParser.parseSummary(summary, metrics);
-                    String queryId =  HttpAPIClientHelper.getHeaderVal(httpResponse.getFirstHeader(ClickHouseHttpProto.HEADER_QUERY_ID), finalSettings.getQueryId(), String::valueOf);
-                    metrics.operationComplete();
-                    metrics.setQueryId(queryId);
-                    return new InsertResponse(metrics);
+                    return newInsertResponse(httpResponse, finalSettings, globalClientStats.remove(operationId));
                 } catch (Exception e) {
                     lastException = httpClientHelper.wrapException(String.format("Query request failed (Attempt: %s/%s - Duration: %s)",
                             (i + 1), (maxRetries + 1), System.nanoTime() - startTime), e);
                     if (httpClientHelper.shouldRetry(e, finalSettings.getAllSettings())) {
                         LOG.warn("Retrying.", e);
-                        selectedNode = getNextAliveNode();
+                        selectedNode = loadBalancer.select();
                     } else {
                         throw lastException;
                     }
@@ -1559,27 +1958,24 @@ public class Client implements AutoCloseable {
         settings.setOption(ClientConfigProperties.INPUT_OUTPUT_FORMAT.getKey(), format.name());
         final InsertSettings finalSettings = settings;
 
-        StringBuilder sqlStmt = new StringBuilder("INSERT INTO ").append(tableName);
-        if (columnNames != null && !columnNames.isEmpty()) {
-            sqlStmt.append(" (");
-            for (String columnName : columnNames) {
-                sqlStmt.append(columnName).append(", ");
-            }
-            sqlStmt.deleteCharAt(sqlStmt.length() - 2);
-            sqlStmt.append(")");
+        finalSettings.serverSetting(ClickHouseHttpProto.QPARAM_QUERY_STMT, insertStatement(tableName, columnNames, format));
+        if (asyncHttpTransport) {
+            return executeRequestAsync(finalSettings.getAllSettings(), out -> {
+                        writer.onOutput(out);
+                        out.close();
+                    }, true, false, writer,
+                    httpResponse -> newInsertResponse(httpResponse, finalSettings, finalClientStats));
         }
-        sqlStmt.append(" FORMAT ").append(format.name());
-        finalSettings.serverSetting(ClickHouseHttpProto.QPARAM_QUERY_STMT, sqlStmt.toString());
         responseSupplier = () -> {
             long startTime = System.nanoTime();
             // Selecting some node
-            ClickHouseNode selectedNode = getNextAliveNode();
+            LoadBalancer.NodeState selectedNode = loadBalancer.select();
 
             RuntimeException lastException = null;
             for (int i = 0; i <= retries; i++) {
                 // Execute request
                 try (ClassicHttpResponse httpResponse =
-                             httpClientHelper.executeRequest(selectedNode, finalSettings.getAllSettings(), lz4Factory,
+                             executeRequest(selectedNode, finalSettings.getAllSettings(),
                                      out -> {
                                          writer.onOutput(out);
                                          out.close();
@@ -1589,23 +1985,18 @@ public class Client implements AutoCloseable {
                     // Check response
                     if (httpResponse.getCode() == HttpStatus.SC_SERVICE_UNAVAILABLE) {
                         LOG.warn("Failed to get response. Server returned {}. Retrying. (Duration: {})", System.nanoTime() - startTime, httpResponse.getCode());
-                        selectedNode = getNextAliveNode();
+                        loadBalancer.markFaulty(selectedNode);
+                        selectedNode = loadBalancer.select();
                         continue;
                     }
 
-                    OperationMetrics metrics = new OperationMetrics(finalClientStats);
-                    String summary = HttpAPIClientHelper.getHeaderVal(httpResponse.getFirstHeader(ClickHouseHttpProto.HEADER_SRV_SUMMARY), "{}");
-                    ProcessParser.parseSummary(summary, metrics);
-                    String queryId =  HttpAPIClientHelper.getHeaderVal(httpResponse.getFirstHeader(ClickHouseHttpProto.HEADER_QUERY_ID), finalSettings.getQueryId(), String::valueOf);
-                    metrics.operationComplete();
-                    metrics.setQueryId(queryId);
-                    return new InsertResponse(metrics);
+                    return newInsertResponse(httpResponse, finalSettings, finalClientStats);
                 } catch (Exception e) {
                     lastException = httpClientHelper.wrapException(String.format("Insert failed (Attempt: %s/%s - Duration: %s)",
                             (i + 1), (retries + 1), System.nanoTime() - startTime), e);
                     if (httpClientHelper.shouldRetry(e, finalSettings.getAllSettings())) {
                         LOG.warn("Retrying.", e);
-                        selectedNode = getNextAliveNode();
+                        selectedNode = loadBalancer.select();
                     } else {
                         throw lastException;
                     }
@@ -1625,6 +2016,65 @@ public class Client implements AutoCloseable {
         return runAsyncOperation(responseSupplier, settings.getAllSettings());
     }
 
+    private static String insertStatement(String tableName, List<String> columnNames, ClickHouseFormat format) {
+        StringBuilder sqlStmt = new StringBuilder("INSERT INTO ").append(tableName);
+        if (columnNames != null && !columnNames.isEmpty()) {
+            sqlStmt.append(" (");
+            for (String columnName : columnNames) {
+                sqlStmt.append(columnName).append(", ");
+            }
+            sqlStmt.deleteCharAt(sqlStmt.length() - 2);
+            sqlStmt.append(")");
+        }
+        sqlStmt.append(" FORMAT ").append(format.name());
+        return sqlStmt.toString();
+    }
+
+    /**
+     * <p>Creates a writer that inserts rows directly into shards of a table. Rows are routed by the sharding key
+     * the same way as {@code Distributed} table engine does, so {@code tableName} should be the local table of
+     * the shards and the key and weights should match the {@code Distributed} table definition.</p>
+     *
+     * <p>Each shard receives rows by its own streaming insert request. Requests are not retried because streamed
+     * rows can not be resent. Use {@link ShardedInsertWriter#finish()} to complete inserts and get metrics summed over
+     * all shards. Writing fails when a shard does not take rows within the execution timeout or, if it is not set,
+     * the socket timeout.</p>
+     *
+     * @param tableName - name of the table on shards
+     * @param schema - table schema
+     * @param shardEndpoints - endpoints of shards
+     * @param weights - shard weights or {@code null} if all shards have the same weight
+     * @param shardingKey - sharding key. See {@link ShardingKey#column(TableSchema, String)} and
+     *                    {@link ShardingKey#cityHash64(TableSchema, String)}
+     * @param settings - insert operation settings applied to each shard request
+     * @return writer
+     */
+    public ShardedInsertWriter newShardedInsertWriter(String tableName, TableSchema schema, List<String> shardEndpoints,
+                                                      int[] weights, ShardingKey shardingKey, InsertSettings settings) {
+        InsertSettings baseSettings = settings == null ? new InsertSettings() : settings;
+        int chunkSize = baseSettings.getInputStreamCopyBufferSize() <= 0 ?
+                MapUtils.getInt(configuration, ClientConfigProperties.CLIENT_NETWORK_BUFFER_SIZE.getKey()) :
+                baseSettings.getInputStreamCopyBufferSize();
+        long timeoutMs = MapUtils.getLong(configuration, ClientConfigProperties.MAX_EXECUTION_TIME.getKey());
+        if (timeoutMs <= 0) {
+            timeoutMs = MapUtils.getLong(configuration, ClientConfigProperties.SOCKET_OPERATION_TIMEOUT.getKey());
+        }
+        timeoutMs = Math.max(timeoutMs, 0);
+        String sqlStmt = insertStatement(tableName, null, ShardedInsertWriter.FORMAT);
+        return new ShardedInsertWriter(schema, shardEndpoints, weights, shardingKey, chunkSize, timeoutMs, (endpoint, writer) -> {
+            InsertSettings shardSettings = new InsertSettings(baseSettings.getAllSettings());
+            shardSettings.setOption(ClientConfigProperties.INPUT_OUTPUT_FORMAT.getKey(), ShardedInsertWriter.FORMAT.name());
+            shardSettings.serverSetting(ClickHouseHttpProto.QPARAM_QUERY_STMT, sqlStmt);
+            ClientStatisticsHolder clientStats = new ClientStatisticsHolder();
+            clientStats.start(ClientMetrics.OP_DURATION);
+            return executeOnNode(endpoint, shardSettings.getAllSettings(), out -> {
+                        writer.onOutput(out);
+                        out.close();
+                    }, true, false, "Insert",
+                    httpResponse -> newInsertResponse(httpResponse, shardSettings, clientStats));
+        });
+    }
+
     /**
      * Sends SQL query to server. Default settings are applied.
      * @param sqlQuery - complete SQL query.
@@ -1694,48 +2144,61 @@ public class Client implements AutoCloseable {
                 settings.setOption("statement_params", queryParams);
             }
             final QuerySettings finalSettings = settings;
+            final IOCallback<OutputStream> bodyWriter;
+            final ExternalTablesWriter externalTablesWriter;
+            if (settings.getExternalTables().isEmpty()) {
+                externalTablesWriter = null;
+                bodyWriter = output -> {
+                    output.write(sqlQuery.getBytes(StandardCharsets.UTF_8));
+                    output.close();
+                };
+            } else {
+                // server reads multipart body before decompressing it
+                externalTablesWriter = new ExternalTablesWriter(sqlQuery, settings.getExternalTables());
+                settings.httpHeader(HttpHeaders.CONTENT_TYPE, externalTablesWriter.getContentType());
+                settings.setOption(ClientConfigProperties.COMPRESS_CLIENT_REQUEST.getKey(), false);
+                bodyWriter = externalTablesWriter::onOutput;
+            }
+            if (asyncHttpTransport) {
+                // external tables are streamed instead of being buffered
+                return executeRequestAsync(finalSettings.getAllSettings(), bodyWriter, externalTablesWriter != null,
+                        true, externalTablesWriter,
+                        httpResponse -> newQueryResponse(httpResponse, finalSettings, clientStats));
+            }
             responseSupplier = () -> {
                 long startTime = System.nanoTime();
                 // Selecting some node
-                ClickHouseNode selectedNode = getNextAliveNode();
+                LoadBalancer.NodeState selectedNode = loadBalancer.select();
                 RuntimeException lastException = null;
                 for (int i = 0; i <= retries; i++) {
+                    if (i > 0 && externalTablesWriter != null) {
+                        try {
+                            externalTablesWriter.onRetry();
+                        } catch (IOException ioe) {
+                            throw new ClientException("Failed to reset external tables before next attempt", ioe);
+                        }
+                    }
                     try {
                         ClassicHttpResponse httpResponse =
-                                httpClientHelper.executeRequest(selectedNode, finalSettings.getAllSettings(), lz4Factory, output -> {
-                                    output.write(sqlQuery.getBytes(StandardCharsets.UTF_8));
-                                    output.close();
-                                });
+                                executeRequest(selectedNode, finalSettings.getAllSettings(), bodyWriter);
 
                         // Check response
                         if (httpResponse.getCode() == HttpStatus.SC_SERVICE_UNAVAILABLE) {
                             LOG.warn("Failed to get response. Server returned {}. Retrying. (Duration: {})", System.nanoTime() - startTime, httpResponse.getCode());
-                            selectedNode = getNextAliveNode();
+                            closeResponse(httpResponse);
+                            loadBalancer.markFaulty(selectedNode);
+                            selectedNode = loadBalancer.select();
                             continue;
                         }
 
-                        OperationMetrics metrics = new OperationMetrics(clientStats);
-                        String summary = HttpAPIClientHelper.getHeaderVal(httpResponse
-                                .getFirstHeader(ClickHouseHttpProto.HEADER_SRV_SUMMARY), "{}");
-                        ProcessParser.parseSummary(summary, metrics);
-                        String queryId = HttpAPIClientHelper.getHeaderVal(httpResponse
-                                .getFirstHeader(ClickHouseHttpProto.HEADER_QUERY_ID), finalSettings.getQueryId());
-                        metrics.setQueryId(queryId);
-                        metrics.operationComplete();
-                        Header formatHeader = httpResponse.getFirstHeader(ClickHouseHttpProto.HEADER_FORMAT);
-                        ClickHouseFormat responseFormat = finalSettings.getFormat();
-                        if (formatHeader != null) {
-                            responseFormat = ClickHouseFormat.valueOf(formatHeader.getValue());
-                        }
-
-                        return new QueryResponse(httpResponse, responseFormat, finalSettings, metrics);
+                        return newQueryResponse(httpResponse, finalSettings, clientStats);
 
                     } catch (Exception e) {
                         lastException = httpClientHelper.wrapException(String.format("Query request failed (Attempt: %s/%s - Duration: %s)",
                                 (i + 1), (retries + 1), System.nanoTime() - startTime), e);
                         if (httpClientHelper.shouldRetry(e, finalSettings.getAllSettings())) {
                             LOG.warn("Retrying.", e);
-                            selectedNode = getNextAliveNode();
+                            selectedNode = loadBalancer.select();
                         } else {
                             throw lastException;
                         }
@@ -1751,6 +2214,164 @@ public class Client implements AutoCloseable {
         return query(sqlQuery, queryParams, null);
     }
 
+    /**
+     * Runs the same query on all configured endpoints concurrently.
+     *
+     * @see #queryNodes(String, Collection, QuerySettings)
+     * @param sqlQuery - complete SQL query.
+     * @param settings - query operation settings.
+     * @return {@code CompletableFuture<MultiNodeQueryResponse>} - a promise to responses of all nodes.
+     */
+    public CompletableFuture<MultiNodeQueryResponse> queryNodes(String sqlQuery, QuerySettings settings) {
+        return queryNodes(sqlQuery, endpoints, settings);
+    }
+
+    /**
+     * <p>Runs the same query on each of the endpoints concurrently. Each node gets exactly one request: the load
+     * balancer is not used to select nodes and failed requests are not retried on other nodes. Endpoints that are
+     * configured for the client share their node statistics with other operations; other endpoints are queried
+     * with the client configuration.</p>
+     *
+     * <p>Responses are always requested in {@link ClickHouseFormat#Native} format so they can be read as a single
+     * stream with {@link #newBinaryFormatReader(MultiNodeQueryResponse)}. A node failure does not fail the operation:
+     * the error is returned in {@link MultiNodeQueryResponse#getFailures()}. Returned future is completed
+     * exceptionally only when the query failed on every node.</p>
+     *
+     * @param sqlQuery - complete SQL query.
+     * @param nodeEndpoints - endpoints to run the query on.
+     * @param settings - query operation settings. Format is ignored.
+     * @return {@code CompletableFuture<MultiNodeQueryResponse>} - a promise to responses of all nodes.
+     */
+    public CompletableFuture<MultiNodeQueryResponse> queryNodes(String sqlQuery, Collection<String> nodeEndpoints,
+                                                                QuerySettings settings) {
+        if (nodeEndpoints == null || nodeEndpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint is required");
+        }
+        List<String> targets = new ArrayList<>(new LinkedHashSet<>(nodeEndpoints));
+        List<CompletableFuture<QueryResponse>> futures = new ArrayList<>(targets.size());
+        for (String endpoint : targets) {
+            QuerySettings nodeSettings = QuerySettings.merge(settings, null);
+            nodeSettings.setFormat(ClickHouseFormat.Native);
+            applyDefaults(nodeSettings);
+            CompletableFuture<QueryResponse> future;
+            try {
+                future = queryNode(sqlQuery, endpoint, nodeSettings);
+            } catch (Exception e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            futures.add(future);
+        }
+
+        return CompletableFuture.allOf(futures.stream()
+                        .map(f -> f.handle((r, e) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<MultiNodeQueryResponse.NodeResponse> nodeResponses = new ArrayList<>(targets.size());
+                    ClientException error = null;
+                    int failures = 0;
+                    for (int i = 0; i < targets.size(); i++) {
+                        QueryResponse response = null;
+                        Throwable failure = null;
+                        try {
+                            response = futures.get(i).join();
+                        } catch (CompletionException e) {
+                            failure = e.getCause() == null ? e : e.getCause();
+                            failures++;
+                            if (error == null) {
+                                error = new ClientException("Query failed on all nodes", failure);
+                            } else {
+                                error.addSuppressed(failure);
+                            }
+                            LOG.warn("Query failed on node '{}'", targets.get(i), failure);
+                        }
+                        nodeResponses.add(new MultiNodeQueryResponse.NodeResponse(targets.get(i), response, failure));
+                    }
+                    if (failures == targets.size()) {
+                        throw error;
+                    }
+                    return new MultiNodeQueryResponse(nodeResponses);
+                });
+    }
+
+    private CompletableFuture<QueryResponse> queryNode(String sqlQuery, String endpoint, QuerySettings settings) {
+        ClientStatisticsHolder clientStats = new ClientStatisticsHolder();
+        clientStats.start(ClientMetrics.OP_DURATION);
+        return executeOnNode(endpoint, settings.getAllSettings(), output -> {
+                    output.write(sqlQuery.getBytes(StandardCharsets.UTF_8));
+                    output.close();
+                }, false, true, "Query", httpResponse -> newQueryResponse(httpResponse, settings, clientStats));
+    }
+
+    /**
+     * Sends a single request to the given endpoint without retries. Node statistics are updated when the endpoint
+     * is one of configured ones. Blocking requests run on the shared operation executor if there is one.
+     */
+    private <T> CompletableFuture<T> executeOnNode(String endpoint, Map<String, Object> requestSettings,
+                                                   IOCallback<OutputStream> writer, boolean streamBody,
+                                                   boolean streamResponse, String operation,
+                                                   Function<ClassicHttpResponse, T> responseHandler) {
+        ClickHouseNode server = ClickHouseNode.of(endpoint, configuration);
+        LoadBalancer.NodeState nodeState = null;
+        for (LoadBalancer.NodeState state : loadBalancer.getNodes()) {
+            if (state.getNode().getBaseUri().equals(server.getBaseUri())) {
+                nodeState = state;
+                break;
+            }
+        }
+        final LoadBalancer.NodeState node = nodeState;
+
+        if (asyncHttpTransport) {
+            long startTime = node == null ? 0 : node.requestStarted();
+            return httpClientHelper.executeRequestAsync(server, requestSettings, lz4Factory, writer,
+                    streamBody ? sharedOperationExecutor : null, streamResponse).handle((httpResponse, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (node != null) {
+                        node.requestFinished(startTime);
+                        loadBalancer.onFailure(node, cause);
+                    }
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause
+                            : new ClientException(operation + " request to '" + endpoint + "' failed", cause);
+                }
+                if (node != null) {
+                    finishOnClose(httpResponse, node, startTime);
+                }
+                try {
+                    return responseHandler.apply(httpResponse);
+                } finally {
+                    if (!streamResponse) {
+                        closeResponse(httpResponse);
+                    }
+                }
+            });
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            ClassicHttpResponse httpResponse = null;
+            try {
+                httpResponse = node == null
+                        ? httpClientHelper.executeRequest(server, requestSettings, lz4Factory, writer)
+                        : executeRequest(node, requestSettings, writer);
+                return responseHandler.apply(httpResponse);
+            } catch (Exception e) {
+                throw httpClientHelper.wrapException(operation + " request to '" + endpoint + "' failed", e);
+            } finally {
+                if (httpResponse != null && !streamResponse) {
+                    closeResponse(httpResponse);
+                }
+            }
+        }, sharedOperationExecutor == null ? getFanOutExecutor() : sharedOperationExecutor);
+    }
+
+    private synchronized ExecutorService getFanOutExecutor() {
+        if (fanOutExecutor == null) {
+            fanOutExecutor = Executors.newCachedThreadPool(new DefaultThreadFactory("chc-fan-out", true));
+        }
+        return fanOutExecutor;
+    }
+
     /**
      * <p>Queries data in one of descriptive format and creates a reader out of the response stream.</p>
      * <p>Format is selected internally so is ignored when passed in settings. If query contains format
@@ -1873,6 +2494,9 @@ public class Client implements AutoCloseable {
      * <p>Internally deserializer is compiled at the register stage. Compilation is done using ASM library by
      *  writing a bytecode</p>
      * <p>Note: this method will cache schema and it will use sql as a key for storage.</p>
+     * <p>Columns without a setter are skipped without decoding. If none of the result columns has a setter
+     *  the method fails. With {@link Builder#usePOJOQueryProjection(boolean)} a query {@code SELECT * FROM ...}
+     *  is sent with the list of columns having setters instead of {@code *}.</p>
      *
      *
      * @param sqlQuery - query to execute
@@ -1891,6 +2515,10 @@ public class Client implements AutoCloseable {
             throw new IllegalArgumentException("No deserializers found for the query and class '" + clazz + "'. Did you forget to register it?");
         }
 
+        if (MapUtils.getFlag(configuration, ClientConfigProperties.POJO_QUERY_PROJECTION.getKey(), false)) {
+            sqlQuery = projectPOJOColumns(sqlQuery, schema, classDeserializers);
+        }
+
         try {
             int operationTimeout = getOperationTimeout();
             QuerySettings settings = new QuerySettings().setFormat(ClickHouseFormat.RowBinaryWithNamesAndTypes);
@@ -1899,6 +2527,7 @@ public class Client implements AutoCloseable {
                 List<T> records = new ArrayList<>();
                 RowBinaryWithNamesAndTypesFormatReader reader =
                         (RowBinaryWithNamesAndTypesFormatReader) newBinaryFormatReader(response);
+                validatePOJOColumns(reader.getSchema(), clazz, classDeserializers);
 
                 while (true) {
 
@@ -1924,6 +2553,49 @@ public class Client implements AutoCloseable {
         }
     }
 
+    private static final Pattern SELECT_ALL_COLUMNS = Pattern.compile("(?is)^(\\s*SELECT\\s+)\\*(\\s+FROM\\s.*)$");
+
+    /**
+     * Replaces {@code *} of {@code SELECT * FROM} with columns of the schema that have setters.
+     */
+    private static String projectPOJOColumns(String sqlQuery, TableSchema schema, Map<String, POJOSetter> setters) {
+        Matcher matcher = SELECT_ALL_COLUMNS.matcher(sqlQuery);
+        if (!matcher.matches()) {
+            return sqlQuery;
+        }
+        StringBuilder columns = new StringBuilder();
+        for (ClickHouseColumn column : schema.getColumns()) {
+            if (setters.containsKey(column.getColumnName())) {
+                if (columns.length() > 0) {
+                    columns.append(", ");
+                }
+                columns.append('`').append(column.getColumnName().replace("`", "\\`")).append('`');
+            }
+        }
+        if (columns.length() == 0) {
+            return sqlQuery;
+        }
+        return matcher.group(1) + columns + matcher.group(2);
+    }
+
+    private static void validatePOJOColumns(TableSchema resultSchema, Class<?> clazz, Map<String, POJOSetter> setters) {
+        if (resultSchema == null || resultSchema.getColumns().isEmpty()) {
+            return;
+        }
+        List<String> skipped = new ArrayList<>();
+        for (ClickHouseColumn column : resultSchema.getColumns()) {
+            if (!setters.containsKey(column.getColumnName())) {
+                skipped.add(column.getColumnName());
+            }
+        }
+        if (skipped.size() == resultSchema.getColumns().size()) {
+            throw new ClientException("None of the result columns " + skipped + " has a setter in class '"
+                    + clazz.getName() + "'");
+        } else if (!skipped.isEmpty()) {
+            LOG.debug("Columns {} have no setter in class '{}' and will be skipped", skipped, clazz.getName());
+        }
+    }
+
     /**
      * <p>Fetches schema of a table and returns complete information about each column.
      * Information includes column name, type, default value, etc.</p>
@@ -1948,6 +2620,9 @@ public class Client implements AutoCloseable {
      */
     public TableSchema getTableSchema(String table, String database) {
         final String sql = "DESCRIBE TABLE " + table + " FORMAT " + ClickHouseFormat.TSKV.name();
+        if (schemaCache != null) {
+            return schemaCache.get(database, table, () -> getTableSchemaImpl(sql, table, null, database, null));
+        }
         return getTableSchemaImpl(sql, table, null, database, null);
     }
 
@@ -1962,7 +2637,34 @@ public class Client implements AutoCloseable {
 
     public TableSchema getTableSchemaFromQuery(String sql, Map<String, Object> params) {
         final String describeQuery = "DESC (" + sql + ") FORMAT " + ClickHouseFormat.TSKV.name();
-        return getTableSchemaImpl(describeQuery, null, sql, getDefaultDatabase(), params);
+        final String database = getDefaultDatabase();
+        if (schemaCache != null && (params == null || params.isEmpty())) {
+            // schema of a query with parameters may depend on parameter values
+            return schemaCache.get(database, sql, () -> getTableSchemaImpl(describeQuery, null, sql, database, null));
+        }
+        return getTableSchemaImpl(describeQuery, null, sql, database, params);
+    }
+
+    /**
+     * Removes cached schema of a table. Should be called when the table is altered and cache is enabled
+     * by {@link Builder#setSchemaCacheTTL(long, ChronoUnit)}. Does nothing if cache is disabled.
+     *
+     * @param table - table name or query passed to {@link #getTableSchemaFromQuery(String)}
+     * @param database - database name
+     */
+    public void invalidateTableSchema(String table, String database) {
+        if (schemaCache != null) {
+            schemaCache.invalidate(database, table);
+        }
+    }
+
+    /**
+     * Removes all cached schemas. Does nothing if cache is disabled.
+     */
+    public void invalidateTableSchemas() {
+        if (schemaCache != null) {
+            schemaCache.invalidateAll();
+        }
     }
 
     private TableSchema getTableSchemaImpl(
@@ -2071,11 +2773,7 @@ public class Client implements AutoCloseable {
      */
     public ClickHouseBinaryFormatReader newBinaryFormatReader(QueryResponse response, TableSchema schema) {
         ClickHouseBinaryFormatReader reader = null;
-        // Using caching buffer allocator is risky so this parameter is not exposed to the user
-        boolean useCachingBufferAllocator = MapUtils.getFlag(configuration, "client_allow_binary_reader_to_reuse_buffers");
-        BinaryStreamReader.ByteBufferAllocator byteBufferPool = useCachingBufferAllocator ?
-                new BinaryStreamReader.CachingByteBufferAllocator() :
-                new BinaryStreamReader.DefaultByteBufferAllocator();
+        BinaryStreamReader.ByteBufferAllocator byteBufferPool = newByteBufferAllocator();
 
         switch (response.getFormat()) {
             case Native:
@@ -2104,6 +2802,26 @@ public class Client implements AutoCloseable {
         return  newBinaryFormatReader(response, null);
     }
 
+    /**
+     * Creates a reader of data returned by all successful nodes. Rows are read node by node in the order of endpoints.
+     *
+     * @param response - response of {@link #queryNodes(String, Collection, QuerySettings)}
+     * @return reader of all rows
+     */
+    public ClickHouseBinaryFormatReader newBinaryFormatReader(MultiNodeQueryResponse response) {
+        List<QueryResponse> responses = response.getResponses();
+        QuerySettings settings = responses.isEmpty() ? new QuerySettings() : responses.get(0).getSettings();
+        return new NativeFormatReader(response.getInputStream(), settings, newByteBufferAllocator());
+    }
+
+    private BinaryStreamReader.ByteBufferAllocator newByteBufferAllocator() {
+        // Using caching buffer allocator is risky so this parameter is not exposed to the user
+        boolean useCachingBufferAllocator = MapUtils.getFlag(configuration, "client_allow_binary_reader_to_reuse_buffers");
+        return useCachingBufferAllocator ?
+                new BinaryStreamReader.CachingByteBufferAllocator() :
+                new BinaryStreamReader.DefaultByteBufferAllocator();
+    }
+
     private String registerOperationMetrics() {
         String operationId = UUID.randomUUID().toString();
         globalClientStats.put(operationId, new ClientStatisticsHolder());
@@ -2210,8 +2928,162 @@ public class Client implements AutoCloseable {
         this.configuration.put(ClientConfigProperties.httpHeader(HttpHeaders.AUTHORIZATION), "Bearer " + bearer);
     }
 
-    private ClickHouseNode getNextAliveNode() {
-        return serverNodes.get(0);
+    /**
+     * Sends request to a node and updates node load statistics. Request stays outstanding until the response
+     * is closed.
+     */
+    private ClassicHttpResponse executeRequest(LoadBalancer.NodeState node, Map<String, Object> requestSettings,
+                                               IOCallback<OutputStream> writer) throws IOException {
+        long startTime = node.requestStarted();
+        ClassicHttpResponse httpResponse;
+        try {
+            httpResponse = httpClientHelper.executeRequest(node.getNode(), requestSettings, lz4Factory, writer);
+        } catch (Exception e) {
+            node.requestFinished(startTime);
+            loadBalancer.onFailure(node, e);
+            throw e;
+        }
+        finishOnClose(httpResponse, node, startTime);
+        return httpResponse;
+    }
+
+    /**
+     * Makes the response report request completion to the node when it is closed, so outstanding requests
+     * and latency include reading of the response body.
+     */
+    private static void finishOnClose(ClassicHttpResponse httpResponse, LoadBalancer.NodeState node,
+                                      long startTime) {
+        HttpEntity entity = httpResponse.getEntity();
+        if (entity == null) {
+            node.requestFinished(startTime);
+        } else {
+            httpResponse.setEntity(new RequestTrackingEntity(entity, () -> node.requestFinished(startTime)));
+        }
+    }
+
+    private QueryResponse newQueryResponse(ClassicHttpResponse httpResponse, QuerySettings settings,
+                                           ClientStatisticsHolder clientStats) {
+        OperationMetrics metrics = new OperationMetrics(clientStats);
+        String summary = HttpAPIClientHelper.getHeaderVal(httpResponse
+                .getFirstHeader(ClickHouseHttpProto.HEADER_SRV_SUMMARY), "{}");
+        ProcessParser.parseSummary(summary, metrics);
+        String queryId = HttpAPIClientHelper.getHeaderVal(httpResponse
+                .getFirstHeader(ClickHouseHttpProto.HEADER_QUERY_ID), settings.getQueryId());
+        metrics.setQueryId(queryId);
+        metrics.operationComplete();
+        Header formatHeader = httpResponse.getFirstHeader(ClickHouseHttpProto.HEADER_FORMAT);
+        ClickHouseFormat responseFormat = settings.getFormat();
+        if (formatHeader != null) {
+            responseFormat = ClickHouseFormat.valueOf(formatHeader.getValue());
+        }
+
+        if (prefetchExecutor != null && httpResponse.getEntity() != null) {
+            httpResponse.setEntity(new PrefetchEntity(httpResponse.getEntity(), prefetchExecutor,
+                    MapUtils.getInt(configuration, ClientConfigProperties.CLIENT_NETWORK_BUFFER_SIZE.getKey()),
+                    MapUtils.getInt(configuration, ClientConfigProperties.RESPONSE_PREFETCH_BUFFER_SIZE.getKey()),
+                    metrics));
+        }
+
+        return new QueryResponse(httpResponse, responseFormat, settings, metrics);
+    }
+
+    private InsertResponse newInsertResponse(ClassicHttpResponse httpResponse, InsertSettings settings,
+                                             ClientStatisticsHolder clientStats) {
+        OperationMetrics metrics = new OperationMetrics(clientStats);
+        String summary = HttpAPIClientHelper.getHeaderVal(httpResponse.getFirstHeader(ClickHouseHttpProto.HEADER_SRV_SUMMARY), "{}");
+        ProcessParser.parseSummary(summary, metrics);
+        String queryId =  HttpAPIClientHelper.getHeaderVal(httpResponse.getFirstHeader(ClickHouseHttpProto.HEADER_QUERY_ID), settings.getQueryId(), String::valueOf);
+        metrics.operationComplete();
+        metrics.setQueryId(queryId);
+        return new InsertResponse(metrics);
+    }
+
+    /**
+     * Sends request with non-blocking transport. Failed requests are retried the same way as blocking ones.
+     *
+     * @param requestSettings - request settings
+     * @param bodyWriter - writes request body
+     * @param streamBody - if body is written while request is sent. Otherwise, body is written to memory first.
+     * @param streamResponse - if response body is streamed. Otherwise, the whole response is received first.
+     * @param retryListener - notified before request is retried. Can be {@code null}.
+     * @param responseHandler - converts response to a result. Called by an I/O thread so should not block.
+     *                        Response is closed after the call if it is not streamed.
+     * @return future of the result
+     */
+    private <T> CompletableFuture<T> executeRequestAsync(Map<String, Object> requestSettings,
+                                                         IOCallback<OutputStream> bodyWriter, boolean streamBody,
+                                                         boolean streamResponse, DataStreamWriter retryListener,
+                                                         Function<ClassicHttpResponse, T> responseHandler) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executeRequestAsync(requestSettings, bodyWriter, streamBody, streamResponse, retryListener, responseHandler,
+                result, loadBalancer.select(), 0, System.nanoTime());
+        return result;
+    }
+
+    private <T> void executeRequestAsync(Map<String, Object> requestSettings, IOCallback<OutputStream> bodyWriter,
+                                         boolean streamBody, boolean streamResponse, DataStreamWriter retryListener,
+                                         Function<ClassicHttpResponse, T> responseHandler, CompletableFuture<T> result,
+                                         LoadBalancer.NodeState node, int attempt, long startTime) {
+        long requestStartTime = node.requestStarted();
+        httpClientHelper.executeRequestAsync(node.getNode(), requestSettings, lz4Factory, bodyWriter,
+                streamBody ? sharedOperationExecutor : null, streamResponse).whenComplete((httpResponse, error) -> {
+            if (error == null) {
+                finishOnClose(httpResponse, node, requestStartTime);
+                try {
+                    T value = responseHandler.apply(httpResponse);
+                    if (!streamResponse) {
+                        // response is already received completely
+                        closeResponse(httpResponse);
+                    }
+                    result.complete(value);
+                } catch (Exception e) {
+                    closeResponse(httpResponse);
+                    result.completeExceptionally(e);
+                }
+                return;
+            }
+
+            node.requestFinished(requestStartTime);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof Exception)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            loadBalancer.onFailure(node, cause);
+            RuntimeException wrapped = httpClientHelper.wrapException(String.format("Request failed (Attempt: %s/%s - Duration: %s)",
+                    (attempt + 1), (retries + 1), System.nanoTime() - startTime), (Exception) cause);
+            if (attempt >= retries || !httpClientHelper.shouldRetry(cause, requestSettings)) {
+                result.completeExceptionally(wrapped);
+                return;
+            }
+
+            LOG.warn("Retrying.", cause);
+            if (retryListener != null) {
+                try {
+                    retryListener.onRetry();
+                } catch (IOException ioe) {
+                    result.completeExceptionally(new ClientException("Failed to reset stream before next attempt", ioe));
+                    return;
+                }
+            }
+            executeRequestAsync(requestSettings, bodyWriter, streamBody, streamResponse, retryListener,
+                    responseHandler, result, loadBalancer.select(), attempt + 1, startTime);
+        });
+    }
+
+    private static void closeResponse(ClassicHttpResponse httpResponse) {
+        try {
+            httpResponse.close();
+        } catch (IOException e) {
+            LOG.debug("Failed to close response", e);
+        }
+    }
+
+    /**
+     * Checks if node is alive. Used by load balancer to check nodes in background.
+     */
+    private boolean checkNode(ClickHouseNode node) {
+        return httpClientHelper.ping(node, getOperationTimeout());
     }
 
     public static final String VALUES_LIST_DELIMITER = ",";
@@ -40,12 +40,37 @@ public enum ClientConfigProperties {
 
     ASYNC_OPERATIONS("async"),
 
+    /**
+     * Use non-blocking HTTP transport. Requests do not occupy a thread while waiting for a response.
+     */
+    ASYNC_HTTP_TRANSPORT("async_http_transport", "false"),
+
+    /**
+     * Run async operations in virtual threads (Java 21+) instead of a thread pool.
+     */
+    USE_VIRTUAL_THREADS("use_virtual_threads", "false"),
+
     CONNECTION_TTL("connection_ttl"),
 
     CONNECTION_TIMEOUT("connection_timeout"),
 
     CONNECTION_REUSE_STRATEGY("connection_reuse_strategy"),
 
+    /**
+     * How an endpoint is selected for a request. See {@link LoadBalancingPolicy}.
+     */
+    LOAD_BALANCING_POLICY("client_load_balancing_policy", LoadBalancingPolicy.FIRST_ALIVE.name()),
+
+    /**
+     * Interval in milliseconds to check endpoints that are marked faulty.
+     */
+    NODE_CHECK_INTERVAL("client_node_check_interval", "5000"),
+
+    /**
+     * Interval in milliseconds to check all endpoints in background. Zero disables the checks.
+     */
+    HEALTH_CHECK_INTERVAL("client_health_check_interval", "0"),
+
     SOCKET_OPERATION_TIMEOUT("socket_timeout"),
 
     SOCKET_RCVBUF_OPT("socket_rcvbuf"),
@@ -72,6 +97,28 @@ public enum ClientConfigProperties {
 
     DISABLE_NATIVE_COMPRESSION("disable_native_compression", "false"),
 
+    /**
+     * Number of threads compressing request data in parallel. {@code 0} - data is compressed by the thread writing it.
+     */
+    COMPRESSION_THREADS("compression.threads", "0"),
+
+    /**
+     * Maximum number of bytes of a query response read ahead in background. {@code 0} - response is read
+     * by the thread consuming it.
+     */
+    RESPONSE_PREFETCH_BUFFER_SIZE("response_prefetch_buffer_size", "0"),
+
+    /**
+     * Compression method for request and response data: {@code LZ4}, {@code ZSTD} or {@code NONE}.
+     * {@code NONE} turns compression off.
+     */
+    COMPRESSION_METHOD("compression.method", "LZ4"),
+
+    /**
+     * Compression level used when compression method is {@code ZSTD}.
+     */
+    COMPRESSION_ZSTD_LEVEL("compression.zstd.level", "3"),
+
     PROXY_TYPE("proxy_type"), // "http"
 
     PROXY_HOST("proxy_host"),
@@ -133,6 +180,26 @@ public enum ClientConfigProperties {
      *
      */
     METRICS_GROUP_NAME("metrics_name"),
+
+    /**
+     * Time to live of cached table schemas in milliseconds. {@code 0} - schemas are not cached.
+     */
+    SCHEMA_CACHE_TTL("schema_cache_ttl", "0"),
+
+    /**
+     * Maximum number of cached table schemas.
+     */
+    SCHEMA_CACHE_SIZE("schema_cache_size", "1000"),
+
+    /**
+     * Reload cached schemas in background before they expire.
+     */
+    SCHEMA_CACHE_REFRESH_AHEAD("schema_cache_refresh_ahead", "false"),
+
+    /**
+     * Replace {@code *} in {@code SELECT * FROM} queries read into POJOs with columns having setters.
+     */
+    POJO_QUERY_PROJECTION("pojo_query_projection", "false"),
     ;
 
     private String key;
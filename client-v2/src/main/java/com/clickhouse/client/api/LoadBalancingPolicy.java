@@ -0,0 +1,35 @@
+package com.clickhouse.client.api;
+
+/**
+ * Defines how a client selects an endpoint for a request when multiple endpoints are configured.
+ * Endpoints that failed with a connection error are skipped until a background check finds them alive again.
+ */
+public enum LoadBalancingPolicy {
+
+    /**
+     * Use the first alive endpoint in the order they were added. Other endpoints are used only for failover.
+     */
+    FIRST_ALIVE,
+
+    /**
+     * Use alive endpoints one after another.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Use a random alive endpoint.
+     */
+    RANDOM,
+
+    /**
+     * Use an alive endpoint with the least number of requests in progress.
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * Use an alive endpoint with the lowest exponentially weighted moving average of response time
+     * multiplied by the number of requests in progress.
+     */
+    LATENCY_EWMA
+    ;
+}
@@ -57,6 +57,16 @@ public interface ClickHouseBinaryFormatReader extends AutoCloseable {
      */
     Map<String, Object> next();
 
+    /**
+     * Moves cursor to the next row without creating a record representation. Values of the current row are
+     * accessed with getters of this reader. Numeric columns are read into primitive slots, so
+     * {@link #getLong(int)} and {@link #getDouble(int)} do not box values.
+     * Method should not be mixed with {@link #next()}.
+     *
+     * @return true if cursor points to a row, false if no more records are available
+     */
+    boolean advance();
+
     /**
      * Reads column with name `colName` as a string.
      *
@@ -97,6 +107,17 @@ public interface ClickHouseBinaryFormatReader extends AutoCloseable {
      */
     long getLong(String colName);
 
+    /**
+     * Reads column with name `colName` as a long. Unlike {@link #getLong(String)} values of UInt64 column
+     * are returned as raw 64 bits without overflow check, so result should be treated as an unsigned value
+     * (see {@link Long#toUnsignedString(long)}, {@link Long#compareUnsigned(long, long)}).
+     * This allows to read UInt64 values without creating {@link BigInteger} objects.
+     *
+     * @param colName - column name
+     * @return
+     */
+    long getUnsignedLong(String colName);
+
     /**
      * Reads column with name `colName` as a float.
      * Warning: this method may lose precision for float values.
@@ -328,6 +349,14 @@ public interface ClickHouseBinaryFormatReader extends AutoCloseable {
      */
     long getLong(int index);
 
+    /**
+     * Reads column with index `index` as a long. See {@link #getUnsignedLong(String)}.
+     *
+     * @param index - column index starting from 1
+     * @return
+     */
+    long getUnsignedLong(int index);
+
     /**
      * Reads column with name `colName` as a float.
      * Warning: this method may lose precision for float values.
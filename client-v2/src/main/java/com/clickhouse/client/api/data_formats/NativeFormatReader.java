@@ -3,15 +3,13 @@ package com.clickhouse.client.api.data_formats;
 import com.clickhouse.client.api.ClientException;
 import com.clickhouse.client.api.data_formats.internal.AbstractBinaryFormatReader;
 import com.clickhouse.client.api.data_formats.internal.BinaryStreamReader;
+import com.clickhouse.client.api.data_formats.internal.NativeBlock;
 import com.clickhouse.client.api.metadata.TableSchema;
 import com.clickhouse.client.api.query.QuerySettings;
-import com.clickhouse.data.ClickHouseColumn;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,13 +19,16 @@ import java.util.Map;
  */
 public class NativeFormatReader extends AbstractBinaryFormatReader {
 
-    private Block currentBlock;
+    private final NativeBlock currentBlock;
 
     private int blockRowIndex;
 
+    private boolean blockConsumed;
+
     public NativeFormatReader(InputStream inputStream, QuerySettings settings,
                               BinaryStreamReader.ByteBufferAllocator byteBufferAllocator) {
         super(inputStream, settings, null, byteBufferAllocator);
+        this.currentBlock = new NativeBlock(binaryStreamReader);
         try {
             readBlock();
         } catch (IOException e) {
@@ -37,7 +38,8 @@ public class NativeFormatReader extends AbstractBinaryFormatReader {
 
     @Override
     public boolean readRecord(Map<String, Object> record) throws IOException {
-        if (blockRowIndex >= currentBlock.getnRows()) {
+        // blocks without rows may appear in the middle of a stream, e.g. when responses are concatenated
+        while (blockRowIndex >= currentBlock.getRowCount()) {
             if (!readBlock()) {
                 return false;
             }
@@ -50,7 +52,8 @@ public class NativeFormatReader extends AbstractBinaryFormatReader {
 
     @Override
     protected boolean readRecord(Object[] record) throws IOException {
-        if (blockRowIndex >= currentBlock.getnRows()) {
+        // blocks without rows may appear in the middle of a stream, e.g. when responses are concatenated
+        while (blockRowIndex >= currentBlock.getRowCount()) {
             if (!readBlock()) {
                 return false;
             }
@@ -61,6 +64,32 @@ public class NativeFormatReader extends AbstractBinaryFormatReader {
         return true;
     }
 
+    /**
+     * Returns next block of data. Values are stored column by column in primitive arrays where possible
+     * so data can be processed without boxing either by column ({@link NativeBlock#getColumn(int)}) or
+     * by row using block cursor ({@link NativeBlock#next()}).
+     * Returned object is reused to read next block.
+     * This method should not be mixed with row-oriented methods like {@link #next()}.
+     *
+     * @return next block or null if no more data
+     */
+    public NativeBlock nextBlock() {
+        try {
+            if (blockConsumed || blockRowIndex > 0) {
+                if (!readBlock()) {
+                    return null;
+                }
+            } else if (currentBlock.getSchema() == null) {
+                return null; // empty response
+            }
+            blockConsumed = true;
+            blockRowIndex = currentBlock.getRowCount();
+            return currentBlock;
+        } catch (IOException e) {
+            throw new ClientException("Failed to read block", e);
+        }
+    }
+
     private boolean readBlock() throws IOException {
         int nColumns;
         try {
@@ -71,77 +100,14 @@ public class NativeFormatReader extends AbstractBinaryFormatReader {
         }
         int nRows = BinaryStreamReader.readVarInt(input);
 
-        List<String> names = new ArrayList<>(nColumns);
-        List<String> types = new ArrayList<>(nColumns);
-        currentBlock = new Block(names, types, nRows);
-        List<ClickHouseColumn> columns = new ArrayList<>(nColumns);
-        for (int i = 0; i < nColumns; i++) {
-
-            ClickHouseColumn column = ClickHouseColumn.of(BinaryStreamReader.readString(input),
-                    BinaryStreamReader.readString(input));
-            columns.add(column);
-
-            names.add(column.getColumnName());
-            types.add(column.getDataType().name());
-
-            List<Object> values = new ArrayList<>(nRows);
-            if (column.isArray()) {
-                int[] sizes = new int[nRows];
-                for (int j = 0; j < nRows; j++) {
-                    sizes[j] = Math.toIntExact(binaryStreamReader.readLongLE());
-                }
-                for (int j = 0; j < nRows; j++) {
-                    values.add(binaryStreamReader.readArrayItem(column.getNestedColumns().get(0), sizes[0]));
-                }
-            } else {
-                for (int j = 0; j < nRows; j++) {
-                    Object value = binaryStreamReader.readValue(column);
-                    values.add(value);
-                }
-            }
-            currentBlock.add(values);
+        TableSchema prevSchema = currentBlock.getSchema();
+        currentBlock.read(input, nColumns, nRows);
+        if (currentBlock.getSchema() != prevSchema) {
+            setSchema(currentBlock.getSchema());
         }
-        TableSchema schema = new TableSchema(columns);
-
-        setSchema(schema);
 
         blockRowIndex = 0;
+        blockConsumed = false;
         return true;
     }
-
-    private static class Block {
-        final List<String> names;
-        final List<String> types;
-
-        final List<List<Object>> values = new ArrayList<>();
-        final int nRows;
-
-        Block(List<String> names, List<String> types, int nRows) {
-            this.names = names;
-            this.types = types;
-            this.nRows = nRows;
-        }
-
-        public void add(List<Object> values) {
-            this.values.add(values);
-        }
-
-        public int getnRows() {
-            return nRows;
-        }
-
-        private void fillRecord(int index, Object[] record) {
-            for (int i = 0; i < names.size(); i++) {
-                record[i] = values.get(i).get(index);
-            }
-        }
-
-        private void fillRecord(int index, Map<String, Object> record) {
-            int colIndex = 0;
-            for (String name : names) {
-                record.put(name, values.get(colIndex).get(index));
-                colIndex++;
-            }
-        }
-    }
 }
@@ -0,0 +1,270 @@
+package com.clickhouse.client.api.data_formats;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.data_formats.internal.ColumnBuffer;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.format.BinaryStreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is intended to help writing data in Native format. Unlike {@link RowBinaryFormatWriter} values
+ * are not written row by row but collected per column: numbers, dates and times are kept in primitive arrays
+ * and strings in a single byte array, so appending a value does not allocate an object. Columns are written
+ * as a block when the block has {@code maxBlockRows} rows or takes about {@code maxBlockBytes} bytes, and
+ * by {@link #flush()}.
+ * <p>
+ * Values are appended to the current row with {@code append} methods and the row is completed
+ * by {@link #commitRow()}. Column indexes start from 1. A column which value is not set is written as {@code NULL}
+ * if it is nullable. A value that fails to append is not added, even partially, so the column can be set again.
+ * {@code LowCardinality} columns are written as columns of the nested type, the server converts them when
+ * inserting. Variant, Dynamic, JSON, geo and aggregate function types are not supported.
+ * </p>
+ * <pre>{@code
+ * client.insert("events", out -> {
+ *     NativeFormatWriter writer = new NativeFormatWriter(out, schema);
+ *     for (Event e : events) {
+ *         writer.append(1, e.id);
+ *         writer.append(2, e.name);
+ *         writer.append(3, e.value);
+ *         writer.commitRow();
+ *     }
+ *     writer.flush();
+ * }, ClickHouseFormat.Native, new InsertSettings()).get();
+ * }</pre>
+ * <p>
+ * Experimental API
+ */
+public class NativeFormatWriter {
+
+    public static final int DEFAULT_MAX_BLOCK_ROWS = 65536;
+
+    public static final long DEFAULT_MAX_BLOCK_BYTES = 16 * 1024 * 1024;
+
+    private final OutputStream out;
+
+    private final TableSchema tableSchema;
+
+    private final String[] typeNames;
+
+    private final ColumnBuffer[] columns;
+
+    private final boolean[] rowValues;
+
+    private final int maxBlockRows;
+
+    private final long maxBlockBytes;
+
+    private int rows;
+
+    public NativeFormatWriter(OutputStream out, TableSchema tableSchema) {
+        this(out, tableSchema, DEFAULT_MAX_BLOCK_ROWS, DEFAULT_MAX_BLOCK_BYTES);
+    }
+
+    /**
+     * Creates writer.
+     *
+     * @param out - output stream
+     * @param tableSchema - columns to write
+     * @param maxBlockRows - number of rows after which a block is written
+     * @param maxBlockBytes - approximate size of columns after which a block is written
+     */
+    public NativeFormatWriter(OutputStream out, TableSchema tableSchema, int maxBlockRows, long maxBlockBytes) {
+        if (maxBlockRows < 1 || maxBlockBytes < 1) {
+            throw new IllegalArgumentException("Block limits should be positive");
+        }
+        this.out = out;
+        this.tableSchema = tableSchema;
+        this.maxBlockRows = maxBlockRows;
+        this.maxBlockBytes = maxBlockBytes;
+
+        List<ClickHouseColumn> columnList = tableSchema.getColumns();
+        this.typeNames = new String[columnList.size()];
+        this.columns = new ColumnBuffer[columnList.size()];
+        this.rowValues = new boolean[columnList.size()];
+        for (int i = 0; i < columns.length; i++) {
+            ClickHouseColumn column = columnList.get(i);
+            String typeName = stripLowCardinality(column.getOriginalTypeName());
+            if (!typeName.equals(column.getOriginalTypeName())) {
+                column = ClickHouseColumn.of(column.getColumnName(), typeName);
+            }
+            typeNames[i] = typeName;
+            columns[i] = ColumnBuffer.of(column);
+        }
+    }
+
+    public void append(String column, long value) {
+        append(tableSchema.nameToColumnIndex(column), value);
+    }
+
+    /**
+     * Appends an integer value. Values of date, time and interval columns are in units of the column, like
+     * days for {@code Date}. A value of a decimal column is an integer number and is scaled like a {@code Long}
+     * passed to {@link #append(int, Object)}: {@code 5} is written into {@code Decimal64(2)} as {@code 5.00}.
+     *
+     * @param colIndex - column index starting from 1
+     * @param value - value
+     */
+    public void append(int colIndex, long value) {
+        column(colIndex).append(value);
+        rowValues[colIndex - 1] = true;
+    }
+
+    public void append(String column, double value) {
+        append(tableSchema.nameToColumnIndex(column), value);
+    }
+
+    public void append(int colIndex, double value) {
+        column(colIndex).append(value);
+        rowValues[colIndex - 1] = true;
+    }
+
+    public void append(String column, String value) {
+        append(tableSchema.nameToColumnIndex(column), value);
+    }
+
+    public void append(int colIndex, String value) {
+        column(colIndex).append(value);
+        rowValues[colIndex - 1] = true;
+    }
+
+    public void append(String column, Object value) {
+        append(tableSchema.nameToColumnIndex(column), value);
+    }
+
+    /**
+     * Appends value of any class supported by {@link RowBinaryFormatWriter}.
+     *
+     * @param colIndex - column index starting from 1
+     * @param value - value or {@code null}
+     */
+    public void append(int colIndex, Object value) {
+        column(colIndex).appendObject(value);
+        rowValues[colIndex - 1] = true;
+    }
+
+    public void appendNull(String column) {
+        appendNull(tableSchema.nameToColumnIndex(column));
+    }
+
+    public void appendNull(int colIndex) {
+        column(colIndex).appendNull();
+        rowValues[colIndex - 1] = true;
+    }
+
+    private ColumnBuffer column(int colIndex) {
+        int i = colIndex - 1;
+        if (i < 0 || i >= columns.length) {
+            throw new ClientException("Column index " + colIndex + " is out of range [1, " + columns.length + "]");
+        }
+        if (rowValues[i]) {
+            throw new ClientException("Value of column " + colIndex + " is already set in the current row");
+        }
+        return columns[i];
+    }
+
+    /**
+     * Completes current row. Writes a block when block limits are reached.
+     *
+     * @throws IOException when IO error occurs
+     */
+    public void commitRow() throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (!rowValues[i] && !columns[i].getColumn().isNullable()) {
+                throw new ClientException("Value of column " + columns[i].getColumn().getColumnName()
+                        + " is not set");
+            }
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (!rowValues[i]) {
+                columns[i].appendNull();
+            }
+        }
+        Arrays.fill(rowValues, false);
+        rows++;
+
+        if (rows >= maxBlockRows || estimatedBlockSize() >= maxBlockBytes) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Returns number of committed rows not written yet.
+     *
+     * @return number of rows in the current block
+     */
+    public int getPendingRows() {
+        return rows;
+    }
+
+    /**
+     * Writes committed rows as a block and flushes the output stream. Should not be called while a row
+     * is not committed.
+     *
+     * @throws IOException when IO error occurs
+     */
+    public void flush() throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (rowValues[i]) {
+                throw new ClientException("Cannot write block while row is not committed");
+            }
+        }
+        if (rows > 0) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    private long estimatedBlockSize() {
+        long size = 0;
+        for (ColumnBuffer column : columns) {
+            size += column.estimatedSize();
+        }
+        return size;
+    }
+
+    private void writeBlock() throws IOException {
+        BinaryStreamUtils.writeVarInt(out, columns.length);
+        BinaryStreamUtils.writeVarInt(out, rows);
+        for (int i = 0; i < columns.length; i++) {
+            ColumnBuffer column = columns[i];
+            BinaryStreamUtils.writeString(out, column.getColumn().getColumnName());
+            BinaryStreamUtils.writeString(out, typeNames[i]);
+            column.write(out);
+            column.reset();
+        }
+        rows = 0;
+    }
+
+    static String stripLowCardinality(String typeName) {
+        final String prefix = "LowCardinality(";
+        int start = typeName.indexOf(prefix);
+        if (start < 0) {
+            return typeName;
+        }
+        StringBuilder sb = new StringBuilder(typeName.length());
+        int pos = 0;
+        while (start >= 0) {
+            sb.append(typeName, pos, start);
+            int depth = 1;
+            int end = start + prefix.length();
+            while (depth > 0 && end < typeName.length()) {
+                char c = typeName.charAt(end++);
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+            }
+            sb.append(stripLowCardinality(typeName.substring(start + prefix.length(), end - 1)));
+            pos = end;
+            start = typeName.indexOf(prefix, pos);
+        }
+        sb.append(typeName, pos, typeName.length());
+        return sb.toString();
+    }
+}
@@ -66,7 +66,8 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
 
     protected AbstractBinaryFormatReader(InputStream inputStream, QuerySettings querySettings, TableSchema schema,
                                          BinaryStreamReader.ByteBufferAllocator byteBufferAllocator) {
-        this.input = inputStream;
+        this.input = inputStream instanceof BufferedBinaryInputStream ? inputStream
+                : new BufferedBinaryInputStream(inputStream);
         Map<String, Object> settings = querySettings == null ? Collections.emptyMap() : querySettings.getAllSettings();
         Boolean useServerTimeZone = (Boolean) settings.get(ClientConfigProperties.USE_SERVER_TIMEZONE.getKey());
         TimeZone timeZone = useServerTimeZone == Boolean.TRUE && querySettings != null ? querySettings.getServerTimeZone() :
@@ -76,7 +77,7 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
         }
         boolean jsonAsString = MapUtils.getFlag(settings,
                 ClientConfigProperties.serverSetting(ServerSettings.OUTPUT_FORMAT_BINARY_WRITE_JSON_AS_STRING), false);
-        this.binaryStreamReader = new BinaryStreamReader(inputStream, timeZone, LOG, byteBufferAllocator, jsonAsString);
+        this.binaryStreamReader = new BinaryStreamReader(input, timeZone, LOG, byteBufferAllocator, jsonAsString);
         if (schema != null) {
             setSchema(schema);
         }
@@ -87,6 +88,11 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
 
     protected boolean nextRecordEmpty = true;
 
+    // Values of numeric columns are read into slots to avoid boxing. See ColumnDecoder.
+    private ColumnDecoder[] decoders;
+    private long[] currentSlots;
+    private long[] nextSlots;
+
     /**
      * Reads next record into POJO object using set of serializers.
      * There should be a serializer for each column in the record, otherwise it will silently skip a field
@@ -158,14 +164,10 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
 
     protected boolean readRecord(Object[] record) throws IOException {
         boolean firstColumn = true;
+        long[] slots = record == currentRecord ? currentSlots : nextSlots;
         for (int i = 0; i < columns.length; i++) {
             try {
-                Object val = binaryStreamReader.readValue(columns[i]);
-                if (val != null) {
-                    record[i] = val;
-                } else {
-                    record[i] = null;
-                }
+                record[i] = decoders[i].read(binaryStreamReader, slots, i);
                 firstColumn = false;
             } catch (EOFException e) {
                 if (firstColumn) {
@@ -178,17 +180,30 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
         return true;
     }
 
+    /**
+     * Returns value of the current record. Values stored in primitive slots are boxed to the same types
+     * {@link BinaryStreamReader#readValue(ClickHouseColumn)} returns.
+     */
+    private Object getRecordValue(int index) {
+        Object value = currentRecord[index];
+        if (value == ColumnDecoder.SLOT) {
+            value = ((ColumnDecoder.PrimitiveDecoder) decoders[index]).box(currentSlots[index]);
+            currentRecord[index] = value;
+        }
+        return value;
+    }
+
     @Override
     public <T> T readValue(int colIndex) {
         if (colIndex < 1 || colIndex > getSchema().getColumns().size()) {
             throw new ClientException("Column index out of bounds: " + colIndex);
         }
-        return (T) currentRecord[colIndex - 1];
+        return (T) getRecordValue(colIndex - 1);
     }
 
     @Override
     public <T> T readValue(String colName) {
-        return (T) currentRecord[getSchema().nameToIndex(colName)];
+        return (T) getRecordValue(getSchema().nameToIndex(colName));
     }
 
     @Override
@@ -218,24 +233,39 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
 
     @Override
     public Map<String, Object> next() {
-        if (!hasNext) {
+        if (!advance()) {
             return null;
         }
 
+        for (int i = 0; i < currentRecord.length; i++) {
+            getRecordValue(i);
+        }
+        return new RecordWrapper(currentRecord, schema);
+    }
+
+    @Override
+    public boolean advance() {
+        if (!hasNext) {
+            return false;
+        }
+
         if (!nextRecordEmpty) {
             Object[] tmp = currentRecord;
             currentRecord = nextRecord;
             nextRecord = tmp;
+            long[] tmpSlots = currentSlots;
+            currentSlots = nextSlots;
+            nextSlots = tmpSlots;
             readNextRecord();
-            return new RecordWrapper(currentRecord, schema);
+            return true;
         } else {
             try {
                 if (readRecord(currentRecord)) {
                     readNextRecord();
-                    return new RecordWrapper(currentRecord, schema);
+                    return true;
                 } else {
                     currentRecord = null;
-                    return null;
+                    return false;
                 }
             } catch (IOException e) {
                 endReached();
@@ -256,9 +286,13 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
 
         this.currentRecord = new Object[columns.length];
         this.nextRecord = new Object[columns.length];
+        this.decoders = new ColumnDecoder[columns.length];
+        this.currentSlots = new long[columns.length];
+        this.nextSlots = new long[columns.length];
 
         for (int i = 0; i < columns.length; i++) {
             ClickHouseColumn column = columns[i];
+            decoders[i] = ColumnDecoder.of(column);
             ClickHouseDataType columnDataType = column.getDataType();
             if (columnDataType.equals(ClickHouseDataType.SimpleAggregateFunction)){
                 columnDataType = column.getNestedColumns().get(0).getDataType();
@@ -386,7 +420,7 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
 
     @Override
     public long getLong(String colName) {
-        return readNumberValue(colName, NumberConverter.NumberType.Long);
+        return getLong(schema.nameToIndex(colName) + 1);
     }
 
     @Override
@@ -396,7 +430,7 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
 
     @Override
     public double getDouble(String colName) {
-        return readNumberValue(colName, NumberConverter.NumberType.Double);
+        return getDouble(schema.nameToIndex(colName) + 1);
     }
 
     @Override
@@ -589,7 +623,27 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
 
     @Override
     public long getLong(int index) {
-        return getLong(schema.columnIndexToName(index));
+        if (index > 0 && index <= currentRecord.length && currentRecord[index - 1] == ColumnDecoder.SLOT) {
+            return ((ColumnDecoder.PrimitiveDecoder) decoders[index - 1]).toLong(currentSlots[index - 1]);
+        }
+        return readNumberValue(schema.columnIndexToName(index), NumberConverter.NumberType.Long);
+    }
+
+    @Override
+    public long getUnsignedLong(String colName) {
+        return getUnsignedLong(schema.nameToIndex(colName) + 1);
+    }
+
+    @Override
+    public long getUnsignedLong(int index) {
+        if (index > 0 && index <= currentRecord.length && currentRecord[index - 1] == ColumnDecoder.SLOT) {
+            return ((ColumnDecoder.PrimitiveDecoder) decoders[index - 1]).toUnsignedLong(currentSlots[index - 1]);
+        }
+        Object value = readValue(index);
+        if (value instanceof BigInteger && columns[index - 1].getDataType() == ClickHouseDataType.UInt64) {
+            return ((BigInteger) value).longValue();
+        }
+        return readNumberValue(schema.columnIndexToName(index), NumberConverter.NumberType.Long);
     }
 
     @Override
@@ -599,7 +653,10 @@ public abstract class AbstractBinaryFormatReader implements ClickHouseBinaryForm
 
     @Override
     public double getDouble(int index) {
-        return getDouble(schema.columnIndexToName(index));
+        if (index > 0 && index <= currentRecord.length && currentRecord[index - 1] == ColumnDecoder.SLOT) {
+            return ((ColumnDecoder.PrimitiveDecoder) decoders[index - 1]).toDouble(currentSlots[index - 1]);
+        }
+        return readNumberValue(schema.columnIndexToName(index), NumberConverter.NumberType.Double);
     }
 
     @Override
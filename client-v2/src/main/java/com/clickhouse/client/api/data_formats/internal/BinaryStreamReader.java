@@ -47,6 +47,8 @@ public class BinaryStreamReader {
 
     private final InputStream input;
 
+    private final BufferedBinaryInputStream bufferedInput;
+
     private final Logger log;
 
     private final TimeZone timeZone;
@@ -67,6 +69,7 @@ public class BinaryStreamReader {
         this.log = log == null ? NOPLogger.NOP_LOGGER : log;
         this.timeZone = timeZone;
         this.input = input;
+        this.bufferedInput = input instanceof BufferedBinaryInputStream ? (BufferedBinaryInputStream) input : null;
         this.bufferAllocator = bufferAllocator;
         this.jsonAsString = jsonAsString;
     }
@@ -313,6 +316,9 @@ public class BinaryStreamReader {
      * @throws IOException when IO error occurs
      */
     public short readShortLE() throws IOException {
+        if (bufferedInput != null) {
+            return bufferedInput.readShortLE();
+        }
         return readShortLE(input, int16Buff);
     }
 
@@ -337,6 +343,9 @@ public class BinaryStreamReader {
      * @throws IOException when IO error occurs
      */
     public int readIntLE() throws IOException {
+        if (bufferedInput != null) {
+            return bufferedInput.readIntLE();
+        }
         return readIntLE(input, int32Buff);
     }
 
@@ -362,6 +371,9 @@ public class BinaryStreamReader {
      * @throws IOException when IO error occurs
      */
     public long readLongLE() throws IOException {
+        if (bufferedInput != null) {
+            return bufferedInput.readLongLE();
+        }
         return readLongLE(input, int64Buff);
     }
 
@@ -406,7 +418,7 @@ public class BinaryStreamReader {
      * @throws IOException when IO error occurs
      */
     public int readUnsignedShortLE() throws IOException {
-        return readUnsignedShortLE(input, int16Buff);
+        return readShortLE() & 0xFFFF;
     }
 
     /**
@@ -636,8 +648,205 @@ public class BinaryStreamReader {
         return array;
     }
 
+    /**
+     * Skips a value in the internal input stream. Size of the value is computed from the column type and
+     * length prefixes, so the value is not decoded and no objects are created for it.
+     * @param column - column information
+     * @throws IOException when IO error occurs
+     */
     public void skipValue(ClickHouseColumn column) throws IOException {
-        readValue(column, null);
+        if (column.isNullable()) {
+            int isNull = readByteOrEOF(input);
+            if (isNull == 1) { // is Null?
+                return;
+            }
+        }
+
+        ClickHouseColumn actualColumn = column.getDataType() == ClickHouseDataType.Dynamic ? readDynamicData() : column;
+        int size = valueSize(actualColumn);
+        if (size >= 0) {
+            skipNBytes(size);
+            return;
+        }
+
+        try {
+            switch (actualColumn.getDataType()) {
+                case String:
+                    skipNBytes(readVarInt(input));
+                    break;
+                case Ring:
+                    skipNBytes(readVarInt(input) * 16L);
+                    break;
+                case Polygon:
+                    for (int i = readVarInt(input); i > 0; i--) {
+                        skipNBytes(readVarInt(input) * 16L);
+                    }
+                    break;
+                case MultiPolygon:
+                    for (int i = readVarInt(input); i > 0; i--) {
+                        for (int j = readVarInt(input); j > 0; j--) {
+                            skipNBytes(readVarInt(input) * 16L);
+                        }
+                    }
+                    break;
+                case JSON:
+                    if (jsonAsString) {
+                        skipNBytes(readVarInt(input));
+                    } else {
+                        for (int i = readVarInt(input); i > 0; i--) {
+                            skipNBytes(readVarInt(input)); // path
+                            skipValue(JSON_PLACEHOLDER_COL);
+                        }
+                    }
+                    break;
+                case Array: {
+                    int len = readVarInt(input);
+                    ClickHouseColumn itemColumn = actualColumn.getNestedColumns().get(0);
+                    int itemSize = itemColumn.isNullable() ? -1 : valueSize(itemColumn);
+                    if (itemSize >= 0) {
+                        skipNBytes((long) len * itemSize);
+                    } else {
+                        for (int i = 0; i < len; i++) {
+                            skipValue(itemColumn);
+                        }
+                    }
+                    break;
+                }
+                case Map: {
+                    ClickHouseColumn keyType = actualColumn.getKeyInfo();
+                    ClickHouseColumn valueType = actualColumn.getValueInfo();
+                    for (int i = readVarInt(input); i > 0; i--) {
+                        skipValue(keyType);
+                        skipValue(valueType);
+                    }
+                    break;
+                }
+                case Tuple:
+                    for (ClickHouseColumn nested : actualColumn.getNestedColumns()) {
+                        skipValue(nested);
+                    }
+                    break;
+                case Nothing:
+                    break;
+                case SimpleAggregateFunction:
+                    skipValue(actualColumn.getNestedColumns().get(0));
+                    break;
+                case AggregateFunction:
+                    // size of serialized state depends on its content
+                    readBitmap(actualColumn);
+                    break;
+                case Variant:
+                    skipValue(actualColumn.getNestedColumns().get(readByte()));
+                    break;
+                case Dynamic:
+                    skipValue(actualColumn);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported data type: " + actualColumn.getDataType());
+            }
+        } catch (EOFException e) {
+            throw e;
+        } catch (Exception e) {
+            log.debug("Failed to skip value for column {}, {}", column.getColumnName(), e.getLocalizedMessage());
+            throw new ClientException("Failed to skip value for column " + column.getColumnName(), e);
+        }
+    }
+
+    /**
+     * Returns size of a value of the type in bytes not counting {@code Nullable} marker.
+     * @param column - column information
+     * @return size of a value or {@code -1} if the size depends on the value
+     */
+    static int valueSize(ClickHouseColumn column) {
+        switch (column.getDataType()) {
+            case FixedString:
+                return column.getPrecision();
+            case Int8:
+            case UInt8:
+            case Bool:
+            case Enum8:
+                return 1;
+            case Int16:
+            case UInt16:
+            case Enum16:
+            case Date:
+                return INT16_SIZE;
+            case Int32:
+            case UInt32:
+            case Float32:
+            case Date32:
+            case DateTime:
+            case DateTime32:
+            case IPv4:
+            case Decimal32:
+                return INT32_SIZE;
+            case Int64:
+            case UInt64:
+            case Float64:
+            case DateTime64:
+            case Decimal64:
+            case IntervalYear:
+            case IntervalQuarter:
+            case IntervalMonth:
+            case IntervalWeek:
+            case IntervalDay:
+            case IntervalHour:
+            case IntervalMinute:
+            case IntervalSecond:
+            case IntervalMicrosecond:
+            case IntervalMillisecond:
+            case IntervalNanosecond:
+                return INT64_SIZE;
+            case Int128:
+            case UInt128:
+            case UUID:
+            case IPv6:
+            case Point:
+            case Decimal128:
+                return INT128_SIZE;
+            case Int256:
+            case UInt256:
+            case Decimal256:
+                return INT256_SIZE;
+            case Decimal: {
+                // same as readDecimal()
+                int precision = column.getPrecision();
+                if (precision <= ClickHouseDataType.Decimal32.getMaxScale()) {
+                    return INT32_SIZE;
+                } else if (precision <= ClickHouseDataType.Decimal64.getMaxScale()) {
+                    return INT64_SIZE;
+                } else if (precision <= ClickHouseDataType.Decimal128.getMaxScale()) {
+                    return INT128_SIZE;
+                }
+                return INT256_SIZE;
+            }
+            case Tuple: {
+                int size = 0;
+                for (ClickHouseColumn nested : column.getNestedColumns()) {
+                    int nestedSize = nested.isNullable() ? -1 : valueSize(nested);
+                    if (nestedSize < 0) {
+                        return -1;
+                    }
+                    size += nestedSize;
+                }
+                return size;
+            }
+            default:
+                return -1;
+        }
+    }
+
+    private void skipNBytes(long n) throws IOException {
+        while (n > 0) {
+            long skipped = input.skip(n);
+            if (skipped > 0) {
+                n -= skipped;
+            } else {
+                // skip() may return 0 before end of stream, read() tells if the stream is over
+                readByteOrEOF(input);
+                n--;
+            }
+        }
     }
 
     public static class ArrayValue {
@@ -0,0 +1,155 @@
+package com.clickhouse.client.api.data_formats.internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Buffered input stream that decodes fixed-width little-endian values directly from its buffer.
+ * Values are not copied to a temporary array and there is no call to the underlying stream per value.
+ *
+ * <p>Unlike {@link java.io.BufferedInputStream} this class is not synchronized and should be used by
+ * a single thread.</p>
+ *
+ * Note: internal API
+ */
+public class BufferedBinaryInputStream extends InputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final int MIN_BUFFER_SIZE = 16;
+
+    private final InputStream in;
+
+    private final byte[] buffer;
+
+    private int position;
+
+    private int limit;
+
+    public BufferedBinaryInputStream(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedBinaryInputStream(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)];
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        int available = limit - position;
+        if (available <= 0) {
+            if (len >= buffer.length) {
+                // nothing to gain from buffering
+                return in.read(b, off, len);
+            }
+            if (!fill()) {
+                return -1;
+            }
+            available = limit - position;
+        }
+
+        int n = Math.min(len, available);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        int available = limit - position;
+        if (available > 0) {
+            int skipped = (int) Math.min(n, available);
+            position += skipped;
+            return skipped;
+        }
+        return in.skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (limit - position) + in.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    public short readShortLE() throws IOException {
+        require(2);
+        int p = position;
+        position = p + 2;
+        return (short) (buffer[p] & 0xFF | (buffer[p + 1] & 0xFF) << 8);
+    }
+
+    public int readIntLE() throws IOException {
+        require(4);
+        int p = position;
+        position = p + 4;
+        return (buffer[p] & 0xFF) | (buffer[p + 1] & 0xFF) << 8 | (buffer[p + 2] & 0xFF) << 16
+                | (buffer[p + 3] & 0xFF) << 24;
+    }
+
+    public long readLongLE() throws IOException {
+        require(8);
+        int p = position;
+        position = p + 8;
+        return (0xFFL & buffer[p]) | ((0xFFL & buffer[p + 1]) << 8) | ((0xFFL & buffer[p + 2]) << 16)
+                | ((0xFFL & buffer[p + 3]) << 24) | ((0xFFL & buffer[p + 4]) << 32)
+                | ((0xFFL & buffer[p + 5]) << 40) | ((0xFFL & buffer[p + 6]) << 48)
+                | ((0xFFL & buffer[p + 7]) << 56);
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = 0;
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    /**
+     * Makes sure that at least {@code n} bytes are in the buffer starting from current position.
+     */
+    private void require(int n) throws IOException {
+        int remaining = limit - position;
+        if (remaining >= n) {
+            return;
+        }
+
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        position = 0;
+        limit = remaining;
+        while (limit < n) {
+            int r = in.read(buffer, limit, buffer.length - limit);
+            if (r < 0) {
+                throw new EOFException("End of stream reached before reading all data");
+            }
+            limit += r;
+        }
+    }
+}
@@ -0,0 +1,930 @@
+package com.clickhouse.client.api.data_formats.internal;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.ClickHouseDataType;
+import com.clickhouse.data.format.BinaryStreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates values of a single column to be written as a part of a Native format block. It is a counterpart
+ * of {@link ColumnVector}: values of fixed-width numeric, date and time types are stored in primitive arrays,
+ * strings are stored as a single UTF-8 byte array with offsets and nullable columns have a separate null map.
+ * Only types without a specialized representation are stored as objects.
+ *
+ * Buffers are reused between blocks, so arrays grow to the size of the largest block and stay allocated.
+ *
+ * Note: internal API
+ */
+public abstract class ColumnBuffer {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    protected final ClickHouseColumn column;
+
+    protected byte[] nulls;
+
+    protected int size;
+
+    protected ColumnBuffer(ClickHouseColumn column) {
+        this.column = column;
+        if (column.isNullable()) {
+            nulls = new byte[16];
+        }
+    }
+
+    /**
+     * Creates a buffer suitable for the column type.
+     *
+     * @param column - column information. Should not be {@code LowCardinality}.
+     * @return column buffer
+     * @throws ClientException when the type cannot be written in Native format
+     */
+    public static ColumnBuffer of(ClickHouseColumn column) {
+        if (column.isLowCardinality()) {
+            throw new ClientException("Column " + column.getColumnName() + " should not be LowCardinality");
+        }
+        switch (column.getDataType()) {
+            case Float32:
+            case Float64:
+                return new DoubleBuffer(column);
+            case String:
+            case FixedString:
+                return new StringBuffer(column);
+            case Array:
+                return new ArrayBuffer(column);
+            case Map:
+                return new MapBuffer(column);
+            case Tuple:
+                return new TupleBuffer(column);
+            case Int128:
+            case UInt128:
+            case Int256:
+            case UInt256:
+            case Decimal128:
+            case Decimal256:
+            case UUID:
+            case IPv4:
+            case IPv6:
+                return new ObjectBuffer(column);
+            default:
+                if (isLongType(column)) {
+                    return new LongBuffer(column);
+                }
+                if (column.getDataType() == ClickHouseDataType.Decimal) {
+                    return new ObjectBuffer(column);
+                }
+                throw new ClientException("Native format writer does not support column " + column.getColumnName()
+                        + " of type " + column.getOriginalTypeName());
+        }
+    }
+
+    private static boolean isLongType(ClickHouseColumn column) {
+        switch (column.getDataType()) {
+            case Int8:
+            case UInt8:
+            case Int16:
+            case UInt16:
+            case Int32:
+            case UInt32:
+            case Int64:
+            case UInt64:
+            case Bool:
+            case Enum8:
+            case Enum16:
+            case Date:
+            case Date32:
+            case DateTime:
+            case DateTime32:
+            case DateTime64:
+            case Decimal32:
+            case Decimal64:
+            case IntervalYear:
+            case IntervalQuarter:
+            case IntervalMonth:
+            case IntervalWeek:
+            case IntervalDay:
+            case IntervalHour:
+            case IntervalMinute:
+            case IntervalSecond:
+            case IntervalMicrosecond:
+            case IntervalMillisecond:
+            case IntervalNanosecond:
+                return true;
+            case Decimal:
+                return BinaryStreamReader.valueSize(column) <= BinaryStreamReader.INT64_SIZE;
+            default:
+                return false;
+        }
+    }
+
+    public ClickHouseColumn getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns number of values in the buffer.
+     *
+     * @return number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    public void append(long value) {
+        throw new ClientException("Column " + column.getColumnName() + " " + column.getDataType().name() +
+                " cannot be written as long");
+    }
+
+    public void append(double value) {
+        throw new ClientException("Column " + column.getColumnName() + " " + column.getDataType().name() +
+                " cannot be written as double");
+    }
+
+    public void append(String value) {
+        appendObject(value);
+    }
+
+    /**
+     * Appends a value of any supported class. Values are converted the same way as by
+     * {@link SerializerUtils#serializeData(OutputStream, Object, ClickHouseColumn)}.
+     *
+     * @param value - value or null
+     */
+    public void appendObject(Object value) {
+        if (value == null) {
+            appendNull();
+        } else {
+            appendNotNull(value);
+        }
+    }
+
+    public void appendNull() {
+        if (nulls == null) {
+            throw new ClientException("Column " + column.getColumnName() + " " + column.getOriginalTypeName()
+                    + " is not nullable");
+        }
+        markNull(true);
+        appendDefault();
+    }
+
+    protected abstract void appendNotNull(Object value);
+
+    /**
+     * Appends a value written instead of null. Server does not read it.
+     */
+    protected abstract void appendDefault();
+
+    /**
+     * Updates null map for a value being appended. Should be called before the value is appended.
+     */
+    protected void markNull(boolean isNull) {
+        if (nulls != null) {
+            if (size == nulls.length) {
+                nulls = Arrays.copyOf(nulls, size * 2);
+            }
+            nulls[size] = (byte) (isNull ? 1 : 0);
+        }
+    }
+
+    /**
+     * Returns approximate number of bytes the buffer takes in a Native block.
+     *
+     * @return number of bytes
+     */
+    public long estimatedSize() {
+        return nulls == null ? 0 : size;
+    }
+
+    /**
+     * Writes null map, if column is nullable, and values.
+     *
+     * @param out - output stream
+     * @throws IOException when IO error occurs
+     */
+    public void write(OutputStream out) throws IOException {
+        if (nulls != null) {
+            out.write(nulls, 0, size);
+        }
+        writeValues(out);
+    }
+
+    protected abstract void writeValues(OutputStream out) throws IOException;
+
+    /**
+     * Removes all values. Allocated memory is kept for the next block.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Removes values appended after the buffer had {@code newSize} values. Used to drop elements of a nested
+     * value which was not appended completely, so sizes of nested buffers stay consistent.
+     *
+     * @param newSize - number of values to keep
+     */
+    protected void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * Integer, boolean, enum, date, time, interval and decimal types up to 64 bits. Values are stored as longs
+     * in the form they have on the wire: number of days for dates, seconds or ticks of the column scale
+     * for date times and unscaled value for decimals.
+     * <p>
+     * A long appended to a decimal column is an integer number, not an unscaled value: {@code 5} is written
+     * into {@code Decimal64(2)} as {@code 5.00}, the same as {@code Long.valueOf(5)} is written by the serializer.
+     */
+    public static class LongBuffer extends ColumnBuffer {
+
+        private final int byteLength;
+
+        private final boolean convertNumbers;
+
+        // 10^scale and 10^precision of decimal columns
+        private long decimalMultiplier;
+
+        private long decimalLimit;
+
+        private long[] values = new long[16];
+
+        private byte[] chunk;
+
+        private ByteArrayOutputStream converted;
+
+        LongBuffer(ClickHouseColumn column) {
+            super(column);
+            this.byteLength = BinaryStreamReader.valueSize(column);
+            switch (column.getDataType()) {
+                case Decimal:
+                case Decimal32:
+                case Decimal64:
+                    // numbers are scaled by the serializer
+                    convertNumbers = true;
+                    decimalMultiplier = pow10(column.getScale());
+                    decimalLimit = pow10(column.getPrecision());
+                    break;
+                default:
+                    convertNumbers = false;
+            }
+        }
+
+        private static long pow10(int exponent) {
+            long result = 1;
+            for (int i = 0; i < exponent; i++) {
+                result *= 10;
+            }
+            return result;
+        }
+
+        @Override
+        public void append(long value) {
+            if (convertNumbers) {
+                long unscaled;
+                try {
+                    unscaled = Math.multiplyExact(value, decimalMultiplier);
+                } catch (ArithmeticException e) {
+                    unscaled = decimalLimit;
+                }
+                if (unscaled >= decimalLimit || unscaled <= -decimalLimit) {
+                    throw new ClientException("Value " + value + " is out of range of column " + column.getColumnName()
+                            + " " + column.getOriginalTypeName());
+                }
+                value = unscaled;
+            }
+            appendValue(value);
+        }
+
+        private void appendValue(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            markNull(false);
+            values[size++] = value;
+        }
+
+        @Override
+        protected void appendNotNull(Object value) {
+            if (value instanceof Number && !convertNumbers) {
+                append(((Number) value).longValue());
+            } else if (value instanceof Boolean) {
+                append((Boolean) value ? 1L : 0L);
+            } else {
+                // temporal types, decimals and enum names are converted by the serializer
+                if (converted == null) {
+                    converted = new ByteArrayOutputStream(INT64_BYTES);
+                }
+                converted.reset();
+                try {
+                    SerializerUtils.serializeData(converted, value, column);
+                } catch (IOException e) {
+                    throw new ClientException("Failed to convert value for column " + column.getColumnName(), e);
+                }
+                byte[] bytes = converted.toByteArray();
+                long v = 0;
+                for (int i = byteLength - 1; i >= 0; i--) {
+                    v = v << 8 | (bytes[i] & 0xFFL);
+                }
+                appendValue(v);
+            }
+        }
+
+        @Override
+        protected void appendDefault() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = 0L;
+        }
+
+        @Override
+        public long estimatedSize() {
+            return super.estimatedSize() + (long) size * byteLength;
+        }
+
+        @Override
+        protected void writeValues(OutputStream out) throws IOException {
+            if (chunk == null) {
+                chunk = new byte[CHUNK_SIZE];
+            }
+            int p = 0;
+            for (int i = 0; i < size; i++) {
+                if (p == CHUNK_SIZE) {
+                    out.write(chunk, 0, p);
+                    p = 0;
+                }
+                long v = values[i];
+                for (int b = 0; b < byteLength; b++) {
+                    chunk[p++] = (byte) v;
+                    v >>= 8;
+                }
+            }
+            out.write(chunk, 0, p);
+        }
+
+        private static final int INT64_BYTES = 8;
+    }
+
+    /**
+     * Float32 and Float64 types. Values are stored as doubles.
+     */
+    public static class DoubleBuffer extends ColumnBuffer {
+
+        private final boolean float32;
+
+        private double[] values = new double[16];
+
+        private byte[] chunk;
+
+        DoubleBuffer(ClickHouseColumn column) {
+            super(column);
+            this.float32 = column.getDataType() == ClickHouseDataType.Float32;
+        }
+
+        @Override
+        public void append(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            markNull(false);
+            values[size++] = value;
+        }
+
+        @Override
+        public void append(long value) {
+            append((double) value);
+        }
+
+        @Override
+        protected void appendNotNull(Object value) {
+            if (value instanceof Number) {
+                append(((Number) value).doubleValue());
+            } else {
+                throw new ClientException("Cannot write value of class " + value.getClass().getName()
+                        + " into column " + column.getColumnName() + " " + column.getOriginalTypeName());
+            }
+        }
+
+        @Override
+        protected void appendDefault() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = 0d;
+        }
+
+        @Override
+        public long estimatedSize() {
+            return super.estimatedSize() + (long) size * (float32 ? 4 : 8);
+        }
+
+        @Override
+        protected void writeValues(OutputStream out) throws IOException {
+            if (chunk == null) {
+                chunk = new byte[CHUNK_SIZE];
+            }
+            int p = 0;
+            for (int i = 0; i < size; i++) {
+                if (p == CHUNK_SIZE) {
+                    out.write(chunk, 0, p);
+                    p = 0;
+                }
+                long v;
+                int len;
+                if (float32) {
+                    v = Float.floatToIntBits((float) values[i]);
+                    len = 4;
+                } else {
+                    v = Double.doubleToLongBits(values[i]);
+                    len = 8;
+                }
+                for (int b = 0; b < len; b++) {
+                    chunk[p++] = (byte) v;
+                    v >>= 8;
+                }
+            }
+            out.write(chunk, 0, p);
+        }
+    }
+
+    /**
+     * String and FixedString types. Values of all rows are stored in a single byte array, so strings are not
+     * kept after they are appended.
+     */
+    public static class StringBuffer extends ColumnBuffer {
+
+        private final int fixedLength;
+
+        private byte[] data = new byte[256];
+
+        private int[] offsets = new int[17];
+
+        StringBuffer(ClickHouseColumn column) {
+            super(column);
+            this.fixedLength = column.getDataType() == ClickHouseDataType.FixedString ? column.getPrecision() : -1;
+        }
+
+        @Override
+        public void append(String value) {
+            if (value == null) {
+                appendNull();
+                return;
+            }
+            int len = value.length();
+            int pos = offsets[size];
+            ensureData(pos + len);
+            int i = 0;
+            // ASCII characters are copied as is
+            for (; i < len; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                data[pos + i] = (byte) c;
+            }
+            if (i == len) {
+                appendBytes(pos, len);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                ensureData(pos + bytes.length);
+                System.arraycopy(bytes, 0, data, pos, bytes.length);
+                appendBytes(pos, bytes.length);
+            }
+        }
+
+        /**
+         * Appends a value given as bytes.
+         *
+         * @param value - bytes of the value
+         */
+        public void append(byte[] value) {
+            int pos = offsets[size];
+            ensureData(pos + value.length);
+            System.arraycopy(value, 0, data, pos, value.length);
+            appendBytes(pos, value.length);
+        }
+
+        private void appendBytes(int pos, int len) {
+            if (fixedLength >= 0) {
+                if (len > fixedLength) {
+                    throw new ClientException("Value of " + len + " bytes is longer than column "
+                            + column.getColumnName() + " " + column.getOriginalTypeName());
+                }
+                ensureData(pos + fixedLength);
+                Arrays.fill(data, pos + len, pos + fixedLength, (byte) 0);
+                len = fixedLength;
+            }
+            if (size + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            markNull(false);
+            size++;
+            offsets[size] = pos + len;
+        }
+
+        private void ensureData(int capacity) {
+            if (capacity > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, capacity));
+            }
+        }
+
+        @Override
+        protected void appendNotNull(Object value) {
+            if (value instanceof byte[]) {
+                append((byte[]) value);
+            } else {
+                append(value.toString());
+            }
+        }
+
+        @Override
+        protected void appendDefault() {
+            int pos = offsets[size];
+            int len = Math.max(fixedLength, 0);
+            ensureData(pos + len);
+            Arrays.fill(data, pos, pos + len, (byte) 0);
+            if (size + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            size++;
+            offsets[size] = pos + len;
+        }
+
+        @Override
+        public long estimatedSize() {
+            return super.estimatedSize() + offsets[size] + (fixedLength >= 0 ? 0 : size);
+        }
+
+        @Override
+        protected void writeValues(OutputStream out) throws IOException {
+            if (fixedLength >= 0) {
+                out.write(data, 0, offsets[size]);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                int len = offsets[i + 1] - offsets[i];
+                BinaryStreamUtils.writeVarInt(out, len);
+                out.write(data, offsets[i], len);
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            offsets[0] = 0;
+        }
+    }
+
+    /**
+     * Array type. Written as cumulative offsets (one per row) followed by a single column with elements
+     * of all rows.
+     */
+    public static class ArrayBuffer extends ColumnBuffer {
+
+        private final ColumnBuffer elements;
+
+        private long[] offsets = new long[16];
+
+        private byte[] chunk;
+
+        ArrayBuffer(ClickHouseColumn column) {
+            super(column);
+            this.elements = ColumnBuffer.of(column.getNestedColumns().get(0));
+        }
+
+        /**
+         * Returns buffer of elements. After elements of a row are appended to it, the row should be completed
+         * by {@link #endRow()}.
+         *
+         * @return buffer of elements
+         */
+        public ColumnBuffer getElements() {
+            return elements;
+        }
+
+        /**
+         * Completes a row which elements were appended directly to {@link #getElements()}.
+         */
+        public void endRow() {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = elements.size();
+        }
+
+        @Override
+        protected void appendNotNull(Object value) {
+            int elementCount = elements.size();
+            try {
+                appendElements(value);
+            } catch (RuntimeException e) {
+                elements.truncate(elementCount);
+                throw e;
+            }
+            endRow();
+        }
+
+        private void appendElements(Object value) {
+            if (value instanceof long[]) {
+                for (long v : (long[]) value) {
+                    elements.append(v);
+                }
+            } else if (value instanceof int[]) {
+                for (int v : (int[]) value) {
+                    elements.append(v);
+                }
+            } else if (value instanceof double[]) {
+                for (double v : (double[]) value) {
+                    elements.append(v);
+                }
+            } else if (value instanceof Collection) {
+                for (Object v : (Collection<?>) value) {
+                    elements.appendObject(v);
+                }
+            } else if (value.getClass().isArray()) {
+                for (int i = 0, len = Array.getLength(value); i < len; i++) {
+                    elements.appendObject(Array.get(value, i));
+                }
+            } else {
+                throw new ClientException("Cannot write value of class " + value.getClass().getName()
+                        + " into column " + column.getColumnName() + " " + column.getOriginalTypeName());
+            }
+        }
+
+        @Override
+        protected void appendDefault() {
+            endRow();
+        }
+
+        @Override
+        protected void truncate(int newSize) {
+            super.truncate(newSize);
+            elements.truncate(newSize == 0 ? 0 : (int) offsets[newSize - 1]);
+        }
+
+        @Override
+        public long estimatedSize() {
+            return (long) size * 8 + elements.estimatedSize();
+        }
+
+        @Override
+        protected void writeValues(OutputStream out) throws IOException {
+            if (chunk == null) {
+                chunk = new byte[CHUNK_SIZE];
+            }
+            int p = 0;
+            for (int i = 0; i < size; i++) {
+                if (p == CHUNK_SIZE) {
+                    out.write(chunk, 0, p);
+                    p = 0;
+                }
+                long v = offsets[i];
+                for (int b = 0; b < 8; b++) {
+                    chunk[p++] = (byte) v;
+                    v >>= 8;
+                }
+            }
+            out.write(chunk, 0, p);
+            elements.write(out);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            elements.reset();
+        }
+    }
+
+    /**
+     * Map type. Written as {@code Array(Tuple(K, V))}: cumulative offsets followed by a column of keys
+     * and a column of values.
+     */
+    public static class MapBuffer extends ColumnBuffer {
+
+        private final ColumnBuffer keys;
+
+        private final ColumnBuffer values;
+
+        private long[] offsets = new long[16];
+
+        MapBuffer(ClickHouseColumn column) {
+            super(column);
+            this.keys = ColumnBuffer.of(column.getKeyInfo());
+            this.values = ColumnBuffer.of(column.getValueInfo());
+        }
+
+        @Override
+        protected void appendNotNull(Object value) {
+            if (!(value instanceof Map)) {
+                throw new ClientException("Cannot write value of class " + value.getClass().getName()
+                        + " into column " + column.getColumnName() + " " + column.getOriginalTypeName());
+            }
+            int entryCount = keys.size();
+            try {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    keys.appendObject(entry.getKey());
+                    values.appendObject(entry.getValue());
+                }
+            } catch (RuntimeException e) {
+                keys.truncate(entryCount);
+                values.truncate(entryCount);
+                throw e;
+            }
+            appendDefault();
+        }
+
+        @Override
+        protected void appendDefault() {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = keys.size();
+        }
+
+        @Override
+        protected void truncate(int newSize) {
+            super.truncate(newSize);
+            int entryCount = newSize == 0 ? 0 : (int) offsets[newSize - 1];
+            keys.truncate(entryCount);
+            values.truncate(entryCount);
+        }
+
+        @Override
+        public long estimatedSize() {
+            return (long) size * 8 + keys.estimatedSize() + values.estimatedSize();
+        }
+
+        @Override
+        protected void writeValues(OutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                BinaryStreamUtils.writeInt64(out, offsets[i]);
+            }
+            keys.write(out);
+            values.write(out);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            keys.reset();
+            values.reset();
+        }
+    }
+
+    /**
+     * Tuple type. Each element is written as a separate column.
+     */
+    public static class TupleBuffer extends ColumnBuffer {
+
+        private final ColumnBuffer[] elements;
+
+        TupleBuffer(ClickHouseColumn column) {
+            super(column);
+            List<ClickHouseColumn> nested = column.getNestedColumns();
+            this.elements = new ColumnBuffer[nested.size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = ColumnBuffer.of(nested.get(i));
+            }
+        }
+
+        @Override
+        protected void appendNotNull(Object value) {
+            Object[] tuple;
+            if (value instanceof List) {
+                tuple = ((List<?>) value).toArray();
+            } else if (value instanceof Object[]) {
+                tuple = (Object[]) value;
+            } else {
+                throw new ClientException("Cannot write value of class " + value.getClass().getName()
+                        + " into column " + column.getColumnName() + " " + column.getOriginalTypeName());
+            }
+            if (tuple.length != elements.length) {
+                throw new ClientException("Tuple of " + tuple.length + " elements cannot be written into column "
+                        + column.getColumnName() + " " + column.getOriginalTypeName());
+            }
+            for (int i = 0; i < elements.length; i++) {
+                try {
+                    elements[i].appendObject(tuple[i]);
+                } catch (RuntimeException e) {
+                    for (int j = 0; j <= i; j++) {
+                        elements[j].truncate(size);
+                    }
+                    throw e;
+                }
+            }
+            size++;
+        }
+
+        @Override
+        protected void appendDefault() {
+            throw new ClientException("Tuple column " + column.getColumnName() + " cannot be null");
+        }
+
+        @Override
+        protected void truncate(int newSize) {
+            super.truncate(newSize);
+            for (ColumnBuffer element : elements) {
+                element.truncate(newSize);
+            }
+        }
+
+        @Override
+        public long estimatedSize() {
+            long total = 0;
+            for (ColumnBuffer element : elements) {
+                total += element.estimatedSize();
+            }
+            return total;
+        }
+
+        @Override
+        protected void writeValues(OutputStream out) throws IOException {
+            for (ColumnBuffer element : elements) {
+                element.write(out);
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            for (ColumnBuffer element : elements) {
+                element.reset();
+            }
+        }
+    }
+
+    /**
+     * Other fixed-width types, like big integers, UUID and IP addresses. Values are stored as objects and
+     * written by {@link SerializerUtils}.
+     */
+    public static class ObjectBuffer extends ColumnBuffer {
+
+        private final int byteLength;
+
+        private Object[] values = new Object[16];
+
+        ObjectBuffer(ClickHouseColumn column) {
+            super(column);
+            this.byteLength = BinaryStreamReader.valueSize(column);
+        }
+
+        @Override
+        protected void appendNotNull(Object value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            markNull(false);
+            values[size++] = value;
+        }
+
+        @Override
+        protected void appendDefault() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = null;
+        }
+
+        @Override
+        public long estimatedSize() {
+            return super.estimatedSize() + (long) size * byteLength;
+        }
+
+        @Override
+        protected void writeValues(OutputStream out) throws IOException {
+            byte[] empty = null;
+            for (int i = 0; i < size; i++) {
+                if (values[i] == null) {
+                    if (empty == null) {
+                        empty = new byte[byteLength];
+                    }
+                    out.write(empty);
+                } else {
+                    SerializerUtils.serializeData(out, values[i], column);
+                }
+            }
+        }
+
+        @Override
+        protected void truncate(int newSize) {
+            Arrays.fill(values, newSize, size, null);
+            super.truncate(newSize);
+        }
+
+        @Override
+        public void reset() {
+            Arrays.fill(values, 0, size, null);
+            super.reset();
+        }
+    }
+}
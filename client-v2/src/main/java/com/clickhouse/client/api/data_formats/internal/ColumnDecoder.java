@@ -0,0 +1,375 @@
+package com.clickhouse.client.api.data_formats.internal;
+
+import com.clickhouse.data.ClickHouseColumn;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * Reads values of a single column from a row-oriented binary stream. Decoder is selected once per column
+ * when schema is known so reading a row does not dispatch on the data type of every value.
+ *
+ * <p>Fixed-width numeric decoders ({@link PrimitiveDecoder}) read a value into a {@code long} slot and
+ * return {@link #SLOT} instead of a boxed value. Floating point values are stored as raw bits.
+ * UInt64 values are stored as is, so the slot is an unsigned view of the value.</p>
+ *
+ * Note: internal API
+ */
+public abstract class ColumnDecoder {
+
+    /**
+     * Returned by {@link #read(BinaryStreamReader, long[], int)} when value is stored in the slot.
+     */
+    public static final Object SLOT = new Object();
+
+    protected final ClickHouseColumn column;
+
+    protected ColumnDecoder(ClickHouseColumn column) {
+        this.column = column;
+    }
+
+    public ClickHouseColumn getColumn() {
+        return column;
+    }
+
+    /**
+     * Reads next value of the column.
+     *
+     * @param reader - stream reader
+     * @param slots - primitive slots of a record
+     * @param index - column slot index
+     * @return value, {@code null} or {@link #SLOT} if value was read into {@code slots[index]}
+     * @throws IOException when IO error occurs
+     */
+    public abstract Object read(BinaryStreamReader reader, long[] slots, int index) throws IOException;
+
+    /**
+     * Creates decoder for a column.
+     *
+     * @param column - column definition
+     * @return decoder
+     */
+    public static ColumnDecoder of(ClickHouseColumn column) {
+        switch (column.getDataType()) {
+            case Int8:
+                return new Int8Decoder(column);
+            case UInt8:
+                return new UInt8Decoder(column);
+            case Int16:
+                return new Int16Decoder(column);
+            case UInt16:
+                return new UInt16Decoder(column);
+            case Int32:
+                return new Int32Decoder(column);
+            case UInt32:
+                return new UInt32Decoder(column);
+            case Int64:
+                return new Int64Decoder(column);
+            case UInt64:
+                return new UInt64Decoder(column);
+            case Float32:
+                return new Float32Decoder(column);
+            case Float64:
+                return new Float64Decoder(column);
+            case Bool:
+                return new BoolDecoder(column);
+            default:
+                return new ValueDecoder(column);
+        }
+    }
+
+    /**
+     * Decoder that delegates to {@link BinaryStreamReader#readValue(ClickHouseColumn)}.
+     */
+    static final class ValueDecoder extends ColumnDecoder {
+
+        ValueDecoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        public Object read(BinaryStreamReader reader, long[] slots, int index) throws IOException {
+            return reader.readValue(column);
+        }
+    }
+
+    /**
+     * Base class for decoders of fixed-width numbers.
+     */
+    public abstract static class PrimitiveDecoder extends ColumnDecoder {
+
+        private final boolean nullable;
+
+        PrimitiveDecoder(ClickHouseColumn column) {
+            super(column);
+            this.nullable = column.isNullable();
+        }
+
+        @Override
+        public final Object read(BinaryStreamReader reader, long[] slots, int index) throws IOException {
+            if (nullable && reader.readByte() == 1) {
+                return null;
+            }
+            slots[index] = readSlot(reader);
+            return SLOT;
+        }
+
+        abstract long readSlot(BinaryStreamReader reader) throws IOException;
+
+        /**
+         * Boxes slot value to the same type {@link BinaryStreamReader#readValue(ClickHouseColumn)} returns.
+         */
+        public abstract Object box(long slot);
+
+        /**
+         * Converts slot value to long.
+         *
+         * @throws ArithmeticException if value cannot be presented as long
+         */
+        public long toLong(long slot) {
+            return slot;
+        }
+
+        public double toDouble(long slot) {
+            return slot;
+        }
+
+        /**
+         * Same as {@link #toLong(long)} but returns UInt64 values as is. Result should be treated as unsigned.
+         */
+        public long toUnsignedLong(long slot) {
+            return toLong(slot);
+        }
+    }
+
+    static final class Int8Decoder extends PrimitiveDecoder {
+        Int8Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return reader.readByte();
+        }
+
+        @Override
+        public Object box(long slot) {
+            return (byte) slot;
+        }
+    }
+
+    static final class UInt8Decoder extends PrimitiveDecoder {
+        UInt8Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return reader.readUnsignedByte();
+        }
+
+        @Override
+        public Object box(long slot) {
+            return (short) slot;
+        }
+    }
+
+    static final class Int16Decoder extends PrimitiveDecoder {
+        Int16Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return reader.readShortLE();
+        }
+
+        @Override
+        public Object box(long slot) {
+            return (short) slot;
+        }
+    }
+
+    static final class UInt16Decoder extends PrimitiveDecoder {
+        UInt16Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return reader.readUnsignedShortLE();
+        }
+
+        @Override
+        public Object box(long slot) {
+            return (int) slot;
+        }
+    }
+
+    static final class Int32Decoder extends PrimitiveDecoder {
+        Int32Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return reader.readIntLE();
+        }
+
+        @Override
+        public Object box(long slot) {
+            return (int) slot;
+        }
+    }
+
+    static final class UInt32Decoder extends PrimitiveDecoder {
+        UInt32Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return reader.readUnsignedIntLE();
+        }
+
+        @Override
+        public Object box(long slot) {
+            return slot;
+        }
+    }
+
+    static final class Int64Decoder extends PrimitiveDecoder {
+        Int64Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return reader.readLongLE();
+        }
+
+        @Override
+        public Object box(long slot) {
+            return slot;
+        }
+    }
+
+    /**
+     * Slot keeps raw 64 bits of the value. Use {@link Long#toUnsignedString(long)} and similar methods
+     * to work with it without converting to {@link BigInteger}.
+     */
+    static final class UInt64Decoder extends PrimitiveDecoder {
+
+        private static final double UINT64_MODULO = 18446744073709551616.0d;
+
+        UInt64Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return reader.readLongLE();
+        }
+
+        @Override
+        public Object box(long slot) {
+            BigInteger value = BigInteger.valueOf(slot);
+            return slot < 0 ? value.add(BigInteger.ONE.shiftLeft(64)) : value;
+        }
+
+        @Override
+        public long toLong(long slot) {
+            if (slot < 0) {
+                throw new ArithmeticException("integer overflow: " + Long.toUnsignedString(slot)
+                        + " cannot be presented as long");
+            }
+            return slot;
+        }
+
+        @Override
+        public double toDouble(long slot) {
+            return slot < 0 ? slot + UINT64_MODULO : slot;
+        }
+
+        @Override
+        public long toUnsignedLong(long slot) {
+            return slot;
+        }
+    }
+
+    static final class Float32Decoder extends PrimitiveDecoder {
+        Float32Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return Double.doubleToRawLongBits(reader.readFloatLE());
+        }
+
+        @Override
+        public Object box(long slot) {
+            return (float) Double.longBitsToDouble(slot);
+        }
+
+        @Override
+        public long toLong(long slot) {
+            return toLongExact(Double.longBitsToDouble(slot));
+        }
+
+        @Override
+        public double toDouble(long slot) {
+            return Double.longBitsToDouble(slot);
+        }
+    }
+
+    static final class Float64Decoder extends PrimitiveDecoder {
+        Float64Decoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return Double.doubleToRawLongBits(reader.readDoubleLE());
+        }
+
+        @Override
+        public Object box(long slot) {
+            return Double.longBitsToDouble(slot);
+        }
+
+        @Override
+        public long toLong(long slot) {
+            return toLongExact(Double.longBitsToDouble(slot));
+        }
+
+        @Override
+        public double toDouble(long slot) {
+            return Double.longBitsToDouble(slot);
+        }
+    }
+
+    static final class BoolDecoder extends PrimitiveDecoder {
+        BoolDecoder(ClickHouseColumn column) {
+            super(column);
+        }
+
+        @Override
+        long readSlot(BinaryStreamReader reader) throws IOException {
+            return reader.readByte() == 1 ? 1 : 0;
+        }
+
+        @Override
+        public Object box(long slot) {
+            return slot == 1;
+        }
+    }
+
+    private static long toLongExact(double value) {
+        long longValue = (long) value;
+        if (longValue != value) {
+            throw new ArithmeticException("integer overflow: " + value + " cannot be presented as long");
+        }
+        return longValue;
+    }
+}
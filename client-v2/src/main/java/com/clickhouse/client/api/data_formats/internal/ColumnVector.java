@@ -0,0 +1,935 @@
+package com.clickhouse.client.api.data_formats.internal;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.ClickHouseDataType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds values of a single column of a Native format block. Values of fixed-width numeric types are stored
+ * in primitive arrays, strings are stored as a single byte array with offsets and nullable columns have
+ * a separate null map. Only types without a specialized representation are stored as objects.
+ *
+ * Rows are addressed by zero-based index. Instances are reused between blocks of the same structure so
+ * values are valid only until next block is read.
+ *
+ * Note: internal API
+ */
+public abstract class ColumnVector {
+
+    protected final ClickHouseColumn column;
+
+    protected boolean[] nulls;
+
+    protected int size;
+
+    protected ColumnVector(ClickHouseColumn column) {
+        this.column = column;
+    }
+
+    /**
+     * Creates a vector suitable for the column type.
+     *
+     * @param column - column information
+     * @return column vector
+     */
+    public static ColumnVector of(ClickHouseColumn column) {
+        if (column.isLowCardinality()) {
+            // low cardinality columns have own serialization that is not supported yet
+            return new ObjectVector(column);
+        }
+        switch (column.getDataType()) {
+            case Int8:
+            case UInt8:
+            case Int16:
+            case UInt16:
+            case Int32:
+            case UInt32:
+            case Int64:
+            case UInt64:
+            case Bool:
+            case Enum8:
+            case Enum16:
+                return new LongVector(column);
+            case Float32:
+                return new FloatVector(column);
+            case Float64:
+                return new DoubleVector(column);
+            case String:
+            case FixedString:
+                return new StringVector(column);
+            case Array:
+                return new ArrayVector(column);
+            case Map:
+                return new MapVector(column);
+            case Tuple:
+                return new TupleVector(column);
+            default:
+                return new ObjectVector(column);
+        }
+    }
+
+    public ClickHouseColumn getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns number of rows in the vector.
+     *
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return nulls != null && nulls[row];
+    }
+
+    public long getLong(int row) {
+        throw new ClientException("Column " + column.getColumnName() + " " + column.getDataType().name() +
+                " cannot be read as long");
+    }
+
+    public double getDouble(int row) {
+        throw new ClientException("Column " + column.getColumnName() + " " + column.getDataType().name() +
+                " cannot be read as double");
+    }
+
+    public float getFloat(int row) {
+        return (float) getDouble(row);
+    }
+
+    public String getString(int row) {
+        return AbstractBinaryFormatReader.readAsString(getValue(row), column);
+    }
+
+    /**
+     * Returns value of a row as an object. Returned objects are of the same classes as returned
+     * by {@link BinaryStreamReader#readValue(ClickHouseColumn)}.
+     *
+     * @param row - zero-based row index
+     * @return value or null
+     */
+    public abstract Object getValue(int row);
+
+    /**
+     * Returns primitive class which can hold values of the vector without loss or null if values
+     * cannot be represented by a primitive type.
+     */
+    Class<?> getPrimitiveType() {
+        return null;
+    }
+
+    /**
+     * Copies values to an array. Destination is either a primitive array of {@link #getPrimitiveType()} type or
+     * an {@code Object[]} that receives the same values as {@link #getValue(int)} returns, which is the only
+     * option for vectors without a primitive type. Nulls are kept only in {@code Object[]}.
+     *
+     * @param dest - destination array, filled from index 0
+     * @param from - index of the first row to copy
+     * @param len - number of rows to copy
+     */
+    abstract void copyTo(Object dest, int from, int len);
+
+    /**
+     * Copies values returned by {@link #getValue(int)}.
+     */
+    final void copyValues(Object[] dest, int from, int len) {
+        for (int i = 0; i < len; i++) {
+            dest[i] = getValue(from + i);
+        }
+    }
+
+    void read(NativeBlock block, InputStream input, int rows) throws IOException {
+        this.size = rows;
+        if (column.isNullable() && !column.isLowCardinality()) {
+            if (nulls == null || nulls.length < rows) {
+                nulls = new boolean[rows];
+            }
+            byte[] buff = block.buffer(rows);
+            BinaryStreamReader.readNBytes(input, buff, 0, rows);
+            for (int i = 0; i < rows; i++) {
+                nulls[i] = buff[i] != 0;
+            }
+        }
+        readValues(block, input, rows);
+    }
+
+    protected abstract void readValues(NativeBlock block, InputStream input, int rows) throws IOException;
+
+    /**
+     * Integer types, booleans and enums. Values are stored as longs. Unsigned 64-bit values are stored
+     * as is, so they should be treated as unsigned.
+     */
+    public static class LongVector extends ColumnVector {
+
+        private long[] values;
+
+        private final int byteLength;
+
+        LongVector(ClickHouseColumn column) {
+            super(column);
+            switch (column.getDataType()) {
+                case Int8:
+                case UInt8:
+                case Bool:
+                case Enum8:
+                    byteLength = 1;
+                    break;
+                case Int16:
+                case UInt16:
+                case Enum16:
+                    byteLength = 2;
+                    break;
+                case Int32:
+                case UInt32:
+                    byteLength = 4;
+                    break;
+                default:
+                    byteLength = 8;
+            }
+        }
+
+        public long[] getValues() {
+            return values;
+        }
+
+        @Override
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        public double getDouble(int row) {
+            long v = values[row];
+            if (column.getDataType() == ClickHouseDataType.UInt64 && v < 0) {
+                return (double) (v >>> 1) * 2.0d + (v & 1L);
+            }
+            return v;
+        }
+
+        @Override
+        public Object getValue(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            long v = values[row];
+            switch (column.getDataType()) {
+                case Int8:
+                    return (byte) v;
+                case UInt8:
+                case Int16:
+                    return (short) v;
+                case UInt16:
+                case Int32:
+                    return (int) v;
+                case UInt32:
+                case Int64:
+                    return v;
+                case UInt64:
+                    return v < 0 ? BigInteger.valueOf(v).add(UINT64_MODULO) : BigInteger.valueOf(v);
+                case Bool:
+                    return v == 1;
+                case Enum8:
+                case Enum16: {
+                    String name = column.getEnumConstants().nameNullable((int) v);
+                    return new BinaryStreamReader.EnumValue(name == null ? "<unknown>" : name, (int) v);
+                }
+                default:
+                    throw new ClientException("Unsupported data type: " + column.getDataType());
+            }
+        }
+
+        @Override
+        protected void readValues(NativeBlock block, InputStream input, int rows) throws IOException {
+            if (values == null || values.length < rows) {
+                values = new long[rows];
+            }
+            byte[] buff = block.buffer(rows * byteLength);
+            BinaryStreamReader.readNBytes(input, buff, 0, rows * byteLength);
+            ClickHouseDataType dataType = column.getDataType();
+            switch (dataType) {
+                case Int8:
+                case Enum8:
+                    for (int i = 0; i < rows; i++) {
+                        values[i] = buff[i];
+                    }
+                    break;
+                case UInt8:
+                case Bool:
+                    for (int i = 0; i < rows; i++) {
+                        values[i] = buff[i] & 0xFF;
+                    }
+                    break;
+                case Int16:
+                case Enum16:
+                    for (int i = 0, p = 0; i < rows; i++, p += 2) {
+                        values[i] = (short) (buff[p] & 0xFF | (buff[p + 1] & 0xFF) << 8);
+                    }
+                    break;
+                case UInt16:
+                    for (int i = 0, p = 0; i < rows; i++, p += 2) {
+                        values[i] = buff[p] & 0xFF | (buff[p + 1] & 0xFF) << 8;
+                    }
+                    break;
+                case Int32:
+                    for (int i = 0, p = 0; i < rows; i++, p += 4) {
+                        values[i] = getIntLE(buff, p);
+                    }
+                    break;
+                case UInt32:
+                    for (int i = 0, p = 0; i < rows; i++, p += 4) {
+                        values[i] = getIntLE(buff, p) & 0xFFFFFFFFL;
+                    }
+                    break;
+                default:
+                    for (int i = 0, p = 0; i < rows; i++, p += 8) {
+                        values[i] = getLongLE(buff, p);
+                    }
+            }
+        }
+
+        @Override
+        Class<?> getPrimitiveType() {
+            switch (column.getDataType()) {
+                case Int8:
+                    return byte.class;
+                case UInt8:
+                case Int16:
+                    return short.class;
+                case UInt16:
+                case Int32:
+                    return int.class;
+                case UInt32:
+                case Int64:
+                    return long.class;
+                case Bool:
+                    return boolean.class;
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        void copyTo(Object dest, int from, int len) {
+            Class<?> type = dest instanceof Object[] ? null : getPrimitiveType();
+            if (type == null) {
+                copyValues((Object[]) dest, from, len);
+            } else if (type == long.class) {
+                System.arraycopy(values, from, dest, 0, len);
+            } else if (type == int.class) {
+                int[] arr = (int[]) dest;
+                for (int i = 0; i < len; i++) {
+                    arr[i] = (int) values[from + i];
+                }
+            } else if (type == short.class) {
+                short[] arr = (short[]) dest;
+                for (int i = 0; i < len; i++) {
+                    arr[i] = (short) values[from + i];
+                }
+            } else if (type == byte.class) {
+                byte[] arr = (byte[]) dest;
+                for (int i = 0; i < len; i++) {
+                    arr[i] = (byte) values[from + i];
+                }
+            } else {
+                boolean[] arr = (boolean[]) dest;
+                for (int i = 0; i < len; i++) {
+                    arr[i] = values[from + i] == 1;
+                }
+            }
+        }
+
+        private static final BigInteger UINT64_MODULO = BigInteger.ONE.shiftLeft(64);
+    }
+
+    /**
+     * Float32 type. Values are stored as floats.
+     */
+    public static class FloatVector extends ColumnVector {
+
+        private float[] values;
+
+        FloatVector(ClickHouseColumn column) {
+            super(column);
+        }
+
+        public float[] getValues() {
+            return values;
+        }
+
+        @Override
+        public float getFloat(int row) {
+            return values[row];
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return (long) values[row];
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        Class<?> getPrimitiveType() {
+            return float.class;
+        }
+
+        @Override
+        void copyTo(Object dest, int from, int len) {
+            if (dest instanceof Object[]) {
+                copyValues((Object[]) dest, from, len);
+            } else {
+                System.arraycopy(values, from, dest, 0, len);
+            }
+        }
+
+        @Override
+        protected void readValues(NativeBlock block, InputStream input, int rows) throws IOException {
+            if (values == null || values.length < rows) {
+                values = new float[rows];
+            }
+            byte[] buff = block.buffer(rows * 4);
+            BinaryStreamReader.readNBytes(input, buff, 0, rows * 4);
+            for (int i = 0, p = 0; i < rows; i++, p += 4) {
+                values[i] = Float.intBitsToFloat(getIntLE(buff, p));
+            }
+        }
+    }
+
+    /**
+     * Float64 type. Values are stored as doubles.
+     */
+    public static class DoubleVector extends ColumnVector {
+
+        private double[] values;
+
+        DoubleVector(ClickHouseColumn column) {
+            super(column);
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return (long) values[row];
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        Class<?> getPrimitiveType() {
+            return double.class;
+        }
+
+        @Override
+        void copyTo(Object dest, int from, int len) {
+            if (dest instanceof Object[]) {
+                copyValues((Object[]) dest, from, len);
+            } else {
+                System.arraycopy(values, from, dest, 0, len);
+            }
+        }
+
+        @Override
+        protected void readValues(NativeBlock block, InputStream input, int rows) throws IOException {
+            if (values == null || values.length < rows) {
+                values = new double[rows];
+            }
+            byte[] buff = block.buffer(rows * 8);
+            BinaryStreamReader.readNBytes(input, buff, 0, rows * 8);
+            for (int i = 0, p = 0; i < rows; i++, p += 8) {
+                values[i] = Double.longBitsToDouble(getLongLE(buff, p));
+            }
+        }
+    }
+
+    /**
+     * Array type. In Native format an array column is sent as cumulative offsets (one per row) followed by
+     * a single column with elements of all rows. Elements are read into one nested vector and each row is
+     * a slice of it defined by offsets.
+     */
+    public static class ArrayVector extends ColumnVector {
+
+        private final ColumnVector elements;
+
+        private int[] offsets;
+
+        ArrayVector(ClickHouseColumn column) {
+            super(column);
+            this.elements = ColumnVector.of(column.getNestedColumns().get(0));
+        }
+
+        /**
+         * Returns vector with elements of all rows.
+         *
+         * @return elements vector
+         */
+        public ColumnVector getElements() {
+            return elements;
+        }
+
+        /**
+         * Returns index of the first element of a row in the elements vector.
+         *
+         * @param row - zero-based row index
+         * @return index of the first element
+         */
+        public int getOffset(int row) {
+            return offsets[row];
+        }
+
+        /**
+         * Returns number of elements of a row.
+         *
+         * @param row - zero-based row index
+         * @return array length
+         */
+        public int getLength(int row) {
+            return offsets[row + 1] - offsets[row];
+        }
+
+        /**
+         * Returns a view of a row. View is backed by the elements vector so no data is copied.
+         *
+         * @param row - zero-based row index
+         * @return array view
+         */
+        public ArrayView getView(int row) {
+            return new ArrayView(elements, offsets[row], offsets[row + 1] - offsets[row]);
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return toArrayValue(elements, offsets[row], offsets[row + 1] - offsets[row]);
+        }
+
+        @Override
+        void copyTo(Object dest, int from, int len) {
+            copyValues((Object[]) dest, from, len);
+        }
+
+        @Override
+        protected void readValues(NativeBlock block, InputStream input, int rows) throws IOException {
+            offsets = readOffsets(block, input, rows, offsets);
+            elements.read(block, input, offsets[rows]);
+        }
+
+        /**
+         * Creates array value compatible with {@link BinaryStreamReader#readArray(ClickHouseColumn)}.
+         * Values of not nullable primitive types are copied in bulk to a primitive array.
+         */
+        static BinaryStreamReader.ArrayValue toArrayValue(ColumnVector elements, int offset, int len) {
+            Class<?> primitiveType = elements.getColumn().isNullable() ? null : elements.getPrimitiveType();
+            if (primitiveType != null) {
+                BinaryStreamReader.ArrayValue array = new BinaryStreamReader.ArrayValue(primitiveType, len);
+                elements.copyTo(array.array, offset, len);
+                return array;
+            } else if (len == 0) {
+                return new BinaryStreamReader.ArrayValue(Object.class, 0);
+            }
+
+            Object first = elements.getValue(offset);
+            BinaryStreamReader.ArrayValue array = new BinaryStreamReader.ArrayValue(
+                    first == null || elements.getColumn().isNullable() ? Object.class : first.getClass(), len);
+            array.set(0, first);
+            for (int i = 1; i < len; i++) {
+                array.set(i, elements.getValue(offset + i));
+            }
+            return array;
+        }
+    }
+
+    /**
+     * View of a single array value. Elements are read from the vector of the whole column.
+     */
+    public static class ArrayView {
+
+        private final ColumnVector elements;
+
+        private final int offset;
+
+        private final int length;
+
+        ArrayView(ColumnVector elements, int offset, int length) {
+            this.elements = elements;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Returns vector that holds the elements. Index of the first element is {@link #getOffset()}.
+         *
+         * @return elements vector
+         */
+        public ColumnVector getElements() {
+            return elements;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public boolean isNull(int index) {
+            return elements.isNull(offset + index);
+        }
+
+        public long getLong(int index) {
+            return elements.getLong(offset + index);
+        }
+
+        public float getFloat(int index) {
+            return elements.getFloat(offset + index);
+        }
+
+        public double getDouble(int index) {
+            return elements.getDouble(offset + index);
+        }
+
+        public String getString(int index) {
+            return elements.getString(offset + index);
+        }
+
+        public Object getValue(int index) {
+            return elements.getValue(offset + index);
+        }
+
+        /**
+         * Copies elements into a new array value.
+         *
+         * @return array value
+         */
+        public BinaryStreamReader.ArrayValue toArrayValue() {
+            return ArrayVector.toArrayValue(elements, offset, length);
+        }
+    }
+
+    /**
+     * Map type. Stored as offsets of rows followed by a vector of keys and a vector of values of all rows,
+     * the same way as {@code Array(Tuple(K, V))}.
+     */
+    public static class MapVector extends ColumnVector {
+
+        private final ColumnVector keys;
+
+        private final ColumnVector values;
+
+        private int[] offsets;
+
+        MapVector(ClickHouseColumn column) {
+            super(column);
+            this.keys = ColumnVector.of(column.getKeyInfo());
+            this.values = ColumnVector.of(column.getValueInfo());
+        }
+
+        public ColumnVector getKeys() {
+            return keys;
+        }
+
+        public ColumnVector getValues() {
+            return values;
+        }
+
+        /**
+         * Returns index of the first entry of a row in the keys and values vectors.
+         *
+         * @param row - zero-based row index
+         * @return index of the first entry
+         */
+        public int getOffset(int row) {
+            return offsets[row];
+        }
+
+        /**
+         * Returns number of entries of a row.
+         *
+         * @param row - zero-based row index
+         * @return map size
+         */
+        public int getLength(int row) {
+            return offsets[row + 1] - offsets[row];
+        }
+
+        @Override
+        public Object getValue(int row) {
+            int from = offsets[row];
+            int len = offsets[row + 1] - from;
+            if (len == 0) {
+                return Collections.emptyMap();
+            }
+            Map<Object, Object> map = new LinkedHashMap<>(len);
+            for (int i = from; i < from + len; i++) {
+                map.put(keys.getValue(i), values.getValue(i));
+            }
+            return map;
+        }
+
+        @Override
+        void copyTo(Object dest, int from, int len) {
+            copyValues((Object[]) dest, from, len);
+        }
+
+        @Override
+        protected void readValues(NativeBlock block, InputStream input, int rows) throws IOException {
+            offsets = readOffsets(block, input, rows, offsets);
+            keys.read(block, input, offsets[rows]);
+            values.read(block, input, offsets[rows]);
+        }
+    }
+
+    /**
+     * Tuple type. Each element is stored in its own vector for all rows.
+     */
+    public static class TupleVector extends ColumnVector {
+
+        private final ColumnVector[] elements;
+
+        TupleVector(ClickHouseColumn column) {
+            super(column);
+            List<ClickHouseColumn> nested = column.getNestedColumns();
+            this.elements = new ColumnVector[nested.size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = ColumnVector.of(nested.get(i));
+            }
+        }
+
+        /**
+         * Returns vector of a tuple element.
+         *
+         * @param index - zero-based element index
+         * @return element vector
+         */
+        public ColumnVector getElement(int index) {
+            return elements[index];
+        }
+
+        @Override
+        public Object getValue(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            Object[] tuple = new Object[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                tuple[i] = elements[i].getValue(row);
+            }
+            return tuple;
+        }
+
+        @Override
+        void copyTo(Object dest, int from, int len) {
+            copyValues((Object[]) dest, from, len);
+        }
+
+        @Override
+        protected void readValues(NativeBlock block, InputStream input, int rows) throws IOException {
+            for (ColumnVector element : elements) {
+                element.read(block, input, rows);
+            }
+        }
+    }
+
+    /**
+     * String and FixedString types. Values of all rows are stored in a single byte array and
+     * are decoded into strings only on demand.
+     */
+    public static class StringVector extends ColumnVector {
+
+        private byte[] data;
+
+        private int[] offsets;
+
+        StringVector(ClickHouseColumn column) {
+            super(column);
+        }
+
+        /**
+         * Returns internal buffer with bytes of all rows. Use {@link #getOffset(int)} and {@link #getLength(int)}
+         * to locate a value.
+         *
+         * @return byte array
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        public int getOffset(int row) {
+            return offsets[row];
+        }
+
+        public int getLength(int row) {
+            return offsets[row + 1] - offsets[row];
+        }
+
+        @Override
+        public String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return new String(data, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return getString(row);
+        }
+
+        @Override
+        void copyTo(Object dest, int from, int len) {
+            copyValues((Object[]) dest, from, len);
+        }
+
+        @Override
+        protected void readValues(NativeBlock block, InputStream input, int rows) throws IOException {
+            if (offsets == null || offsets.length < rows + 1) {
+                offsets = new int[rows + 1];
+            }
+            offsets[0] = 0;
+            if (column.getDataType() == ClickHouseDataType.FixedString) {
+                int len = column.getPrecision();
+                int total = Math.multiplyExact(len, rows);
+                if (data == null || data.length < total) {
+                    data = new byte[total];
+                }
+                BinaryStreamReader.readNBytes(input, data, 0, total);
+                for (int i = 1; i <= rows; i++) {
+                    offsets[i] = offsets[i - 1] + len;
+                }
+            } else {
+                if (data == null) {
+                    data = new byte[Math.max(rows * 16, 64)];
+                }
+                int pos = 0;
+                for (int i = 0; i < rows; i++) {
+                    int len = BinaryStreamReader.readVarInt(input);
+                    if (pos + len > data.length) {
+                        data = Arrays.copyOf(data, Math.max(data.length * 2, pos + len));
+                    }
+                    BinaryStreamReader.readNBytes(input, data, pos, len);
+                    pos += len;
+                    offsets[i + 1] = pos;
+                }
+            }
+        }
+    }
+
+    /**
+     * Any other types. Values are read by {@link BinaryStreamReader} and stored as objects.
+     */
+    public static class ObjectVector extends ColumnVector {
+
+        private Object[] values;
+
+        private final ClickHouseColumn valueColumn;
+
+        ObjectVector(ClickHouseColumn column) {
+            super(column);
+            if (column.isNullable() && !column.isLowCardinality()) {
+                // null map is read separately so values are read as not nullable
+                String typeName = column.getOriginalTypeName();
+                valueColumn = ClickHouseColumn.of(column.getColumnName(),
+                        typeName.substring(typeName.indexOf('(') + 1, typeName.lastIndexOf(')')));
+            } else {
+                valueColumn = column;
+            }
+        }
+
+        @Override
+        public long getLong(int row) {
+            Object value = getValue(row);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            return super.getLong(row);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            Object value = getValue(row);
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            return super.getDouble(row);
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        void copyTo(Object dest, int from, int len) {
+            copyValues((Object[]) dest, from, len);
+        }
+
+        @Override
+        protected void readValues(NativeBlock block, InputStream input, int rows) throws IOException {
+            if (values == null || values.length < rows) {
+                values = new Object[rows];
+            }
+            BinaryStreamReader reader = block.getBinaryStreamReader();
+            for (int j = 0; j < rows; j++) {
+                values[j] = reader.readValue(valueColumn);
+            }
+        }
+    }
+
+    /**
+     * Reads end offsets of rows of an array-like column. Returns array where element {@code i} is the start
+     * of row {@code i} and element {@code rows} is the total number of nested values.
+     */
+    static int[] readOffsets(NativeBlock block, InputStream input, int rows, int[] offsets) throws IOException {
+        if (offsets == null || offsets.length < rows + 1) {
+            offsets = new int[rows + 1];
+        }
+        offsets[0] = 0;
+        byte[] buff = block.buffer(rows * 8);
+        BinaryStreamReader.readNBytes(input, buff, 0, rows * 8);
+        for (int i = 0, p = 0; i < rows; i++, p += 8) {
+            offsets[i + 1] = Math.toIntExact(getLongLE(buff, p));
+        }
+        return offsets;
+    }
+
+    static int getIntLE(byte[] buff, int p) {
+        return (buff[p] & 0xFF) | (buff[p + 1] & 0xFF) << 8 | (buff[p + 2] & 0xFF) << 16 | (buff[p + 3] & 0xFF) << 24;
+    }
+
+    static long getLongLE(byte[] buff, int p) {
+        return (0xFFL & buff[p]) | ((0xFFL & buff[p + 1]) << 8) | ((0xFFL & buff[p + 2]) << 16)
+                | ((0xFFL & buff[p + 3]) << 24) | ((0xFFL & buff[p + 4]) << 32)
+                | ((0xFFL & buff[p + 5]) << 40) | ((0xFFL & buff[p + 6]) << 48)
+                | ((0xFFL & buff[p + 7]) << 56);
+    }
+}
@@ -0,0 +1,203 @@
+package com.clickhouse.client.api.data_formats.internal;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.data.ClickHouseColumn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Block of data in Native format stored column by column. See {@link ColumnVector} for how values are stored.
+ *
+ * <p>Block has a row cursor that is moved by {@link #next()}. Typed getters read a value of the current row
+ * directly from column vectors without boxing. Column index starts with 1 as everywhere in the reader API.</p>
+ *
+ * <p>Block object is reused by a reader to read next portion of data. So it should not be used after next
+ * block is requested.</p>
+ *
+ * Note: internal API
+ */
+public class NativeBlock {
+
+    private final BinaryStreamReader binaryStreamReader;
+
+    private ColumnVector[] vectors = new ColumnVector[0];
+
+    private TableSchema schema;
+
+    private int nRows;
+
+    private int rowIndex = -1;
+
+    private byte[] buffer = new byte[0];
+
+    public NativeBlock(BinaryStreamReader binaryStreamReader) {
+        this.binaryStreamReader = binaryStreamReader;
+    }
+
+    /**
+     * Reads block content from the input stream. Column vectors from previous block are reused if column
+     * types did not change.
+     *
+     * @param input - source of bytes
+     * @param nColumns - number of columns in the block
+     * @param nRows - number of rows in the block
+     * @throws IOException when IO error occurs
+     */
+    public void read(InputStream input, int nColumns, int nRows) throws IOException {
+        this.nRows = nRows;
+        this.rowIndex = -1;
+
+        boolean sameColumns = vectors.length == nColumns;
+        ColumnVector[] blockVectors = sameColumns ? vectors : new ColumnVector[nColumns];
+        List<ClickHouseColumn> columns = new ArrayList<>(nColumns);
+        for (int i = 0; i < nColumns; i++) {
+            String name = BinaryStreamReader.readString(input);
+            String type = BinaryStreamReader.readString(input);
+            ColumnVector vector = blockVectors[i];
+            ClickHouseColumn column;
+            if (vector != null && vector.getColumn().getColumnName().equals(name)
+                    && vector.getColumn().getOriginalTypeName().equals(type)) {
+                column = vector.getColumn();
+            } else {
+                column = ClickHouseColumn.of(name, type);
+                vector = ColumnVector.of(column);
+                blockVectors[i] = vector;
+                sameColumns = false;
+            }
+            columns.add(column);
+            vector.read(this, input, nRows);
+        }
+
+        vectors = blockVectors;
+        if (!sameColumns || schema == null) {
+            schema = new TableSchema(columns);
+        }
+    }
+
+    BinaryStreamReader getBinaryStreamReader() {
+        return binaryStreamReader;
+    }
+
+    /**
+     * Returns shared temporary buffer of at least {@code size} bytes.
+     */
+    byte[] buffer(int size) {
+        if (buffer.length < size) {
+            buffer = new byte[size];
+        }
+        return buffer;
+    }
+
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    public int getRowCount() {
+        return nRows;
+    }
+
+    public int getColumnCount() {
+        return vectors.length;
+    }
+
+    /**
+     * Returns column vector by column index.
+     *
+     * @param colIndex - column index starting from 1
+     * @return column vector
+     */
+    public ColumnVector getColumn(int colIndex) {
+        if (colIndex < 1 || colIndex > vectors.length) {
+            throw new ClientException("Column index out of bounds: " + colIndex);
+        }
+        return vectors[colIndex - 1];
+    }
+
+    public ColumnVector getColumn(String colName) {
+        return vectors[schema.nameToIndex(colName)];
+    }
+
+    /**
+     * Moves cursor to the next row of the block.
+     *
+     * @return true if cursor points to a row, false if there are no more rows in the block
+     */
+    public boolean next() {
+        if (rowIndex + 1 < nRows) {
+            rowIndex++;
+            return true;
+        }
+        rowIndex = nRows;
+        return false;
+    }
+
+    /**
+     * Returns zero-based index of the current row.
+     *
+     * @return current row index
+     */
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    /**
+     * Moves cursor to the specified row.
+     *
+     * @param rowIndex - zero-based row index
+     */
+    public void setRowIndex(int rowIndex) {
+        if (rowIndex < -1 || rowIndex > nRows) {
+            throw new ClientException("Row index out of bounds: " + rowIndex);
+        }
+        this.rowIndex = rowIndex;
+    }
+
+    public boolean isNull(int colIndex) {
+        return getColumn(colIndex).isNull(rowIndex);
+    }
+
+    public long getLong(int colIndex) {
+        return getColumn(colIndex).getLong(rowIndex);
+    }
+
+    public double getDouble(int colIndex) {
+        return getColumn(colIndex).getDouble(rowIndex);
+    }
+
+    public String getString(int colIndex) {
+        return getColumn(colIndex).getString(rowIndex);
+    }
+
+    public Object getValue(int colIndex) {
+        return getColumn(colIndex).getValue(rowIndex);
+    }
+
+    /**
+     * Copies values of the row to an array.
+     *
+     * @param row - zero-based row index
+     * @param record - destination array
+     */
+    public void fillRecord(int row, Object[] record) {
+        for (int i = 0; i < vectors.length; i++) {
+            record[i] = vectors[i].getValue(row);
+        }
+    }
+
+    /**
+     * Copies values of the row to a map where key is a column name.
+     *
+     * @param row - zero-based row index
+     * @param record - destination map
+     */
+    public void fillRecord(int row, Map<String, Object> record) {
+        for (ColumnVector vector : vectors) {
+            record.put(vector.getColumn().getColumnName(), vector.getValue(row));
+        }
+    }
+}
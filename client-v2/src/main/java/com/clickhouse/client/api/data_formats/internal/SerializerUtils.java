@@ -2,6 +2,8 @@ package com.clickhouse.client.api.data_formats.internal;
 
 import com.clickhouse.client.api.Client;
 import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.data_formats.RowBinaryFormatSerializer;
+import com.clickhouse.client.api.insert.POJOSerializer;
 import com.clickhouse.client.api.query.POJOSetter;
 import com.clickhouse.data.ClickHouseAggregateFunction;
 import com.clickhouse.data.ClickHouseColumn;
@@ -45,12 +47,21 @@ import java.util.TimeZone;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
 import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ASTORE;
 import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
 import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
 import static org.objectweb.asm.Opcodes.INVOKESTATIC;
 import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
 import static org.objectweb.asm.Opcodes.RETURN;
 
 public class SerializerUtils {
@@ -897,6 +908,215 @@ public class SerializerUtils {
         }
     }
 
+    /**
+     * Compiles a serializer that writes a whole POJO row in RowBinary (or RowBinaryWithDefaults) format.
+     * Generated class calls getters directly and writes primitive values with type specific writers without
+     * boxing. Other values are boxed and written with {@link #writeValue(OutputStream, Object, ClickHouseColumn, boolean)}.
+     *
+     * @param dtoClass - POJO class
+     * @param getters - getter for each column in the order of {@code columns}
+     * @param columns - table columns in the order they are written
+     * @param defaultsSupport - if row is written in RowBinaryWithDefaults format
+     * @return serializer instance
+     */
+    public static POJOSerializer compilePOJOSerializer(Class<?> dtoClass, List<Method> getters,
+                                                       List<ClickHouseColumn> columns, boolean defaultsSupport) {
+        if (getters.size() != columns.size()) {
+            throw new IllegalArgumentException("Number of getters doesn't match number of columns");
+        }
+
+        final String serializerClassName = (dtoClass.getName() + "RowBinarySerializer").replace('.', '/');
+        final String columnsDescriptor = Type.getDescriptor(ClickHouseColumn[].class);
+        final String streamDescriptor = Type.getDescriptor(OutputStream.class);
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, ACC_PUBLIC, serializerClassName
+                , null, "java/lang/Object",
+                new String[]{POJOSerializer.class.getName().replace('.', '/')});
+        writer.visitField(ACC_PRIVATE | ACC_FINAL, "columns", columnsDescriptor, null, null).visitEnd();
+
+        // constructor method
+        {
+            MethodVisitor mv = writer.visitMethod(ACC_PUBLIC, "<init>", "(" + columnsDescriptor + ")V", null, null);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL,
+                    "java/lang/Object",
+                    "<init>",
+                    "()V");
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitFieldInsn(PUTFIELD, serializerClassName, "columns", columnsDescriptor);
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        // serialize(Object obj, OutputStream out) impl
+        {
+            MethodVisitor mv = writer.visitMethod(ACC_PUBLIC, "serialize",
+                    Type.getMethodDescriptor(Type.VOID_TYPE,
+                            Type.getType(Object.class), Type.getType(OutputStream.class)), null,
+                    new String[]{"java/lang/reflect/InvocationTargetException", "java/lang/IllegalAccessException",
+                            "java/io/IOException"});
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitTypeInsn(CHECKCAST, Type.getInternalName(dtoClass));
+            mv.visitVarInsn(ASTORE, 3); // typed target object
+
+            for (int i = 0; i < columns.size(); i++) {
+                Method getter = getters.get(i);
+                ClickHouseColumn column = columns.get(i);
+                Class<?> valueType = getter.getReturnType();
+                String writerMethod = primitiveWriterMethod(valueType, column);
+
+                if (writerMethod != null) {
+                    // primitive value is never null so preamble is known in advance
+                    if (defaultsSupport) {
+                        mv.visitVarInsn(ALOAD, 2);
+                        mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(SerializerUtils.class), "writeNonNull",
+                                "(" + streamDescriptor + ")V", false);
+                    }
+                    if (column.isNullable()) {
+                        mv.visitVarInsn(ALOAD, 2);
+                        mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(SerializerUtils.class), "writeNonNull",
+                                "(" + streamDescriptor + ")V", false);
+                    }
+                    mv.visitVarInsn(ALOAD, 2);
+                    invokeGetter(mv, getter);
+                    Class<?> writerType = primitiveWriterType(column.getDataType());
+                    int convertOpcode = primitiveConvertOpcode(valueType, writerType);
+                    if (convertOpcode != -1) {
+                        mv.visitInsn(convertOpcode);
+                    }
+                    mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(BinaryStreamUtils.class), writerMethod,
+                            "(" + streamDescriptor + Type.getDescriptor(writerType) + ")V", false);
+                } else {
+                    mv.visitVarInsn(ALOAD, 2);
+                    invokeGetter(mv, getter);
+                    if (valueType.isPrimitive()) {
+                        Class<?> objectType = valueType == char.class ? Character.class
+                                : ClickHouseDataType.toObjectType(valueType);
+                        mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(objectType), "valueOf",
+                                Type.getMethodDescriptor(Type.getType(objectType), Type.getType(valueType)), false);
+                    }
+                    mv.visitVarInsn(ALOAD, 0);
+                    mv.visitFieldInsn(GETFIELD, serializerClassName, "columns", columnsDescriptor);
+                    mv.visitLdcInsn(i);
+                    mv.visitInsn(AALOAD);
+                    mv.visitInsn(defaultsSupport ? ICONST_1 : ICONST_0);
+                    mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(SerializerUtils.class), "writeValue",
+                            Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(OutputStream.class),
+                                    Type.getType(Object.class), Type.getType(ClickHouseColumn.class),
+                                    Type.BOOLEAN_TYPE), false);
+                }
+            }
+
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        try {
+            SerializerUtils.DynamicClassLoader loader = new SerializerUtils.DynamicClassLoader(dtoClass.getClassLoader());
+            Class<?> clazz = loader.defineClass(serializerClassName.replace('/', '.'), writer.toByteArray());
+            return (POJOSerializer) clazz.getDeclaredConstructor(ClickHouseColumn[].class)
+                    .newInstance((Object) columns.toArray(new ClickHouseColumn[0]));
+        } catch (Exception e) {
+            throw new ClientException("Failed to compile serializer for " + dtoClass.getName(), e);
+        }
+    }
+
+    /**
+     * Writes value preamble and value itself. Same as what per-column POJO serializer does.
+     *
+     * @param out - output stream
+     * @param value - value to write
+     * @param column - target column
+     * @param defaultsSupport - if value is written in RowBinaryWithDefaults format
+     * @throws IOException when IO error occurs
+     */
+    public static void writeValue(OutputStream out, Object value, ClickHouseColumn column, boolean defaultsSupport)
+            throws IOException {
+        if (RowBinaryFormatSerializer.writeValuePreamble(out, defaultsSupport, column, value)) {
+            serializeData(out, value, column);
+        }
+    }
+
+    private static void invokeGetter(MethodVisitor mv, Method getter) {
+        Class<?> owner = getter.getDeclaringClass();
+        mv.visitVarInsn(ALOAD, 3);
+        mv.visitMethodInsn(owner.isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL,
+                Type.getInternalName(owner),
+                getter.getName(),
+                Type.getMethodDescriptor(getter),
+                owner.isInterface());
+    }
+
+    /**
+     * Returns name of {@link BinaryStreamUtils} method that writes a value of the given Java type into a column
+     * without boxing. Returns {@code null} if value should be written as an object.
+     */
+    private static String primitiveWriterMethod(Class<?> valueType, ClickHouseColumn column) {
+        if (!valueType.isPrimitive() || valueType == char.class || valueType == void.class) {
+            return null;
+        }
+
+        switch (column.getDataType()) {
+            case Int8:
+                return "writeInt8";
+            case Int16:
+                return "writeInt16";
+            case Int32:
+                return "writeInt32";
+            case Int64:
+                return "writeInt64";
+            case UInt8:
+                return "writeUnsignedInt8";
+            case UInt16:
+                return "writeUnsignedInt16";
+            case UInt32:
+                return "writeUnsignedInt32";
+            case UInt64:
+                return "writeUnsignedInt64";
+            case Float32:
+                return valueType == boolean.class ? null : "writeFloat32";
+            case Float64:
+                return valueType == boolean.class ? null : "writeFloat64";
+            case Bool:
+                return valueType == boolean.class ? "writeBoolean" : null;
+            default:
+                return null;
+        }
+    }
+
+    private static Class<?> primitiveWriterType(ClickHouseDataType dataType) {
+        switch (dataType) {
+            case Int64:
+            case UInt32:
+            case UInt64:
+                return long.class;
+            case Float32:
+                return float.class;
+            case Float64:
+                return double.class;
+            case Bool:
+                return boolean.class;
+            default:
+                return int.class;
+        }
+    }
+
+    private static int primitiveConvertOpcode(Class<?> valueType, Class<?> targetType) {
+        if (valueType == long.class) {
+            return longToOpcode(targetType);
+        } else if (valueType == float.class) {
+            return floatToOpcode(targetType);
+        } else if (valueType == double.class) {
+            return doubleToOpcode(targetType);
+        }
+        // boolean, byte, short and int are all int values on the stack
+        return targetType == int.class || targetType == boolean.class ? -1 : intToOpcode(targetType);
+    }
+
     private static void binaryReaderMethodForType(MethodVisitor mv, Class<?> targetType, ClickHouseDataType dataType) {
         String readerMethod = null;
         String readerMethodReturnType = null;
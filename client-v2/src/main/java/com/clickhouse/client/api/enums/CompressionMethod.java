@@ -0,0 +1,10 @@
+package com.clickhouse.client.api.enums;
+
+/**
+ * Compression method of ClickHouse native compressed blocks.
+ */
+public enum CompressionMethod {
+    NONE,
+    LZ4,
+    ZSTD
+}
@@ -3,6 +3,7 @@ package com.clickhouse.client.api.insert;
 import com.clickhouse.client.ClickHouseProtocol;
 import com.clickhouse.client.api.Client;
 import com.clickhouse.client.api.ClientConfigProperties;
+import com.clickhouse.client.api.enums.CompressionMethod;
 import com.clickhouse.client.api.enums.Protocol;
 import com.clickhouse.client.api.internal.ValidationUtils;
 import org.apache.hc.core5.http.HttpHeaders;
@@ -145,6 +146,17 @@ public class InsertSettings {
         return this;
     }
 
+    /**
+     * Sets compression method for the request data. Overrides client configuration.
+     * {@link CompressionMethod#NONE} turns compression off.
+     *
+     * @param method - compression method
+     */
+    public InsertSettings compressionMethod(CompressionMethod method) {
+        this.rawSettings.put(ClientConfigProperties.COMPRESSION_METHOD.getKey(), method);
+        return this;
+    }
+
     public InsertSettings useHttpCompression(boolean enabled) {
         this.rawSettings.put(ClientConfigProperties.USE_HTTP_COMPRESSION.getKey(), enabled);
         return this;
@@ -0,0 +1,383 @@
+package com.clickhouse.client.api.insert;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.DataStreamWriter;
+import com.clickhouse.client.api.data_formats.RowBinaryFormatSerializer;
+import com.clickhouse.client.api.data_formats.internal.SerializerUtils;
+import com.clickhouse.client.api.internal.ClientStatisticsHolder;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.client.api.metrics.ClientMetrics;
+import com.clickhouse.client.api.metrics.Metric;
+import com.clickhouse.client.api.metrics.OperationMetrics;
+import com.clickhouse.client.api.metrics.ServerMetrics;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.ClickHouseFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Writes rows directly to shards of a table, bypassing a {@code Distributed} table. Each row is sent to the shard
+ * selected by its sharding key the same way as {@code Distributed} engine does: key modulo total weight of shards
+ * gives a slot and each shard owns a range of slots proportional to its weight.
+ * <p>
+ * Rows are serialized in {@link ClickHouseFormat#RowBinaryWithDefaults} format and streamed to the shards by
+ * concurrent insert requests. A request to a shard is started when the first chunk of its rows is ready, so shards
+ * without rows get no request. Writing blocks when a shard does not keep up and a few chunks are already pending.
+ * If the shard takes no data within the timeout, for example because its request has not started, the insert fails.
+ * Rows already sent are not resent on failure, so inserts are not retried.
+ * </p>
+ * Use {@link com.clickhouse.client.api.Client#newShardedInsertWriter(String, TableSchema, List, int[], ShardingKey, InsertSettings)}
+ * to create an instance.
+ * <p>
+ * Experimental API
+ */
+public class ShardedInsertWriter implements AutoCloseable {
+
+    public static final ClickHouseFormat FORMAT = ClickHouseFormat.RowBinaryWithDefaults;
+
+    // chunks waiting for a shard request before writing blocks
+    static final int MAX_PENDING_CHUNKS = 4;
+
+    private static final ByteArrayOutputStream END_OF_DATA = new ByteArrayOutputStream(0);
+
+    private static final ByteArrayOutputStream ABORT = new ByteArrayOutputStream(0);
+
+    private final TableSchema tableSchema;
+
+    private final ShardingKey shardingKey;
+
+    private final BiFunction<String, DataStreamWriter, CompletableFuture<InsertResponse>> sender;
+
+    private final int chunkSize;
+
+    private final long timeoutMs;
+
+    private final Shard[] shards;
+
+    // upper bound of slots owned by a shard
+    private final long[] slotBounds;
+
+    private final Object[] row;
+
+    private final ClientStatisticsHolder clientStats = new ClientStatisticsHolder();
+
+    private boolean finished;
+
+    /**
+     * Creates writer.
+     *
+     * @param tableSchema - schema of the shard table
+     * @param endpoints - shard endpoints
+     * @param weights - shard weights or {@code null} if all shards have the same weight
+     * @param shardingKey - sharding key
+     * @param chunkSize - size of data sent to a shard at once
+     * @param sender - starts insert request to an endpoint that takes data from the writer
+     */
+    public ShardedInsertWriter(TableSchema tableSchema, List<String> endpoints, int[] weights, ShardingKey shardingKey,
+                               int chunkSize,
+                               BiFunction<String, DataStreamWriter, CompletableFuture<InsertResponse>> sender) {
+        this(tableSchema, endpoints, weights, shardingKey, chunkSize, 0, sender);
+    }
+
+    /**
+     * Creates writer.
+     *
+     * @param tableSchema - schema of the shard table
+     * @param endpoints - shard endpoints
+     * @param weights - shard weights or {@code null} if all shards have the same weight
+     * @param shardingKey - sharding key
+     * @param chunkSize - size of data sent to a shard at once
+     * @param timeoutMs - maximum time in milliseconds to wait for a shard to take a chunk. Zero means no limit.
+     * @param sender - starts insert request to an endpoint that takes data from the writer
+     */
+    public ShardedInsertWriter(TableSchema tableSchema, List<String> endpoints, int[] weights, ShardingKey shardingKey,
+                               int chunkSize, long timeoutMs,
+                               BiFunction<String, DataStreamWriter, CompletableFuture<InsertResponse>> sender) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard endpoint is required");
+        }
+        if (weights != null && weights.length != endpoints.size()) {
+            throw new IllegalArgumentException("Number of weights should be the same as number of shards");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size should be positive");
+        }
+        if (timeoutMs < 0) {
+            throw new IllegalArgumentException("Timeout should not be negative");
+        }
+        this.tableSchema = tableSchema;
+        this.shardingKey = shardingKey;
+        this.sender = sender;
+        this.chunkSize = chunkSize;
+        this.timeoutMs = timeoutMs;
+        this.shards = new Shard[endpoints.size()];
+        this.slotBounds = new long[endpoints.size()];
+        long totalWeight = 0;
+        for (int i = 0; i < shards.length; i++) {
+            int weight = weights == null ? 1 : weights[i];
+            if (weight < 0) {
+                throw new IllegalArgumentException("Shard weight should not be negative");
+            }
+            totalWeight += weight;
+            slotBounds[i] = totalWeight;
+            shards[i] = new Shard(endpoints.get(i));
+        }
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("At least one shard should have positive weight");
+        }
+        this.row = new Object[tableSchema.getColumns().size()];
+        clientStats.start(ClientMetrics.OP_DURATION);
+    }
+
+    public void setValue(String column, Object value) {
+        setValue(tableSchema.nameToColumnIndex(column), value);
+    }
+
+    public void setValue(int colIndex, Object value) {
+        row[colIndex - 1] = value;
+    }
+
+    /**
+     * Sends current row to its shard. A row that fails to serialize is not sent and the writer can be used further.
+     *
+     * @throws IOException - when the row can not be serialized or is interrupted while waiting for the shard
+     * @throws ClientException - when insert to the shard has failed or the shard did not take data in time
+     */
+    public void commitRow() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Writer is already finished");
+        }
+        Shard shard = shards[selectShard(shardingKey.get(row))];
+        List<ClickHouseColumn> columnList = tableSchema.getColumns();
+        int rowStart = shard.buffer.size();
+        try {
+            for (int i = 0; i < row.length; i++) {
+                ClickHouseColumn column = columnList.get(i);
+                if (RowBinaryFormatSerializer.writeValuePreamble(shard.buffer, true, column, row[i])) {
+                    SerializerUtils.serializeData(shard.buffer, row[i], column);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // drop part of the row to keep data of other rows valid
+            shard.buffer.truncate(rowStart);
+            throw e;
+        }
+        if (shard.buffer.size() >= chunkSize) {
+            shard.flush();
+        }
+    }
+
+    int selectShard(long key) {
+        long slot = Long.remainderUnsigned(key, slotBounds[slotBounds.length - 1]);
+        for (int i = 0; i < slotBounds.length; i++) {
+            if (slot < slotBounds[i]) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No shard for slot " + slot);
+    }
+
+    /**
+     * Sends remaining rows and waits until all shards complete inserts.
+     *
+     * @return response with metrics summed over all shards. Elapsed time is the longest time of a shard.
+     * @throws IOException - when interrupted
+     * @throws ClientException - when insert to any shard has failed. Other shards may have inserted their rows.
+     */
+    public InsertResponse finish() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Writer is already finished");
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.flush();
+                shard.end(END_OF_DATA);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        finished = true;
+
+        ClientException error = null;
+        OperationMetrics metrics = new OperationMetrics(clientStats);
+        for (Shard shard : shards) {
+            if (shard.response == null) {
+                continue;
+            }
+            try {
+                InsertResponse response = shard.response.join();
+                for (ServerMetrics serverMetric : ServerMetrics.values()) {
+                    Metric value = response.getMetrics().getMetric(serverMetric);
+                    if (value == null) {
+                        continue;
+                    }
+                    Metric total = metrics.getMetric(serverMetric);
+                    long totalValue = total == null ? 0 : total.getLong();
+                    metrics.updateMetric(serverMetric, serverMetric == ServerMetrics.ELAPSED_TIME
+                            ? Math.max(totalValue, value.getLong()) : totalValue + value.getLong());
+                }
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                if (error == null) {
+                    error = new ClientException("Insert to shard '" + shard.endpoint + "' failed", cause);
+                } else {
+                    error.addSuppressed(cause);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        metrics.operationComplete();
+        return new InsertResponse(metrics);
+    }
+
+    /**
+     * Returns responses of shards that received rows. Responses are available after {@link #finish()}.
+     *
+     * @return map of shard endpoint to insert response
+     */
+    public Map<String, CompletableFuture<InsertResponse>> getShardResponses() {
+        Map<String, CompletableFuture<InsertResponse>> responses = new LinkedHashMap<>();
+        for (Shard shard : shards) {
+            if (shard.response != null) {
+                responses.put(shard.endpoint, shard.response);
+            }
+        }
+        return Collections.unmodifiableMap(responses);
+    }
+
+    /**
+     * Aborts inserts if the writer is not finished. Rows that are already processed by a shard may stay inserted.
+     */
+    @Override
+    public void close() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        List<Throwable> errors = new ArrayList<>();
+        for (Shard shard : shards) {
+            try {
+                shard.end(ABORT);
+            } catch (Exception e) {
+                errors.add(e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            ClientException error = new ClientException("Failed to abort shard inserts", errors.get(0));
+            errors.stream().skip(1).forEach(error::addSuppressed);
+            throw error;
+        }
+    }
+
+    private final class Shard {
+
+        final String endpoint;
+
+        final BlockingQueue<ByteArrayOutputStream> chunks = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+
+        ChunkBuffer buffer = new ChunkBuffer(chunkSize);
+
+        CompletableFuture<InsertResponse> response;
+
+        Shard(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void flush() throws IOException {
+            if (buffer.size() == 0) {
+                return;
+            }
+            if (response == null) {
+                response = sender.apply(endpoint, new DataStreamWriter() {
+                    @Override
+                    public void onOutput(OutputStream out) throws IOException {
+                        try {
+                            for (ByteArrayOutputStream chunk; (chunk = chunks.take()) != END_OF_DATA; ) {
+                                if (chunk == ABORT) {
+                                    throw new IOException("Insert is aborted");
+                                }
+                                chunk.writeTo(out);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while waiting for rows");
+                        }
+                    }
+
+                    @Override
+                    public void onRetry() throws IOException {
+                        throw new IOException("Rows already sent to shard '" + endpoint + "' can not be resent");
+                    }
+                });
+            }
+            put(buffer);
+            buffer = new ChunkBuffer(chunkSize);
+        }
+
+        void end(ByteArrayOutputStream marker) throws IOException {
+            if (response != null && !response.isDone()) {
+                if (marker == ABORT) {
+                    // pending rows are not needed and the marker should not wait for a stuck request
+                    chunks.clear();
+                }
+                put(marker);
+            }
+        }
+
+        private void put(ByteArrayOutputStream chunk) throws IOException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            try {
+                while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (response.isDone()) {
+                        // request ended without taking all data
+                        try {
+                            response.join();
+                        } catch (CompletionException e) {
+                            throw new ClientException("Insert to shard '" + endpoint + "' failed",
+                                    e.getCause() == null ? e : e.getCause());
+                        }
+                        throw new ClientException("Insert to shard '" + endpoint + "' completed before all rows were sent");
+                    }
+                    if (timeoutMs > 0 && System.nanoTime() - deadline > 0) {
+                        throw new ClientException("Insert to shard '" + endpoint + "' did not take rows within "
+                                + timeoutMs + " ms");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while sending rows to shard '" + endpoint + "'");
+            }
+        }
+    }
+
+    /**
+     * Chunk buffer that can drop a partially written row.
+     */
+    private static final class ChunkBuffer extends ByteArrayOutputStream {
+
+        ChunkBuffer(int size) {
+            super(size);
+        }
+
+        void truncate(int size) {
+            count = size;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.clickhouse.client.api.insert;
+
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.data.ClickHouseCityHash;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Computes sharding key of a row for {@link ShardedInsertWriter}. Like {@code Distributed} table engine,
+ * the writer takes the key modulo total weight of shards to select a shard, so the same key expression should be
+ * used as in the table definition to get the same distribution.
+ */
+@FunctionalInterface
+public interface ShardingKey {
+
+    /**
+     * Returns sharding key of a row. Key is treated as unsigned value.
+     *
+     * @param row - column values in the order of table schema
+     * @return sharding key
+     */
+    long get(Object[] row);
+
+    /**
+     * Uses value of an integer column as a key. Same as using the column as a sharding key expression.
+     * Like the server, the value is converted to unsigned integer of the column width, so negative keys of
+     * {@code Int8}, {@code Int16} and {@code Int32} columns select the same shard as in a {@code Distributed} table.
+     *
+     * @param schema - table schema
+     * @param column - column name
+     * @return sharding key
+     */
+    static ShardingKey column(TableSchema schema, String column) {
+        int index = schema.nameToColumnIndex(column) - 1;
+        final long mask;
+        switch (schema.getColumnByName(column).getDataType()) {
+            case Int8:
+            case UInt8:
+                mask = 0xFFL;
+                break;
+            case Int16:
+            case UInt16:
+                mask = 0xFFFFL;
+                break;
+            case Int32:
+            case UInt32:
+                mask = 0xFFFFFFFFL;
+                break;
+            default:
+                mask = -1L;
+        }
+        return row -> {
+            Object value = row[index];
+            if (value instanceof Number) {
+                return ((Number) value).longValue() & mask;
+            }
+            throw new IllegalArgumentException("Sharding key column '" + column + "' should have integer value but has "
+                    + (value == null ? "null" : value.getClass().getName()));
+        };
+    }
+
+    /**
+     * Uses hash of a string column as a key. Same as {@code cityHash64(column)} sharding key expression.
+     *
+     * @param schema - table schema
+     * @param column - column name
+     * @return sharding key
+     */
+    static ShardingKey cityHash64(TableSchema schema, String column) {
+        int index = schema.nameToColumnIndex(column) - 1;
+        return row -> {
+            Object value = row[index];
+            byte[] bytes;
+            if (value instanceof byte[]) {
+                bytes = (byte[]) value;
+            } else if (value instanceof String) {
+                bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            } else {
+                throw new IllegalArgumentException("Sharding key column '" + column + "' should have string value but has "
+                        + (value == null ? "null" : value.getClass().getName()));
+            }
+            return ClickHouseCityHash.cityHash64(bytes, 0, bytes.length);
+        };
+    }
+}
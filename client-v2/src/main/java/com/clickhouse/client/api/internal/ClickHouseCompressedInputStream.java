@@ -0,0 +1,311 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.data.ClickHouseCityHash;
+import com.clickhouse.data.ClickHouseUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads data compressed in ClickHouse native format. Each block is decompressed with a codec matching its method
+ * byte, so blocks may be compressed with LZ4, ZSTD or not compressed at all.
+ *
+ * <p>Compressed and decompressed frames are kept in arrays that are reused for all frames of the stream and are
+ * returned to a shared pool when the stream is closed. A frame is decompressed directly into the array passed to
+ * {@link #read(byte[], int, int)} when it fits there.</p>
+ */
+public class ClickHouseCompressedInputStream extends InputStream {
+
+    private static Logger LOG = LoggerFactory.getLogger(ClickHouseCompressedInputStream.class);
+
+    private static final BufferPool COMPRESSED_POOL = new BufferPool();
+
+    private static final BufferPool UNCOMPRESSED_POOL = new BufferPool();
+
+    private final CompressionCodec lz4;
+
+    private CompressionCodec zstd;
+
+    // codec of the current frame
+    private CompressionCodec codec;
+
+    private final InputStream in;
+
+    private final int bufferSize;
+
+    // checksum, header and compressed data of the current frame
+    private byte[] compressed;
+
+    private byte[] uncompressed;
+
+    private int position;
+
+    private int limit;
+
+    private int frameSize;
+
+    private int compressedDataSize;
+
+    private boolean closed;
+
+    private byte[] tmpBuffer = new byte[1];
+
+
+    /**
+     * @param in - stream of compressed blocks
+     * @param lz4 - codec for LZ4 blocks. Codecs for other methods are created when needed
+     * @param bufferSize - size of a buffer for decompressed data
+     */
+    public ClickHouseCompressedInputStream(InputStream in, CompressionCodec lz4, int bufferSize) {
+        super();
+        LOG.debug("Using decompressor {}", lz4);
+        this.lz4 = lz4;
+        this.in = in;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(tmpBuffer, 0, 1);
+        return n == -1 ? -1 : tmpBuffer[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (b == null) {
+            throw new NullPointerException("b is null");
+        } else if (off < 0) {
+            throw new IndexOutOfBoundsException("off is negative");
+        } else if (len < 0) {
+            throw new IndexOutOfBoundsException("len is negative");
+        } else if (off + len > b.length) {
+            throw new IndexOutOfBoundsException("off + len is greater than b.length");
+        } else if (closed) {
+            throw new IOException("Stream closed");
+        } else if (len == 0) {
+            return 0;
+        }
+
+        int readBytes = 0;
+        while (readBytes < len) {
+            if (position < limit) {
+                int remaining = Math.min(len - readBytes, limit - position);
+                System.arraycopy(uncompressed, position, b, off + readBytes, remaining);
+                position += remaining;
+                readBytes += remaining;
+            } else if (!readFrame()) {
+                break;
+            } else if (len - readBytes >= frameSize) {
+                // whole frame fits - no need to copy it through the buffer
+                decompress(b, off + readBytes);
+                readBytes += frameSize;
+            } else {
+                if (uncompressed == null || uncompressed.length < frameSize) {
+                    UNCOMPRESSED_POOL.release(uncompressed);
+                    uncompressed = UNCOMPRESSED_POOL.lease(Math.max(frameSize, bufferSize));
+                }
+                decompress(uncompressed, 0);
+                position = 0;
+                limit = frameSize;
+            }
+        }
+
+        return readBytes == 0 ? -1 : readBytes;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    static final int HEADER_LENGTH = 25;
+
+    private static final int CHECKSUM_LENGTH = 16;
+
+    private static final int FRAME_HEADER_LENGTH = HEADER_LENGTH - CHECKSUM_LENGTH;
+
+    /**
+     * Method ensures to read all bytes from the input stream.
+     * In case of network connection it may be a case when not all bytes are read at once.
+     * @throws IOException
+     */
+    private boolean readFully(byte[] b, int off, int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            int count = in.read(b, off + n, len - n);
+            if (count < 0) {
+                if (n == 0) {
+                    return false;
+                }
+                throw new IOException(ClickHouseUtils.format("Incomplete read: {0} of {1}", n, len));
+            }
+            n += count;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads next frame into {@code compressed} and verifies its checksum. Checksum is calculated over header and
+     * compressed data that directly follow the checksum in the array.
+     *
+     * @return false if there are no more frames
+     */
+    private boolean readFrame() throws IOException {
+        if (compressed == null) {
+            compressed = COMPRESSED_POOL.lease(Math.max(bufferSize, HEADER_LENGTH));
+        }
+
+        // read header
+        boolean readFully = readFully(compressed, 0, HEADER_LENGTH);
+        if (!readFully) {
+            return false;
+        }
+
+        // 1 byte - compression method
+        codec = codecOf(compressed[16]);
+
+        // 4 bytes - size of the compressed data including 9 bytes of the header
+        int compressedSizeWithHeader = getInt32(compressed, 17);
+        // 4 bytes - size of uncompressed data
+        int uncompressedSize = getInt32(compressed, 21);
+        if (compressedSizeWithHeader < FRAME_HEADER_LENGTH || uncompressedSize < 0) {
+            throw new ClientException("Corrupted stream: invalid frame size");
+        }
+
+        int frameLength = CHECKSUM_LENGTH + compressedSizeWithHeader;
+        if (compressed.length < frameLength) {
+            byte[] larger = COMPRESSED_POOL.lease(frameLength);
+            System.arraycopy(compressed, 0, larger, 0, HEADER_LENGTH);
+            COMPRESSED_POOL.release(compressed);
+            compressed = larger;
+        }
+
+        // compressed data: compressed_size - 9 bytes
+        readFully = readFully(compressed, HEADER_LENGTH, compressedSizeWithHeader - FRAME_HEADER_LENGTH);
+        if (!readFully) {
+            throw new EOFException("Unexpected end of stream");
+        }
+
+        long[] real = ClickHouseCityHash.cityHash128(compressed, CHECKSUM_LENGTH, compressedSizeWithHeader);
+        if (real[0] != getInt64(compressed, 0) || real[1] != getInt64(compressed, 8)) {
+            throw new ClientException("Corrupted stream: checksum mismatch");
+        }
+
+        frameSize = uncompressedSize;
+        compressedDataSize = compressedSizeWithHeader - FRAME_HEADER_LENGTH;
+        return true;
+    }
+
+    private CompressionCodec codecOf(byte method) {
+        switch (method) {
+            case CompressionCodec.LZ4_METHOD:
+                return lz4;
+            case CompressionCodec.ZSTD_METHOD:
+                if (zstd == null) {
+                    // level is not used for decompression
+                    zstd = CompressionCodec.zstd(CompressionCodec.DEFAULT_ZSTD_LEVEL);
+                }
+                return zstd;
+            case CompressionCodec.NONE_METHOD:
+                return CompressionCodec.none();
+            default:
+                throw new ClientException("Unsupported compression method: '" + method + "'");
+        }
+    }
+
+    private void decompress(byte[] dest, int destOff) {
+        codec.decompress(compressed, HEADER_LENGTH, compressedDataSize, dest, destOff, frameSize);
+    }
+
+    /**
+     * Read int32 Little Endian
+     * @param bytes
+     * @param offset
+     * @return
+     */
+    static int getInt32(byte[] bytes, int offset) {
+        return (0xFF & bytes[offset]) | ((0xFF & bytes[offset + 1]) << 8) | ((0xFF & bytes[offset + 2]) << 16)
+                | ((0xFF & bytes[offset + 3]) << 24);
+    }
+
+    /**
+     * Read int64 Little Endian
+     * @param bytes
+     * @param offset
+     * @return
+     */
+    static long getInt64(byte[] bytes, int offset) {
+        return (0xFFL & bytes[offset]) | ((0xFFL & bytes[offset + 1]) << 8) | ((0xFFL & bytes[offset + 2]) << 16)
+                | ((0xFFL & bytes[offset + 3]) << 24) | ((0xFFL & bytes[offset + 4]) << 32)
+                | ((0xFFL & bytes[offset + 5]) << 40) | ((0xFFL & bytes[offset + 6]) << 48)
+                | ((0xFFL & bytes[offset + 7]) << 56);
+    }
+
+    static void setInt32(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (0xFF & value);
+        bytes[offset + 1] = (byte) (0xFF & (value >> 8));
+        bytes[offset + 2] = (byte) (0xFF & (value >> 16));
+        bytes[offset + 3] = (byte) (0xFF & (value >> 24));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        position = limit = 0;
+        COMPRESSED_POOL.release(compressed);
+        UNCOMPRESSED_POOL.release(uncompressed);
+        compressed = null;
+        uncompressed = null;
+        super.close();
+    }
+
+    /**
+     * Bounded pool of byte arrays. Arrays have different sizes so leased array is replaced with a new one
+     * when it is too small. Arrays longer than {@link #MAX_BUFFER_LENGTH} (frames of unusually large blocks)
+     * are not kept, so the pool holds at most {@code MAX_SIZE * MAX_BUFFER_LENGTH} bytes.
+     */
+    static final class BufferPool {
+
+        private static final int MAX_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+        // twice the default max_compress_block_size of the server
+        static final int MAX_BUFFER_LENGTH = 2 * 1024 * 1024;
+
+        private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        byte[] lease(int minLength) {
+            byte[] buffer = buffers.poll();
+            if (buffer != null) {
+                size.decrementAndGet();
+                if (buffer.length >= minLength) {
+                    return buffer;
+                }
+            }
+            return new byte[minLength];
+        }
+
+        void release(byte[] buffer) {
+            if (buffer == null || buffer.length > MAX_BUFFER_LENGTH) {
+                return;
+            }
+            if (size.incrementAndGet() <= MAX_SIZE) {
+                buffers.offer(buffer);
+            } else {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.data.ClickHouseCityHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes data compressed in ClickHouse native format with a given codec.
+ */
+public class ClickHouseCompressedOutputStream extends OutputStream {
+
+    private static Logger LOG = LoggerFactory.getLogger(ClickHouseCompressedOutputStream.class);
+
+    private final ByteBuffer inBuffer;
+
+    private final OutputStream out;
+
+    private final CompressionCodec codec;
+
+    private byte tmpBuffer[] = new byte[1];
+
+    private final ByteBuffer compressedBuffer;
+
+    private static int HEADER_LEN = 15; // 9 bytes for header, 6 bytes for checksum
+
+
+    public ClickHouseCompressedOutputStream(OutputStream out, CompressionCodec codec, int bufferSize) {
+        super();
+        LOG.debug("Using compressor {}", codec);
+        this.inBuffer = ByteBuffer.allocate(bufferSize);
+        this.out = out;
+        this.codec = codec;
+        this.compressedBuffer = ByteBuffer.allocate(maxFrameLength(codec, inBuffer.capacity()));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (inBuffer.remaining() == 0) {
+            flush();
+        }
+        inBuffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        if (b.length == 1) {
+            write(b[0]);
+        } else {
+            write(b, 0, b.length);
+        }
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len) throws IOException {
+        if (b == null) {
+            throw new NullPointerException("b is null");
+        } else if (off < 0) {
+            throw new IndexOutOfBoundsException("off is negative");
+        } else if (len < 0) {
+            throw new IndexOutOfBoundsException("len is negative");
+        } else if (off + len > b.length) {
+            throw new IndexOutOfBoundsException("off + len is greater than b.length");
+        } else if (len == 0) {
+            return;
+        }
+
+        int writtenBytes = 0;
+        do {
+            if (inBuffer.remaining() == 0) {
+                flush(); // flush will make inBuffer clear
+            }
+            int remaining = Math.min(len - writtenBytes, inBuffer.remaining());
+            inBuffer.put(b, off + writtenBytes, remaining);
+            writtenBytes += remaining;
+        } while (writtenBytes < len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (inBuffer.position() > 0) {
+            int frameLength = compressFrame(codec, inBuffer.array(), inBuffer.position(),
+                    compressedBuffer.array());
+            out.write(compressedBuffer.array(), 0, frameLength);
+            inBuffer.clear();
+        }
+    }
+
+    /**
+     * Compresses {@code length} bytes of {@code src} into a frame: checksum, header and compressed data.
+     *
+     * @param codec - codec to use
+     * @param src - uncompressed data
+     * @param length - length of uncompressed data
+     * @param dest - frame buffer, should fit {@link #maxFrameLength(CompressionCodec, int)} bytes
+     * @return length of the frame
+     */
+    static int compressFrame(CompressionCodec codec, byte[] src, int length, byte[] dest) {
+        dest[16] = codec.method();
+        int compressed = codec.compress(src, 0, length, dest, 25, dest.length - 25);
+        int compressedSizeWithHeader = compressed + 9;
+        ClickHouseCompressedInputStream.setInt32(dest, 17, compressedSizeWithHeader); // compressed size with header
+        ClickHouseCompressedInputStream.setInt32(dest, 21, length); // uncompressed size
+        long[] hash = ClickHouseCityHash.cityHash128(dest, 16, compressedSizeWithHeader);
+        setInt64(dest, 0, hash[0]);
+        setInt64(dest, 8, hash[1]);
+        return compressed + 25;
+    }
+
+    static int maxFrameLength(CompressionCodec codec, int uncompressedLength) {
+        return codec.maxCompressedLength(uncompressedLength) + 25;
+    }
+
+
+    static void setInt64(byte[] bytes, int offset, long value) {
+        bytes[offset] = (byte) (0xFF & value);
+        bytes[offset + 1] = (byte) (0xFF & (value >> 8));
+        bytes[offset + 2] = (byte) (0xFF & (value >> 16));
+        bytes[offset + 3] = (byte) (0xFF & (value >> 24));
+        bytes[offset + 4] = (byte) (0xFF & (value >> 32));
+        bytes[offset + 5] = (byte) (0xFF & (value >> 40));
+        bytes[offset + 6] = (byte) (0xFF & (value >> 48));
+        bytes[offset + 7] = (byte) (0xFF & (value >> 56));
+    }
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
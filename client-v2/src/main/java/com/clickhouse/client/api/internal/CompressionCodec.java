@@ -0,0 +1,266 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.enums.CompressionMethod;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compresses and decompresses data of a ClickHouse native compressed block. Codec is identified by
+ * a method byte in a block header, so blocks compressed with different codecs can be mixed in one stream.
+ *
+ * <p>Instances are thread-safe.</p>
+ */
+public abstract class CompressionCodec {
+
+    static final byte NONE_METHOD = 0x02;
+
+    static final byte LZ4_METHOD = (byte) 0x82;
+
+    static final byte ZSTD_METHOD = (byte) 0x90;
+
+    public static final int DEFAULT_ZSTD_LEVEL = 3;
+
+    /**
+     * Returns method byte written to a block header.
+     */
+    abstract byte method();
+
+    abstract int maxCompressedLength(int length);
+
+    /**
+     * Compresses {@code srcLen} bytes of {@code src} into {@code dest}.
+     *
+     * @return length of compressed data
+     */
+    abstract int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int maxDestLen);
+
+    /**
+     * Decompresses {@code srcLen} bytes of {@code src} into exactly {@code destLen} bytes of {@code dest}.
+     */
+    abstract void decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int destLen);
+
+    /**
+     * Returns value of {@code Content-Encoding} header used when data is compressed with HTTP compression.
+     */
+    abstract String httpEncoding();
+
+    /**
+     * Wraps a stream to compress data for HTTP compression.
+     */
+    abstract OutputStream httpEncoder(OutputStream out) throws IOException;
+
+    /**
+     * Wraps a stream to decompress data with {@code Content-Encoding} set by server.
+     *
+     * @param encoding - value of {@code Content-Encoding} header, LZ4 is assumed when null
+     * @param in - compressed data
+     * @return stream of decompressed data
+     */
+    static InputStream httpDecoder(String encoding, InputStream in) throws IOException {
+        if ("zstd".equalsIgnoreCase(encoding)) {
+            try {
+                return Zstd.decoder(in);
+            } catch (NoClassDefFoundError | UnsatisfiedLinkError e) {
+                throw new ClientException("ZSTD compression requires com.github.luben:zstd-jni in the classpath", e);
+            }
+        }
+        return new FramedLZ4CompressorInputStream(in);
+    }
+
+    /**
+     * Returns codec for the method.
+     *
+     * @param method - compression method
+     * @param lz4Factory - factory for LZ4 codec
+     * @param zstdLevel - compression level for ZSTD codec
+     * @return codec
+     * @throws ClientException if codec is not available
+     */
+    public static CompressionCodec of(CompressionMethod method, LZ4Factory lz4Factory, int zstdLevel) {
+        switch (method) {
+            case NONE:
+                return None.INSTANCE;
+            case LZ4:
+                return new Lz4(lz4Factory.fastCompressor(), lz4Factory.fastDecompressor());
+            case ZSTD:
+                return zstd(zstdLevel);
+            default:
+                throw new ClientException("Unsupported compression method: " + method);
+        }
+    }
+
+    static CompressionCodec lz4(LZ4Compressor compressor, LZ4FastDecompressor decompressor) {
+        return new Lz4(compressor, decompressor);
+    }
+
+    static CompressionCodec zstd(int level) {
+        try {
+            return new Zstd(level);
+        } catch (NoClassDefFoundError | UnsatisfiedLinkError e) {
+            throw new ClientException("ZSTD compression requires com.github.luben:zstd-jni in the classpath", e);
+        }
+    }
+
+    static CompressionCodec none() {
+        return None.INSTANCE;
+    }
+
+    private static final class None extends CompressionCodec {
+        static final None INSTANCE = new None();
+
+        @Override
+        byte method() {
+            return NONE_METHOD;
+        }
+
+        @Override
+        int maxCompressedLength(int length) {
+            return length;
+        }
+
+        @Override
+        int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int maxDestLen) {
+            System.arraycopy(src, srcOff, dest, destOff, srcLen);
+            return srcLen;
+        }
+
+        @Override
+        void decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int destLen) {
+            if (srcLen != destLen) {
+                throw new ClientException("Corrupted stream: uncompressed block size mismatch");
+            }
+            System.arraycopy(src, srcOff, dest, destOff, destLen);
+        }
+
+        @Override
+        String httpEncoding() {
+            return null;
+        }
+
+        @Override
+        OutputStream httpEncoder(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public String toString() {
+            return "NONE";
+        }
+    }
+
+    private static final class Lz4 extends CompressionCodec {
+        private final LZ4Compressor compressor;
+
+        private final LZ4FastDecompressor decompressor;
+
+        Lz4(LZ4Compressor compressor, LZ4FastDecompressor decompressor) {
+            this.compressor = compressor;
+            this.decompressor = decompressor;
+        }
+
+        @Override
+        byte method() {
+            return LZ4_METHOD;
+        }
+
+        @Override
+        int maxCompressedLength(int length) {
+            return compressor.maxCompressedLength(length);
+        }
+
+        @Override
+        int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int maxDestLen) {
+            return compressor.compress(src, srcOff, srcLen, dest, destOff, maxDestLen);
+        }
+
+        @Override
+        void decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int destLen) {
+            decompressor.decompress(src, srcOff, dest, destOff, destLen);
+        }
+
+        @Override
+        String httpEncoding() {
+            return "lz4";
+        }
+
+        @Override
+        OutputStream httpEncoder(OutputStream out) throws IOException {
+            return new FramedLZ4CompressorOutputStream(out);
+        }
+
+        @Override
+        public String toString() {
+            return "LZ4 " + (compressor == null ? decompressor : compressor);
+        }
+    }
+
+    private static final class Zstd extends CompressionCodec {
+        private final int level;
+
+        Zstd(int level) {
+            int maxLevel = com.github.luben.zstd.Zstd.maxCompressionLevel();
+            if (level < 1 || level > maxLevel) {
+                throw new ClientException("Invalid ZSTD compression level " + level + ", expected 1.." + maxLevel);
+            }
+            this.level = level;
+        }
+
+        @Override
+        byte method() {
+            return ZSTD_METHOD;
+        }
+
+        @Override
+        int maxCompressedLength(int length) {
+            return (int) com.github.luben.zstd.Zstd.compressBound(length);
+        }
+
+        @Override
+        int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int maxDestLen) {
+            long n = com.github.luben.zstd.Zstd.compressByteArray(dest, destOff, maxDestLen, src, srcOff, srcLen,
+                    level);
+            if (com.github.luben.zstd.Zstd.isError(n)) {
+                throw new ClientException("Failed to compress block: " + com.github.luben.zstd.Zstd.getErrorName(n));
+            }
+            return (int) n;
+        }
+
+        @Override
+        void decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int destLen) {
+            long n = com.github.luben.zstd.Zstd.decompressByteArray(dest, destOff, destLen, src, srcOff, srcLen);
+            if (com.github.luben.zstd.Zstd.isError(n)) {
+                throw new ClientException("Corrupted stream: " + com.github.luben.zstd.Zstd.getErrorName(n));
+            } else if (n != destLen) {
+                throw new ClientException("Corrupted stream: uncompressed block size mismatch");
+            }
+        }
+
+        @Override
+        String httpEncoding() {
+            return "zstd";
+        }
+
+        @Override
+        OutputStream httpEncoder(OutputStream out) throws IOException {
+            return new com.github.luben.zstd.ZstdOutputStream(out, level);
+        }
+
+        // zstd-jni classes are referenced only by this class, so other codecs work without the library
+        static InputStream decoder(InputStream in) throws IOException {
+            return new com.github.luben.zstd.ZstdInputStream(in).setContinuous(true);
+        }
+
+        @Override
+        public String toString() {
+            return "ZSTD(" + level + ")";
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.DataStreamWriter;
+import com.clickhouse.client.api.query.ExternalTable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes query and external tables as {@code multipart/form-data} request body. Query is sent as {@code query} field
+ * and each table as a file with {@code <name>_format} and {@code <name>_structure} fields describing it.
+ * Table data is streamed, so the body is never held in memory.
+ */
+public class ExternalTablesWriter implements DataStreamWriter {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] DOUBLE_DASH = {'-', '-'};
+
+    private final String query;
+
+    private final List<ExternalTable> tables;
+
+    private final String boundary;
+
+    public ExternalTablesWriter(String query, List<ExternalTable> tables) {
+        this.query = query;
+        this.tables = tables;
+        this.boundary = "chc-" + UUID.randomUUID();
+    }
+
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    @Override
+    public void onOutput(OutputStream out) throws IOException {
+        writeField(out, "query", query);
+        for (ExternalTable table : tables) {
+            writeField(out, table.getName() + "_format", table.getFormat().name());
+            writeField(out, table.getName() + "_structure", table.getStructure());
+            writeBoundary(out);
+            out.write(("Content-Disposition: form-data; name=\"" + table.getName() + "\"; filename=\""
+                    + table.getName() + "\"\r\n").getBytes(StandardCharsets.UTF_8));
+            writeAscii(out, "Content-Type: application/octet-stream\r\n");
+            writeAscii(out, "Content-Transfer-Encoding: binary\r\n\r\n");
+            table.getWriter().onOutput(out);
+        }
+        writeDelimiter(out);
+        out.write(DOUBLE_DASH);
+        out.write(CRLF);
+        out.close();
+    }
+
+    /**
+     * Resets data of all tables.
+     */
+    @Override
+    public void onRetry() throws IOException {
+        for (ExternalTable table : tables) {
+            table.getWriter().onRetry();
+        }
+    }
+
+    private void writeField(OutputStream out, String name, String value) throws IOException {
+        writeBoundary(out);
+        out.write(("Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBoundary(OutputStream out) throws IOException {
+        writeDelimiter(out);
+        out.write(CRLF);
+    }
+
+    // delimiter starts with CRLF that ends previous part
+    private void writeDelimiter(OutputStream out) throws IOException {
+        out.write(CRLF);
+        out.write(DOUBLE_DASH);
+        writeAscii(out, boundary);
+    }
+
+    private static void writeAscii(OutputStream out, String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
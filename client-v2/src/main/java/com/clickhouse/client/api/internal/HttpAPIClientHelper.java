@@ -11,26 +11,37 @@ import com.clickhouse.client.api.ConnectionInitiationException;
 import com.clickhouse.client.api.ConnectionReuseStrategy;
 import com.clickhouse.client.api.ServerException;
 import com.clickhouse.client.api.data_formats.internal.SerializerUtils;
+import com.clickhouse.client.api.enums.CompressionMethod;
 import com.clickhouse.client.api.enums.ProxyType;
 import com.clickhouse.client.api.http.ClickHouseHttpProto;
 import net.jpountz.lz4.LZ4Factory;
 import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.io.BasicHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.io.HttpClientConnectionManager;
 import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.LayeredConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
 import org.apache.hc.core5.http.ContentType;
@@ -47,19 +58,28 @@ import org.apache.hc.core5.http.config.RegistryBuilder;
 import org.apache.hc.core5.http.impl.io.DefaultHttpResponseParserFactory;
 import org.apache.hc.core5.http.io.SocketConfig;
 import org.apache.hc.core5.http.io.entity.EntityTemplate;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.classic.AbstractClassicEntityProducer;
 import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.io.IOCallback;
 import org.apache.hc.core5.net.URIBuilder;
 import org.apache.hc.core5.pool.ConnPoolControl;
 import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
 import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLException;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -83,7 +103,14 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -108,10 +135,28 @@ public class HttpAPIClientHelper {
 
     ConnPoolControl<?> poolControl;
 
+    private CloseableHttpAsyncClient httpAsyncClient;
+
+    private ConnPoolControl<?> asyncPoolControl;
+
+    private final int compressionThreads;
+
+    private final ExecutorService compressionExecutor;
+
+    private ScheduledExecutorService pingTimer;
+
     public HttpAPIClientHelper(Map<String, String> configuration, Object metricsRegistry, boolean initSslContext) {
         this.chConfiguration = configuration;
         this.metricsRegistry = metricsRegistry;
         this.httpClient = createHttpClient(initSslContext);
+        if (MapUtils.getFlag(chConfiguration, ClientConfigProperties.ASYNC_HTTP_TRANSPORT.getKey(), false)) {
+            this.httpAsyncClient = createHttpAsyncClient(initSslContext);
+            this.httpAsyncClient.start();
+        }
+        this.compressionThreads = MapUtils.getInt(chConfiguration, ClientConfigProperties.COMPRESSION_THREADS.getKey());
+        this.compressionExecutor = compressionThreads > 0
+                ? Executors.newFixedThreadPool(compressionThreads, new DefaultThreadFactory("chc-compression", true))
+                : null;
 
         RequestConfig.Builder reqConfBuilder = RequestConfig.custom();
         MapUtils.applyLong(chConfiguration, "connection_request_timeout",
@@ -249,6 +294,10 @@ public class HttpAPIClientHelper {
                 LOG.error("Failed to register metrics", e);
             }
         }
+        if (MapUtils.getFlag(chConfiguration, ClientConfigProperties.USE_VIRTUAL_THREADS.getKey(), false)) {
+            return new LeaseLimitingConnectionManager(phccm,
+                    MapUtils.getInt(chConfiguration, ClientConfigProperties.HTTP_MAX_OPEN_CONNECTIONS.getKey()));
+        }
         return phccm;
     }
 
@@ -313,6 +362,67 @@ public class HttpAPIClientHelper {
         return clientBuilder.build();
     }
 
+    /**
+     * Creates client for non-blocking transport. All connections are served by a few I/O threads.
+     */
+    public CloseableHttpAsyncClient createHttpAsyncClient(boolean initSslContext) {
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom();
+        MapUtils.applyInt(chConfiguration, ClientConfigProperties.SOCKET_OPERATION_TIMEOUT.getKey(),
+                (t) -> ioReactorConfig.setSoTimeout(t, TimeUnit.MILLISECONDS));
+        MapUtils.applyInt(chConfiguration, ClientConfigProperties.SOCKET_RCVBUF_OPT.getKey(),
+                ioReactorConfig::setRcvBufSize);
+        MapUtils.applyInt(chConfiguration, ClientConfigProperties.SOCKET_SNDBUF_OPT.getKey(),
+                ioReactorConfig::setSndBufSize);
+        MapUtils.applyInt(chConfiguration, ClientConfigProperties.SOCKET_LINGER_OPT.getKey(),
+                (v) -> ioReactorConfig.setSoLinger(v, TimeUnit.SECONDS));
+        if (MapUtils.getFlag(chConfiguration, ClientConfigProperties.SOCKET_TCP_NO_DELAY_OPT.getKey(), false)) {
+            ioReactorConfig.setTcpNoDelay(true);
+        }
+
+        HttpAsyncClientBuilder clientBuilder = HttpAsyncClients.custom();
+        String proxyHost = chConfiguration.get(ClientConfigProperties.PROXY_HOST.getKey());
+        String proxyPort = chConfiguration.get(ClientConfigProperties.PROXY_PORT.getKey());
+        String proxyTypeVal = chConfiguration.get(ClientConfigProperties.PROXY_TYPE.getKey());
+        ProxyType proxyType = proxyTypeVal == null ? null : ProxyType.valueOf(proxyTypeVal);
+        if (proxyHost != null && proxyPort != null) {
+            if (proxyType == ProxyType.HTTP) {
+                clientBuilder.setProxy(new HttpHost(proxyHost, Integer.parseInt(proxyPort)));
+            } else if (proxyType == ProxyType.SOCKS) {
+                ioReactorConfig.setSocksProxyAddress(new InetSocketAddress(proxyHost, Integer.parseInt(proxyPort)));
+            }
+        }
+
+        if (chConfiguration.getOrDefault("client.http.cookies_enabled", "true")
+                .equalsIgnoreCase("false")) {
+            clientBuilder.disableCookieManagement();
+        }
+
+        PoolingAsyncClientConnectionManagerBuilder connMgrBuilder = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.LAX)
+                .setDefaultConnectionConfig(createConnectionConfig())
+                .setDefaultTlsConfig(TlsConfig.custom().setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1).build())
+                .setMaxConnTotal(Integer.MAX_VALUE);
+        ConnectionReuseStrategy connectionReuseStrategy =
+                ConnectionReuseStrategy.valueOf(chConfiguration.get("connection_reuse_strategy"));
+        connMgrBuilder.setConnPoolPolicy(connectionReuseStrategy == ConnectionReuseStrategy.FIFO
+                ? PoolReusePolicy.FIFO : PoolReusePolicy.LIFO);
+        MapUtils.applyInt(chConfiguration, ClientConfigProperties.HTTP_MAX_OPEN_CONNECTIONS.getKey(),
+                connMgrBuilder::setMaxConnPerRoute);
+        if (initSslContext) {
+            connMgrBuilder.setTlsStrategy(ClientTlsStrategyBuilder.create().setSslContext(createSSLContext()).build());
+        }
+        PoolingAsyncClientConnectionManager connectionManager = connMgrBuilder.build();
+        asyncPoolControl = connectionManager;
+
+        clientBuilder.setConnectionManager(connectionManager);
+        clientBuilder.setIOReactorConfig(ioReactorConfig.build());
+        long keepAliveTimeout = MapUtils.getLong(chConfiguration, ClientConfigProperties.HTTP_KEEP_ALIVE_TIMEOUT.getKey());
+        if (keepAliveTimeout > 0) {
+            clientBuilder.setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveTimeout));
+        }
+        return clientBuilder.build();
+    }
+
     private static final String ERROR_CODE_PREFIX_PATTERN = "Code: %d. DB::Exception:";
     /**
      * Reads status line and if error tries to parse response body to get server error message.
@@ -377,6 +487,7 @@ public class HttpAPIClientHelper {
 
     private static final long POOL_VENT_TIMEOUT = 10000L;
     private AtomicLong timeToPoolVent = new AtomicLong(0);
+    private AtomicLong timeToAsyncPoolVent = new AtomicLong(0);
 
     public ClassicHttpResponse executeRequest(ClickHouseNode server, Map<String, Object> requestConfig, LZ4Factory lz4Factory,
                                              IOCallback<OutputStream> writeCallback) throws IOException {
@@ -388,48 +499,22 @@ public class HttpAPIClientHelper {
         if (requestConfig == null) {
             requestConfig = Collections.emptyMap();
         }
-        URI uri;
-        try {
-            URIBuilder uriBuilder = new URIBuilder(server.getBaseUri());
-            addQueryParams(uriBuilder, chConfiguration, requestConfig);
-            uri = uriBuilder.normalizeSyntax().build();
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
-        }
-        HttpPost req = new HttpPost(uri);
-//        req.setVersion(new ProtocolVersion("HTTP", 1, 0)); // to disable chunk transfer encoding
-        addHeaders(req, chConfiguration, requestConfig);
+        CompressionCodec codec = compressionCodec(requestConfig, lz4Factory);
+        HttpPost req = createRequest(server, requestConfig, codec);
 
-        boolean clientCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.COMPRESS_CLIENT_REQUEST.getKey());
+        boolean clientCompression = isClientCompression(requestConfig);
         boolean useHttpCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.USE_HTTP_COMPRESSION.getKey());
         boolean appCompressedData = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.APP_COMPRESSED_DATA.getKey());
 
-        req.setConfig(baseRequestConfig);
         // setting entity. wrapping if compression is enabled
         req.setEntity(wrapRequestEntity(new EntityTemplate(-1, CONTENT_TYPE, null, writeCallback),
-                clientCompression, useHttpCompression, appCompressedData, lz4Factory));
+                clientCompression, useHttpCompression, appCompressedData, codec));
 
         HttpClientContext context = HttpClientContext.create();
 
         try {
             ClassicHttpResponse httpResponse = httpClient.executeOpen(null, req, context);
-            boolean serverCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.COMPRESS_SERVER_RESPONSE.getKey());
-            httpResponse.setEntity(wrapResponseEntity(httpResponse.getEntity(), httpResponse.getCode(), serverCompression, useHttpCompression, lz4Factory));
-
-            if (httpResponse.getCode() == HttpStatus.SC_PROXY_AUTHENTICATION_REQUIRED) {
-                throw new ClientMisconfigurationException("Proxy authentication required. Please check your proxy settings.");
-            } else if (httpResponse.getCode() == HttpStatus.SC_BAD_GATEWAY) {
-                httpResponse.close();
-                throw new ClientException("Server returned '502 Bad gateway'. Check network and proxy settings.");
-            } else if (httpResponse.getCode() >= HttpStatus.SC_BAD_REQUEST || httpResponse.containsHeader(ClickHouseHttpProto.HEADER_EXCEPTION_CODE)) {
-                try {
-                    throw readError(httpResponse);
-                } finally {
-                    httpResponse.close();
-                }
-            }
-            return httpResponse;
-
+            return checkResponse(httpResponse, requestConfig, lz4Factory);
         } catch (UnknownHostException e) {
             LOG.warn("Host '{}' unknown", server.getHost());
             throw new ClientException("Unknown host", e);
@@ -443,9 +528,204 @@ public class HttpAPIClientHelper {
         }
     }
 
+    /**
+     * Checks if server is alive by calling its {@code /ping} endpoint. The endpoint does not require
+     * authentication and does not run a query, so it is cheaper than {@code SELECT 1}.
+     *
+     * Timeout is one deadline for the whole call: it limits waiting for a pooled connection, connecting
+     * and waiting for the response, and the request is cancelled when the deadline passes.
+     *
+     * @param server - server to check
+     * @param timeoutMs - timeout in milliseconds. Zero or negative value means default timeouts are used.
+     * @return true if server responded with {@code 200 OK}
+     */
+    @SuppressWarnings("deprecation")
+    public boolean ping(ClickHouseNode server, long timeoutMs) {
+        String baseUri = server.getBaseUri();
+        HttpGet req = new HttpGet(baseUri.endsWith("/") ? baseUri + "ping" : baseUri + "/ping");
+        ScheduledFuture<?> cancelTask = null;
+        if (timeoutMs > 0) {
+            Timeout timeout = Timeout.ofMilliseconds(timeoutMs);
+            req.setConfig(RequestConfig.copy(baseRequestConfig)
+                    .setConnectionRequestTimeout(timeout)
+                    .setConnectTimeout(timeout)
+                    .setResponseTimeout(timeout)
+                    .build());
+            // each stage is limited separately above, so the sum is bounded by cancelling the request
+            cancelTask = getPingTimer().schedule(req::cancel, timeoutMs, TimeUnit.MILLISECONDS);
+        } else {
+            req.setConfig(baseRequestConfig);
+        }
+        if (proxyAuthHeaderValue != null) {
+            req.addHeader(HttpHeaders.PROXY_AUTHORIZATION, proxyAuthHeaderValue);
+        }
+
+        try (ClassicHttpResponse response = httpClient.executeOpen(null, req, HttpClientContext.create())) {
+            EntityUtils.consume(response.getEntity());
+            return response.getCode() == HttpStatus.SC_OK;
+        } catch (Exception e) {
+            LOG.debug("Failed to ping '{}': {}", server.getBaseUri(), e.getMessage());
+            return false;
+        } finally {
+            if (cancelTask != null) {
+                cancelTask.cancel(false);
+            }
+        }
+    }
+
+    private synchronized ScheduledExecutorService getPingTimer() {
+        if (pingTimer == null) {
+            pingTimer = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("chc-ping-timer", true));
+        }
+        return pingTimer;
+    }
+
+    /**
+     * Sends request using non-blocking transport. Returned future is completed by an I/O thread when response
+     * head is received, so dependent actions should not block. Response body is streamed with back pressure:
+     * reading from it blocks until data arrives.
+     *
+     * @param server - target server
+     * @param requestConfig - request settings
+     * @param lz4Factory - LZ4 factory for compression
+     * @param writeCallback - writes request body
+     * @param bodyWriterExecutor - executor to run {@code writeCallback} while request is being sent. If
+     *                           {@code null} then body is written to memory before request is sent.
+     * @param streamResponse - if {@code false} then future is completed when the whole response is received.
+     *                       Should be used for small responses that are read by the I/O thread.
+     * @return future of the response
+     */
+    public CompletableFuture<ClassicHttpResponse> executeRequestAsync(ClickHouseNode server, Map<String, Object> requestConfig,
+                                                                      LZ4Factory lz4Factory, IOCallback<OutputStream> writeCallback,
+                                                                      Executor bodyWriterExecutor, boolean streamResponse) {
+        if (httpAsyncClient == null) {
+            throw new ClientMisconfigurationException("Async HTTP transport is not enabled");
+        }
+        if (timeToAsyncPoolVent.get() < System.currentTimeMillis()) {
+            timeToAsyncPoolVent.set(System.currentTimeMillis() + POOL_VENT_TIMEOUT);
+            asyncPoolControl.closeExpired();
+        }
+
+        final Map<String, Object> finalRequestConfig = requestConfig == null ? Collections.emptyMap() : requestConfig;
+        CompletableFuture<ClassicHttpResponse> result = new CompletableFuture<>();
+        try {
+            CompressionCodec codec = compressionCodec(finalRequestConfig, lz4Factory);
+            HttpPost req = createRequest(server, finalRequestConfig, codec);
+
+            boolean clientCompression = isClientCompression(finalRequestConfig);
+            boolean useHttpCompression = MapUtils.getFlag(finalRequestConfig, chConfiguration, ClientConfigProperties.USE_HTTP_COMPRESSION.getKey());
+            boolean appCompressedData = MapUtils.getFlag(finalRequestConfig, chConfiguration, ClientConfigProperties.APP_COMPRESSED_DATA.getKey());
+            HttpEntity entity = wrapRequestEntity(new EntityTemplate(-1, CONTENT_TYPE, null, writeCallback),
+                    clientCompression, useHttpCompression, appCompressedData, codec);
+
+            int bufferSize = MapUtils.getInt(chConfiguration, ClientConfigProperties.CLIENT_NETWORK_BUFFER_SIZE.getKey());
+            AsyncEntityProducer entityProducer;
+            if (bodyWriterExecutor == null) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                entity.writeTo(body);
+                entityProducer = new BasicAsyncEntityProducer(body.toByteArray(), CONTENT_TYPE);
+            } else {
+                entityProducer = new AbstractClassicEntityProducer(bufferSize, CONTENT_TYPE, bodyWriterExecutor) {
+                    @Override
+                    protected void produceData(ContentType contentType, OutputStream outputStream) throws IOException {
+                        entity.writeTo(outputStream);
+                    }
+                };
+            }
+
+            StreamingResponseConsumer responseConsumer = new StreamingResponseConsumer(bufferSize, streamResponse);
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(baseRequestConfig);
+            Future<ClassicHttpResponse> exchange = httpAsyncClient.execute(new BasicRequestProducer(req, entityProducer),
+                    responseConsumer, null, context, new FutureCallback<ClassicHttpResponse>() {
+                        @Override
+                        public void completed(ClassicHttpResponse response) {
+                            try {
+                                result.complete(checkResponse(response, finalRequestConfig, lz4Factory));
+                            } catch (Exception e) {
+                                result.completeExceptionally(e);
+                            }
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            result.completeExceptionally(wrapTransportException(server, e));
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            result.cancel(false);
+                        }
+                    });
+            responseConsumer.setExchange(exchange);
+        } catch (Exception e) {
+            result.completeExceptionally(wrapTransportException(server, e));
+        }
+        return result;
+    }
+
+    private HttpPost createRequest(ClickHouseNode server, Map<String, Object> requestConfig, CompressionCodec codec) {
+        URI uri;
+        try {
+            URIBuilder uriBuilder = new URIBuilder(server.getBaseUri());
+            addQueryParams(uriBuilder, chConfiguration, requestConfig);
+            uri = uriBuilder.normalizeSyntax().build();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+        HttpPost req = new HttpPost(uri);
+//        req.setVersion(new ProtocolVersion("HTTP", 1, 0)); // to disable chunk transfer encoding
+        addHeaders(req, chConfiguration, requestConfig, codec);
+        req.setConfig(baseRequestConfig);
+        return req;
+    }
+
+    /**
+     * Wraps response entity and throws an exception if the response is an error.
+     */
+    private ClassicHttpResponse checkResponse(ClassicHttpResponse httpResponse, Map<String, Object> requestConfig,
+                                              LZ4Factory lz4Factory) throws Exception {
+        boolean serverCompression = isServerCompression(requestConfig);
+        boolean useHttpCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.USE_HTTP_COMPRESSION.getKey());
+        httpResponse.setEntity(wrapResponseEntity(httpResponse.getEntity(), httpResponse.getCode(), serverCompression, useHttpCompression, lz4Factory));
+
+        if (httpResponse.getCode() == HttpStatus.SC_PROXY_AUTHENTICATION_REQUIRED) {
+            throw new ClientMisconfigurationException("Proxy authentication required. Please check your proxy settings.");
+        } else if (httpResponse.getCode() == HttpStatus.SC_BAD_GATEWAY) {
+            httpResponse.close();
+            throw new ClientException("Server returned '502 Bad gateway'. Check network and proxy settings.");
+        } else if (httpResponse.getCode() >= HttpStatus.SC_BAD_REQUEST || httpResponse.containsHeader(ClickHouseHttpProto.HEADER_EXCEPTION_CODE)) {
+            try {
+                throw readError(httpResponse);
+            } finally {
+                httpResponse.close();
+            }
+        }
+        return httpResponse;
+    }
+
+    /**
+     * Converts an exception of async request to the same exception blocking request would throw.
+     */
+    private Exception wrapTransportException(ClickHouseNode server, Exception e) {
+        if (e instanceof UnknownHostException) {
+            LOG.warn("Host '{}' unknown", server.getHost());
+            return new ClientException("Unknown host", e);
+        } else if (e instanceof ConnectException || e instanceof NoRouteToHostException) {
+            LOG.warn("Failed to connect to '{}': {}", server.getHost(), e.getMessage());
+            return new ClientException("Failed to connect", e);
+        } else if (e instanceof ConnectionRequestTimeoutException || e instanceof ServerException
+                || e instanceof NoHttpResponseException || e instanceof ClientException
+                || e instanceof SocketTimeoutException) {
+            return e;
+        }
+        return new ClientException(e.getMessage(), e);
+    }
+
     private static final ContentType CONTENT_TYPE = ContentType.create(ContentType.TEXT_PLAIN.getMimeType(), "UTF-8");
 
-    private void addHeaders(HttpPost req, Map<String, String> chConfig, Map<String, Object> requestConfig) {
+    private void addHeaders(HttpPost req, Map<String, String> chConfig, Map<String, Object> requestConfig,
+                            CompressionCodec codec) {
         req.addHeader(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE.getMimeType());
         if (requestConfig.containsKey(ClientConfigProperties.INPUT_OUTPUT_FORMAT.getKey())) {
             req.addHeader(ClickHouseHttpProto.HEADER_FORMAT, requestConfig.get(ClientConfigProperties.INPUT_OUTPUT_FORMAT.getKey()));
@@ -476,17 +756,18 @@ public class HttpAPIClientHelper {
             req.addHeader(HttpHeaders.PROXY_AUTHORIZATION, proxyAuthHeaderValue);
         }
 
-        boolean clientCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.COMPRESS_CLIENT_REQUEST.getKey());
-        boolean serverCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.COMPRESS_SERVER_RESPONSE.getKey());
+        boolean clientCompression = isClientCompression(requestConfig);
+        boolean serverCompression = isServerCompression(requestConfig);
         boolean useHttpCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.USE_HTTP_COMPRESSION.getKey());
         boolean appCompressedData = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.APP_COMPRESSED_DATA.getKey());
 
         if (useHttpCompression) {
+            String encoding = codec.httpEncoding();
             if (serverCompression) {
-                req.addHeader(HttpHeaders.ACCEPT_ENCODING, "lz4");
+                req.addHeader(HttpHeaders.ACCEPT_ENCODING, encoding);
             }
             if (clientCompression && !appCompressedData) {
-                req.addHeader(HttpHeaders.CONTENT_ENCODING, "lz4");
+                req.addHeader(HttpHeaders.CONTENT_ENCODING, encoding);
             }
         }
 
@@ -535,8 +816,8 @@ public class HttpAPIClientHelper {
             }
         }
 
-        boolean clientCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.COMPRESS_CLIENT_REQUEST.getKey());
-        boolean serverCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.COMPRESS_SERVER_RESPONSE.getKey());
+        boolean clientCompression = isClientCompression(requestConfig);
+        boolean serverCompression = isServerCompression(requestConfig);
         boolean useHttpCompression = MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.USE_HTTP_COMPRESSION.getKey());
 
         if (useHttpCompression) {
@@ -570,13 +851,59 @@ public class HttpAPIClientHelper {
         }
     }
 
+    private CompressionMethod compressionMethod(Map<String, Object> requestConfig) {
+        Object method = requestConfig.get(ClientConfigProperties.COMPRESSION_METHOD.getKey());
+        if (method == null) {
+            method = chConfiguration.get(ClientConfigProperties.COMPRESSION_METHOD.getKey());
+        }
+        if (method == null) {
+            return CompressionMethod.LZ4;
+        } else if (method instanceof CompressionMethod) {
+            return (CompressionMethod) method;
+        }
+        try {
+            return CompressionMethod.valueOf(String.valueOf(method).trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ClientMisconfigurationException("Unsupported compression method: " + method);
+        }
+    }
+
+    private CompressionCodec compressionCodec(Map<String, Object> requestConfig, LZ4Factory lz4Factory) {
+        Object level = requestConfig.get(ClientConfigProperties.COMPRESSION_ZSTD_LEVEL.getKey());
+        int zstdLevel = level == null
+                ? MapUtils.getInt(chConfiguration, ClientConfigProperties.COMPRESSION_ZSTD_LEVEL.getKey())
+                : Integer.parseInt(String.valueOf(level));
+        return CompressionCodec.of(compressionMethod(requestConfig), lz4Factory, zstdLevel);
+    }
+
+    /**
+     * Client compression is off when compression method is {@link CompressionMethod#NONE}.
+     */
+    private boolean isClientCompression(Map<String, Object> requestConfig) {
+        return MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.COMPRESS_CLIENT_REQUEST.getKey())
+                && compressionMethod(requestConfig) != CompressionMethod.NONE;
+    }
+
+    /**
+     * Server compression is off when compression method is {@link CompressionMethod#NONE}.
+     */
+    private boolean isServerCompression(Map<String, Object> requestConfig) {
+        return MapUtils.getFlag(requestConfig, chConfiguration, ClientConfigProperties.COMPRESS_SERVER_RESPONSE.getKey())
+                && compressionMethod(requestConfig) != CompressionMethod.NONE;
+    }
+
     private HttpEntity wrapRequestEntity(HttpEntity httpEntity, boolean clientCompression, boolean useHttpCompression,
-                                         boolean appControlledCompression, LZ4Factory lz4Factory) {
+                                         boolean appControlledCompression, CompressionCodec codec) {
         LOG.debug("client compression: {}, http compression: {}", clientCompression, useHttpCompression);
 
         if (clientCompression && !appControlledCompression) {
-            return new LZ4Entity(httpEntity, useHttpCompression, false, true,
-                    MapUtils.getInt(chConfiguration, "compression.lz4.uncompressed_buffer_size"), false, lz4Factory);
+            LZ4Entity entity = new LZ4Entity(httpEntity, useHttpCompression, false, true,
+                    MapUtils.getInt(chConfiguration, "compression.lz4.uncompressed_buffer_size"), false, codec);
+            if (compressionExecutor != null) {
+                // two frames per thread keep workers busy while the writer waits for the oldest frame
+                entity.setCompressionExecutor(compressionExecutor, compressionThreads * 2 + 1);
+            }
+            return entity;
         } else  {
             return httpEntity;
         }
@@ -598,8 +925,10 @@ public class HttpAPIClientHelper {
                 case HttpStatus.SC_BAD_REQUEST:
                 case HttpStatus.SC_INTERNAL_SERVER_ERROR:
                 case HttpStatus.SC_NOT_FOUND:
+                    // codec of each block is defined by the block itself
                     return new LZ4Entity(httpEntity, useHttpCompression, true, false,
-                            MapUtils.getInt(chConfiguration, "compression.lz4.uncompressed_buffer_size"), true, lz4Factory);
+                            MapUtils.getInt(chConfiguration, "compression.lz4.uncompressed_buffer_size"), true,
+                            CompressionCodec.lz4(lz4Factory.fastCompressor(), lz4Factory.fastDecompressor()));
             }
         }
 
@@ -776,6 +1105,17 @@ public class HttpAPIClientHelper {
 
     public void close() {
         httpClient.close(CloseMode.IMMEDIATE);
+        if (httpAsyncClient != null) {
+            httpAsyncClient.close(CloseMode.IMMEDIATE);
+        }
+        if (compressionExecutor != null) {
+            compressionExecutor.shutdownNow();
+        }
+        synchronized (this) {
+            if (pingTimer != null) {
+                pingTimer.shutdownNow();
+            }
+        }
     }
 
     /**
@@ -1,8 +1,5 @@
 package com.clickhouse.client.api.internal;
 
-import net.jpountz.lz4.LZ4Factory;
-import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
-import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
 import org.apache.hc.core5.function.Supplier;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
@@ -12,7 +9,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
+/**
+ * Entity compressing request or decompressing response data. Named after the first supported codec,
+ * data is compressed with any {@link CompressionCodec}.
+ */
 class LZ4Entity implements HttpEntity {
 
     private HttpEntity httpEntity;
@@ -27,17 +29,32 @@ class LZ4Entity implements HttpEntity {
 
     private boolean clientCompression;
 
-    private LZ4Factory lz4Factory = null;
+    private final CompressionCodec codec;
+
+    private Executor compressionExecutor = null;
+
+    private int maxCompressionFrames;
 
     LZ4Entity(HttpEntity httpEntity, boolean useHttpCompression, boolean serverCompression, boolean clientCompression,
-              int bufferSize, boolean isResponse, LZ4Factory lz4Factory) {
+              int bufferSize, boolean isResponse, CompressionCodec codec) {
         this.httpEntity = httpEntity;
         this.useHttpCompression = useHttpCompression;
         this.bufferSize = bufferSize;
         this.serverCompression = serverCompression;
         this.clientCompression = clientCompression;
         this.isResponse = isResponse;
-        this.lz4Factory = lz4Factory;
+        this.codec = codec;
+    }
+
+    /**
+     * Makes request data compressed in parallel. Used only with native compression.
+     *
+     * @param executor - executor compressing frames
+     * @param maxFrames - maximum number of frames in flight
+     */
+    void setCompressionExecutor(Executor executor, int maxFrames) {
+        this.compressionExecutor = executor;
+        this.maxCompressionFrames = maxFrames;
     }
 
     @Override
@@ -53,7 +70,7 @@ class LZ4Entity implements HttpEntity {
             if (useHttpCompression) {
                 InputStream content = httpEntity.getContent();
                 try {
-                    return new FramedLZ4CompressorInputStream(content);
+                    return CompressionCodec.httpDecoder(httpEntity.getContentEncoding(), content);
                 } catch (IOException e) {
                     // This is the easiest way to handle empty content because
                     // - streams at this point wrapped with something else and we can't check content length
@@ -62,8 +79,7 @@ class LZ4Entity implements HttpEntity {
                     return content;
                 }
             } else  {
-                return new ClickHouseLZ4InputStream(httpEntity.getContent(), lz4Factory.fastDecompressor(),
-                        bufferSize);
+                return new ClickHouseCompressedInputStream(httpEntity.getContent(), codec, bufferSize);
             }
         } else {
             return httpEntity.getContent();
@@ -78,11 +94,21 @@ class LZ4Entity implements HttpEntity {
         } else if (clientCompression) {
             // called by client to send data
             if (useHttpCompression) {
-                httpEntity.writeTo(new FramedLZ4CompressorOutputStream(outStream));
+                httpEntity.writeTo(codec.httpEncoder(outStream));
+            } else if (compressionExecutor != null) {
+                PipelinedCompressedOutputStream compressedOut = new PipelinedCompressedOutputStream(outStream,
+                        codec, bufferSize, compressionExecutor, maxCompressionFrames);
+                try {
+                    httpEntity.writeTo(compressedOut);
+                    // frames should be in outStream before it is used by the caller
+                    compressedOut.flush();
+                } catch (IOException | RuntimeException e) {
+                    compressedOut.abort();
+                    throw e;
+                }
             } else {
 
-                httpEntity.writeTo(new ClickHouseLZ4OutputStream(outStream, lz4Factory.fastCompressor(),
-                        bufferSize));
+                httpEntity.writeTo(new ClickHouseCompressedOutputStream(outStream, codec, bufferSize));
             }
         } else {
             httpEntity.writeTo(outStream);
@@ -0,0 +1,115 @@
+package com.clickhouse.client.api.internal;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Connection manager that lets a thread lease a connection from the pool only when one is available for the route.
+ *
+ * <p>Lease request of the pooling connection manager waits for a free connection inside a {@code synchronized}
+ * block. A virtual thread waiting there pins its carrier thread, so with thousands of virtual threads waiting for
+ * a connection the whole carrier pool gets blocked. Here threads wait on a semaphore instead and the pool is
+ * asked for a connection only when it can return one without waiting.</p>
+ */
+class LeaseLimitingConnectionManager implements HttpClientConnectionManager {
+
+    private final HttpClientConnectionManager delegate;
+
+    private final int maxPerRoute;
+
+    private final ConcurrentHashMap<HttpRoute, Semaphore> permits = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<ConnectionEndpoint, Semaphore> leased = new ConcurrentHashMap<>();
+
+    LeaseLimitingConnectionManager(HttpClientConnectionManager delegate, int maxPerRoute) {
+        this.delegate = delegate;
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        Semaphore routePermits = permits.computeIfAbsent(route, r -> new Semaphore(maxPerRoute, true));
+        return new LeaseRequest() {
+            private volatile LeaseRequest request;
+
+            private volatile boolean cancelled;
+
+            @Override
+            public ConnectionEndpoint get(Timeout timeout) throws InterruptedException, ExecutionException,
+                    TimeoutException {
+                if (timeout == null || timeout.isDisabled()) {
+                    routePermits.acquire();
+                } else if (!routePermits.tryAcquire(timeout.getDuration(), timeout.getTimeUnit())) {
+                    throw new TimeoutException("Timeout waiting for connection to " + route);
+                }
+
+                boolean acquired = false;
+                try {
+                    if (cancelled) {
+                        throw new InterruptedException("Lease request cancelled");
+                    }
+                    request = delegate.lease(id, route, requestTimeout, state);
+                    ConnectionEndpoint endpoint = request.get(timeout);
+                    leased.put(endpoint, routePermits);
+                    acquired = true;
+                    return endpoint;
+                } finally {
+                    if (!acquired) {
+                        routePermits.release();
+                    }
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                cancelled = true;
+                LeaseRequest r = request;
+                return r == null || r.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+        try {
+            delegate.release(endpoint, newState, validDuration);
+        } finally {
+            Semaphore routePermits = leased.remove(endpoint);
+            if (routePermits != null) {
+                routePermits.release();
+            }
+        }
+    }
+
+    @Override
+    public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context) throws IOException {
+        delegate.connect(endpoint, connectTimeout, context);
+    }
+
+    @Override
+    public void upgrade(ConnectionEndpoint endpoint, HttpContext context) throws IOException {
+        delegate.upgrade(endpoint, context);
+    }
+
+    @Override
+    public void close(CloseMode closeMode) {
+        delegate.close(closeMode);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,450 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.ClickHouseNode;
+import com.clickhouse.client.api.LoadBalancingPolicy;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.http.NoHttpResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Selects a server node for a request according to {@link LoadBalancingPolicy} and tracks node health.
+ *
+ * <p>A node is marked faulty when a request to it fails with a connection error. Faulty nodes are skipped
+ * by selection and checked in background with the probe function. When all nodes are faulty selection
+ * falls back to round-robin over all of them, so requests still have a chance to succeed.</p>
+ *
+ * <p>Optionally all nodes can be checked periodically with {@link #startHealthChecks(long)}. Then a node is marked
+ * faulty as soon as a check fails, before a request hits it, and check results are kept in node statistics.</p>
+ */
+public class LoadBalancer implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadBalancer.class);
+
+    /**
+     * Weight of a new sample in latency moving average.
+     */
+    static final double EWMA_ALPHA = 0.3;
+
+    private final LoadBalancingPolicy policy;
+
+    private final List<NodeState> nodes;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final Predicate<ClickHouseNode> probe;
+
+    private final long checkIntervalMs;
+
+    private ScheduledExecutorService checkExecutor;
+
+    private ScheduledExecutorService healthCheckExecutor;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates load balancer.
+     *
+     * @param nodes - server nodes in the order they were configured
+     * @param policy - node selection policy
+     * @param probe - function that checks if a node is alive. Called from a background thread.
+     * @param checkIntervalMs - how often to check faulty nodes. Zero or negative disables background checks
+     *                        and faulty nodes become available again after this interval.
+     */
+    public LoadBalancer(List<ClickHouseNode> nodes, LoadBalancingPolicy policy, Predicate<ClickHouseNode> probe,
+                        long checkIntervalMs) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        List<NodeState> states = new ArrayList<>(nodes.size());
+        for (ClickHouseNode node : nodes) {
+            states.add(new NodeState(node));
+        }
+        this.nodes = Collections.unmodifiableList(states);
+        this.policy = policy == null ? LoadBalancingPolicy.FIRST_ALIVE : policy;
+        this.probe = probe;
+        this.checkIntervalMs = checkIntervalMs;
+    }
+
+    public LoadBalancingPolicy getPolicy() {
+        return policy;
+    }
+
+    public List<NodeState> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Selects a node for the next request.
+     *
+     * @return selected node
+     */
+    public NodeState select() {
+        if (nodes.size() == 1) {
+            return nodes.get(0);
+        }
+
+        int n = nodes.size();
+        int start = Math.abs(counter.getAndIncrement() % n);
+        switch (policy) {
+            case ROUND_ROBIN:
+                for (int i = 0; i < n; i++) {
+                    NodeState node = nodes.get((start + i) % n);
+                    if (node.isAlive()) {
+                        return node;
+                    }
+                }
+                break;
+            case RANDOM: {
+                int offset = ThreadLocalRandom.current().nextInt(n);
+                for (int i = 0; i < n; i++) {
+                    NodeState node = nodes.get((offset + i) % n);
+                    if (node.isAlive()) {
+                        return node;
+                    }
+                }
+                break;
+            }
+            case LEAST_OUTSTANDING:
+            case LATENCY_EWMA: {
+                // start from a rotating position so ties are distributed evenly
+                NodeState best = null;
+                double bestScore = Double.MAX_VALUE;
+                double defaultLatency = policy == LoadBalancingPolicy.LATENCY_EWMA ? meanLatencyEwma() : 0;
+                for (int i = 0; i < n; i++) {
+                    NodeState node = nodes.get((start + i) % n);
+                    if (!node.isAlive()) {
+                        continue;
+                    }
+                    double latency = node.getLatencyEwma();
+                    double score = policy == LoadBalancingPolicy.LEAST_OUTSTANDING ? node.getOutstandingRequests()
+                            : (latency == 0 ? defaultLatency : latency) * (node.getOutstandingRequests() + 1);
+                    if (score < bestScore) {
+                        best = node;
+                        bestScore = score;
+                    }
+                }
+                if (best != null) {
+                    return best;
+                }
+                break;
+            }
+            default:
+                for (NodeState node : nodes) {
+                    if (node.isAlive()) {
+                        return node;
+                    }
+                }
+        }
+
+        return nodes.get(start);
+    }
+
+    /**
+     * Returns mean latency of nodes that have completed requests. Nodes without samples are scored with it
+     * so they are neither always preferred nor never tried. Returns 1 when no node has samples yet, then only
+     * outstanding requests are compared.
+     */
+    private double meanLatencyEwma() {
+        double sum = 0;
+        int count = 0;
+        for (NodeState node : nodes) {
+            double latency = node.getLatencyEwma();
+            if (latency > 0) {
+                sum += latency;
+                count++;
+            }
+        }
+        return count == 0 ? 1 : sum / count;
+    }
+
+    /**
+     * Should be called when request to a node failed. Node is marked faulty if the error is a connection error.
+     *
+     * @param node - node that failed
+     * @param error - failure cause
+     */
+    public void onFailure(NodeState node, Throwable error) {
+        if (isConnectionFailure(error)) {
+            markFaulty(node);
+        }
+    }
+
+    /**
+     * Marks node as faulty so it is skipped by selection until it is checked.
+     *
+     * @param node - node to mark
+     */
+    public void markFaulty(NodeState node) {
+        if (nodes.size() == 1) {
+            return;
+        }
+
+        if (!node.faulty) {
+            LOG.warn("Marking node '{}' as faulty", node.getNode().getBaseUri());
+        }
+        node.faulty = true;
+        node.faultySince = System.currentTimeMillis();
+        node.failures.incrementAndGet();
+        if (probe != null && checkIntervalMs > 0) {
+            startChecks();
+        }
+    }
+
+    private synchronized void startChecks() {
+        // health checks cover faulty nodes too
+        if (checkExecutor == null && healthCheckExecutor == null && !closed) {
+            checkExecutor = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("chc-node-check", true));
+            checkExecutor.scheduleWithFixedDelay(this::checkFaultyNodes, checkIntervalMs, checkIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void checkFaultyNodes() {
+        for (NodeState node : nodes) {
+            if (closed) {
+                return;
+            }
+            if (node.faulty) {
+                check(node);
+            }
+        }
+    }
+
+    /**
+     * Starts checking all nodes in background. A node failing a check is marked faulty and a faulty node passing
+     * a check becomes available again. Does nothing if there is no probe function or checks are already started.
+     *
+     * @param intervalMs - delay between checks in milliseconds. Zero or negative value disables checks.
+     */
+    public synchronized void startHealthChecks(long intervalMs) {
+        if (probe == null || intervalMs <= 0 || healthCheckExecutor != null || closed) {
+            return;
+        }
+        if (checkExecutor != null) {
+            checkExecutor.shutdownNow();
+            checkExecutor = null;
+        }
+        healthCheckExecutor = Executors.newSingleThreadScheduledExecutor(
+                new DefaultThreadFactory("chc-health-check", true));
+        healthCheckExecutor.scheduleWithFixedDelay(this::checkAllNodes, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void checkAllNodes() {
+        for (NodeState node : nodes) {
+            if (closed) {
+                return;
+            }
+            check(node);
+        }
+    }
+
+    /**
+     * Checks a node with the probe function and records the result in node statistics.
+     *
+     * @param node - node to check
+     * @return true if node is alive
+     */
+    boolean check(NodeState node) {
+        boolean alive;
+        long start = System.nanoTime();
+        try {
+            alive = probe.test(node.getNode());
+        } catch (Exception e) {
+            LOG.debug("Node '{}' check failed", node.getNode().getBaseUri(), e);
+            alive = false;
+        }
+        node.checkFinished(alive, System.nanoTime() - start);
+
+        if (alive) {
+            if (node.faulty) {
+                LOG.info("Node '{}' is alive again", node.getNode().getBaseUri());
+                node.faulty = false;
+            }
+        } else if (!node.faulty) {
+            markFaulty(node);
+        }
+        return alive;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (checkExecutor != null) {
+            checkExecutor.shutdownNow();
+            checkExecutor = null;
+        }
+        if (healthCheckExecutor != null) {
+            healthCheckExecutor.shutdownNow();
+            healthCheckExecutor = null;
+        }
+    }
+
+    /**
+     * Checks if the error means that a node cannot be reached.
+     *
+     * @param error - error to check
+     * @return true if it is a connection error
+     */
+    public static boolean isConnectionFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException || t instanceof ConnectTimeoutException
+                    || t instanceof NoRouteToHostException || t instanceof UnknownHostException
+                    || t instanceof NoHttpResponseException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Node with its health and load statistics.
+     */
+    public final class NodeState {
+
+        private final ClickHouseNode node;
+
+        private final AtomicInteger outstandingRequests = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private volatile double latencyEwma;
+
+        private volatile boolean faulty;
+
+        private volatile long faultySince;
+
+        private final AtomicInteger checks = new AtomicInteger();
+
+        private final AtomicInteger consecutiveCheckFailures = new AtomicInteger();
+
+        private volatile long lastCheckTime;
+
+        private volatile double checkLatencyEwma;
+
+        NodeState(ClickHouseNode node) {
+            this.node = node;
+        }
+
+        public ClickHouseNode getNode() {
+            return node;
+        }
+
+        /**
+         * Node is alive if it is not marked faulty. Without background checks faulty node is considered alive
+         * again after check interval.
+         */
+        public boolean isAlive() {
+            if (!faulty) {
+                return true;
+            }
+            if ((probe == null || checkIntervalMs <= 0)
+                    && System.currentTimeMillis() - faultySince >= Math.abs(checkIntervalMs)) {
+                faulty = false;
+                return true;
+            }
+            return false;
+        }
+
+        public int getOutstandingRequests() {
+            return outstandingRequests.get();
+        }
+
+        /**
+         * Returns moving average of request latency in nanoseconds.
+         */
+        public double getLatencyEwma() {
+            return latencyEwma;
+        }
+
+        public int getFailureCount() {
+            return failures.get();
+        }
+
+        /**
+         * Returns number of checks done by the probe function.
+         */
+        public int getCheckCount() {
+            return checks.get();
+        }
+
+        /**
+         * Returns number of failed checks since the last successful one.
+         */
+        public int getConsecutiveCheckFailures() {
+            return consecutiveCheckFailures.get();
+        }
+
+        /**
+         * Returns time of the last check in milliseconds since epoch or zero if node was not checked.
+         */
+        public long getLastCheckTime() {
+            return lastCheckTime;
+        }
+
+        /**
+         * Returns moving average of check latency in nanoseconds.
+         */
+        public double getCheckLatencyEwma() {
+            return checkLatencyEwma;
+        }
+
+        void checkFinished(boolean alive, long latencyNanos) {
+            checks.incrementAndGet();
+            if (alive) {
+                consecutiveCheckFailures.set(0);
+                double prev = checkLatencyEwma;
+                checkLatencyEwma = prev == 0 ? latencyNanos : prev + EWMA_ALPHA * (latencyNanos - prev);
+            } else {
+                consecutiveCheckFailures.incrementAndGet();
+            }
+            lastCheckTime = System.currentTimeMillis();
+        }
+
+        /**
+         * Should be called before sending a request to the node.
+         *
+         * @return request start time in nanoseconds
+         */
+        public long requestStarted() {
+            outstandingRequests.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        /**
+         * Should be called when response is closed or request failed.
+         *
+         * @param startTime - value returned by {@link #requestStarted()}
+         */
+        public void requestFinished(long startTime) {
+            outstandingRequests.decrementAndGet();
+            double sample = System.nanoTime() - startTime;
+            double prev = latencyEwma;
+            latencyEwma = prev == 0 ? sample : prev + EWMA_ALPHA * (sample - prev);
+        }
+
+        @Override
+        public String toString() {
+            return "NodeState{node=" + node.getBaseUri() + ", faulty=" + faulty + ", outstanding="
+                    + outstandingRequests.get() + ", latencyEwma=" + latencyEwma + ", checks=" + checks.get()
+                    + ", checkLatencyEwma=" + checkLatencyEwma + "}";
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.clickhouse.client.api.internal;
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes data compressed in ClickHouse native format compressing frames in parallel.
+ *
+ * <p>Data is collected into a frame by the writing thread. Full frame is compressed by {@code executor} while the
+ * next one is filled. Compressed frames are written to the underlying stream by the writing thread in the order
+ * they were filled: frames compressed by then are written after each full frame, and the rest are waited for when
+ * all frames are busy or on {@link #flush()}. So {@code executor} only compresses, and a slow connection blocks
+ * only the thread writing to it, not compression of other streams using the same executor.</p>
+ *
+ * <p>Produces the same output as {@link ClickHouseCompressedOutputStream} with the same codec and buffer size.</p>
+ */
+class PipelinedCompressedOutputStream extends OutputStream {
+
+    private final OutputStream out;
+
+    private final CompressionCodec codec;
+
+    private final Executor executor;
+
+    private final int bufferSize;
+
+    private final int maxFrames;
+
+    private final ArrayDeque<Frame> freeFrames;
+
+    // frames submitted for compression in the order they were filled
+    private final ArrayDeque<Frame> pendingFrames;
+
+    private int allocatedFrames;
+
+    private Frame current;
+
+    private Throwable failure;
+
+    private boolean closed;
+
+    private byte[] tmpBuffer = new byte[1];
+
+    /**
+     * @param out - stream to write compressed frames to
+     * @param codec - codec to use
+     * @param bufferSize - size of uncompressed data in a frame
+     * @param executor - executor compressing frames
+     * @param maxFrames - maximum number of frames in flight including the one being filled
+     */
+    PipelinedCompressedOutputStream(OutputStream out, CompressionCodec codec, int bufferSize, Executor executor,
+                                    int maxFrames) {
+        if (maxFrames < 2) {
+            throw new IllegalArgumentException("At least 2 frames are required");
+        }
+        this.out = out;
+        this.codec = codec;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.maxFrames = maxFrames;
+        this.freeFrames = new ArrayDeque<>(maxFrames);
+        this.pendingFrames = new ArrayDeque<>(maxFrames);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        tmpBuffer[0] = (byte) b;
+        write(tmpBuffer, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (b == null) {
+            throw new NullPointerException("b is null");
+        } else if (off < 0) {
+            throw new IndexOutOfBoundsException("off is negative");
+        } else if (len < 0) {
+            throw new IndexOutOfBoundsException("len is negative");
+        } else if (off + len > b.length) {
+            throw new IndexOutOfBoundsException("off + len is greater than b.length");
+        }
+        ensureOpen();
+
+        int writtenBytes = 0;
+        while (writtenBytes < len) {
+            if (current == null) {
+                current = nextFrame();
+            }
+            int remaining = Math.min(len - writtenBytes, bufferSize - current.size);
+            System.arraycopy(b, off + writtenBytes, current.data, current.size, remaining);
+            current.size += remaining;
+            writtenBytes += remaining;
+            if (current.size == bufferSize) {
+                submit();
+                writeFrames(false);
+            }
+        }
+    }
+
+    /**
+     * Compresses buffered data and waits until all frames are written to the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!closed) {
+            ensureOpen();
+            submit();
+        }
+        awaitWrites();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+
+    /**
+     * Discards buffered data and frames not written yet. Frames being compressed at the moment are dropped
+     * when compressed, the underlying stream is not used after this method returns.
+     */
+    void abort() {
+        closed = true;
+        current = null;
+        pendingFrames.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable t = failure;
+        if (t != null) {
+            throw new IOException("Failed to compress or write data", t);
+        }
+    }
+
+    private void awaitWrites() throws IOException {
+        writeFrames(true);
+        checkFailure();
+    }
+
+    /**
+     * Writes compressed frames in order of submission.
+     *
+     * @param wait - if true, waits for all frames to be compressed, otherwise stops at the first frame
+     *             still being compressed
+     */
+    private void writeFrames(boolean wait) throws IOException {
+        for (Frame frame; (frame = pendingFrames.peek()) != null; ) {
+            if (!wait && !frame.compressed.isDone()) {
+                return;
+            }
+            writeFrame(pendingFrames.poll());
+        }
+    }
+
+    private void writeFrame(Frame frame) throws IOException {
+        try {
+            frame.compressed.join();
+            if (failure == null) {
+                out.write(frame.output, 0, frame.length);
+            }
+        } catch (CompletionException e) {
+            fail(e.getCause() != null ? e.getCause() : e);
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        } finally {
+            frame.compressed = null;
+            freeFrames.offer(frame);
+        }
+        checkFailure();
+    }
+
+    private Frame nextFrame() throws IOException {
+        Frame frame = freeFrames.poll();
+        if (frame == null && allocatedFrames < maxFrames) {
+            allocatedFrames++;
+            frame = new Frame(bufferSize, ClickHouseCompressedOutputStream.maxFrameLength(codec, bufferSize));
+        } else if (frame == null) {
+            // all frames are busy - the oldest one is written first anyway
+            writeFrame(pendingFrames.poll());
+            frame = freeFrames.poll();
+        }
+        frame.size = 0;
+        return frame;
+    }
+
+    private void submit() throws IOException {
+        Frame frame = current;
+        if (frame == null || frame.size == 0) {
+            return;
+        }
+        current = null;
+
+        try {
+            frame.compressed = CompletableFuture.supplyAsync(() -> frame.compress(codec), executor);
+        } catch (RuntimeException e) {
+            freeFrames.offer(frame);
+            throw new IOException("Failed to submit frame for compression", e);
+        }
+        pendingFrames.add(frame);
+    }
+
+    private void fail(Throwable t) {
+        if (failure == null) {
+            failure = t;
+        }
+    }
+
+    private static final class Frame {
+        final byte[] data;
+
+        final byte[] output;
+
+        int size;
+
+        int length;
+
+        // completes when the frame is compressed, null when the frame is free
+        CompletableFuture<Frame> compressed;
+
+        Frame(int bufferSize, int maxFrameLength) {
+            this.data = new byte[bufferSize];
+            this.output = new byte[maxFrameLength];
+        }
+
+        Frame compress(CompressionCodec codec) {
+            length = ClickHouseCompressedOutputStream.compressFrame(codec, data, size, output);
+            return this;
+        }
+    }
+}
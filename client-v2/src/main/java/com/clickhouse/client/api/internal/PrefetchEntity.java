@@ -0,0 +1,75 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.metrics.OperationMetrics;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * Response entity which content is read ahead in background with {@link PrefetchInputStream}.
+ * All access to the content goes through the prefetch stream, so the wrapped entity is read by the background
+ * task only.
+ */
+public class PrefetchEntity extends HttpEntityWrapper {
+
+    private final Executor executor;
+
+    private final int chunkSize;
+
+    private final int maxBytes;
+
+    private final OperationMetrics metrics;
+
+    private PrefetchInputStream content;
+
+    public PrefetchEntity(HttpEntity entity, Executor executor, int chunkSize, int maxBytes,
+                          OperationMetrics metrics) {
+        super(entity);
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxBytes = maxBytes;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public synchronized InputStream getContent() throws IOException {
+        if (content == null) {
+            content = new PrefetchInputStream(super.getContent(), executor, chunkSize, maxBytes, metrics);
+        }
+        return content;
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        // wrapped entity would read the source on the caller's thread
+        InputStream in = getContent();
+        byte[] buffer = new byte[chunkSize];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            outStream.write(buffer, 0, n);
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return true;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (content == null) {
+            super.close();
+        } else {
+            // source stream is closed by the background reader
+            content.close();
+        }
+    }
+}
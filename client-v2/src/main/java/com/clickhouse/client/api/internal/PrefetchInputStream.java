@@ -0,0 +1,385 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.metrics.ClientMetrics;
+import com.clickhouse.client.api.metrics.OperationMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reads a stream ahead of the consumer in background. Chunks of data are read by a task run on {@code executor} into
+ * a ring of buffers while the consumer decodes previously read chunks, so the network is not idle while rows are
+ * processed.
+ *
+ * <p>The ring is sized from observed throughput. It grows while the source delivers data faster than the consumer
+ * takes it, up to the limit, and shrinks when the consumer has to wait for data, because then more buffers
+ * do not help. Time the consumer waited for data and time the reader waited for a free buffer are reported as
+ * {@link ClientMetrics#RESPONSE_READ_STALL} and {@link ClientMetrics#RESPONSE_PREFETCH_STALL}.</p>
+ *
+ * <p>Only the background task reads and closes the source stream, so the source does not need to be thread-safe
+ * for reads. The consumer's thread reads this stream, which takes data from the ring only, and closes it. Closing
+ * this stream does not wait for the background task: it stops after the current read returns. The owner of the
+ * source may still close the underlying connection from the consumer's thread (HTTP response does it on close)
+ * while a read is blocked - then the read fails and the task exits. Metrics are reported from the consumer's
+ * thread, so {@code metrics} is not accessed concurrently.</p>
+ */
+public class PrefetchInputStream extends InputStream {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrefetchInputStream.class);
+
+    static final int MIN_CHUNKS = 2;
+
+    private final InputStream in;
+
+    private final int chunkSize;
+
+    private final int maxChunks;
+
+    private final OperationMetrics metrics;
+
+    // lock is not held while reading the source or copying data
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition dataAvailable = lock.newCondition();
+
+    private final Condition spaceAvailable = lock.newCondition();
+
+    // fields below are guarded by lock
+
+    private final ArrayDeque<Chunk> filled = new ArrayDeque<>();
+
+    private final ArrayDeque<Chunk> free = new ArrayDeque<>();
+
+    // number of filled chunks allowed in the ring
+    private int ringSize = MIN_CHUNKS;
+
+    private boolean done;
+
+    private Throwable failure;
+
+    private long prefetchStallNanos;
+
+    private volatile boolean closed;
+
+    // fields below are used by the consumer only
+
+    private Chunk current;
+
+    private boolean eof;
+
+    private long readStallNanos;
+
+    private final byte[] singleByte = new byte[1];
+
+    /**
+     * Creates stream and starts reading the source.
+     *
+     * @param in - source stream. Closed by the background task when all data is read or this stream is closed.
+     * @param executor - executor to run the background task. Should start a new thread for the task or have a free
+     *                 one, because the task blocks until all data is read.
+     * @param chunkSize - size of a buffer
+     * @param maxBytes - maximum number of bytes read ahead
+     * @param metrics - metrics to report stall time to or {@code null}
+     */
+    public PrefetchInputStream(InputStream in, Executor executor, int chunkSize, int maxBytes,
+                               OperationMetrics metrics) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size should be positive");
+        }
+        this.in = in;
+        this.chunkSize = chunkSize;
+        this.maxChunks = Math.max(MIN_CHUNKS, maxBytes / chunkSize);
+        this.metrics = metrics;
+        executor.execute(this::prefetch);
+    }
+
+    private void prefetch() {
+        Throwable error = null;
+        try {
+            for (Chunk chunk; (chunk = nextFreeChunk()) != null; ) {
+                boolean more = fill(chunk);
+                lock.lock();
+                try {
+                    if (chunk.length > 0) {
+                        filled.add(chunk);
+                        dataAvailable.signal();
+                    } else {
+                        free.add(chunk);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (!more) {
+                    break;
+                }
+            }
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            try {
+                in.close();
+            } catch (Exception e) {
+                LOG.debug("Failed to close source stream", e);
+            }
+            lock.lock();
+            try {
+                failure = error;
+                done = true;
+                dataAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits until the ring has space and returns an empty chunk or {@code null} when the stream is closed.
+     */
+    private Chunk nextFreeChunk() throws InterruptedException {
+        lock.lock();
+        try {
+            if (filled.size() >= ringSize && ringSize < maxChunks) {
+                // consumer is behind - let the ring absorb more data
+                ringSize = Math.min(maxChunks, ringSize * 2);
+            }
+            if (filled.size() >= ringSize && !closed) {
+                long start = System.nanoTime();
+                while (filled.size() >= ringSize && !closed) {
+                    spaceAvailable.await();
+                }
+                prefetchStallNanos += System.nanoTime() - start;
+            }
+            if (closed) {
+                return null;
+            }
+            Chunk chunk = free.poll();
+            if (chunk == null) {
+                chunk = new Chunk(chunkSize);
+            }
+            chunk.length = 0;
+            chunk.position = 0;
+            return chunk;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads into the chunk until it is full or no more data is available without blocking.
+     *
+     * @return false if end of the source is reached
+     */
+    private boolean fill(Chunk chunk) throws IOException {
+        byte[] buffer = chunk.data;
+        while (chunk.length < buffer.length) {
+            int n = in.read(buffer, chunk.length, buffer.length - chunk.length);
+            if (n < 0) {
+                return false;
+            }
+            chunk.length += n;
+            if (closed || in.available() <= 0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns chunk with unread data or {@code null} at the end of stream.
+     */
+    private Chunk currentChunk() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        if (current != null && current.position < current.length) {
+            return current;
+        }
+        if (eof) {
+            return null;
+        }
+
+        Throwable error;
+        lock.lock();
+        try {
+            if (current != null) {
+                // keep no more chunks than the ring needs
+                if (free.size() + filled.size() < ringSize) {
+                    free.add(current);
+                }
+                current = null;
+            }
+
+            if (filled.isEmpty() && !done) {
+                long start = System.nanoTime();
+                try {
+                    while (filled.isEmpty() && !done) {
+                        dataAvailable.await();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for data");
+                } finally {
+                    readStallNanos += System.nanoTime() - start;
+                }
+                if (ringSize > MIN_CHUNKS) {
+                    ringSize--;
+                }
+            }
+
+            current = filled.poll();
+            if (current != null) {
+                spaceAvailable.signal();
+                return current;
+            }
+            eof = true;
+            error = failure;
+        } finally {
+            lock.unlock();
+        }
+
+        reportMetrics();
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error != null) {
+            throw new IOException("Failed to read data", error);
+        }
+        return null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(singleByte, 0, 1) == 1 ? singleByte[0] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int total = 0;
+        while (total < len) {
+            Chunk chunk = currentChunk();
+            if (chunk == null) {
+                break;
+            }
+            int n = Math.min(len - total, chunk.length - chunk.position);
+            System.arraycopy(chunk.data, chunk.position, b, off + total, n);
+            chunk.position += n;
+            total += n;
+            if (total < len && !hasFilledChunks()) {
+                // do not wait for more data when some is already read
+                break;
+            }
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    private boolean hasFilledChunks() {
+        lock.lock();
+        try {
+            return !filled.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            Chunk chunk = currentChunk();
+            if (chunk == null) {
+                break;
+            }
+            int step = (int) Math.min(n - skipped, chunk.length - chunk.position);
+            chunk.position += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        Chunk chunk = current;
+        return chunk == null ? 0 : chunk.length - chunk.position;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        lock.lock();
+        try {
+            closed = true;
+            filled.clear();
+            free.clear();
+            spaceAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        current = null;
+        if (!eof) {
+            reportMetrics();
+        }
+    }
+
+    private void reportMetrics() {
+        if (metrics != null) {
+            metrics.updateMetric(ClientMetrics.RESPONSE_READ_STALL, readStallNanos);
+            metrics.updateMetric(ClientMetrics.RESPONSE_PREFETCH_STALL, getPrefetchStallNanos());
+        }
+    }
+
+    /**
+     * Returns time in nanoseconds the consumer waited for data.
+     */
+    public long getReadStallNanos() {
+        return readStallNanos;
+    }
+
+    /**
+     * Returns time in nanoseconds the background task waited for a free buffer.
+     */
+    public long getPrefetchStallNanos() {
+        lock.lock();
+        try {
+            return prefetchStallNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getRingSize() {
+        lock.lock();
+        try {
+            return ringSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Chunk {
+        final byte[] data;
+
+        int length;
+
+        int position;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.clickhouse.client.api.internal;
+
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Response entity that runs a callback once when the entity or its content stream is closed.
+ * Used to keep a request counted as outstanding on its node until the response body is read.
+ */
+public class RequestTrackingEntity extends HttpEntityWrapper {
+
+    private final Runnable onClose;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public RequestTrackingEntity(HttpEntity entity, Runnable onClose) {
+        super(entity);
+        this.onClose = onClose;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new FilterInputStream(super.getContent()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    finished();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            finished();
+        }
+    }
+
+    private void finished() {
+        if (closed.compareAndSet(false, true)) {
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.metadata.TableSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of table schemas fetched from a server. Entries expire after a TTL. Least recently used entries are
+ * evicted when the cache is full.
+ *
+ * <p>When refresh-ahead is enabled an entry read during the last quarter of its TTL is reloaded in background while
+ * the current schema is returned. If the reload fails the current schema is used until it expires.</p>
+ */
+public class SchemaCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaCache.class);
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final long refreshAfterNanos;
+
+    private final Executor refreshExecutor;
+
+    private final LongSupplier clock;
+
+    private final Map<Key, Entry> entries;
+
+    // incremented on invalidation so that schemas loaded before it are not cached, guarded by entries
+    private long generation;
+
+    /**
+     * @param maxSize - maximum number of schemas
+     * @param ttlMillis - time to live of an entry in milliseconds
+     * @param refreshExecutor - executor for refresh-ahead or {@code null} to disable it
+     */
+    public SchemaCache(int maxSize, long ttlMillis, Executor refreshExecutor) {
+        this(maxSize, ttlMillis, refreshExecutor, System::nanoTime);
+    }
+
+    SchemaCache(int maxSize, long ttlMillis, Executor refreshExecutor, LongSupplier clock) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Cache size and TTL should be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.refreshAfterNanos = ttlNanos - ttlNanos / 4;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns cached schema or loads it with {@code loader}. Concurrent calls for a missing schema may load it
+     * more than once. Loaded schema is not cached if the cache was invalidated while it was loading.
+     *
+     * @param database - database name
+     * @param tableOrQuery - table name or query
+     * @param loader - fetches schema from a server
+     * @return table schema
+     */
+    public TableSchema get(String database, String tableOrQuery, Supplier<TableSchema> loader) {
+        Key key = new Key(database, tableOrQuery);
+        long now = clock.getAsLong();
+        Entry entry;
+        long loadGeneration;
+        synchronized (entries) {
+            entry = entries.get(key);
+            loadGeneration = generation;
+        }
+
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            if (refreshExecutor != null && now - entry.loadedAt >= refreshAfterNanos
+                    && entry.refreshing.compareAndSet(false, true)) {
+                refresh(key, entry, loader);
+            }
+            return entry.schema;
+        }
+
+        TableSchema schema = loader.get();
+        put(key, entry, new Entry(schema, clock.getAsLong()), loadGeneration);
+        return schema;
+    }
+
+    private void refresh(Key key, Entry entry, Supplier<TableSchema> loader) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Entry refreshed = new Entry(loader.get(), clock.getAsLong());
+                    synchronized (entries) {
+                        // entry may be invalidated while loading
+                        entries.replace(key, entry, refreshed);
+                    }
+                } catch (Exception e) {
+                    LOG.debug("Failed to refresh schema of '{}'", key.tableOrQuery, e);
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (Exception e) {
+            LOG.debug("Failed to schedule schema refresh", e);
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Stores loaded entry unless the cache was invalidated or the entry was replaced by another load.
+     */
+    private void put(Key key, Entry expected, Entry entry, long loadGeneration) {
+        synchronized (entries) {
+            if (generation != loadGeneration || entries.get(key) != expected) {
+                return;
+            }
+            entries.put(key, entry);
+            if (entries.size() > maxSize) {
+                Iterator<Entry> it = entries.values().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes schema of a table or query.
+     *
+     * @param database - database name
+     * @param tableOrQuery - table name or query
+     */
+    public void invalidate(String database, String tableOrQuery) {
+        synchronized (entries) {
+            entries.remove(new Key(database, tableOrQuery));
+            generation++;
+        }
+    }
+
+    /**
+     * Removes all schemas.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            generation++;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Key {
+        final String database;
+
+        final String tableOrQuery;
+
+        Key(String database, String tableOrQuery) {
+            this.database = database;
+            this.tableOrQuery = tableOrQuery;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(database, key.database) && tableOrQuery.equals(key.tableOrQuery);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(database, tableOrQuery);
+        }
+    }
+
+    private static final class Entry {
+        final TableSchema schema;
+
+        final long loadedAt;
+
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(TableSchema schema, long loadedAt) {
+            this.schema = schema;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
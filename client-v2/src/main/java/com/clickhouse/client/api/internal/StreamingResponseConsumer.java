@@ -0,0 +1,207 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.http.ClickHouseHttpProto;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.support.classic.SharedInputBuffer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Consumes response of an async request as {@link ClassicHttpResponse} so it can be processed the same way
+ * as a response of a blocking request.
+ *
+ * <p>When streaming is enabled result is reported as soon as response head is received. Response body is
+ * passed to the entity stream as it arrives. Not more than {@code bufferSize} bytes are received ahead of
+ * a reader, then connection stops reading from the socket until the reader consumes some data.</p>
+ *
+ * <p>Otherwise, and always for error responses, body is received completely before result is reported so
+ * it can be read without blocking. It is intended for small responses only.</p>
+ */
+class StreamingResponseConsumer implements AsyncResponseConsumer<ClassicHttpResponse> {
+
+    private final SharedInputBuffer buffer;
+
+    private final boolean streamBody;
+
+    private volatile Exception failure;
+
+    private volatile Future<?> exchange;
+
+    private ByteArrayOutputStream fullBody;
+
+    private BasicClassicHttpResponse fullResponse;
+
+    private ContentType fullContentType;
+
+    private FutureCallback<ClassicHttpResponse> fullResultCallback;
+
+    StreamingResponseConsumer(int bufferSize, boolean streamBody) {
+        this.buffer = new SharedInputBuffer(bufferSize);
+        this.streamBody = streamBody;
+    }
+
+    /**
+     * Sets future of the exchange. It is cancelled when body stream is closed before the end.
+     */
+    void setExchange(Future<?> exchange) {
+        this.exchange = exchange;
+    }
+
+    @Override
+    public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+                                FutureCallback<ClassicHttpResponse> resultCallback) {
+        BasicClassicHttpResponse classicResponse = new BasicClassicHttpResponse(response.getCode(),
+                response.getReasonPhrase());
+        classicResponse.setVersion(response.getVersion());
+        classicResponse.setHeaders(response.getHeaders());
+
+        if (entityDetails == null) {
+            resultCallback.completed(classicResponse);
+            return;
+        }
+
+        ContentType contentType = ContentType.parseLenient(entityDetails.getContentType());
+        if (!streamBody || response.getCode() >= HttpStatus.SC_BAD_REQUEST
+                || response.containsHeader(ClickHouseHttpProto.HEADER_EXCEPTION_CODE)) {
+            fullBody = new ByteArrayOutputStream();
+            fullResponse = classicResponse;
+            fullContentType = contentType;
+            fullResultCallback = resultCallback;
+            return;
+        }
+
+        classicResponse.setEntity(new InputStreamEntity(new BodyStream(), entityDetails.getContentLength(),
+                contentType, entityDetails.getContentEncoding()));
+        resultCallback.completed(classicResponse);
+    }
+
+    @Override
+    public void informationResponse(HttpResponse response, HttpContext context) {
+        // nothing to do
+    }
+
+    @Override
+    public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+        if (fullBody != null) {
+            capacityChannel.update(Integer.MAX_VALUE);
+        } else {
+            buffer.updateCapacity(capacityChannel);
+        }
+    }
+
+    @Override
+    public void consume(ByteBuffer src) throws IOException {
+        if (fullBody != null) {
+            if (src.hasArray()) {
+                fullBody.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+                src.position(src.limit());
+            } else {
+                while (src.hasRemaining()) {
+                    fullBody.write(src.get());
+                }
+            }
+        } else {
+            buffer.fill(src);
+        }
+    }
+
+    @Override
+    public void streamEnd(List<? extends Header> trailers) {
+        if (fullBody != null) {
+            fullResponse.setEntity(new ByteArrayEntity(fullBody.toByteArray(), fullContentType));
+            fullResultCallback.completed(fullResponse);
+        } else {
+            buffer.markEndStream();
+        }
+    }
+
+    @Override
+    public void failed(Exception cause) {
+        failure = cause;
+        buffer.abort();
+        if (fullResultCallback != null) {
+            fullResultCallback.failed(cause);
+        }
+    }
+
+    @Override
+    public void releaseResources() {
+        // buffer is released by the reader
+    }
+
+    private class BodyStream extends InputStream {
+
+        private boolean closed;
+
+        @Override
+        public int read() throws IOException {
+            if (closed) {
+                return -1;
+            }
+            int b = buffer.read();
+            if (b == -1) {
+                checkFailure();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                return -1;
+            } else if (len == 0) {
+                return 0;
+            }
+            int n = buffer.read(b, off, len);
+            if (n == -1) {
+                checkFailure();
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.length();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (!buffer.isEndStream()) {
+                // do not download the rest of the response
+                Future<?> f = exchange;
+                if (f != null) {
+                    f.cancel(true);
+                }
+                buffer.abort();
+            }
+        }
+
+        private void checkFailure() throws IOException {
+            Exception e = failure;
+            if (e != null) {
+                throw e instanceof IOException ? (IOException) e : new IOException("Failed to read response", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.clickhouse.client.api.internal;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates executors running each task in a new virtual thread. Virtual threads are available since Java 21,
+ * implementation for it is in {@code src/main/java21} and is picked from the multi-release jar. This one is
+ * used by older runtimes.
+ */
+public final class VirtualThreads {
+
+    /**
+     * Tells if current runtime supports virtual threads.
+     *
+     * @return true if {@link #newExecutor(String)} can be used
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task.
+     *
+     * @param namePrefix - prefix of thread names
+     * @return executor service
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+    }
+
+    private VirtualThreads() {
+    }
+}
@@ -10,7 +10,19 @@ public enum ClientMetrics {
     /**
      * Duration of the operation serialization step in nanoseconds.
      */
-    OP_SERIALIZATION("client.opSerialization");
+    OP_SERIALIZATION("client.opSerialization"),
+
+    /**
+     * Time in nanoseconds a reader of a response waited for data to be read ahead from the network.
+     * Reported only when response prefetch is enabled.
+     */
+    RESPONSE_READ_STALL("client.responseReadStall"),
+
+    /**
+     * Time in nanoseconds response prefetch waited for a reader to free a buffer.
+     * Reported only when response prefetch is enabled.
+     */
+    RESPONSE_PREFETCH_STALL("client.responsePrefetchStall");
 
     private final String key;
 
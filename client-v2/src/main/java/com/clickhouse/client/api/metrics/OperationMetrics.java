@@ -11,6 +11,9 @@ import java.util.Map;
  * OperationStatistics objects hold various stats for complete operations.
  * <p>
  * It can be used for logging or monitoring purposes.
+ * <p>
+ * Not thread-safe. When a response is read ahead in background, the background task does not update metrics:
+ * they are reported by the thread reading the response (and closing it).
  */
 public class OperationMetrics {
 
@@ -51,6 +54,10 @@ public class OperationMetrics {
         metrics.put(metric.getKey(), new Gauge(value));
     }
 
+    public void updateMetric(ClientMetrics metric, long value) {
+        metrics.put(metric.getKey(), new Gauge(value));
+    }
+
     public void setQueryId(String queryId) {
         this.queryId = queryId;
     }
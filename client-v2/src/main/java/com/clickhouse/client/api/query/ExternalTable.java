@@ -0,0 +1,120 @@
+package com.clickhouse.client.api.query;
+
+import com.clickhouse.client.api.DataStreamWriter;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.ClickHouseFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.StringJoiner;
+
+/**
+ * <p>Temporary table sent to a server together with a query. The query can use it as a regular table, for example
+ * {@code SELECT * FROM events WHERE id IN ids}, which is much cheaper than sending a long list of values
+ * in the query text.</p>
+ *
+ * <p>Data is streamed to the server while request is sent. Compact binary formats like
+ * {@link ClickHouseFormat#RowBinary} or {@link ClickHouseFormat#Native} should be preferred for large tables.
+ * Server does not accept compressed external data, so requests with external tables are not compressed.</p>
+ *
+ * @see QuerySettings#addExternalTable(ExternalTable)
+ */
+public class ExternalTable {
+
+    private final String name;
+
+    private final String structure;
+
+    private final ClickHouseFormat format;
+
+    private final DataStreamWriter writer;
+
+    /**
+     * Creates table with data produced by a writer.
+     *
+     * @param name - table name used in the query
+     * @param structure - columns of the table, for example {@code id UInt64, name String}
+     * @param format - format of the data
+     * @param writer - writes table data. Output stream should not be closed.
+     */
+    public ExternalTable(String name, String structure, ClickHouseFormat format, DataStreamWriter writer) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("External table name is required");
+        }
+        if (structure == null || structure.trim().isEmpty()) {
+            throw new IllegalArgumentException("External table structure is required");
+        }
+        if (format == null || writer == null) {
+            throw new IllegalArgumentException("External table format and data are required");
+        }
+        this.name = name.trim();
+        this.structure = structure;
+        this.format = format;
+        this.writer = writer;
+    }
+
+    /**
+     * Creates table with data produced by a writer. Structure is taken from the schema.
+     *
+     * @param name - table name used in the query
+     * @param schema - columns of the table
+     * @param format - format of the data
+     * @param writer - writes table data. Output stream should not be closed.
+     */
+    public ExternalTable(String name, TableSchema schema, ClickHouseFormat format, DataStreamWriter writer) {
+        this(name, structure(schema), format, writer);
+    }
+
+    /**
+     * Creates table with data read from a stream. Stream is read when query is sent and is not closed.
+     * Stream is reset before query is retried, so a stream that does not support {@link InputStream#reset()}
+     * fails the retry.
+     *
+     * @param name - table name used in the query
+     * @param structure - columns of the table, for example {@code id UInt64, name String}
+     * @param format - format of the data
+     * @param data - table data
+     */
+    public ExternalTable(String name, String structure, ClickHouseFormat format, InputStream data) {
+        this(name, structure, format, new DataStreamWriter() {
+            @Override
+            public void onOutput(OutputStream out) throws IOException {
+                byte[] buffer = new byte[QuerySettings.MINIMAL_READ_BUFFER_SIZE];
+                for (int n; (n = data.read(buffer)) > 0; ) {
+                    out.write(buffer, 0, n);
+                }
+            }
+
+            @Override
+            public void onRetry() throws IOException {
+                data.reset();
+            }
+        });
+    }
+
+    private static String structure(TableSchema schema) {
+        StringJoiner structure = new StringJoiner(", ");
+        for (ClickHouseColumn column : schema.getColumns()) {
+            structure.add(column.getColumnName() + " " + column.getOriginalTypeName());
+        }
+        return structure.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getStructure() {
+        return structure;
+    }
+
+    public ClickHouseFormat getFormat() {
+        return format;
+    }
+
+    public DataStreamWriter getWriter() {
+        return writer;
+    }
+}
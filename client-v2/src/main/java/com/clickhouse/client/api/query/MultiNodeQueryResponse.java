@@ -0,0 +1,187 @@
+package com.clickhouse.client.api.query;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.metrics.OperationMetrics;
+import com.clickhouse.data.ClickHouseFormat;
+
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a query executed on several nodes with
+ * {@link com.clickhouse.client.api.Client#queryNodes(String, java.util.Collection, QuerySettings)}.
+ * Holds a response or an error for each node.
+ * <p>
+ * Responses are in {@link ClickHouseFormat#Native} format where each block carries its own header, so data of all
+ * successful responses can be read as one stream with {@link #getInputStream()} or
+ * {@link com.clickhouse.client.api.Client#newBinaryFormatReader(MultiNodeQueryResponse)}. Responses are read one
+ * after another in the order of endpoints. Content of a response is opened only when the previous one is read
+ * completely, so a node that is not read yet is not asked for data.
+ * </p>
+ */
+public class MultiNodeQueryResponse implements AutoCloseable {
+
+    private final List<NodeResponse> nodeResponses;
+
+    public MultiNodeQueryResponse(List<NodeResponse> nodeResponses) {
+        this.nodeResponses = Collections.unmodifiableList(new ArrayList<>(nodeResponses));
+    }
+
+    /**
+     * Returns response or error of each node in the order of endpoints.
+     *
+     * @return list of node responses
+     */
+    public List<NodeResponse> getNodeResponses() {
+        return nodeResponses;
+    }
+
+    /**
+     * Returns responses of nodes that executed the query successfully.
+     *
+     * @return list of responses
+     */
+    public List<QueryResponse> getResponses() {
+        List<QueryResponse> responses = new ArrayList<>(nodeResponses.size());
+        for (NodeResponse nodeResponse : nodeResponses) {
+            if (nodeResponse.response != null) {
+                responses.add(nodeResponse.response);
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Returns errors of nodes that failed to execute the query.
+     *
+     * @return map of endpoint to error
+     */
+    public Map<String, Throwable> getFailures() {
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (NodeResponse nodeResponse : nodeResponses) {
+            if (nodeResponse.error != null) {
+                failures.put(nodeResponse.endpoint, nodeResponse.error);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Tells if query failed on some nodes, so data is incomplete.
+     *
+     * @return true if at least one node failed
+     */
+    public boolean isPartial() {
+        for (NodeResponse nodeResponse : nodeResponses) {
+            if (nodeResponse.error != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public ClickHouseFormat getFormat() {
+        return ClickHouseFormat.Native;
+    }
+
+    /**
+     * Returns data of all successful responses as one stream. Stream of each response is opened when the previous
+     * one ends and is closed when it is read completely.
+     *
+     * @return input stream
+     */
+    public InputStream getInputStream() {
+        Iterator<QueryResponse> responses = getResponses().iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return responses.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return responses.next().getInputStream();
+            }
+        });
+    }
+
+    /**
+     * Closes all responses.
+     */
+    @Override
+    public void close() throws Exception {
+        ClientException error = null;
+        for (NodeResponse nodeResponse : nodeResponses) {
+            if (nodeResponse.response == null) {
+                continue;
+            }
+            try {
+                nodeResponse.response.close();
+            } catch (Exception e) {
+                if (error == null) {
+                    error = new ClientException("Failed to close responses", e);
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Response or error of a single node.
+     */
+    public static class NodeResponse {
+
+        private final String endpoint;
+
+        private final QueryResponse response;
+
+        private final Throwable error;
+
+        public NodeResponse(String endpoint, QueryResponse response, Throwable error) {
+            this.endpoint = endpoint;
+            this.response = response;
+            this.error = error;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * Returns response of the node or {@code null} if the node failed.
+         */
+        public QueryResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * Returns error of the node or {@code null} if the node executed the query successfully.
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        /**
+         * Returns metrics of the node response or {@code null} if the node failed.
+         */
+        public OperationMetrics getMetrics() {
+            return response == null ? null : response.getMetrics();
+        }
+
+        @Override
+        public String toString() {
+            return "NodeResponse{endpoint=" + endpoint + (error == null ? "" : ", error=" + error) + "}";
+        }
+    }
+}
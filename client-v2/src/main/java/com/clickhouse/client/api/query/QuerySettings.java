@@ -3,12 +3,16 @@ package com.clickhouse.client.api.query;
 
 import com.clickhouse.client.api.Client;
 import com.clickhouse.client.api.ClientConfigProperties;
+import com.clickhouse.client.api.enums.CompressionMethod;
 import com.clickhouse.client.api.internal.ServerSettings;
 import com.clickhouse.client.api.internal.ValidationUtils;
 import com.clickhouse.data.ClickHouseFormat;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 
@@ -20,6 +24,9 @@ public class QuerySettings {
 
     public static final int MINIMAL_READ_BUFFER_SIZE = 8192;
 
+    // option holding external tables
+    static final String EXTERNAL_TABLES = "external_tables";
+
     private Map<String, Object> rawSettings;
 
     public QuerySettings() {
@@ -134,6 +141,21 @@ public class QuerySettings {
         return this;
     }
 
+    /**
+     * Sets compression method for the query and its result. Overrides client configuration.
+     * {@link CompressionMethod#NONE} turns compression off.
+     *
+     * @param method - compression method
+     */
+    public QuerySettings setCompressionMethod(CompressionMethod method) {
+        rawSettings.put(ClientConfigProperties.COMPRESSION_METHOD.getKey(), method);
+        return this;
+    }
+
+    public CompressionMethod getCompressionMethod() {
+        return (CompressionMethod) rawSettings.get(ClientConfigProperties.COMPRESSION_METHOD.getKey());
+    }
+
     public QuerySettings setUseServerTimeZone(Boolean useServerTimeZone) {
         if (rawSettings.containsKey(ClientConfigProperties.USE_TIMEZONE.getKey())) {
             throw new ValidationUtils.SettingsValidationException(ClientConfigProperties.USE_SERVER_TIMEZONE.getKey(),
@@ -259,6 +281,32 @@ public class QuerySettings {
         return logComment;
     }
 
+    /**
+     * Adds a temporary table that is sent together with the query. Request with external tables is sent as
+     * {@code multipart/form-data} and is not compressed.
+     *
+     * @param table - external table
+     * @return same instance of the builder
+     */
+    public QuerySettings addExternalTable(ExternalTable table) {
+        ValidationUtils.checkNotNull(table, "table");
+        // copy to keep merged settings independent
+        List<ExternalTable> tables = new ArrayList<>(getExternalTables());
+        tables.add(table);
+        rawSettings.put(EXTERNAL_TABLES, Collections.unmodifiableList(tables));
+        return this;
+    }
+
+    /**
+     * Gets external tables of the query.
+     *
+     * @return list of external tables
+     */
+    @SuppressWarnings("unchecked")
+    public List<ExternalTable> getExternalTables() {
+        return (List<ExternalTable>) rawSettings.getOrDefault(EXTERNAL_TABLES, Collections.emptyList());
+    }
+
     public static QuerySettings merge(QuerySettings source, QuerySettings override) {
         QuerySettings merged = new QuerySettings();
         if (source != null) {
@@ -0,0 +1,18 @@
+package com.clickhouse.client.api.internal;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class VirtualThreads {
+
+    public static boolean isSupported() {
+        return true;
+    }
+
+    public static ExecutorService newExecutor(String namePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+    }
+
+    private VirtualThreads() {
+    }
+}
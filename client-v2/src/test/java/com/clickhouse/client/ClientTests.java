@@ -108,6 +108,19 @@ public class ClientTests extends BaseIntegrationTest {
         }
     }
 
+    @Test
+    public void testAuthenticatedPing() {
+        try (Client client = newClient().build()) {
+            Assert.assertTrue(client.ping(TimeUnit.SECONDS.toMillis(20), true));
+        }
+
+        try (Client client = newClient().setPassword("wrong-password").build()) {
+            // /ping does not check credentials, SELECT 1 does
+            Assert.assertTrue(client.ping(TimeUnit.SECONDS.toMillis(20)));
+            Assert.assertFalse(client.ping(TimeUnit.SECONDS.toMillis(20), true));
+        }
+    }
+
     @Test
     public void testPingFailure() {
         try (Client client = new Client.Builder()
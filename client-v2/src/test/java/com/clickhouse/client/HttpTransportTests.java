@@ -6,26 +6,40 @@ import com.clickhouse.client.api.ClientException;
 import com.clickhouse.client.api.ClientFaultCause;
 import com.clickhouse.client.api.ConnectionInitiationException;
 import com.clickhouse.client.api.ConnectionReuseStrategy;
+import com.clickhouse.client.api.LoadBalancingPolicy;
 import com.clickhouse.client.api.ServerException;
 import com.clickhouse.client.api.command.CommandResponse;
 import com.clickhouse.client.api.command.CommandSettings;
+import com.clickhouse.client.api.data_formats.ClickHouseBinaryFormatReader;
+import com.clickhouse.client.api.enums.CompressionMethod;
 import com.clickhouse.client.api.enums.Protocol;
 import com.clickhouse.client.api.enums.ProxyType;
 import com.clickhouse.client.api.insert.InsertResponse;
 import com.clickhouse.client.api.insert.InsertSettings;
+import com.clickhouse.client.api.insert.ShardedInsertWriter;
+import com.clickhouse.client.api.insert.ShardingKey;
+import com.clickhouse.client.api.internal.LoadBalancer;
 import com.clickhouse.client.api.internal.ServerSettings;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.client.api.metrics.ClientMetrics;
+import com.clickhouse.client.api.query.ExternalTable;
 import com.clickhouse.client.api.query.GenericRecord;
+import com.clickhouse.client.api.query.MultiNodeQueryResponse;
 import com.clickhouse.client.api.query.QueryResponse;
 import com.clickhouse.client.api.query.QuerySettings;
 import com.clickhouse.client.config.ClickHouseClientOption;
 import com.clickhouse.client.insert.SamplePOJO;
+import com.clickhouse.data.ClickHouseColumn;
 import com.clickhouse.data.ClickHouseFormat;
+import com.clickhouse.data.format.BinaryStreamUtils;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
 import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
 import com.github.tomakehurst.wiremock.http.trafficlistener.WiremockNetworkTrafficListener;
 import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
 import org.apache.hc.core5.http.HttpHeaders;
@@ -37,7 +51,11 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
@@ -428,6 +446,529 @@ public class HttpTransportTests extends BaseIntegrationTest {
         return result;
     }
 
+    @Test(groups = { "integration" })
+    public void testFailoverToNextEndpoint() throws Exception {
+        WireMockServer mockServer = new WireMockServer( WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+
+        int deadPort;
+        try (java.net.ServerSocket socket = new java.net.ServerSocket(0)) {
+            deadPort = socket.getLocalPort();
+        }
+
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", deadPort, false)
+                .addEndpoint(Protocol.HTTP, "localhost", mockServer.port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .compressServerResponse(false)
+                .setLoadBalancingPolicy(LoadBalancingPolicy.ROUND_ROBIN)
+                .setMaxRetries(1)
+                .build()) {
+            mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_OK)
+                            .withHeader("X-ClickHouse-Summary",
+                                    "{ \"read_bytes\": \"10\", \"read_rows\": \"1\"}"))
+                    .build());
+
+            for (int i = 0; i < 4; i++) {
+                try (QueryResponse response = client.query("SELECT 1").get(1, TimeUnit.SECONDS)) {
+                    Assert.assertEquals(response.getReadRows(), 1);
+                }
+            }
+            // dead endpoint is tried only once and then skipped
+            Assert.assertEquals(mockServer.getAllServeEvents().size(), 4);
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testAsyncHttpTransport() throws Exception {
+        WireMockServer mockServer = new WireMockServer( WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", mockServer.port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .compressServerResponse(false)
+                .useAsyncHttpTransport(true)
+                .build()) {
+            mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .withRequestBody(WireMock.containing("SELECT"))
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_OK)
+                            .withChunkedDribbleDelay(4, 100)
+                            .withHeader("X-ClickHouse-Summary",
+                                    "{ \"read_bytes\": \"10\", \"read_rows\": \"1\"}")
+                            .withBody("1\n2\n3\n"))
+                    .build());
+            mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .withRequestBody(WireMock.containing("1\t2"))
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_OK)
+                            .withHeader("X-ClickHouse-Summary",
+                                    "{ \"written_bytes\": \"3\", \"written_rows\": \"1\"}"))
+                    .build());
+            mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .withRequestBody(WireMock.containing("FAIL"))
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR)
+                            .withHeader("X-ClickHouse-Exception-Code", "62")
+                            .withBody("Code: 62. DB::Exception: Syntax error"))
+                    .build());
+
+            try (QueryResponse response = client.query("SELECT number FROM numbers(3)").get(1, TimeUnit.SECONDS)) {
+                Assert.assertEquals(response.getReadRows(), 1);
+                byte[] body = new byte[16];
+                int n = 0;
+                for (int r; (r = response.getInputStream().read(body, n, body.length - n)) > 0; ) {
+                    n += r;
+                }
+                Assert.assertEquals(new String(body, 0, n, StandardCharsets.US_ASCII), "1\n2\n3\n");
+            }
+
+            try (InsertResponse response = client.insert("test_table",
+                    new ByteArrayInputStream("1\t2\n".getBytes(StandardCharsets.US_ASCII)),
+                    ClickHouseFormat.TSV).get(1, TimeUnit.SECONDS)) {
+                Assert.assertEquals(response.getWrittenRows(), 1);
+            }
+
+            try {
+                client.query("FAIL").get(1, TimeUnit.SECONDS);
+                Assert.fail("Expected exception");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof ServerException, String.valueOf(e.getCause()));
+                Assert.assertEquals(((ServerException) e.getCause()).getCode(), 62);
+            }
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testVirtualThreads() throws Exception {
+        WireMockServer mockServer = new WireMockServer( WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", mockServer.port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .compressServerResponse(false)
+                .useAsyncRequests(true)
+                .useVirtualThreads(true)
+                .setMaxConnections(2)
+                .build()) {
+            mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_OK)
+                            .withFixedDelay(20)
+                            .withHeader("X-ClickHouse-Summary",
+                                    "{ \"read_bytes\": \"10\", \"read_rows\": \"1\"}"))
+                    .build());
+
+            // more operations than connections: the rest wait for a connection to be released
+            List<CompletableFuture<Long>> futures = new java.util.ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(client.query("SELECT 1").thenApply(response -> {
+                    try (QueryResponse r = response) {
+                        return r.getReadRows();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            for (CompletableFuture<Long> future : futures) {
+                Assert.assertEquals((long) future.get(10, TimeUnit.SECONDS), 1L);
+            }
+            Assert.assertEquals(mockServer.getAllServeEvents().size(), 50);
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testCompressionMethod() throws Exception {
+        WireMockServer mockServer = new WireMockServer( WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", mockServer.port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .compressClientRequest(true)
+                .setCompressionMethod(CompressionMethod.ZSTD)
+                .setZstdCompressionLevel(5)
+                .build()) {
+            mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_OK)
+                            .withHeader("X-ClickHouse-Summary",
+                                    "{ \"written_bytes\": \"3\", \"written_rows\": \"1\"}"))
+                    .build());
+
+            // ZSTD blocks in native format
+            client.insert("test_table", new ByteArrayInputStream("1\t2\n".getBytes(StandardCharsets.US_ASCII)),
+                    ClickHouseFormat.TSV, new InsertSettings().compressionMethod(
+                            CompressionMethod.NONE).compressClientRequest(true))
+                    .get(1, TimeUnit.SECONDS).close();
+            client.insert("test_table", new ByteArrayInputStream("1\t2\n".getBytes(StandardCharsets.US_ASCII)),
+                    ClickHouseFormat.TSV).get(1, TimeUnit.SECONDS).close();
+
+            List<ServeEvent> events = new java.util.ArrayList<>(mockServer.getAllServeEvents());
+            Collections.reverse(events);
+            Assert.assertEquals(events.size(), 2);
+
+            // NONE turns compression off
+            Assert.assertFalse(events.get(0).getRequest().queryParameter("decompress").isPresent());
+            Assert.assertFalse(events.get(0).getRequest().queryParameter("compress").isPresent());
+            Assert.assertTrue(events.get(0).getRequest().getBodyAsString().endsWith("1\t2\n"));
+
+            Assert.assertEquals(events.get(1).getRequest().queryParameter("decompress").firstValue(), "1");
+            byte[] body = events.get(1).getRequest().getBody();
+            Assert.assertEquals(body[16], (byte) 0x90);
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testSchemaCache() throws Exception {
+        WireMockServer mockServer = new WireMockServer( WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", mockServer.port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .compressServerResponse(false)
+                .setSchemaCacheTTL(1, ChronoUnit.HOURS)
+                .build()) {
+            mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_OK)
+                            .withHeader("X-ClickHouse-Summary",
+                                    "{ \"read_bytes\": \"10\", \"read_rows\": \"1\"}")
+                            .withBody("name=id\ttype=Int32\tdefault_type=\n"))
+                    .build());
+
+            TableSchema schema = client.getTableSchema("test_table", "db");
+            Assert.assertEquals(schema.getColumns().get(0).getColumnName(), "id");
+            Assert.assertSame(client.getTableSchema("test_table", "db"), schema);
+            Assert.assertEquals(mockServer.getAllServeEvents().size(), 1);
+
+            client.getTableSchema("test_table", "other_db");
+            Assert.assertEquals(mockServer.getAllServeEvents().size(), 2);
+
+            client.invalidateTableSchema("test_table", "db");
+            Assert.assertNotSame(client.getTableSchema("test_table", "db"), schema);
+            Assert.assertEquals(mockServer.getAllServeEvents().size(), 3);
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testPingEndpoint() {
+        WireMockServer mockServer = new WireMockServer( WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", mockServer.port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .build()) {
+            mockServer.addStubMapping(WireMock.get("/ping")
+                    .willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_OK).withBody("Ok.\n"))
+                    .build());
+            Assert.assertTrue(client.ping());
+
+            mockServer.resetMappings();
+            mockServer.addStubMapping(WireMock.get("/ping")
+                    .willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE))
+                    .build());
+            Assert.assertFalse(client.ping(1000));
+
+            // no queries are sent
+            Assert.assertTrue(mockServer.getAllServeEvents().stream()
+                    .allMatch(e -> e.getRequest().getMethod().getName().equals("GET")));
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testHealthCheck() throws Exception {
+        WireMockServer mockServer = new WireMockServer( WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+        mockServer.addStubMapping(WireMock.get("/ping")
+                .willReturn(WireMock.aResponse().withStatus(HttpStatus.SC_OK).withBody("Ok.\n"))
+                .build());
+
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", mockServer.port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .setHealthCheckInterval(50, ChronoUnit.MILLIS)
+                .build()) {
+            LoadBalancer.NodeState node = client.getNodeStates().get(0);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (node.getCheckCount() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Assert.assertTrue(node.getCheckCount() >= 2);
+            Assert.assertEquals(node.getConsecutiveCheckFailures(), 0);
+            Assert.assertTrue(node.getCheckLatencyEwma() > 0);
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testResponsePrefetch() throws Exception {
+        WireMockServer mockServer = new WireMockServer( WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            body.append(i).append('\n');
+        }
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", mockServer.port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .compressServerResponse(false)
+                .setResponsePrefetchBufferSize(64 * 1024)
+                .build()) {
+            mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_OK)
+                            .withHeader("X-ClickHouse-Summary",
+                                    "{ \"read_bytes\": \"10\", \"read_rows\": \"1\"}")
+                            .withBody(body.toString()))
+                    .build());
+
+            QueryResponse response = client.query("SELECT number FROM numbers(100000)").get(10, TimeUnit.SECONDS);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                for (int i = 0; i < 100_000; i++) {
+                    Assert.assertEquals(reader.readLine(), String.valueOf(i));
+                }
+                Assert.assertNull(reader.readLine());
+            } finally {
+                response.close();
+            }
+            Assert.assertNotNull(response.getMetrics().getMetric(ClientMetrics.RESPONSE_READ_STALL));
+            Assert.assertNotNull(response.getMetrics().getMetric(ClientMetrics.RESPONSE_PREFETCH_STALL));
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testQueryNodes() throws Exception {
+        WireMockServer[] servers = new WireMockServer[3];
+        for (int i = 0; i < servers.length; i++) {
+            servers[i] = new WireMockServer(WireMockConfiguration
+                    .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+            servers[i].start();
+        }
+        try {
+            for (int i = 0; i < 2; i++) {
+                servers[i].addStubMapping(WireMock.post(WireMock.anyUrl())
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(HttpStatus.SC_OK)
+                                .withHeader("X-ClickHouse-Summary",
+                                        "{ \"read_bytes\": \"12\", \"read_rows\": \"" + (i + 2) + "\"}")
+                                .withBody(nativeBlock(i * 10, i + 2)))
+                        .build());
+            }
+            servers[2].addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR)
+                            .withHeader("X-ClickHouse-Exception-Code", "60")
+                            .withBody("Code: 60. DB::Exception: Table default.test does not exist"))
+                    .build());
+
+            Client.Builder builder = new Client.Builder()
+                    .setUsername("default")
+                    .setPassword(ClickHouseServerForTest.getPassword())
+                    .compressServerResponse(false);
+            for (WireMockServer server : servers) {
+                builder.addEndpoint(Protocol.HTTP, "localhost", server.port(), false);
+            }
+            try (Client client = builder.build();
+                 MultiNodeQueryResponse response = client.queryNodes("SELECT id FROM test", null)
+                         .get(10, TimeUnit.SECONDS)) {
+                Assert.assertEquals(response.getNodeResponses().size(), 3);
+                Assert.assertEquals(response.getResponses().size(), 2);
+                Assert.assertTrue(response.isPartial());
+                Assert.assertEquals(response.getFailures().size(), 1);
+                Throwable failure = response.getFailures().values().iterator().next();
+                Assert.assertTrue(failure instanceof ServerException, failure.toString());
+                Assert.assertEquals(((ServerException) failure).getCode(), 60);
+                for (MultiNodeQueryResponse.NodeResponse nodeResponse : response.getNodeResponses()) {
+                    if (nodeResponse.getResponse() != null) {
+                        Assert.assertNotNull(nodeResponse.getMetrics());
+                        Assert.assertEquals(nodeResponse.getResponse().getFormat(), ClickHouseFormat.Native);
+                    }
+                }
+
+                ClickHouseBinaryFormatReader reader = client.newBinaryFormatReader(response);
+                int[] expected = {0, 1, 10, 11, 12};
+                for (int id : expected) {
+                    Assert.assertNotNull(reader.next());
+                    Assert.assertEquals(reader.getInteger("id"), id);
+                }
+                Assert.assertFalse(reader.hasNext());
+            }
+
+            try (Client client = builder.build()) {
+                String failing = "http://localhost:" + servers[2].port();
+                ExecutionException e = Assert.expectThrows(ExecutionException.class, () ->
+                        client.queryNodes("SELECT id FROM test", Collections.singletonList(failing), null)
+                                .get(10, TimeUnit.SECONDS));
+                Assert.assertTrue(e.getCause() instanceof ClientException, e.getCause().toString());
+            }
+        } finally {
+            for (WireMockServer server : servers) {
+                server.stop();
+            }
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testShardedInsert() throws Exception {
+        WireMockServer[] servers = new WireMockServer[2];
+        for (int i = 0; i < servers.length; i++) {
+            servers[i] = new WireMockServer(WireMockConfiguration
+                    .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+            servers[i].start();
+            servers[i].addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .willReturn(WireMock.aResponse()
+                            .withStatus(HttpStatus.SC_OK)
+                            .withHeader("X-ClickHouse-Summary",
+                                    "{ \"written_rows\": \"" + (i + 1) + "\", \"written_bytes\": \"10\"}"))
+                    .build());
+        }
+
+        TableSchema schema = new TableSchema(Arrays.asList(ClickHouseColumn.of("id", "UInt32")));
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", servers[0].port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .compressClientRequest(false)
+                .build()) {
+            List<String> shards = Arrays.asList("http://localhost:" + servers[0].port(),
+                    "http://localhost:" + servers[1].port());
+            InsertResponse response;
+            try (ShardedInsertWriter writer = client.newShardedInsertWriter("events_local", schema, shards, null,
+                    ShardingKey.column(schema, "id"), new InsertSettings())) {
+                for (int id = 0; id < 100; id++) {
+                    writer.setValue("id", id);
+                    writer.commitRow();
+                }
+                response = writer.finish();
+            }
+            Assert.assertEquals(response.getWrittenRows(), 3);
+            Assert.assertEquals(response.getWrittenBytes(), 20);
+
+            for (WireMockServer server : servers) {
+                List<ServeEvent> events = server.getAllServeEvents();
+                Assert.assertEquals(events.size(), 1);
+                Assert.assertTrue(events.get(0).getRequest().getUrl()
+                        .contains("INSERT%20INTO%20events_local%20FORMAT%20RowBinaryWithDefaults"),
+                        events.get(0).getRequest().getUrl());
+                // 50 rows of not default marker and UInt32
+                Assert.assertEquals(events.get(0).getRequest().getBody().length, 50 * 5);
+            }
+        } finally {
+            for (WireMockServer server : servers) {
+                server.stop();
+            }
+        }
+    }
+
+    @DataProvider(name = "asyncHttpTransportProvider")
+    public static Object[][] asyncHttpTransportProvider() {
+        return new Object[][] { { false }, { true } };
+    }
+
+    @Test(groups = { "integration" }, dataProvider = "asyncHttpTransportProvider")
+    public void testExternalTables(boolean asyncHttpTransport) throws Exception {
+        WireMockServer mockServer = new WireMockServer(WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+        mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.SC_OK)
+                        .withHeader("X-ClickHouse-Summary",
+                                "{ \"read_bytes\": \"10\", \"read_rows\": \"1\"}")
+                        .withBody("2\n"))
+                .build());
+
+        ByteArrayOutputStream ids = new ByteArrayOutputStream();
+        for (int id = 0; id < 1000; id++) {
+            BinaryStreamUtils.writeUnsignedInt64(ids, id);
+        }
+        TableSchema namesSchema = new TableSchema(Arrays.asList(ClickHouseColumn.of("name", "String")));
+        try (Client client = new Client.Builder()
+                .addEndpoint(Protocol.HTTP, "localhost", mockServer.port(), false)
+                .setUsername("default")
+                .setPassword(ClickHouseServerForTest.getPassword())
+                .compressClientRequest(true)
+                .compressServerResponse(false)
+                .useAsyncHttpTransport(asyncHttpTransport)
+                .build()) {
+            QuerySettings settings = new QuerySettings()
+                    .setFormat(ClickHouseFormat.TabSeparated)
+                    .addExternalTable(new ExternalTable("ids", "id UInt64", ClickHouseFormat.RowBinary,
+                            new ByteArrayInputStream(ids.toByteArray())))
+                    .addExternalTable(new ExternalTable("names", namesSchema, ClickHouseFormat.TabSeparated,
+                            out -> out.write("a\nb\n".getBytes(StandardCharsets.UTF_8))));
+            String sql = "SELECT count() FROM events WHERE id IN ids AND name IN names";
+            try (QueryResponse response = client.query(sql, settings).get(10, TimeUnit.SECONDS)) {
+                Assert.assertEquals(new BufferedReader(new InputStreamReader(response.getInputStream())).readLine(), "2");
+            }
+
+            LoggedRequest request = mockServer.getAllServeEvents().get(0).getRequest();
+            Assert.assertTrue(request.getHeader(HttpHeaders.CONTENT_TYPE).startsWith("multipart/form-data; boundary="),
+                    request.getHeader(HttpHeaders.CONTENT_TYPE));
+            Assert.assertFalse(request.getUrl().contains("decompress"), request.getUrl());
+            Assert.assertEquals(request.getPart("query").getBody().asString(), sql);
+            Assert.assertEquals(request.getPart("ids_format").getBody().asString(), "RowBinary");
+            Assert.assertEquals(request.getPart("ids_structure").getBody().asString(), "id UInt64");
+            Assert.assertEquals(request.getPart("ids").getBody().asBytes(), ids.toByteArray());
+            Assert.assertEquals(request.getPart("names_structure").getBody().asString(), "name String");
+            Assert.assertEquals(request.getPart("names").getBody().asString(), "a\nb\n");
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    private static byte[] nativeBlock(int firstId, int rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryStreamUtils.writeVarInt(out, 1);
+        BinaryStreamUtils.writeVarInt(out, rows);
+        BinaryStreamUtils.writeString(out, "id");
+        BinaryStreamUtils.writeString(out, "Int32");
+        for (int i = 0; i < rows; i++) {
+            BinaryStreamUtils.writeInt32(out, firstId + i);
+        }
+        return out.toByteArray();
+    }
+
     @Test(groups = { "integration" })
     public void testErrorWithSuccessfulResponse() {
         WireMockServer mockServer = new WireMockServer( WireMockConfiguration
@@ -196,4 +196,96 @@ public class ClickHouseBinaryFormatReaderTest {
         Assert.assertEquals(reader.getString("a"),  "true");
         Assert.assertEquals(reader.getString("b"),  "false");
     }
+
+    @Test
+    public void testAdvanceCursor() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        String[] names = new String[]{"id", "score", "opt", "name"};
+        String[] types = new String[]{"UInt32", "Float32", "Nullable(Int64)", "String"};
+
+        BinaryStreamUtils.writeVarInt(out, names.length);
+        for (String name : names) {
+            BinaryStreamUtils.writeString(out, name);
+        }
+        for (String type : types) {
+            BinaryStreamUtils.writeString(out, type);
+        }
+
+        final int rows = 3;
+        for (int i = 0; i < rows; i++) {
+            BinaryStreamUtils.writeUnsignedInt32(out, 4000000000L + i);
+            BinaryStreamUtils.writeFloat32(out, i + 0.5f);
+            if (i % 2 == 0) {
+                BinaryStreamUtils.writeNull(out);
+            } else {
+                BinaryStreamUtils.writeNonNull(out);
+                BinaryStreamUtils.writeInt64(out, -i);
+            }
+            BinaryStreamUtils.writeString(out, "row" + i);
+        }
+
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        QuerySettings querySettings = new QuerySettings().setUseTimeZone(TimeZone.getTimeZone("UTC").toZoneId().getId());
+        RowBinaryWithNamesAndTypesFormatReader reader =
+                new RowBinaryWithNamesAndTypesFormatReader(in, querySettings, new BinaryStreamReader.CachingByteBufferAllocator());
+
+        int count = 0;
+        while (reader.advance()) {
+            Assert.assertEquals(reader.getLong(1), 4000000000L + count);
+            Assert.assertEquals(reader.getDouble(1), 4000000000.0 + count);
+            Assert.assertEquals(reader.getDouble(2), count + 0.5);
+            Assert.assertEquals(reader.getFloat("score"), count + 0.5f);
+            Assert.assertEquals((Long) reader.readValue(1), Long.valueOf(4000000000L + count));
+            Assert.assertEquals((Float) reader.readValue("score"), Float.valueOf(count + 0.5f));
+            if (count % 2 == 0) {
+                Assert.assertFalse(reader.hasValue(3));
+                Assert.assertNull(reader.readValue("opt"));
+            } else {
+                Assert.assertEquals(reader.getLong("opt"), -count);
+            }
+            Assert.assertEquals(reader.getString(4), "row" + count);
+            Assert.assertThrows(ArithmeticException.class, () -> reader.getLong(2));
+            count++;
+        }
+        Assert.assertEquals(count, rows);
+        Assert.assertFalse(reader.hasNext());
+        Assert.assertFalse(reader.advance());
+    }
+
+    @Test
+    public void testReadingUInt64() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryStreamUtils.writeVarInt(out, 2);
+        BinaryStreamUtils.writeString(out, "u");
+        BinaryStreamUtils.writeString(out, "b");
+        BinaryStreamUtils.writeString(out, "UInt64");
+        BinaryStreamUtils.writeString(out, "Bool");
+
+        BinaryStreamUtils.writeUnsignedInt64(out, new BigInteger("18446744073709551615"));
+        BinaryStreamUtils.writeBoolean(out, true);
+        BinaryStreamUtils.writeUnsignedInt64(out, 42);
+        BinaryStreamUtils.writeBoolean(out, false);
+
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        QuerySettings querySettings = new QuerySettings().setUseTimeZone(TimeZone.getTimeZone("UTC").toZoneId().getId());
+        RowBinaryWithNamesAndTypesFormatReader reader =
+                new RowBinaryWithNamesAndTypesFormatReader(in, querySettings, new BinaryStreamReader.CachingByteBufferAllocator());
+
+        Assert.assertTrue(reader.advance());
+        Assert.assertEquals(reader.getUnsignedLong("u"), -1L);
+        Assert.assertEquals(Long.toUnsignedString(reader.getUnsignedLong(1)), "18446744073709551615");
+        Assert.assertEquals(reader.getDouble("u"), 18446744073709551615.0d);
+        Assert.assertThrows(ArithmeticException.class, () -> reader.getLong("u"));
+        Assert.assertEquals(reader.getBigInteger("u"), new BigInteger("18446744073709551615"));
+        Assert.assertTrue(reader.getBoolean("b"));
+        Assert.assertEquals(reader.getLong("b"), 1L);
+
+        Assert.assertTrue(reader.advance());
+        Assert.assertEquals(reader.getLong("u"), 42L);
+        Assert.assertEquals(reader.getUnsignedLong("u"), 42L);
+        Assert.assertEquals((BigInteger) reader.readValue("u"), BigInteger.valueOf(42));
+        Assert.assertEquals((Boolean) reader.readValue("b"), Boolean.FALSE);
+        Assert.assertFalse(reader.advance());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,236 @@
+package com.clickhouse.client.api.data_formats;
+
+import com.clickhouse.client.api.data_formats.internal.BinaryStreamReader;
+import com.clickhouse.client.api.data_formats.internal.ColumnVector;
+import com.clickhouse.client.api.data_formats.internal.NativeBlock;
+import com.clickhouse.client.api.query.QuerySettings;
+import com.clickhouse.data.format.BinaryStreamUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TimeZone;
+
+public class NativeFormatReaderTest {
+
+    private static final QuerySettings SETTINGS = new QuerySettings()
+            .setUseTimeZone(TimeZone.getTimeZone("UTC").toZoneId().getId());
+
+    private static void writeBlock(ByteArrayOutputStream out, int offset, int nRows) throws IOException {
+        BinaryStreamUtils.writeVarInt(out, 5);
+        BinaryStreamUtils.writeVarInt(out, nRows);
+
+        BinaryStreamUtils.writeString(out, "id");
+        BinaryStreamUtils.writeString(out, "Int32");
+        for (int i = 0; i < nRows; i++) {
+            BinaryStreamUtils.writeInt32(out, offset + i);
+        }
+
+        BinaryStreamUtils.writeString(out, "big");
+        BinaryStreamUtils.writeString(out, "UInt64");
+        for (int i = 0; i < nRows; i++) {
+            BinaryStreamUtils.writeUnsignedInt64(out, new BigInteger("18446744073709551615"));
+        }
+
+        BinaryStreamUtils.writeString(out, "score");
+        BinaryStreamUtils.writeString(out, "Float64");
+        for (int i = 0; i < nRows; i++) {
+            BinaryStreamUtils.writeFloat64(out, (offset + i) / 2.0);
+        }
+
+        BinaryStreamUtils.writeString(out, "name");
+        BinaryStreamUtils.writeString(out, "String");
+        for (int i = 0; i < nRows; i++) {
+            BinaryStreamUtils.writeString(out, "name_" + (offset + i));
+        }
+
+        BinaryStreamUtils.writeString(out, "opt");
+        BinaryStreamUtils.writeString(out, "Nullable(Int16)");
+        for (int i = 0; i < nRows; i++) {
+            BinaryStreamUtils.writeBoolean(out, (offset + i) % 2 == 0);
+        }
+        for (int i = 0; i < nRows; i++) {
+            BinaryStreamUtils.writeInt16(out, (offset + i) % 2 == 0 ? 0 : offset + i);
+        }
+    }
+
+    private static byte[] twoBlocks() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeBlock(out, 0, 3);
+        writeBlock(out, 3, 2);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testReadingRows() throws Exception {
+        NativeFormatReader reader = new NativeFormatReader(new ByteArrayInputStream(twoBlocks()), SETTINGS,
+                new BinaryStreamReader.CachingByteBufferAllocator());
+
+        int rows = 0;
+        while (reader.hasNext()) {
+            reader.next();
+            Assert.assertEquals(reader.getInteger("id"), rows);
+            Assert.assertEquals(reader.getBigInteger("big"), new BigInteger("18446744073709551615"));
+            Assert.assertEquals(reader.getDouble("score"), rows / 2.0);
+            Assert.assertEquals(reader.getString("name"), "name_" + rows);
+            if (rows % 2 == 0) {
+                Assert.assertFalse(reader.hasValue("opt"));
+            } else {
+                Assert.assertEquals(reader.getShort("opt"), (short) rows);
+            }
+            rows++;
+        }
+        Assert.assertEquals(rows, 5);
+    }
+
+    @Test
+    public void testReadingBlocks() throws Exception {
+        NativeFormatReader reader = new NativeFormatReader(new ByteArrayInputStream(twoBlocks()), SETTINGS,
+                new BinaryStreamReader.CachingByteBufferAllocator());
+
+        int rows = 0;
+        int blocks = 0;
+        NativeBlock block;
+        while ((block = reader.nextBlock()) != null) {
+            blocks++;
+            long[] ids = ((ColumnVector.LongVector) block.getColumn(1)).getValues();
+            while (block.next()) {
+                Assert.assertEquals(ids[block.getRowIndex()], rows);
+                Assert.assertEquals(block.getLong(1), rows);
+                Assert.assertEquals(block.getLong(2), -1L);
+                Assert.assertEquals(block.getDouble(2), 18446744073709551615.0d);
+                Assert.assertEquals(block.getDouble(3), rows / 2.0);
+                Assert.assertEquals(block.getString(4), "name_" + rows);
+                Assert.assertEquals(block.isNull(5), rows % 2 == 0);
+                if (rows % 2 == 1) {
+                    Assert.assertEquals(block.getLong(5), rows);
+                    Assert.assertEquals(block.getValue(5), (short) rows);
+                }
+                rows++;
+            }
+        }
+        Assert.assertEquals(blocks, 2);
+        Assert.assertEquals(rows, 5);
+    }
+
+    @Test
+    public void testBlockWithoutRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeBlock(out, 0, 2);
+        writeBlock(out, 2, 0);
+        writeBlock(out, 2, 1);
+        NativeFormatReader reader = new NativeFormatReader(new ByteArrayInputStream(out.toByteArray()), SETTINGS,
+                new BinaryStreamReader.CachingByteBufferAllocator());
+
+        int rows = 0;
+        while (reader.hasNext()) {
+            reader.next();
+            Assert.assertEquals(reader.getInteger("id"), rows);
+            rows++;
+        }
+        Assert.assertEquals(rows, 3);
+    }
+
+    @Test
+    public void testEmptyResponse() throws Exception {
+        NativeFormatReader reader = new NativeFormatReader(new ByteArrayInputStream(new byte[0]), SETTINGS,
+                new BinaryStreamReader.CachingByteBufferAllocator());
+        Assert.assertFalse(reader.hasNext());
+        Assert.assertNull(reader.nextBlock());
+    }
+
+    @Test
+    public void testReadingArrays() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryStreamUtils.writeVarInt(out, 3);
+        BinaryStreamUtils.writeVarInt(out, 3);
+
+        // rows: [1.5, 2.5], [], [3.5]
+        BinaryStreamUtils.writeString(out, "vec");
+        BinaryStreamUtils.writeString(out, "Array(Float32)");
+        BinaryStreamUtils.writeInt64(out, 2);
+        BinaryStreamUtils.writeInt64(out, 2);
+        BinaryStreamUtils.writeInt64(out, 3);
+        BinaryStreamUtils.writeFloat32(out, 1.5f);
+        BinaryStreamUtils.writeFloat32(out, 2.5f);
+        BinaryStreamUtils.writeFloat32(out, 3.5f);
+
+        // rows: [1, NULL], [2], []
+        BinaryStreamUtils.writeString(out, "opt");
+        BinaryStreamUtils.writeString(out, "Array(Nullable(Int32))");
+        BinaryStreamUtils.writeInt64(out, 2);
+        BinaryStreamUtils.writeInt64(out, 3);
+        BinaryStreamUtils.writeInt64(out, 3);
+        BinaryStreamUtils.writeBoolean(out, false);
+        BinaryStreamUtils.writeBoolean(out, true);
+        BinaryStreamUtils.writeBoolean(out, false);
+        BinaryStreamUtils.writeInt32(out, 1);
+        BinaryStreamUtils.writeInt32(out, 0);
+        BinaryStreamUtils.writeInt32(out, 2);
+
+        // rows: [[1], [2, 3]], [], [[4]]
+        BinaryStreamUtils.writeString(out, "nested");
+        BinaryStreamUtils.writeString(out, "Array(Array(Int64))");
+        BinaryStreamUtils.writeInt64(out, 2);
+        BinaryStreamUtils.writeInt64(out, 2);
+        BinaryStreamUtils.writeInt64(out, 3);
+        BinaryStreamUtils.writeInt64(out, 1);
+        BinaryStreamUtils.writeInt64(out, 3);
+        BinaryStreamUtils.writeInt64(out, 4);
+        for (int i = 1; i <= 4; i++) {
+            BinaryStreamUtils.writeInt64(out, i);
+        }
+
+        NativeFormatReader reader = new NativeFormatReader(new ByteArrayInputStream(out.toByteArray()), SETTINGS,
+                new BinaryStreamReader.CachingByteBufferAllocator());
+
+        reader.next();
+        Assert.assertEquals(reader.getFloatArray("vec"), new float[] {1.5f, 2.5f});
+        Assert.assertEquals(reader.getList("opt"), Arrays.asList(1, null));
+        Assert.assertEquals(reader.getList("nested"), Arrays.asList(Arrays.asList(1L), Arrays.asList(2L, 3L)));
+        reader.next();
+        Assert.assertEquals(reader.getFloatArray("vec"), new float[0]);
+        Assert.assertEquals(reader.getList("opt"), Arrays.asList(2));
+        Assert.assertEquals(reader.getList("nested"), Collections.emptyList());
+        reader.next();
+        Assert.assertEquals(reader.getFloatArray("vec"), new float[] {3.5f});
+        Assert.assertEquals(reader.getList("opt"), Collections.emptyList());
+        Assert.assertEquals(reader.getList("nested"), Arrays.asList(Arrays.asList(4L)));
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testArrayViews() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryStreamUtils.writeVarInt(out, 1);
+        BinaryStreamUtils.writeVarInt(out, 2);
+        BinaryStreamUtils.writeString(out, "vec");
+        BinaryStreamUtils.writeString(out, "Array(Float32)");
+        BinaryStreamUtils.writeInt64(out, 1);
+        BinaryStreamUtils.writeInt64(out, 3);
+        BinaryStreamUtils.writeFloat32(out, 1.0f);
+        BinaryStreamUtils.writeFloat32(out, 2.0f);
+        BinaryStreamUtils.writeFloat32(out, 3.0f);
+
+        NativeFormatReader reader = new NativeFormatReader(new ByteArrayInputStream(out.toByteArray()), SETTINGS,
+                new BinaryStreamReader.CachingByteBufferAllocator());
+        NativeBlock block = reader.nextBlock();
+        ColumnVector.ArrayVector vector = (ColumnVector.ArrayVector) block.getColumn("vec");
+        float[] flat = ((ColumnVector.FloatVector) vector.getElements()).getValues();
+
+        ColumnVector.ArrayView first = vector.getView(0);
+        Assert.assertEquals(first.length(), 1);
+        Assert.assertEquals(first.getFloat(0), 1.0f);
+
+        ColumnVector.ArrayView second = vector.getView(1);
+        Assert.assertEquals(second.length(), 2);
+        Assert.assertEquals(second.getOffset(), 1);
+        Assert.assertEquals(flat[second.getOffset() + 1], 3.0f);
+        Assert.assertEquals(second.getDouble(0), 2.0d);
+    }
+}
@@ -0,0 +1,326 @@
+package com.clickhouse.client.api.data_formats;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.data_formats.internal.BinaryStreamReader;
+import com.clickhouse.client.api.data_formats.internal.NativeBlock;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.client.api.query.QuerySettings;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.format.BinaryStreamUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class NativeFormatWriterTest {
+
+    private static final QuerySettings SETTINGS = new QuerySettings()
+            .setUseTimeZone(TimeZone.getTimeZone("UTC").toZoneId().getId());
+
+    private static NativeFormatReader reader(ByteArrayOutputStream out) {
+        return new NativeFormatReader(new ByteArrayInputStream(out.toByteArray()), SETTINGS,
+                new BinaryStreamReader.CachingByteBufferAllocator());
+    }
+
+    @Test
+    public void testWritingRows() throws Exception {
+        TableSchema schema = new TableSchema(Arrays.asList(
+                ClickHouseColumn.of("id", "UInt64"),
+                ClickHouseColumn.of("name", "String"),
+                ClickHouseColumn.of("score", "Float64"),
+                ClickHouseColumn.of("opt", "Nullable(Int16)"),
+                ClickHouseColumn.of("day", "Date"),
+                ClickHouseColumn.of("ts", "DateTime64(3)"),
+                ClickHouseColumn.of("tag", "LowCardinality(String)"),
+                ClickHouseColumn.of("vec", "Array(Float32)"),
+                ClickHouseColumn.of("amount", "Decimal64(2)"),
+                ClickHouseColumn.of("code", "FixedString(2)")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NativeFormatWriter writer = new NativeFormatWriter(out, schema);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 5; i++) {
+            writer.append(1, (long) i);
+            writer.append(2, i == 3 ? "имя_" + i : "name_" + i);
+            writer.append(3, i / 2.0);
+            if (i % 2 == 1) {
+                writer.append(4, (long) i);
+            }
+            writer.append("day", LocalDate.of(2024, 1, 1).plusDays(i));
+            writer.append("ts", (Object) start.plusNanos(i * 1_000_000L));
+            writer.append("tag", "tag_" + (i % 2));
+            writer.append("vec", (Object) new float[] {i, i + 0.5f});
+            writer.append("amount", (Object) new BigDecimal("1.25").add(BigDecimal.valueOf(i)));
+            writer.append("code", "c" + i);
+            writer.commitRow();
+        }
+        Assert.assertEquals(writer.getPendingRows(), 5);
+        writer.flush();
+        Assert.assertEquals(writer.getPendingRows(), 0);
+
+        NativeFormatReader reader = reader(out);
+        NativeBlock block = reader.nextBlock();
+        Assert.assertEquals(block.getSchema().getColumnByName("tag").getOriginalTypeName(), "String");
+        int rows = 0;
+        while (block.next()) {
+            Assert.assertEquals(block.getLong(1), rows);
+            Assert.assertEquals(block.getString(2), rows == 3 ? "имя_" + rows : "name_" + rows);
+            Assert.assertEquals(block.getDouble(3), rows / 2.0);
+            Assert.assertEquals(block.isNull(4), rows % 2 == 0);
+            if (rows % 2 == 1) {
+                Assert.assertEquals(block.getLong(4), rows);
+            }
+            Assert.assertEquals(block.getString(7), "tag_" + (rows % 2));
+            rows++;
+        }
+        Assert.assertEquals(rows, 5);
+        Assert.assertNull(reader.nextBlock());
+
+        reader = reader(out);
+        for (int i = 0; i < 5; i++) {
+            reader.next();
+            Assert.assertEquals(reader.getLocalDate("day"), LocalDate.of(2024, 1, 1).plusDays(i));
+            Assert.assertEquals(reader.getLocalDateTime("ts"), start.plusNanos(i * 1_000_000L));
+            Assert.assertEquals(reader.getFloatArray("vec"), new float[] {i, i + 0.5f});
+            Assert.assertEquals(reader.getBigDecimal("amount"), new BigDecimal("1.25").add(BigDecimal.valueOf(i)));
+            Assert.assertEquals(reader.getString("code"), "c" + i);
+        }
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testBlockLimits() throws Exception {
+        TableSchema schema = new TableSchema(Arrays.asList(
+                ClickHouseColumn.of("id", "Int32"),
+                ClickHouseColumn.of("name", "String")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NativeFormatWriter writer = new NativeFormatWriter(out, schema, 3, Long.MAX_VALUE);
+        for (int i = 0; i < 7; i++) {
+            writer.append(1, i);
+            writer.append(2, "name_" + i);
+            writer.commitRow();
+        }
+        Assert.assertEquals(writer.getPendingRows(), 1);
+        writer.flush();
+        assertBlocks(out, 3, 3, 1);
+
+        // each row takes 4 + 1 + 6 bytes
+        out.reset();
+        writer = new NativeFormatWriter(out, schema, Integer.MAX_VALUE, 20);
+        for (int i = 0; i < 5; i++) {
+            writer.append("id", i);
+            writer.append("name", "name_" + i);
+            writer.commitRow();
+        }
+        writer.flush();
+        assertBlocks(out, 2, 2, 1);
+    }
+
+    private static void assertBlocks(ByteArrayOutputStream out, int... blockRows) throws Exception {
+        NativeFormatReader reader = reader(out);
+        int blocks = 0;
+        int rows = 0;
+        NativeBlock block;
+        while ((block = reader.nextBlock()) != null) {
+            Assert.assertEquals(block.getRowCount(), blockRows[blocks++]);
+            while (block.next()) {
+                Assert.assertEquals(block.getLong(1), rows);
+                Assert.assertEquals(block.getString(2), "name_" + rows);
+                rows++;
+            }
+        }
+        Assert.assertEquals(blocks, blockRows.length);
+    }
+
+    @Test
+    public void testWritingMapsAndTuples() throws Exception {
+        TableSchema schema = new TableSchema(Arrays.asList(
+                ClickHouseColumn.of("attrs", "Map(LowCardinality(String), Nullable(Int32))"),
+                ClickHouseColumn.of("pair", "Tuple(String, Int8)")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NativeFormatWriter writer = new NativeFormatWriter(out, schema);
+        Map<String, Integer> attrs = new LinkedHashMap<>();
+        attrs.put("a", 1);
+        attrs.put("b", null);
+        writer.append(1, (Object) attrs);
+        writer.append(2, (Object) Arrays.asList("x", 1));
+        writer.commitRow();
+        writer.append(1, (Object) Collections.emptyMap());
+        writer.append(2, (Object) new Object[] {"y", 2});
+        writer.commitRow();
+        writer.flush();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        BinaryStreamUtils.writeVarInt(expected, 2);
+        BinaryStreamUtils.writeVarInt(expected, 2);
+        BinaryStreamUtils.writeString(expected, "attrs");
+        BinaryStreamUtils.writeString(expected, "Map(String, Nullable(Int32))");
+        BinaryStreamUtils.writeInt64(expected, 2);
+        BinaryStreamUtils.writeInt64(expected, 2);
+        BinaryStreamUtils.writeString(expected, "a");
+        BinaryStreamUtils.writeString(expected, "b");
+        BinaryStreamUtils.writeBoolean(expected, false);
+        BinaryStreamUtils.writeBoolean(expected, true);
+        BinaryStreamUtils.writeInt32(expected, 1);
+        BinaryStreamUtils.writeInt32(expected, 0);
+        BinaryStreamUtils.writeString(expected, "pair");
+        BinaryStreamUtils.writeString(expected, "Tuple(String, Int8)");
+        BinaryStreamUtils.writeString(expected, "x");
+        BinaryStreamUtils.writeString(expected, "y");
+        BinaryStreamUtils.writeInt8(expected, 1);
+        BinaryStreamUtils.writeInt8(expected, 2);
+
+        Assert.assertEquals(out.toByteArray(), expected.toByteArray());
+    }
+
+    @Test
+    public void testDecimalFromLong() throws Exception {
+        TableSchema schema = new TableSchema(Arrays.asList(
+                ClickHouseColumn.of("d32", "Decimal32(2)"),
+                ClickHouseColumn.of("d64", "Decimal64(2)"),
+                ClickHouseColumn.of("d", "Decimal(10, 4)")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NativeFormatWriter writer = new NativeFormatWriter(out, schema);
+        // primitive and boxed values are both integer numbers, not unscaled values
+        writer.append(1, 5L);
+        writer.append(2, 5L);
+        writer.append(3, -7L);
+        writer.commitRow();
+        writer.append(1, (Object) Long.valueOf(5));
+        writer.append(2, (Object) Long.valueOf(5));
+        writer.append(3, (Object) Long.valueOf(-7));
+        writer.commitRow();
+        Assert.assertThrows(ClientException.class, () -> writer.append(1, 10_000_000L));
+        Assert.assertThrows(ClientException.class, () -> writer.append(2, Long.MAX_VALUE));
+        writer.flush();
+
+        NativeFormatReader reader = reader(out);
+        for (int i = 0; i < 2; i++) {
+            reader.next();
+            Assert.assertEquals(reader.getBigDecimal("d32"), new BigDecimal("5.00"));
+            Assert.assertEquals(reader.getBigDecimal("d64"), new BigDecimal("5.00"));
+            Assert.assertEquals(reader.getBigDecimal("d"), new BigDecimal("-7.0000"));
+        }
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testFailedNestedValue() throws Exception {
+        TableSchema schema = new TableSchema(Arrays.asList(
+                ClickHouseColumn.of("arr", "Array(Int32)"),
+                ClickHouseColumn.of("attrs", "Map(String, Int32)"),
+                ClickHouseColumn.of("pair", "Tuple(String, Int8)")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NativeFormatWriter writer = new NativeFormatWriter(out, schema);
+        Map<String, Object> badAttrs = new LinkedHashMap<>();
+        badAttrs.put("a", 1);
+        badAttrs.put("b", new Object());
+        // elements before the bad one should not stay in nested buffers
+        Assert.assertThrows(RuntimeException.class, () -> writer.append(1, (Object) Arrays.asList(1, 2, new Object())));
+        Assert.assertThrows(RuntimeException.class, () -> writer.append(2, (Object) badAttrs));
+        Assert.assertThrows(RuntimeException.class, () -> writer.append(3, (Object) Arrays.asList("x", new Object())));
+        Assert.assertThrows(ClientException.class, () -> writer.append(3, (Object) Arrays.asList("x", 1, 2)));
+        writeNestedRow(writer);
+        writer.flush();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        NativeFormatWriter expectedWriter = new NativeFormatWriter(expected, schema);
+        writeNestedRow(expectedWriter);
+        expectedWriter.flush();
+        Assert.assertEquals(out.toByteArray(), expected.toByteArray());
+
+        NativeFormatReader reader = reader(out);
+        reader.next();
+        Assert.assertEquals(reader.getIntArray("arr"), new int[] {3, 4});
+        Assert.assertEquals(reader.readValue("attrs"), Collections.singletonMap("c", 5));
+        Assert.assertEquals((Object[]) reader.readValue("pair"), new Object[] {"y", (byte) 6});
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testNestedRoundTrip() throws Exception {
+        TableSchema schema = new TableSchema(Arrays.asList(
+                ClickHouseColumn.of("attrs", "Map(String, Array(Int32))"),
+                ClickHouseColumn.of("pair", "Tuple(String, Nullable(Int64))"),
+                ClickHouseColumn.of("id", "Int32")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NativeFormatWriter writer = new NativeFormatWriter(out, schema);
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (int j = 0; j < i; j++) {
+                map.put("k" + j, Arrays.asList(i, j));
+            }
+            maps.add(map);
+            writer.append(1, (Object) map);
+            writer.append(2, (Object) Arrays.asList("s" + i, i == 1 ? null : (long) i));
+            writer.append(3, i);
+            writer.commitRow();
+        }
+        writer.flush();
+
+        NativeFormatReader reader = reader(out);
+        for (int i = 0; i < 3; i++) {
+            reader.next();
+            Map<?, ?> map = reader.readValue("attrs");
+            Assert.assertEquals(map.keySet(), maps.get(i).keySet());
+            for (int j = 0; j < i; j++) {
+                Assert.assertEquals(((BinaryStreamReader.ArrayValue) map.get("k" + j)).asList(), Arrays.asList(i, j));
+            }
+            Assert.assertEquals((Object[]) reader.readValue("pair"), new Object[] {"s" + i, i == 1 ? null : (long) i});
+            Assert.assertEquals(reader.getInteger("id"), i);
+        }
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    private static void writeNestedRow(NativeFormatWriter writer) throws Exception {
+        writer.append(1, (Object) Arrays.asList(3, 4));
+        writer.append(2, (Object) Collections.singletonMap("c", 5));
+        writer.append(3, (Object) Arrays.asList("y", 6));
+        writer.commitRow();
+    }
+
+    @Test
+    public void testInvalidRows() throws Exception {
+        TableSchema schema = new TableSchema(Arrays.asList(
+                ClickHouseColumn.of("id", "Int32"),
+                ClickHouseColumn.of("opt", "Nullable(String)")));
+        NativeFormatWriter writer = new NativeFormatWriter(new ByteArrayOutputStream(), schema);
+
+        writer.append(1, 1);
+        Assert.assertThrows(ClientException.class, () -> writer.append(1, 2));
+        Assert.assertThrows(ClientException.class, () -> writer.append(3, 2));
+        Assert.assertThrows(ClientException.class, writer::flush);
+        writer.commitRow();
+
+        writer.append(2, "value");
+        Assert.assertThrows(ClientException.class, writer::commitRow);
+        Assert.assertThrows(ClientException.class, () -> writer.appendNull(1));
+
+        Assert.assertThrows(ClientException.class, () -> new NativeFormatWriter(new ByteArrayOutputStream(),
+                new TableSchema(Collections.singletonList(ClickHouseColumn.of("v", "Variant(String, UInt64)")))));
+    }
+
+    @Test
+    public void testStripLowCardinality() {
+        Assert.assertEquals(NativeFormatWriter.stripLowCardinality("String"), "String");
+        Assert.assertEquals(NativeFormatWriter.stripLowCardinality("LowCardinality(Nullable(String))"),
+                "Nullable(String)");
+        Assert.assertEquals(NativeFormatWriter.stripLowCardinality(
+                "Map(LowCardinality(String), Array(LowCardinality(FixedString(2))))"),
+                "Map(String, Array(FixedString(2)))");
+    }
+}
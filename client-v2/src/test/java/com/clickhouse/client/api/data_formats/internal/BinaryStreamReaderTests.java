@@ -1,8 +1,25 @@
 package com.clickhouse.client.api.data_formats.internal;
 
+import com.clickhouse.client.api.data_formats.RowBinaryFormatSerializer;
+import com.clickhouse.data.ClickHouseColumn;
 import org.junit.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+
 public class BinaryStreamReaderTests {
 
 
@@ -24,4 +41,68 @@ public class BinaryStreamReaderTests {
             Assert.assertNotSame(firstAllocation, nextAllocation);
         }
     }
+
+    @Test(dataProvider = "skipValueData")
+    public void testSkipValue(String type, Object value) throws Exception {
+        ClickHouseColumn column = ClickHouseColumn.of("v", type);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            if (RowBinaryFormatSerializer.writeValuePreamble(out, false, column, value)) {
+                SerializerUtils.serializeData(out, value, column);
+            }
+        }
+        out.write(42);
+
+        for (boolean buffered : new boolean[] {true, false}) {
+            ByteArrayInputStream bytes = new ByteArrayInputStream(out.toByteArray());
+            BinaryStreamReader reader = new BinaryStreamReader(buffered ? new BufferedBinaryInputStream(bytes) : bytes,
+                    TimeZone.getTimeZone("UTC"), null, new BinaryStreamReader.DefaultByteBufferAllocator(), false);
+            reader.skipValue(column);
+            reader.readValue(column);
+            reader.skipValue(column);
+            Assert.assertEquals(reader.readByte(), 42);
+            Assert.assertThrows(EOFException.class, () -> reader.skipValue(column));
+        }
+    }
+
+    @DataProvider
+    public static Object[][] skipValueData() throws Exception {
+        Map<String, Long> map = new HashMap<>();
+        map.put("a", 1L);
+        map.put("bb", 2L);
+        return new Object[][] {
+                {"Int8", (byte) 1},
+                {"UInt16", 65535},
+                {"Int32", -1},
+                {"UInt64", BigInteger.valueOf(Long.MAX_VALUE)},
+                {"Int256", BigInteger.ONE},
+                {"Float64", 1.5d},
+                {"Bool", true},
+                {"String", "some string"},
+                {"String", ""},
+                {"FixedString(4)", "abcd"},
+                {"Nullable(String)", null},
+                {"Nullable(String)", "value"},
+                {"Nullable(Int64)", 10L},
+                {"Decimal(20, 3)", new BigDecimal("123.456")},
+                {"Decimal32(2)", new BigDecimal("1.25")},
+                {"Decimal(9, 2)", new BigDecimal("1.25")},
+                {"Date", LocalDateTime.of(2024, 1, 1, 0, 0).toLocalDate()},
+                {"DateTime64(3)", LocalDateTime.of(2024, 1, 1, 10, 20, 30)},
+                {"UUID", UUID.randomUUID()},
+                {"IPv6", InetAddress.getByName("::1")},
+                {"Array(Int32)", Arrays.asList(1, 2, 3)},
+                {"Array(String)", Arrays.asList("a", "bc", "")},
+                {"Array(Nullable(String))", Arrays.asList("a", null, "c")},
+                {"Array(Array(String))", Arrays.asList(Arrays.asList("a"), Collections.emptyList())},
+                {"Map(String, Int64)", map},
+                {"Tuple(Int32, String)", Arrays.asList(1, "a")},
+                {"Tuple(Int32, Float64)", Arrays.asList(1, 2.0d)},
+                {"Array(Tuple(Int32, Float64))", Arrays.asList(Arrays.asList(1, 2.0d), Arrays.asList(3, 4.0d))},
+                {"Point", new double[] {1.0, 2.0}},
+                {"Ring", new double[][] {{1.0, 2.0}, {3.0, 4.0}}},
+                {"Polygon", new double[][][] {{{1.0, 2.0}, {3.0, 4.0}}}},
+                {"MultiPolygon", new double[][][][] {{{{1.0, 2.0}}}, {{{3.0, 4.0}, {5.0, 6.0}}}}},
+        };
+    }
 }
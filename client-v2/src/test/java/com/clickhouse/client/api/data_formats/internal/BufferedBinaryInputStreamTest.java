@@ -0,0 +1,67 @@
+package com.clickhouse.client.api.data_formats.internal;
+
+import com.clickhouse.data.format.BinaryStreamUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class BufferedBinaryInputStreamTest {
+
+    /**
+     * Returns at most one byte per read to make values cross buffer boundaries.
+     */
+    private static InputStream trickle(byte[] data) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+    }
+
+    @Test
+    public void testReadingAcrossBufferBoundary() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i++) {
+            BinaryStreamUtils.writeInt8(out, i);
+            BinaryStreamUtils.writeInt16(out, -i);
+            BinaryStreamUtils.writeInt32(out, i * 100000);
+            BinaryStreamUtils.writeInt64(out, -i * 10000000000L);
+        }
+        BinaryStreamUtils.writeString(out, "tail");
+
+        BufferedBinaryInputStream in = new BufferedBinaryInputStream(trickle(out.toByteArray()), 16);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(in.read(), i);
+            Assert.assertEquals(in.readShortLE(), (short) -i);
+            Assert.assertEquals(in.readIntLE(), i * 100000);
+            Assert.assertEquals(in.readLongLE(), -i * 10000000000L);
+        }
+        Assert.assertEquals(BinaryStreamReader.readString(in), "tail");
+        Assert.assertEquals(in.read(), -1);
+        Assert.assertThrows(EOFException.class, in::readIntLE);
+    }
+
+    @Test
+    public void testBulkRead() throws Exception {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        BufferedBinaryInputStream in = new BufferedBinaryInputStream(new ByteArrayInputStream(data), 16);
+        Assert.assertEquals(in.read(), 0);
+        byte[] chunk = BinaryStreamReader.readNBytes(in, 50);
+        Assert.assertEquals(chunk[0], 1);
+        Assert.assertEquals(chunk[49], 50);
+        Assert.assertEquals(in.skip(9), 9);
+        Assert.assertEquals(in.read(), 60);
+        Assert.assertEquals(in.readIntLE(), 61 | 62 << 8 | 63 << 16 | 64 << 24);
+    }
+}
@@ -0,0 +1,103 @@
+package com.clickhouse.client.api.data_formats.internal;
+
+import com.clickhouse.client.api.data_formats.NativeFormatReader;
+import com.clickhouse.client.api.query.QuerySettings;
+import com.clickhouse.data.format.BinaryStreamUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.TimeZone;
+
+public class ColumnVectorTest {
+
+    private static final QuerySettings SETTINGS = new QuerySettings()
+            .setUseTimeZone(TimeZone.getTimeZone("UTC").toZoneId().getId());
+
+    private static NativeBlock block() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryStreamUtils.writeVarInt(out, 5);
+        BinaryStreamUtils.writeVarInt(out, 3);
+
+        BinaryStreamUtils.writeString(out, "i");
+        BinaryStreamUtils.writeString(out, "Int32");
+        for (int i = 0; i < 3; i++) {
+            BinaryStreamUtils.writeInt32(out, i - 1);
+        }
+
+        BinaryStreamUtils.writeString(out, "d");
+        BinaryStreamUtils.writeString(out, "Nullable(Float64)");
+        BinaryStreamUtils.writeNonNull(out);
+        BinaryStreamUtils.writeNull(out);
+        BinaryStreamUtils.writeNonNull(out);
+        for (int i = 0; i < 3; i++) {
+            BinaryStreamUtils.writeFloat64(out, i + 0.5d);
+        }
+
+        BinaryStreamUtils.writeString(out, "s");
+        BinaryStreamUtils.writeString(out, "String");
+        for (int i = 0; i < 3; i++) {
+            BinaryStreamUtils.writeString(out, "s" + i);
+        }
+
+        BinaryStreamUtils.writeString(out, "u");
+        BinaryStreamUtils.writeString(out, "UInt64");
+        for (int i = 0; i < 3; i++) {
+            BinaryStreamUtils.writeUnsignedInt64(out, -1L - i);
+        }
+
+        BinaryStreamUtils.writeString(out, "a");
+        BinaryStreamUtils.writeString(out, "Array(Int8)");
+        BinaryStreamUtils.writeInt64(out, 1);
+        BinaryStreamUtils.writeInt64(out, 1);
+        BinaryStreamUtils.writeInt64(out, 3);
+        BinaryStreamUtils.writeInt8(out, 1);
+        BinaryStreamUtils.writeInt8(out, 2);
+        BinaryStreamUtils.writeInt8(out, 3);
+
+        NativeFormatReader reader = new NativeFormatReader(new ByteArrayInputStream(out.toByteArray()),
+                SETTINGS, new BinaryStreamReader.CachingByteBufferAllocator());
+        return reader.nextBlock();
+    }
+
+    @Test
+    public void testCopyToPrimitiveArray() throws Exception {
+        NativeBlock block = block();
+
+        int[] ints = new int[2];
+        block.getColumn("i").copyTo(ints, 1, 2);
+        Assert.assertEquals(ints, new int[] {0, 1});
+
+        double[] doubles = new double[3];
+        block.getColumn("d").copyTo(doubles, 0, 3);
+        Assert.assertEquals(doubles[2], 2.5d);
+    }
+
+    @Test
+    public void testCopyToObjectArray() throws Exception {
+        NativeBlock block = block();
+        // column index starts with 1, last column is an array and array values are checked separately
+        for (int col = 1; col < block.getColumnCount(); col++) {
+            ColumnVector vector = block.getColumn(col);
+            Object[] values = new Object[2];
+            vector.copyTo(values, 1, 2);
+            Assert.assertEquals(values[0], vector.getValue(1), vector.getColumn().getColumnName());
+            Assert.assertEquals(values[1], vector.getValue(2), vector.getColumn().getColumnName());
+        }
+
+        Object[] doubles = new Object[3];
+        block.getColumn("d").copyTo(doubles, 0, 3);
+        Assert.assertEquals(doubles, new Object[] {0.5d, null, 2.5d});
+
+        Object[] arrays = new Object[2];
+        block.getColumn("a").copyTo(arrays, 1, 2);
+        Assert.assertEquals(((BinaryStreamReader.ArrayValue) arrays[0]).length, 0);
+        Assert.assertEquals(((BinaryStreamReader.ArrayValue) arrays[1]).array, new byte[] {2, 3});
+
+        Object[] unsigned = new Object[1];
+        block.getColumn("u").copyTo(unsigned, 0, 1);
+        Assert.assertEquals(unsigned[0], BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE));
+    }
+}
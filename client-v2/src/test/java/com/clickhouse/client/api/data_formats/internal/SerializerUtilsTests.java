@@ -1,5 +1,117 @@
 package com.clickhouse.client.api.data_formats.internal;
 
+import com.clickhouse.client.api.insert.POJOSerializer;
+import com.clickhouse.data.ClickHouseColumn;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class SerializerUtilsTests {
 
+    private static final List<ClickHouseColumn> COLUMNS = ClickHouseColumn.parse("int8 Int8, uint16 UInt16, "
+            + "int64 Int64, uint32 UInt32, uint64 UInt64, float32 Float32, float64 Float64, bool Bool, "
+            + "opt_int32 Nullable(Int32), boxed Int32, str String, opt_str Nullable(String), arr Array(Int32)");
+
+    private static final String[] GETTERS = {"getInt8", "getUint16", "getInt64", "getUint32", "getUint64",
+            "getFloat32", "getFloat64", "isBool", "getOptInt32", "getBoxed", "getStr", "getOptStr", "getArr"};
+
+    @DataProvider(name = "defaultsSupport")
+    public static Object[][] defaultsSupport() {
+        return new Object[][] {{false}, {true}};
+    }
+
+    @Test(dataProvider = "defaultsSupport")
+    public void testCompiledPOJOSerializer(boolean defaultsSupport) throws Exception {
+        List<Method> getters = new ArrayList<>();
+        for (String name : GETTERS) {
+            getters.add(Row.class.getMethod(name));
+        }
+        POJOSerializer serializer = SerializerUtils.compilePOJOSerializer(Row.class, getters, COLUMNS, defaultsSupport);
+
+        for (Row row : Arrays.asList(new Row(1), new Row(-7), new Row(100))) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                SerializerUtils.writeValue(expected, getters.get(i).invoke(row), COLUMNS.get(i), defaultsSupport);
+            }
+
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            serializer.serialize(row, actual);
+            Assert.assertEquals(actual.toByteArray(), expected.toByteArray());
+        }
+    }
+
+    @Test
+    public void testCompiledPOJOSerializerChecksRange() throws Exception {
+        List<ClickHouseColumn> columns = ClickHouseColumn.parse("int8 Int8");
+        POJOSerializer serializer = SerializerUtils.compilePOJOSerializer(Row.class,
+                Arrays.asList(Row.class.getMethod("getUint16")), columns, false);
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> serializer.serialize(new Row(100), new ByteArrayOutputStream()));
+    }
+
+    public static class Row {
+        private final int v;
+
+        public Row(int v) {
+            this.v = v;
+        }
+
+        public int getInt8() {
+            return v;
+        }
+
+        public int getUint16() {
+            return Math.abs(v) * 300;
+        }
+
+        public int getInt64() {
+            return v;
+        }
+
+        public long getUint32() {
+            return Math.abs(v) * 1000L;
+        }
+
+        public long getUint64() {
+            return v * 1_000_000_000_000L;
+        }
+
+        public float getFloat32() {
+            return v / 3.0f;
+        }
+
+        public double getFloat64() {
+            return v / 7.0d;
+        }
+
+        public boolean isBool() {
+            return v > 0;
+        }
+
+        public int getOptInt32() {
+            return v;
+        }
+
+        public Integer getBoxed() {
+            return v;
+        }
+
+        public String getStr() {
+            return "str_" + v;
+        }
+
+        public String getOptStr() {
+            return v > 0 ? null : "opt_" + v;
+        }
+
+        public List<Integer> getArr() {
+            return Arrays.asList(v, v + 1);
+        }
+    }
 }
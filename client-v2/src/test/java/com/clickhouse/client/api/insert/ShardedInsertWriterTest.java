@@ -0,0 +1,275 @@
+package com.clickhouse.client.api.insert;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.DataStreamWriter;
+import com.clickhouse.client.api.data_formats.internal.BinaryStreamReader;
+import com.clickhouse.client.api.internal.ClientStatisticsHolder;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.client.api.metrics.ClientMetrics;
+import com.clickhouse.client.api.metrics.OperationMetrics;
+import com.clickhouse.client.api.metrics.ServerMetrics;
+import com.clickhouse.data.ClickHouseColumn;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+public class ShardedInsertWriterTest {
+
+    private static final TableSchema SCHEMA = new TableSchema(Arrays.asList(
+            ClickHouseColumn.of("id", "UInt64"),
+            ClickHouseColumn.of("name", "String")));
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Collects data of each shard in memory and reports number of written bytes.
+     */
+    private BiFunction<String, DataStreamWriter, CompletableFuture<InsertResponse>> sender(
+            Map<String, ByteArrayOutputStream> received) {
+        return (endpoint, writer) -> CompletableFuture.supplyAsync(() -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                writer.onOutput(out);
+            } catch (IOException e) {
+                throw new ClientException("Failed to write", e);
+            }
+            received.put(endpoint, out);
+            OperationMetrics metrics = new OperationMetrics(new ClientStatisticsHolder());
+            metrics.updateMetric(ServerMetrics.NUM_BYTES_WRITTEN, out.size());
+            metrics.updateMetric(ServerMetrics.ELAPSED_TIME, out.size());
+            return new InsertResponse(metrics);
+        }, executor);
+    }
+
+    private static List<Long> readIds(ByteArrayOutputStream data) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        InputStream in = new ByteArrayInputStream(data.toByteArray());
+        byte[] buffer = new byte[8];
+        while (in.available() > 0) {
+            Assert.assertEquals(in.read(), 0); // not default
+            ids.add(BinaryStreamReader.readLongLE(in, buffer));
+            Assert.assertEquals(in.read(), 0);
+            int length = BinaryStreamReader.readVarInt(in);
+            Assert.assertEquals(new String(BinaryStreamReader.readNBytes(in, length), StandardCharsets.UTF_8), "name");
+        }
+        return ids;
+    }
+
+    @Test
+    public void testRoutingByWeight() throws Exception {
+        Map<String, ByteArrayOutputStream> received = new ConcurrentHashMap<>();
+        List<String> endpoints = Arrays.asList("http://shard1:8123", "http://shard2:8123", "http://shard3:8123");
+        InsertResponse response;
+        // small chunks to stream data while rows are written
+        try (ShardedInsertWriter writer = new ShardedInsertWriter(SCHEMA, endpoints, new int[] {1, 2, 0},
+                ShardingKey.column(SCHEMA, "id"), 64, sender(received))) {
+            for (long id = 0; id < 1000; id++) {
+                writer.setValue("id", id);
+                writer.setValue("name", "name");
+                writer.commitRow();
+            }
+            response = writer.finish();
+            Assert.assertEquals(writer.getShardResponses().keySet(), Arrays.asList(endpoints.get(0), endpoints.get(1)));
+        }
+
+        Assert.assertEquals(received.size(), 2, "shard with zero weight should not get a request");
+        List<Long> shard1 = readIds(received.get(endpoints.get(0)));
+        List<Long> shard2 = readIds(received.get(endpoints.get(1)));
+        Assert.assertEquals(shard1.size() + shard2.size(), 1000);
+        for (long id : shard1) {
+            Assert.assertEquals(id % 3, 0);
+        }
+        for (long id : shard2) {
+            Assert.assertNotEquals(id % 3, 0);
+        }
+        int size1 = received.get(endpoints.get(0)).size();
+        int size2 = received.get(endpoints.get(1)).size();
+        Assert.assertEquals(response.getWrittenBytes(), size1 + size2);
+        Assert.assertEquals(response.getServerTime(), Math.max(size1, size2));
+        Assert.assertTrue(response.getMetrics().getMetric(ClientMetrics.OP_DURATION)
+                .getLong() > 0);
+    }
+
+    @Test
+    public void testSelectShard() {
+        ShardedInsertWriter writer = new ShardedInsertWriter(SCHEMA, Arrays.asList("a", "b"), new int[] {3, 1},
+                row -> 0, 64, sender(new ConcurrentHashMap<>()));
+        Assert.assertEquals(writer.selectShard(0), 0);
+        Assert.assertEquals(writer.selectShard(2), 0);
+        Assert.assertEquals(writer.selectShard(3), 1);
+        Assert.assertEquals(writer.selectShard(4), 0);
+        // key is unsigned: 2^64 - 1 = 3 (mod 4)
+        Assert.assertEquals(writer.selectShard(-1L), 1);
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> new ShardedInsertWriter(SCHEMA,
+                Arrays.asList("a", "b"), new int[] {0, 0}, row -> 0, 64, sender(new ConcurrentHashMap<>())));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new ShardedInsertWriter(SCHEMA,
+                Arrays.asList("a", "b"), new int[] {1}, row -> 0, 64, sender(new ConcurrentHashMap<>())));
+    }
+
+    @Test
+    public void testNegativeColumnKey() {
+        TableSchema schema = new TableSchema(Arrays.asList(
+                ClickHouseColumn.of("i8", "Int8"),
+                ClickHouseColumn.of("i16", "Int16"),
+                ClickHouseColumn.of("i32", "Int32"),
+                ClickHouseColumn.of("i64", "Int64"),
+                ClickHouseColumn.of("u32", "UInt32")));
+        Object[] row = new Object[] {(byte) -5, (short) -5, -5, -5L, 4294967291L};
+        // same as server: key is cast to unsigned integer of the column width
+        Assert.assertEquals(ShardingKey.column(schema, "i8").get(row), 0xFBL);
+        Assert.assertEquals(ShardingKey.column(schema, "i16").get(row), 0xFFFBL);
+        Assert.assertEquals(ShardingKey.column(schema, "i32").get(row), 0xFFFFFFFBL);
+        Assert.assertEquals(ShardingKey.column(schema, "i64").get(row), -5L);
+        Assert.assertEquals(ShardingKey.column(schema, "u32").get(row), 0xFFFFFFFBL);
+        // wider value of a narrow column is truncated to the column width
+        Assert.assertEquals(ShardingKey.column(schema, "i8").get(new Object[] {-5, null, null, null, null}), 0xFBL);
+
+        ShardedInsertWriter writer = new ShardedInsertWriter(schema, Arrays.asList("0", "1", "2", "3", "4", "5", "6"),
+                null, row0 -> 0, 64, sender(new ConcurrentHashMap<>()));
+        // 2^32 - 5 = 6 (mod 7)
+        Assert.assertEquals(writer.selectShard(ShardingKey.column(schema, "i32").get(row)), 6);
+        // 2^8 - 5 = 6 (mod 7)
+        Assert.assertEquals(writer.selectShard(ShardingKey.column(schema, "i8").get(row)), 6);
+        // 2^16 - 5 = 4 (mod 7)
+        Assert.assertEquals(writer.selectShard(ShardingKey.column(schema, "i16").get(row)), 4);
+        // 2^64 - 5 = 4 (mod 7)
+        Assert.assertEquals(writer.selectShard(ShardingKey.column(schema, "i64").get(row)), 4);
+    }
+
+    @Test
+    public void testFailedRowIsDropped() throws Exception {
+        TableSchema schema = new TableSchema(Arrays.asList(
+                ClickHouseColumn.of("id", "UInt64"),
+                ClickHouseColumn.of("value", "UInt64")));
+        Map<String, ByteArrayOutputStream> received = new ConcurrentHashMap<>();
+        try (ShardedInsertWriter writer = new ShardedInsertWriter(schema, Arrays.asList("a"), null,
+                ShardingKey.column(schema, "id"), 1024, sender(received))) {
+            writer.setValue(1, 1L);
+            writer.setValue(2, 10L);
+            writer.commitRow();
+            writer.setValue(1, 2L);
+            writer.setValue(2, new Object());
+            Assert.assertThrows(IllegalArgumentException.class, writer::commitRow);
+            writer.setValue(2, 30L);
+            writer.commitRow();
+            writer.finish();
+        }
+
+        InputStream in = new ByteArrayInputStream(received.get("a").toByteArray());
+        byte[] buffer = new byte[8];
+        for (long[] expected : new long[][] {{1, 10}, {2, 30}}) {
+            Assert.assertEquals(in.read(), 0);
+            Assert.assertEquals(BinaryStreamReader.readLongLE(in, buffer), expected[0]);
+            Assert.assertEquals(in.read(), 0);
+            Assert.assertEquals(BinaryStreamReader.readLongLE(in, buffer), expected[1]);
+        }
+        Assert.assertEquals(in.available(), 0);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testShardNotTakingRows() throws Exception {
+        // request that never starts, like one waiting in a saturated executor
+        CompletableFuture<InsertResponse> request = new CompletableFuture<>();
+        ShardedInsertWriter writer = new ShardedInsertWriter(SCHEMA, Arrays.asList("a"), null,
+                ShardingKey.column(SCHEMA, "id"), 16, 300, (endpoint, dataWriter) -> request);
+        try {
+            ClientException error = Assert.expectThrows(ClientException.class, () -> {
+                for (long id = 0; id < 10_000; id++) {
+                    writer.setValue(1, id);
+                    writer.setValue(2, "a long enough name");
+                    writer.commitRow();
+                }
+            });
+            Assert.assertTrue(error.getMessage().contains("did not take rows within 300 ms"), error.getMessage());
+        } finally {
+            writer.close();
+        }
+        Assert.assertThrows(IllegalStateException.class, writer::commitRow);
+    }
+
+    @Test
+    public void testCityHash64Key() {
+        ShardingKey key = ShardingKey.cityHash64(SCHEMA, "name");
+        Assert.assertEquals(key.get(new Object[] {1L, ""}), 0x9ae16a3b2f90404fL);
+        Assert.assertEquals(key.get(new Object[] {1L, "test"}), key.get(new Object[] {2L, "test".getBytes()}));
+        Assert.assertThrows(IllegalArgumentException.class, () -> key.get(new Object[] {1L, 1}));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> ShardingKey.column(SCHEMA, "name").get(new Object[] {1L, "test"}));
+    }
+
+    @Test
+    public void testShardFailure() throws Exception {
+        List<String> endpoints = Arrays.asList("ok", "failing");
+        Map<String, ByteArrayOutputStream> received = new ConcurrentHashMap<>();
+        BiFunction<String, DataStreamWriter, CompletableFuture<InsertResponse>> ok = sender(received);
+        ShardedInsertWriter writer = new ShardedInsertWriter(SCHEMA, endpoints, null,
+                ShardingKey.column(SCHEMA, "id"), 16, (endpoint, dataWriter) -> {
+            if (endpoint.equals("failing")) {
+                return CompletableFuture.supplyAsync(() -> {
+                    throw new ClientException("Table does not exist");
+                }, executor);
+            }
+            return ok.apply(endpoint, dataWriter);
+        });
+        try {
+            ClientException error = Assert.expectThrows(ClientException.class, () -> {
+                for (long id = 0; id < 10_000; id++) {
+                    writer.setValue(1, id);
+                    writer.setValue(2, "name");
+                    writer.commitRow();
+                }
+                writer.finish();
+            });
+            Assert.assertTrue(error.getMessage().contains("'failing'"), error.getMessage());
+            Assert.assertEquals(error.getCause().getMessage(), "Table does not exist");
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testCloseAbortsInserts() throws Exception {
+        CompletableFuture<InsertResponse>[] request = new CompletableFuture[1];
+        ShardedInsertWriter writer = new ShardedInsertWriter(SCHEMA, Arrays.asList("a"), null,
+                ShardingKey.column(SCHEMA, "id"), 16, (endpoint, dataWriter) -> {
+            request[0] = CompletableFuture.supplyAsync(() -> {
+                try {
+                    dataWriter.onOutput(new ByteArrayOutputStream());
+                } catch (IOException e) {
+                    throw new ClientException(e.getMessage(), e);
+                }
+                return new InsertResponse(new OperationMetrics(new ClientStatisticsHolder()));
+            }, executor);
+            return request[0];
+        });
+        writer.setValue(1, 1L);
+        writer.setValue(2, "a long enough name");
+        writer.commitRow();
+        writer.close();
+
+        Exception e = Assert.expectThrows(Exception.class, () -> request[0].join());
+        Assert.assertEquals(e.getCause().getMessage(), "Insert is aborted");
+        Assert.assertThrows(IllegalStateException.class, writer::commitRow);
+    }
+}
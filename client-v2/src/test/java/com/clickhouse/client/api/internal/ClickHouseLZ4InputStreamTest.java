@@ -0,0 +1,100 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.ClientException;
+import net.jpountz.lz4.LZ4Factory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class ClickHouseLZ4InputStreamTest {
+
+    private static final LZ4Factory FACTORY = LZ4Factory.fastestJavaInstance();
+
+    private static byte[] compress(byte[] data, int frameSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ClickHouseLZ4OutputStream lz4 = new ClickHouseLZ4OutputStream(out, FACTORY.fastCompressor(), frameSize)) {
+            lz4.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static InputStream decompress(byte[] compressed, int bufferSize) {
+        return new ClickHouseLZ4InputStream(new ByteArrayInputStream(compressed), FACTORY.fastDecompressor(),
+                bufferSize);
+    }
+
+    @Test
+    public void testReadWithDifferentChunks() throws IOException {
+        byte[] data = TestData.compressible(100_000);
+        byte[] compressed = compress(data, 4096);
+
+        for (int chunk : new int[] {1, 7, 4095, 4096, 4097, 10_000, 200_000}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (InputStream in = decompress(compressed, 1024)) {
+                byte[] buffer = new byte[chunk];
+                for (int n; (n = in.read(buffer, 0, chunk)) != -1; ) {
+                    out.write(buffer, 0, n);
+                }
+                Assert.assertEquals(in.read(), -1);
+            }
+            Assert.assertEquals(out.toByteArray(), data, "chunk " + chunk);
+        }
+    }
+
+    @Test
+    public void testReadSingleBytes() throws IOException {
+        byte[] data = TestData.compressible(10_000);
+        try (InputStream in = decompress(compress(data, 1000), 100)) {
+            for (int i = 0; i < data.length; i++) {
+                Assert.assertEquals(in.read(), data[i] & 0xFF);
+            }
+            Assert.assertEquals(in.read(), -1);
+        }
+    }
+
+    @Test
+    public void testChecksumMismatch() throws IOException {
+        byte[] compressed = compress(TestData.compressible(1000), 1000);
+        compressed[compressed.length - 1] ^= 1;
+        try (InputStream in = decompress(compressed, 1000)) {
+            Assert.assertThrows(ClientException.class, () -> in.read(new byte[1000]));
+        }
+    }
+
+    @Test
+    public void testReadAfterClose() throws IOException {
+        InputStream in = decompress(compress(TestData.compressible(1000), 1000), 1000);
+        in.close();
+        Assert.assertThrows(IOException.class, in::read);
+    }
+
+    @Test
+    public void testBufferPool() {
+        ClickHouseCompressedInputStream.BufferPool pool = new ClickHouseCompressedInputStream.BufferPool();
+        byte[] buffer = pool.lease(100);
+        Assert.assertEquals(buffer.length, 100);
+        pool.release(buffer);
+        Assert.assertSame(pool.lease(50), buffer);
+
+        pool.release(buffer);
+        byte[] larger = pool.lease(200);
+        Assert.assertEquals(larger.length, 200); // too small buffer is dropped
+        Assert.assertNotSame(pool.lease(100), buffer);
+    }
+
+    @Test
+    public void testBufferPoolDropsLargeBuffers() {
+        ClickHouseCompressedInputStream.BufferPool pool = new ClickHouseCompressedInputStream.BufferPool();
+        byte[] large = pool.lease(ClickHouseCompressedInputStream.BufferPool.MAX_BUFFER_LENGTH + 1);
+        pool.release(large);
+        Assert.assertNotSame(pool.lease(1), large);
+
+        byte[] max = pool.lease(ClickHouseCompressedInputStream.BufferPool.MAX_BUFFER_LENGTH);
+        pool.release(max);
+        Assert.assertSame(pool.lease(1), max);
+    }
+}
@@ -0,0 +1,116 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.enums.CompressionMethod;
+import net.jpountz.lz4.LZ4Factory;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class CompressionCodecTest {
+
+    private static final LZ4Factory FACTORY = LZ4Factory.fastestJavaInstance();
+
+    private static byte[] compress(CompressionCodec codec, byte[] data, int frameSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressed = new ClickHouseCompressedOutputStream(out, codec, frameSize)) {
+            compressed.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new ClickHouseCompressedInputStream(new ByteArrayInputStream(compressed),
+                CompressionCodec.of(CompressionMethod.LZ4, FACTORY, 1), 1000)) {
+            byte[] buffer = new byte[777];
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @DataProvider
+    public static Object[][] codecs() {
+        return new Object[][] {
+                {CompressionCodec.of(CompressionMethod.NONE, FACTORY, 1), CompressionCodec.NONE_METHOD},
+                {CompressionCodec.of(CompressionMethod.LZ4, FACTORY, 1), CompressionCodec.LZ4_METHOD},
+                {CompressionCodec.of(CompressionMethod.ZSTD, FACTORY, 1), CompressionCodec.ZSTD_METHOD},
+                {CompressionCodec.of(CompressionMethod.ZSTD, FACTORY, 19), CompressionCodec.ZSTD_METHOD},
+        };
+    }
+
+    @Test(dataProvider = "codecs")
+    public void testRoundTrip(CompressionCodec codec, byte method) throws IOException {
+        byte[] data = TestData.compressible(100_000);
+        byte[] compressed = compress(codec, data, 4096);
+        Assert.assertEquals(compressed[16], method);
+        Assert.assertEquals(decompress(compressed), data);
+    }
+
+    @Test
+    public void testMixedCodecs() throws IOException {
+        byte[] data = TestData.compressible(30_000);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(compress(CompressionCodec.of(CompressionMethod.ZSTD, FACTORY, 3), data, 1000));
+        stream.write(compress(CompressionCodec.of(CompressionMethod.LZ4, FACTORY, 3), data, 3000));
+        stream.write(compress(CompressionCodec.of(CompressionMethod.NONE, FACTORY, 3), data, 5000));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            expected.write(data);
+        }
+        Assert.assertEquals(decompress(stream.toByteArray()), expected.toByteArray());
+    }
+
+    @Test
+    public void testZstdCompressesBetter() throws IOException {
+        byte[] data = TestData.compressible(100_000);
+        int lz4 = compress(CompressionCodec.of(CompressionMethod.LZ4, FACTORY, 3), data, 65536).length;
+        int zstd = compress(CompressionCodec.of(CompressionMethod.ZSTD, FACTORY, 3), data, 65536).length;
+        Assert.assertTrue(zstd < lz4, "zstd " + zstd + ", lz4 " + lz4);
+    }
+
+    @Test
+    public void testInvalidZstdLevel() {
+        Assert.assertThrows(ClientException.class, () -> CompressionCodec.of(CompressionMethod.ZSTD, FACTORY, 0));
+        Assert.assertThrows(ClientException.class, () -> CompressionCodec.of(CompressionMethod.ZSTD, FACTORY, 100));
+    }
+
+    @Test
+    public void testUnknownMethod() throws IOException {
+        byte[] compressed = compress(CompressionCodec.none(), TestData.compressible(100), 100);
+        compressed[16] = 0x55;
+        Assert.assertThrows(ClientException.class, () -> decompress(compressed));
+    }
+
+    @Test
+    public void testHttpEncoding() throws IOException {
+        byte[] data = TestData.compressible(10_000);
+        for (CompressionMethod method : new CompressionMethod[] {CompressionMethod.LZ4, CompressionMethod.ZSTD}) {
+            CompressionCodec codec = CompressionCodec.of(method, FACTORY, 3);
+            Assert.assertEquals(codec.httpEncoding(), method.name().toLowerCase());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (OutputStream encoder = codec.httpEncoder(out)) {
+                encoder.write(data);
+            }
+
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            try (InputStream in = CompressionCodec.httpDecoder(codec.httpEncoding(),
+                    new ByteArrayInputStream(out.toByteArray()))) {
+                byte[] buffer = new byte[1000];
+                for (int n; (n = in.read(buffer)) != -1; ) {
+                    decoded.write(buffer, 0, n);
+                }
+            }
+            Assert.assertEquals(decoded.toByteArray(), data, method.name());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.ClickHouseNode;
+import com.clickhouse.client.api.ClientException;
+import com.clickhouse.client.api.LoadBalancingPolicy;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class LoadBalancerTest {
+
+    private static List<ClickHouseNode> nodes() {
+        return Arrays.asList(ClickHouseNode.of("http://node1:8123"), ClickHouseNode.of("http://node2:8123"),
+                ClickHouseNode.of("http://node3:8123"));
+    }
+
+    @Test
+    public void testFirstAlive() {
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.FIRST_ALIVE, null, 60000)) {
+            LoadBalancer.NodeState first = lb.select();
+            Assert.assertEquals(first.getNode().getHost(), "node1");
+            Assert.assertSame(lb.select(), first);
+
+            lb.onFailure(first, new ClientException("Failed to connect", new ConnectException()));
+            Assert.assertFalse(first.isAlive());
+            Assert.assertEquals(lb.select().getNode().getHost(), "node2");
+        }
+    }
+
+    @Test
+    public void testRoundRobin() {
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.ROUND_ROBIN, null, 60000)) {
+            Set<String> hosts = new HashSet<>();
+            for (int i = 0; i < 3; i++) {
+                hosts.add(lb.select().getNode().getHost());
+            }
+            Assert.assertEquals(hosts.size(), 3);
+
+            lb.markFaulty(lb.getNodes().get(1));
+            for (int i = 0; i < 6; i++) {
+                Assert.assertNotEquals(lb.select().getNode().getHost(), "node2");
+            }
+        }
+    }
+
+    @Test
+    public void testLeastOutstanding() {
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.LEAST_OUTSTANDING, null, 60000)) {
+            lb.getNodes().get(0).requestStarted();
+            lb.getNodes().get(1).requestStarted();
+            Assert.assertEquals(lb.select().getNode().getHost(), "node3");
+        }
+    }
+
+    @Test
+    public void testLatencyEwma() {
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.LATENCY_EWMA, null, 60000)) {
+            long now = System.nanoTime();
+            lb.getNodes().get(0).requestStarted();
+            lb.getNodes().get(0).requestFinished(now - 3_000_000L);
+            lb.getNodes().get(1).requestStarted();
+            lb.getNodes().get(1).requestFinished(now - 1_000_000L);
+            lb.getNodes().get(2).requestStarted();
+            lb.getNodes().get(2).requestFinished(now - 2_000_000L);
+            Assert.assertEquals(lb.select().getNode().getHost(), "node2");
+        }
+    }
+
+    @Test
+    public void testLatencyEwmaUnsampledNode() {
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.LATENCY_EWMA, null, 60000)) {
+            lb.getNodes().get(0).requestFinished(lb.getNodes().get(0).requestStarted() - 1_000_000L);
+            lb.getNodes().get(1).requestFinished(lb.getNodes().get(1).requestStarted() - 3_000_000L);
+            // node3 has no samples and is scored with the mean latency, so it is not always preferred
+            for (int i = 0; i < 6; i++) {
+                Assert.assertEquals(lb.select().getNode().getHost(), "node1");
+            }
+
+            // busy node with samples loses to the idle one without them
+            lb.getNodes().get(0).requestStarted();
+            lb.getNodes().get(0).requestStarted();
+            Assert.assertEquals(lb.select().getNode().getHost(), "node3");
+        }
+    }
+
+    @Test
+    public void testRequestFinishedOnResponseClose() throws Exception {
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.LEAST_OUTSTANDING, null, 60000)) {
+            LoadBalancer.NodeState node = lb.getNodes().get(0);
+            long startTime = node.requestStarted();
+            RequestTrackingEntity entity = new RequestTrackingEntity(
+                    new ByteArrayEntity(new byte[] {1, 2, 3}, ContentType.APPLICATION_OCTET_STREAM),
+                    () -> node.requestFinished(startTime));
+
+            InputStream in = entity.getContent();
+            Assert.assertEquals(in.read(), 1);
+            Assert.assertEquals(node.getOutstandingRequests(), 1);
+
+            in.close();
+            Assert.assertEquals(node.getOutstandingRequests(), 0);
+            Assert.assertTrue(node.getLatencyEwma() > 0);
+
+            entity.close();
+            Assert.assertEquals(node.getOutstandingRequests(), 0);
+        }
+    }
+
+    @Test
+    public void testNonConnectionErrorKeepsNodeAlive() {
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.FIRST_ALIVE, null, 60000)) {
+            LoadBalancer.NodeState node = lb.select();
+            lb.onFailure(node, new ClientException("Some error"));
+            Assert.assertTrue(node.isAlive());
+        }
+    }
+
+    @Test
+    public void testAllNodesFaulty() {
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.ROUND_ROBIN, null, 60000)) {
+            for (LoadBalancer.NodeState node : lb.getNodes()) {
+                lb.markFaulty(node);
+            }
+            Assert.assertNotNull(lb.select());
+        }
+    }
+
+    @Test
+    public void testFaultyNodeCheck() {
+        AtomicBoolean alive = new AtomicBoolean(false);
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.FIRST_ALIVE, n -> alive.get(), 60000)) {
+            LoadBalancer.NodeState first = lb.getNodes().get(0);
+            lb.markFaulty(first);
+            lb.checkFaultyNodes();
+            Assert.assertFalse(first.isAlive());
+
+            alive.set(true);
+            lb.checkFaultyNodes();
+            Assert.assertTrue(first.isAlive());
+            Assert.assertSame(lb.select(), first);
+            Assert.assertEquals(first.getFailureCount(), 1);
+        }
+    }
+
+    @Test
+    public void testHealthCheck() {
+        AtomicBoolean alive = new AtomicBoolean(false);
+        try (LoadBalancer lb = new LoadBalancer(nodes(), LoadBalancingPolicy.FIRST_ALIVE,
+                n -> alive.get() || !n.getHost().equals("node1"), 60000)) {
+            LoadBalancer.NodeState first = lb.getNodes().get(0);
+            lb.checkAllNodes();
+            lb.checkAllNodes();
+            Assert.assertFalse(first.isAlive());
+            Assert.assertEquals(lb.select().getNode().getHost(), "node2");
+            Assert.assertEquals(first.getCheckCount(), 2);
+            Assert.assertEquals(first.getConsecutiveCheckFailures(), 2);
+            Assert.assertEquals(first.getFailureCount(), 1);
+            Assert.assertTrue(first.getLastCheckTime() > 0);
+
+            LoadBalancer.NodeState second = lb.getNodes().get(1);
+            Assert.assertEquals(second.getConsecutiveCheckFailures(), 0);
+            Assert.assertTrue(second.getCheckLatencyEwma() > 0);
+
+            alive.set(true);
+            lb.checkAllNodes();
+            Assert.assertTrue(first.isAlive());
+            Assert.assertEquals(first.getConsecutiveCheckFailures(), 0);
+            Assert.assertSame(lb.select(), first);
+        }
+    }
+}
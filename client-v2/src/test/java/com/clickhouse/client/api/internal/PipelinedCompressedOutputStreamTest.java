@@ -0,0 +1,163 @@
+package com.clickhouse.client.api.internal;
+
+import net.jpountz.lz4.LZ4Factory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PipelinedCompressedOutputStreamTest {
+
+    private static final LZ4Factory FACTORY = LZ4Factory.fastestJavaInstance();
+
+    private static final CompressionCodec LZ4 = CompressionCodec.lz4(FACTORY.fastCompressor(), FACTORY.fastDecompressor());
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSameOutputAsSequentialStream() throws IOException {
+        byte[] data = TestData.compressible(1_000_000);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (OutputStream out = new ClickHouseCompressedOutputStream(expected, LZ4, 4096)) {
+            out.write(data);
+        }
+
+        for (int chunk : new int[] {1, 100, 4096, 10_000, 1_000_000}) {
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            try (OutputStream out = new PipelinedCompressedOutputStream(actual, LZ4, 4096, executor, 3)) {
+                for (int off = 0; off < data.length; off += chunk) {
+                    if (chunk == 1) {
+                        out.write(data[off]);
+                    } else {
+                        out.write(data, off, Math.min(chunk, data.length - off));
+                    }
+                }
+            }
+            Assert.assertEquals(actual.toByteArray(), expected.toByteArray(), "chunk " + chunk);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] data = TestData.compressible(300_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new PipelinedCompressedOutputStream(compressed, LZ4, 1000, executor, 9)) {
+            out.write(data, 0, 150_000);
+            out.flush(); // partial frame
+            out.write(data, 150_000, 150_000);
+        }
+
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (InputStream in = new ClickHouseLZ4InputStream(new ByteArrayInputStream(compressed.toByteArray()),
+                FACTORY.fastDecompressor(), 1000)) {
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                decompressed.write(buffer, 0, n);
+            }
+        }
+        Assert.assertEquals(decompressed.toByteArray(), data);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testSlowOutputDoesNotBlockExecutor() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            OutputStream slow = new ByteArrayOutputStream() {
+                @Override
+                public synchronized void write(byte[] b, int off, int len) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    super.write(b, off, len);
+                }
+            };
+            Future<?> blocked = writer.submit(() -> {
+                try (OutputStream out = new PipelinedCompressedOutputStream(slow, LZ4, 100, single, 2)) {
+                    out.write(TestData.compressible(1000));
+                }
+                return null;
+            });
+
+            // compression of another stream is not stuck behind the blocked write
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream out = new PipelinedCompressedOutputStream(compressed, LZ4, 100, single, 2)) {
+                out.write(TestData.compressible(1000));
+            }
+            Assert.assertTrue(compressed.size() > 0);
+            Assert.assertFalse(blocked.isDone());
+
+            release.countDown();
+            blocked.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            writer.shutdownNow();
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteFailure() throws IOException {
+        AtomicInteger writes = new AtomicInteger();
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("not expected");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (writes.incrementAndGet() == 2) {
+                    throw new IOException("broken pipe");
+                }
+            }
+        };
+
+        PipelinedCompressedOutputStream out = new PipelinedCompressedOutputStream(failing, LZ4, 100, executor, 2);
+        IOException e = Assert.expectThrows(IOException.class, () -> {
+            byte[] data = TestData.compressible(1000);
+            for (int i = 0; i < 100; i++) {
+                out.write(data);
+            }
+            out.close();
+        });
+        Assert.assertEquals(e.getCause().getMessage(), "broken pipe");
+        Assert.assertEquals(writes.get(), 2, "frames after failure are not written");
+        out.abort();
+    }
+
+    @Test
+    public void testAbort() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        PipelinedCompressedOutputStream out = new PipelinedCompressedOutputStream(compressed, LZ4, 100, executor, 2);
+        out.write(TestData.compressible(150));
+        out.abort();
+        Assert.assertThrows(IOException.class, () -> out.write(1));
+        Assert.assertTrue(compressed.size() <= ClickHouseCompressedOutputStream.maxFrameLength(LZ4, 100));
+    }
+}
@@ -0,0 +1,163 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.metrics.ClientMetrics;
+import com.clickhouse.client.api.metrics.OperationMetrics;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class PrefetchInputStreamTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns data in small portions like a network stream.
+     */
+    private static InputStream source(byte[] data, CountDownLatch closed) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 100));
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (closed != null) {
+                    closed.countDown();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testReadWithDifferentChunks() throws IOException {
+        byte[] data = TestData.random(100_000);
+        for (int chunk : new int[] {1, 7, 999, 1000, 1001, 200_000}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (InputStream in = new PrefetchInputStream(source(data, null), executor, 1000, 10_000, null)) {
+                byte[] buffer = new byte[chunk];
+                for (int n; (n = in.read(buffer, 0, chunk)) != -1; ) {
+                    out.write(buffer, 0, n);
+                }
+                Assert.assertEquals(in.read(), -1);
+            }
+            Assert.assertEquals(out.toByteArray(), data, "chunk " + chunk);
+        }
+    }
+
+    @Test
+    public void testReadSingleBytesAndSkip() throws IOException {
+        byte[] data = TestData.random(10_000);
+        try (InputStream in = new PrefetchInputStream(source(data, null), executor, 1000, 4000, null)) {
+            for (int i = 0; i < 1500; i++) {
+                Assert.assertEquals(in.read(), data[i] & 0xFF);
+            }
+            Assert.assertEquals(in.skip(5000), 5000);
+            Assert.assertEquals(in.read(), data[6500] & 0xFF);
+            Assert.assertEquals(in.skip(10_000), 3499);
+            Assert.assertEquals(in.read(), -1);
+        }
+    }
+
+    @Test
+    public void testEntityWriteToReadsInBackground() throws IOException {
+        byte[] data = TestData.random(10_000);
+        Thread caller = Thread.currentThread();
+        InputStream source = new FilterInputStream(source(data, null)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                Assert.assertNotSame(Thread.currentThread(), caller, "source is read by the caller");
+                return super.read(b, off, len);
+            }
+        };
+        PrefetchEntity entity = new PrefetchEntity(new InputStreamEntity(source, ContentType.DEFAULT_BINARY),
+                executor, 1000, 4000, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        entity.close();
+        Assert.assertEquals(out.toByteArray(), data);
+    }
+
+    @Test
+    public void testRingGrowsForSlowConsumer() throws Exception {
+        byte[] data = TestData.random(100_000);
+        OperationMetrics metrics = new OperationMetrics(new ClientStatisticsHolder());
+        try (PrefetchInputStream in = new PrefetchInputStream(source(data, null), executor, 1000, 8000, metrics)) {
+            Assert.assertEquals(in.read(), data[0] & 0xFF);
+            // ring grows to 8 chunks while the consumer is idle, but the first read shrinks it by one
+            // when it had to wait for data after the ring has grown
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (in.getRingSize() < 7 && System.nanoTime() - deadline < 0) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(in.getRingSize() >= 7, "ring size " + in.getRingSize());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(data[0]);
+            byte[] buffer = new byte[500];
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, n);
+            }
+            Assert.assertEquals(out.toByteArray(), data);
+            Assert.assertTrue(in.getPrefetchStallNanos() > 0);
+        }
+        Assert.assertTrue(metrics.getMetric(ClientMetrics.RESPONSE_PREFETCH_STALL).getLong() > 0);
+        Assert.assertNotNull(metrics.getMetric(ClientMetrics.RESPONSE_READ_STALL));
+    }
+
+    @Test
+    public void testFailure() throws IOException {
+        InputStream failing = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() throws IOException {
+                if (count++ >= 10) {
+                    throw new IOException("Connection reset");
+                }
+                return 1;
+            }
+        };
+        try (InputStream in = new PrefetchInputStream(failing, executor, 100, 1000, null)) {
+            byte[] buffer = new byte[100];
+            int total = 0;
+            try {
+                for (int n; (n = in.read(buffer)) != -1; ) {
+                    total += n;
+                }
+                Assert.fail("Exception expected");
+            } catch (IOException e) {
+                Assert.assertEquals(e.getMessage(), "Connection reset");
+            }
+            Assert.assertEquals(total, 10);
+        }
+    }
+
+    @Test
+    public void testCloseStopsReader() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        InputStream in = new PrefetchInputStream(source(TestData.random(1_000_000), closed), executor, 1000, 2000, null);
+        Assert.assertNotEquals(in.read(), -1);
+        in.close();
+        Assert.assertTrue(closed.await(5, TimeUnit.SECONDS));
+        Assert.assertThrows(IOException.class, in::read);
+    }
+}
@@ -0,0 +1,163 @@
+package com.clickhouse.client.api.internal;
+
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.data.ClickHouseColumn;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class SchemaCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private static Supplier<TableSchema> loader(AtomicInteger loads) {
+        return () -> new TableSchema("t" + loads.incrementAndGet(), null, "db",
+                Collections.singletonList(ClickHouseColumn.of("id", "Int32")));
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    public void testExpiration() {
+        SchemaCache cache = new SchemaCache(10, 1000, null, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        TableSchema schema = cache.get("db", "t", loader(loads));
+        advance(999);
+        Assert.assertSame(cache.get("db", "t", loader(loads)), schema);
+        Assert.assertEquals(loads.get(), 1);
+
+        advance(1);
+        Assert.assertNotSame(cache.get("db", "t", loader(loads)), schema);
+        Assert.assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testKeyIncludesDatabase() {
+        SchemaCache cache = new SchemaCache(10, 1000, null, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("db1", "t", loader(loads));
+        cache.get("db2", "t", loader(loads));
+        cache.get(null, "t", loader(loads));
+        cache.get(null, "t", loader(loads));
+        Assert.assertEquals(loads.get(), 3);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        SchemaCache cache = new SchemaCache(2, 1000, null, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("db", "a", loader(loads));
+        cache.get("db", "b", loader(loads));
+        cache.get("db", "a", loader(loads)); // b is the least recently used now
+        cache.get("db", "c", loader(loads));
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(loads.get(), 3);
+
+        cache.get("db", "a", loader(loads));
+        Assert.assertEquals(loads.get(), 3);
+        cache.get("db", "b", loader(loads));
+        Assert.assertEquals(loads.get(), 4);
+    }
+
+    @Test
+    public void testInvalidate() {
+        SchemaCache cache = new SchemaCache(10, 1000, null, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("db", "a", loader(loads));
+        cache.get("db", "b", loader(loads));
+        cache.invalidate("db", "a");
+        cache.get("db", "a", loader(loads));
+        cache.get("db", "b", loader(loads));
+        Assert.assertEquals(loads.get(), 3);
+
+        cache.invalidateAll();
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testRefreshAhead() {
+        List<Runnable> tasks = new ArrayList<>();
+        SchemaCache cache = new SchemaCache(10, 1000, tasks::add, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        TableSchema first = cache.get("db", "t", loader(loads));
+        advance(700);
+        Assert.assertSame(cache.get("db", "t", loader(loads)), first);
+        Assert.assertTrue(tasks.isEmpty());
+
+        advance(100); // last quarter of TTL
+        Assert.assertSame(cache.get("db", "t", loader(loads)), first);
+        Assert.assertSame(cache.get("db", "t", loader(loads)), first);
+        Assert.assertEquals(tasks.size(), 1, "only one refresh is scheduled");
+
+        tasks.remove(0).run();
+        Assert.assertEquals(loads.get(), 2);
+        advance(900); // first schema is expired, refreshed one is not
+        TableSchema refreshed = cache.get("db", "t", loader(loads));
+        Assert.assertEquals(refreshed.getTableName(), "t2");
+        Assert.assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testFailedRefreshKeepsSchema() {
+        List<Runnable> tasks = new ArrayList<>();
+        SchemaCache cache = new SchemaCache(10, 1000, tasks::add, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        TableSchema first = cache.get("db", "t", loader(loads));
+        advance(800);
+        cache.get("db", "t", () -> {
+            throw new RuntimeException("server is not available");
+        });
+        tasks.remove(0).run();
+        Assert.assertSame(cache.get("db", "t", loader(loads)), first);
+
+        // refresh is scheduled again after a failure
+        tasks.remove(0).run();
+        Assert.assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testRefreshAfterInvalidate() {
+        List<Runnable> tasks = new ArrayList<>();
+        SchemaCache cache = new SchemaCache(10, 1000, tasks::add, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("db", "t", loader(loads));
+        advance(800);
+        cache.get("db", "t", loader(loads));
+        cache.invalidate("db", "t");
+        tasks.remove(0).run();
+        Assert.assertEquals(cache.size(), 0, "refreshed schema should not replace invalidation");
+    }
+
+    @Test
+    public void testLoadAfterInvalidate() {
+        SchemaCache cache = new SchemaCache(10, 1000, null, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<TableSchema> loader = loader(loads);
+
+        TableSchema stale = cache.get("db", "t", () -> {
+            // table is altered while its old schema is being loaded
+            cache.invalidate("db", "t");
+            return loader.get();
+        });
+        Assert.assertEquals(cache.size(), 0, "schema loaded before invalidation should not be cached");
+        Assert.assertNotSame(cache.get("db", "t", loader), stale);
+        Assert.assertEquals(loads.get(), 2);
+        Assert.assertEquals(cache.size(), 1);
+    }
+}
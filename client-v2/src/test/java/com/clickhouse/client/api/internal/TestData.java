@@ -0,0 +1,33 @@
+package com.clickhouse.client.api.internal;
+
+import java.util.Random;
+
+/**
+ * Test data shared by compression and stream tests.
+ */
+final class TestData {
+
+    private TestData() {
+    }
+
+    /**
+     * Returns compressible data - random letters from a small alphabet. Same size gives same data.
+     */
+    static byte[] compressible(int size) {
+        byte[] data = new byte[size];
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (random.nextInt(16) + 'a');
+        }
+        return data;
+    }
+
+    /**
+     * Returns random bytes. Same size gives same data.
+     */
+    static byte[] random(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,52 @@
+package com.clickhouse.client.api.query;
+
+import com.clickhouse.client.api.metrics.OperationMetrics;
+import com.clickhouse.data.ClickHouseFormat;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultiNodeQueryResponseTest {
+
+    private static MultiNodeQueryResponse.NodeResponse node(String endpoint, byte[] data, AtomicInteger opened) {
+        BasicClassicHttpResponse httpResponse = new BasicClassicHttpResponse(HttpStatus.SC_OK);
+        httpResponse.setEntity(new HttpEntityWrapper(new ByteArrayEntity(data, ContentType.APPLICATION_OCTET_STREAM)) {
+            @Override
+            public InputStream getContent() throws IOException {
+                opened.incrementAndGet();
+                return super.getContent();
+            }
+        });
+        QueryResponse response = new QueryResponse(httpResponse, ClickHouseFormat.Native, new QuerySettings(),
+                new OperationMetrics(null));
+        return new MultiNodeQueryResponse.NodeResponse(endpoint, response, null);
+    }
+
+    @Test
+    public void testResponsesAreOpenedLazily() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        try (MultiNodeQueryResponse response = new MultiNodeQueryResponse(Arrays.asList(
+                node("http://node1:8123", new byte[] {1, 2}, opened),
+                new MultiNodeQueryResponse.NodeResponse("http://node2:8123", null, new RuntimeException("failed")),
+                node("http://node3:8123", new byte[] {3}, opened)))) {
+            InputStream in = response.getInputStream();
+            Assert.assertEquals(opened.get(), 1);
+            Assert.assertEquals(in.read(), 1);
+            Assert.assertEquals(in.read(), 2);
+            Assert.assertEquals(opened.get(), 1, "next response is opened when the previous one ends");
+
+            Assert.assertEquals(in.read(), 3);
+            Assert.assertEquals(opened.get(), 2);
+            Assert.assertEquals(in.read(), -1);
+        }
+    }
+}
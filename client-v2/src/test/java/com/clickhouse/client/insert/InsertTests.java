@@ -9,6 +9,7 @@ import com.clickhouse.client.api.ClientException;
 import com.clickhouse.client.api.DataTypeUtils;
 import com.clickhouse.client.api.command.CommandResponse;
 import com.clickhouse.client.api.command.CommandSettings;
+import com.clickhouse.client.api.data_formats.NativeFormatWriter;
 import com.clickhouse.client.api.data_formats.RowBinaryFormatWriter;
 import com.clickhouse.client.api.data_formats.ClickHouseBinaryFormatReader;
 import com.clickhouse.client.api.data_formats.RowBinaryFormatSerializer;
@@ -554,6 +555,50 @@ public class InsertTests extends BaseIntegrationTest {
         }
     }
 
+    @Test(groups = { "integration" })
+    public void testNativeFormatWriter() throws Exception {
+        String tableName = "native_writer_test_" + UUID.randomUUID().toString().replace('-', '_');
+        String tableCreate = "CREATE TABLE \"" + tableName + "\" " +
+                " (id UInt64, " +
+                "  name LowCardinality(String), " +
+                "  score Float64, " +
+                "  attrs Nullable(String), " +
+                "  tags Array(String))" +
+                "  Engine = MergeTree ORDER by id";
+
+        initTable(tableName, tableCreate);
+
+        TableSchema schema = client.getTableSchema(tableName);
+        final int numRows = 2500;
+        try (InsertResponse response = client.insert(tableName, out -> {
+            NativeFormatWriter w = new NativeFormatWriter(out, schema, 1000, NativeFormatWriter.DEFAULT_MAX_BLOCK_BYTES);
+            for (int i = 0; i < numRows; i++) {
+                w.append(1, (long) i);
+                w.append(2, "name_" + (i % 10));
+                w.append(3, i / 10.0);
+                if (i % 3 == 0) {
+                    w.append(4, "attr_" + i);
+                }
+                w.append(5, (Object) Arrays.asList("t" + i, "t" + (i + 1)));
+                w.commitRow();
+            }
+            w.flush();
+        }, ClickHouseFormat.Native, new InsertSettings()).get()) {
+            Assert.assertEquals(response.getWrittenRows(), numRows);
+        }
+
+        List<GenericRecord> records = client.queryAll("SELECT * FROM \"" + tableName + "\" ORDER BY id");
+        Assert.assertEquals(records.size(), numRows);
+        for (int i = 0; i < numRows; i++) {
+            GenericRecord record = records.get(i);
+            Assert.assertEquals(record.getLong("id"), i);
+            Assert.assertEquals(record.getString("name"), "name_" + (i % 10));
+            Assert.assertEquals(record.getDouble("score"), i / 10.0);
+            Assert.assertEquals(record.getString("attrs"), i % 3 == 0 ? "attr_" + i : null);
+            Assert.assertEquals(record.getList("tags"), Arrays.asList("t" + i, "t" + (i + 1)));
+        }
+    }
+
     @Test
     public void testCollectionInsert() throws Exception {
         String tableName = "very_long_table_name_with_uuid_" + UUID.randomUUID().toString().replace('-', '_');
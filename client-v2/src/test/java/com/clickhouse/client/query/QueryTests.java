@@ -1818,6 +1818,42 @@ public class QueryTests extends BaseIntegrationTest {
         Assert.assertEquals(pojos.get(0), pojo, "Expected " + pojo + " but got " + pojos.get(0));
     }
 
+    @Test(groups = {"integration"}, dataProvider = "pojoQueryProjection")
+    public void testQueryAllSkipsColumnsWithoutSetters(boolean projection) throws Exception {
+        final String tableName = "test_query_all_skips_columns";
+        client.execute("DROP TABLE IF EXISTS " + tableName).get();
+        client.execute("CREATE TABLE " + tableName + " (id Int64, arr Array(Nullable(String)), name String, " +
+                "m Map(String, Array(Int32)), t Tuple(Int32, String), age Nullable(Int32), " +
+                "p Polygon, d Dynamic) ENGINE = MergeTree ORDER BY id " +
+                "SETTINGS allow_experimental_dynamic_type = 1").get();
+        client.execute("INSERT INTO " + tableName + " SELECT number, ['a', NULL, 'ccc'], concat('name_', toString(number)), " +
+                "map('k', [1, 2, 3]), (1, 'x'), if(number % 2 = 0, NULL, toInt32(number)), [[(1, 2), (3, 4)]], " +
+                "if(number % 2 = 0, toString(number), number) FROM numbers(10) " +
+                "SETTINGS allow_experimental_dynamic_type = 1").get();
+
+        TableSchema schema = client.getTableSchema(tableName);
+        try (Client client = newClient().usePOJOQueryProjection(projection).build()) {
+            client.register(SimplePOJO.class, schema);
+            List<SimplePOJO> pojos = client.queryAll("SELECT * FROM " + tableName + " ORDER BY id", SimplePOJO.class, schema);
+            Assert.assertEquals(pojos.size(), 10);
+            for (int i = 0; i < pojos.size(); i++) {
+                Assert.assertEquals(pojos.get(i).getId(), i);
+                Assert.assertEquals(pojos.get(i).getName(), "name_" + i);
+                Assert.assertEquals(pojos.get(i).getAge(), i % 2 == 0 ? null : Integer.valueOf(i));
+            }
+
+            // none of the columns can be read into the class
+            ClientException e = Assert.expectThrows(ClientException.class, () ->
+                    client.queryAll("SELECT arr, m FROM " + tableName, SimplePOJO.class, schema));
+            Assert.assertTrue(e.getCause().getMessage().contains("has a setter"), e.getCause().getMessage());
+        }
+    }
+
+    @DataProvider(name = "pojoQueryProjection")
+    public static Object[][] pojoQueryProjection() {
+        return new Object[][] {{false}, {true}};
+    }
+
     public static BigDecimal cropDecimal(BigDecimal value, int scale) {
         BigInteger bi = value.unscaledValue().divide(BigInteger.TEN.pow(value.scale() - scale));
         return new BigDecimal(bi, scale);
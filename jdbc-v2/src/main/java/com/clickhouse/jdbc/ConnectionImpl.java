@@ -7,9 +7,11 @@ import com.clickhouse.client.api.query.GenericRecord;
 import com.clickhouse.client.api.query.QuerySettings;
 import com.clickhouse.data.ClickHouseDataType;
 import com.clickhouse.jdbc.internal.ClientInfoProperties;
+import com.clickhouse.jdbc.internal.DriverProperties;
 import com.clickhouse.jdbc.internal.JdbcConfiguration;
 import com.clickhouse.jdbc.internal.ExceptionUtils;
 import com.clickhouse.jdbc.internal.JdbcUtils;
+import com.clickhouse.jdbc.internal.SharedClients;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +40,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 public class ConnectionImpl implements Connection, JdbcV2Wrapper {
     private static final Logger log = LoggerFactory.getLogger(ConnectionImpl.class);
@@ -45,6 +48,7 @@ public class ConnectionImpl implements Connection, JdbcV2Wrapper {
     protected final String url;
     protected final Client client;
     protected final JdbcConfiguration config;
+    private final String sharedClientKey;
 
     private boolean closed = false;
     protected boolean onCluster;//TODO: Placeholder for cluster support
@@ -87,10 +91,27 @@ public class ConnectionImpl implements Connection, JdbcV2Wrapper {
                 }
             }
 
-            this.client = this.config.applyClientProperties(new Client.Builder())
-                    .setClientName(clientName)
-                    .build();
-            this.client.loadServerInfo();
+            final String finalClientName = clientName;
+            Supplier<Client> clientFactory = () -> {
+                Client c = this.config.applyClientProperties(new Client.Builder())
+                        .setClientName(finalClientName)
+                        .build();
+                try {
+                    c.loadServerInfo();
+                } catch (RuntimeException e) {
+                    c.close();
+                    throw e;
+                }
+                return c;
+            };
+            if (Boolean.parseBoolean(config.getDriverProperty(DriverProperties.SHARED_CLIENT.getKey(),
+                    DriverProperties.SHARED_CLIENT.getDefaultValue()))) {
+                this.sharedClientKey = SharedClients.key(config, clientName);
+                this.client = SharedClients.acquire(sharedClientKey, clientFactory);
+            } else {
+                this.sharedClientKey = null;
+                this.client = clientFactory.get();
+            }
             this.schema = client.getDefaultDatabase();
             this.defaultQuerySettings = new QuerySettings()
                     .serverSetting(ServerSettings.ASYNC_INSERT, "0")
@@ -197,7 +218,11 @@ public class ConnectionImpl implements Connection, JdbcV2Wrapper {
             return;
         }
 
-        client.close();
+        if (sharedClientKey != null) {
+            SharedClients.release(sharedClientKey, client);
+        } else {
+            client.close();
+        }
         closed = true;
     }
 
@@ -353,13 +378,13 @@ public class ConnectionImpl implements Connection, JdbcV2Wrapper {
     @Override
     public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
         checkOpen();
-        return new StatementImpl(this);
+        return new StatementImpl(this, resultSetType);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
         checkOpen();
-        return new PreparedStatementImpl(this, sql);
+        return new PreparedStatementImpl(this, sql, resultSetType);
     }
 
     @Override
@@ -459,7 +484,9 @@ public class ConnectionImpl implements Connection, JdbcV2Wrapper {
     @Override
     public void setClientInfo(String name, String value) throws SQLClientInfoException {
         if (ClientInfoProperties.APPLICATION_NAME.getKey().equals(name)) {
-            config.updateUserClient(value, client);
+            // client may be shared with other connections so name is set for operations of this connection only
+            defaultQuerySettings.setOption(ClientConfigProperties.CLIENT_NAME.getKey(),
+                    JdbcConfiguration.getUserClientName(value));
             appName = value;
         }
         // TODO: generate warning for unknown properties
@@ -595,6 +622,8 @@ public class ConnectionImpl implements Connection, JdbcV2Wrapper {
 
     /**
      * Returns instance of the client used to execute queries by this connection.
+     * Client may be shared with other connections (see {@link DriverProperties#SHARED_CLIENT}) so its
+     * configuration should not be changed.
      * @return - client instance
      */
     public Client getClient() {
@@ -1,11 +1,21 @@
 package com.clickhouse.jdbc;
 
+import com.clickhouse.client.api.ClientConfigProperties;
+import com.clickhouse.client.api.DataStreamWriter;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.ClickHouseFormat;
 import com.clickhouse.data.Tuple;
+import com.clickhouse.jdbc.internal.DriverProperties;
 import com.clickhouse.jdbc.internal.ExceptionUtils;
+import com.clickhouse.jdbc.internal.RowBinaryEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.InetAddress;
@@ -45,6 +55,8 @@ import java.util.Collection;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class PreparedStatementImpl extends StatementImpl implements PreparedStatement, JdbcV2Wrapper {
     private static final Logger LOG = LoggerFactory.getLogger(PreparedStatementImpl.class);
@@ -55,6 +67,13 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
     public static final DateTimeFormatter DATETIME_FORMATTER = new DateTimeFormatterBuilder()
             .appendPattern("yyyy-MM-dd HH:mm:ss").appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).toFormatter();
 
+    /**
+     * Matches {@code INSERT INTO table [(columns)] VALUES (?, ..., ?)}.
+     */
+    private static final Pattern BINARY_INSERT_PATTERN = Pattern.compile(
+            "^INSERT\\s+INTO\\s+(?:TABLE\\s+)?([^\\s(]+)\\s*(?:\\(([^)]*)\\))?\\s*VALUES\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)\\s*;?$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
     private final Calendar defaultCalendar;
 
     String originalSql;
@@ -63,9 +82,27 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
     Object [] parameters;
     String insertIntoSQL;
 
+    // set when insert statement has only parameters in VALUES clause and can be sent in binary format
+    String insertTableName;
+    List<String> insertColumns;
+    RowBinaryEncoder rowBinaryEncoder;
+
+    // insert batch is sent in parts when one of limits is reached so memory does not grow with batch size
+    private final long batchFlushRows;
+    private final long batchFlushBytes;
+    private ByteArrayOutputStream binaryBatch;
+    private int batchRows;
+    private long batchBytes;
+    private boolean textBatch;
+    private final List<Integer> batchResults;
+
     StatementType statementType;
     public PreparedStatementImpl(ConnectionImpl connection, String sql) throws SQLException {
-        super(connection);
+        this(connection, sql, ResultSet.TYPE_FORWARD_ONLY);
+    }
+
+    public PreparedStatementImpl(ConnectionImpl connection, String sql, int resultSetType) throws SQLException {
+        super(connection, resultSetType);
         this.originalSql = sql.trim();
         //Split the sql string into an array of strings around question mark tokens
         this.sqlSegments = originalSql.split("\\?");
@@ -74,7 +111,24 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
         if (statementType == StatementType.INSERT) {
             insertIntoSQL = originalSql.substring(0, originalSql.indexOf("VALUES") + 6);
             valueSegments = originalSql.substring(originalSql.indexOf("VALUES") + 6).split("\\?");
+
+            Matcher matcher = BINARY_INSERT_PATTERN.matcher(originalSql);
+            if (matcher.matches() && Boolean.parseBoolean(connection.config.getDriverProperty(
+                    DriverProperties.BINARY_BATCH_INSERT.getKey(), DriverProperties.BINARY_BATCH_INSERT.getDefaultValue()))) {
+                insertTableName = matcher.group(1);
+                if (matcher.group(2) != null) {
+                    insertColumns = new ArrayList<>();
+                    for (String column : matcher.group(2).split(",")) {
+                        insertColumns.add(unquoteIdentifier(column.trim()));
+                    }
+                }
+            }
         }
+        this.batchFlushRows = Long.parseLong(connection.config.getDriverProperty(
+                DriverProperties.BATCH_FLUSH_ROWS.getKey(), DriverProperties.BATCH_FLUSH_ROWS.getDefaultValue()));
+        this.batchFlushBytes = Long.parseLong(connection.config.getDriverProperty(
+                DriverProperties.BATCH_FLUSH_BYTES.getKey(), DriverProperties.BATCH_FLUSH_BYTES.getDefaultValue()));
+        this.batchResults = new ArrayList<>();
 
         //Create an array of objects to store the parameters
         if (originalSql.contains("?")) {
@@ -87,17 +141,22 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
         this.defaultCalendar = connection.defaultCalendar;
     }
 
-    private String compileSql(String []segments) {
+    private String compileSql(String []segments) throws SQLException {
+        return compileSql(segments, parameters);
+    }
+
+    private static String compileSql(String []segments, Object[] values) throws SQLException {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < segments.length; i++) {
             sb.append(segments[i]);
-            if (i < parameters.length) {
-                sb.append(parameters[i]);
+            if (i < values.length) {
+                sb.append(encodeObject(values[i]));
             }
         }
         LOG.trace("Compiled SQL: {}", sb);
         return sb.toString();
     }
+
     @Override
     public ResultSet executeQuery() throws SQLException {
         checkClosed();
@@ -119,61 +178,61 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
     @Override
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setByte(int parameterIndex, byte x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setShort(int parameterIndex, short x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setInt(int parameterIndex, int x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setLong(int parameterIndex, long x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setFloat(int parameterIndex, float x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setDouble(int parameterIndex, double x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setString(int parameterIndex, String x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setBytes(int parameterIndex, byte[] x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
@@ -194,29 +253,25 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void clearParameters() throws SQLException {
         checkClosed();
-        if (originalSql.contains("?")) {
-            this.parameters = new Object[sqlSegments.length];
-        } else {
-            this.parameters = new Object[0];
-        }
+        this.parameters = new Object[parameters.length];
     }
 
     @Override
@@ -240,40 +295,179 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
     @Override
     public void addBatch() throws SQLException {
         checkClosed();
-        if (statementType == StatementType.INSERT) {
-            addBatch(compileSql(valueSegments));
-        } else {
+        if (statementType != StatementType.INSERT) {
             addBatch(compileSql(sqlSegments));
+            return;
         }
 
+        if (insertTableName != null && !textBatch) {
+            RowBinaryEncoder encoder = getRowBinaryEncoder();
+            Object[] row = encoder == null ? null : encoder.convertRow(parameters);
+            if (row != null) {
+                if (binaryBatch == null) {
+                    binaryBatch = new ByteArrayOutputStream();
+                }
+                try {
+                    encoder.writeRow(binaryBatch, row);
+                } catch (IOException e) {
+                    throw ExceptionUtils.toSqlState(e);
+                }
+                batchRows++;
+                batchBytes = binaryBatch.size();
+                flushBatchIfNeeded();
+                return;
+            }
+            // some values cannot be sent in binary format so the rest of the batch is sent as SQL
+            flushBatch();
+            textBatch = true;
+        }
+
+        String values = compileSql(valueSegments);
+        addBatch(values);
+        batchRows++;
+        batchBytes += values.length();
+        flushBatchIfNeeded();
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        super.clearBatch();
+        resetBatch();
     }
 
     @Override
     public int[] executeBatch() throws SQLException {
         checkClosed();
-        if (statementType == StatementType.INSERT && !batch.isEmpty()) {
-            List<Integer> results = new ArrayList<>();
-            // write insert into as batch to avoid multiple requests
-            StringBuilder sb = new StringBuilder();
-            sb.append(insertIntoSQL).append(" ");
-            for (String sql : batch) {
-                sb.append(sql).append(",");
+        if (statementType == StatementType.INSERT) {
+            try {
+                flushBatch();
+                return batchResults.stream().mapToInt(i -> i).toArray();
+            } finally {
+                resetBatch();
             }
-            sb.setCharAt(sb.length() - 1, ';');
-            results.add(executeUpdate(sb.toString()));
-            // clear batch and re-add insert into
-            batch.clear();
-            return results.stream().mapToInt(i -> i).toArray();
         } else {
             // run executeBatch
             return super.executeBatch();
         }
     }
 
+    private void flushBatchIfNeeded() throws SQLException {
+        if ((batchFlushRows > 0 && batchRows >= batchFlushRows)
+                || (batchFlushBytes > 0 && batchBytes >= batchFlushBytes)) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * Sends rows collected so far and remembers update count.
+     */
+    private void flushBatch() throws SQLException {
+        try {
+            if (binaryBatch != null && binaryBatch.size() > 0) {
+                batchResults.add(executeBinaryBatch(binaryBatch));
+            } else if (!batch.isEmpty()) {
+                // write insert into as batch to avoid multiple requests
+                StringBuilder sb = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8,
+                        insertIntoSQL.length() + batchBytes + batch.size() + 1));
+                sb.append(insertIntoSQL).append(" ");
+                for (String sql : batch) {
+                    sb.append(sql).append(",");
+                }
+                sb.setCharAt(sb.length() - 1, ';');
+                batchResults.add(executeUpdate(sb.toString()));
+            }
+        } finally {
+            if (binaryBatch != null) {
+                binaryBatch.reset();
+            }
+            batch.clear();
+            batchRows = 0;
+            batchBytes = 0;
+        }
+    }
+
+    private void resetBatch() {
+        batch.clear();
+        binaryBatch = null;
+        batchRows = 0;
+        batchBytes = 0;
+        textBatch = false;
+        batchResults.clear();
+    }
+
+    /**
+     * Sends rows encoded in RowBinaryWithDefaults format.
+     *
+     * @return number of written rows
+     */
+    private int executeBinaryBatch(ByteArrayOutputStream rows) throws SQLException {
+        return executeInsert(insertTableName, rowBinaryEncoder.getColumnNames(), new DataStreamWriter() {
+            @Override
+            public void onOutput(OutputStream out) throws IOException {
+                rows.writeTo(out);
+            }
+
+            @Override
+            public void onRetry() {
+                // rows are kept in memory and written again
+            }
+        }, ClickHouseFormat.RowBinaryWithDefaults);
+    }
+
+    /**
+     * Returns encoder for the target table columns or {@code null} if parameters cannot be mapped to the columns.
+     */
+    private RowBinaryEncoder getRowBinaryEncoder() throws SQLException {
+        if (rowBinaryEncoder != null) {
+            return rowBinaryEncoder;
+        }
+
+        TableSchema tableSchema;
+        try {
+            tableSchema = connection.client.getTableSchema(insertTableName, schema);
+        } catch (Exception e) {
+            LOG.debug("Failed to get schema of '{}'. Batch will be sent as SQL", insertTableName, e);
+            insertTableName = null;
+            return null;
+        }
+
+        List<ClickHouseColumn> columns = new ArrayList<>();
+        if (insertColumns == null) {
+            columns.addAll(tableSchema.getColumns());
+        } else {
+            for (String name : insertColumns) {
+                ClickHouseColumn column = tableSchema.getColumnByName(name);
+                if (column == null) {
+                    insertTableName = null;
+                    return null;
+                }
+                columns.add(column);
+            }
+        }
+        if (columns.size() != parameters.length) {
+            // for example, table has MATERIALIZED or ALIAS columns
+            insertTableName = null;
+            return null;
+        }
+
+        String serverTimeZone = connection.client.getConfiguration().get(ClientConfigProperties.SERVER_TIMEZONE.getKey());
+        rowBinaryEncoder = new RowBinaryEncoder(columns,
+                serverTimeZone == null ? ZoneId.of("UTC") : ZoneId.of(serverTimeZone));
+        return rowBinaryEncoder;
+    }
+
+    private static String unquoteIdentifier(String name) {
+        if (name.length() > 1 && (name.charAt(0) == '`' || name.charAt(0) == '"')
+                && name.charAt(name.length() - 1) == name.charAt(0)) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
     @Override
     public void setCharacterStream(int parameterIndex, Reader x, int length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
@@ -287,19 +481,19 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
     @Override
     public void setBlob(int parameterIndex, Blob x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setClob(int parameterIndex, Clob x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setArray(int parameterIndex, Array x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
@@ -315,7 +509,7 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
         Calendar c = (Calendar) (cal != null ? cal : defaultCalendar).clone();
         c.clear();
         c.set(d.getYear(), d.getMonthValue() - 1, d.getDayOfMonth(), 0, 0, 0);
-        parameters[parameterIndex - 1] = encodeObject(c.toInstant());
+        parameters[parameterIndex - 1] = c.toInstant();
     }
 
     @Override
@@ -326,7 +520,7 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
         Calendar c = (Calendar) (cal != null ? cal : defaultCalendar).clone();
         c.clear();
         c.set(1970, Calendar.JANUARY, 1, t.getHour(), t.getMinute(), t.getSecond());
-        parameters[parameterIndex - 1] = encodeObject(c.toInstant());
+        parameters[parameterIndex - 1] = c.toInstant();
     }
 
     @Override
@@ -337,19 +531,19 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
         Calendar c = (Calendar) (cal != null ? cal : defaultCalendar).clone();
         c.clear();
         c.set(ldt.getYear(), ldt.getMonthValue() - 1, ldt.getDayOfMonth(), ldt.getHour(), ldt.getMinute(), ldt.getSecond());
-        parameters[parameterIndex - 1] = encodeObject(c.toInstant().atZone(ZoneId.of("UTC")).withNano(x.getNanos()));
+        parameters[parameterIndex - 1] = c.toInstant().atZone(ZoneId.of("UTC")).withNano(x.getNanos());
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(null);
+        parameters[parameterIndex - 1] = null;
     }
 
     @Override
     public void setURL(int parameterIndex, URL x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
@@ -361,49 +555,49 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
     @Override
     public void setRowId(int parameterIndex, RowId x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setNString(int parameterIndex, String x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setNCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setNClob(int parameterIndex, NClob x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
     public void setClob(int parameterIndex, Reader x, long length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream x, long length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader x, long length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setSQLXML(int parameterIndex, SQLXML x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = x;
     }
 
     @Override
@@ -415,67 +609,67 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setNCharacterStream(int parameterIndex, Reader x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setClob(int parameterIndex, Reader x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader x) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
         checkClosed();
-        parameters[parameterIndex - 1] = encodeObject(x);
+        parameters[parameterIndex - 1] = readParameter(x);
     }
 
     @Override
@@ -556,24 +750,8 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
                 mapString.append("}");
 
                 return mapString.toString();
-            } else if (x instanceof Reader) {
-                StringBuilder sb = new StringBuilder();
-                Reader reader = (Reader) x;
-                char[] buffer = new char[1024];
-                int len;
-                while ((len = reader.read(buffer)) != -1) {
-                    sb.append(buffer, 0, len);
-                }
-                return "'" + escapeString(sb.toString()) + "'";
-            } else if (x instanceof InputStream) {
-                StringBuilder sb = new StringBuilder();
-                InputStream is = (InputStream) x;
-                byte[] buffer = new byte[1024];
-                int len;
-                while ((len = is.read(buffer)) != -1) {
-                    sb.append(new String(buffer, 0, len));
-                }
-                return "'" + escapeString(sb.toString()) + "'";
+            } else if (x instanceof Reader || x instanceof InputStream) {
+                return encodeObject(readParameter(x));
             } else if (x instanceof Object[]) {
                 StringBuilder arrayString = new StringBuilder();
                 arrayString.append("[");
@@ -613,6 +791,36 @@ public class PreparedStatementImpl extends StatementImpl implements PreparedStat
     }
 
 
+    /**
+     * Reads content of streams because they may be closed before the statement is executed.
+     */
+    private static Object readParameter(Object x) throws SQLException {
+        try {
+            if (x instanceof Reader) {
+                StringBuilder sb = new StringBuilder();
+                Reader reader = (Reader) x;
+                char[] buffer = new char[1024];
+                int len;
+                while ((len = reader.read(buffer)) != -1) {
+                    sb.append(buffer, 0, len);
+                }
+                return sb.toString();
+            } else if (x instanceof InputStream) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                InputStream is = (InputStream) x;
+                byte[] buffer = new byte[1024];
+                int len;
+                while ((len = is.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
+                }
+                return new String(out.toByteArray());
+            }
+            return x;
+        } catch (IOException e) {
+            throw new SQLException("Failed to read parameter value", ExceptionUtils.SQL_STATE_CLIENT_ERROR, e);
+        }
+    }
+
     private static String escapeString(String x) {
         return x.replace("\\", "\\\\").replace("'", "\\'");//Escape single quotes
     }
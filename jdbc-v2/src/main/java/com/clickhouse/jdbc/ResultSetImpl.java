@@ -55,7 +55,7 @@ public class ResultSetImpl implements ResultSet, JdbcV2Wrapper {
         this.defaultCalendar = parentStatement.connection.defaultCalendar;
     }
 
-    private void checkClosed() throws SQLException {
+    protected void checkClosed() throws SQLException {
         if (closed) {
             throw new SQLException("ResultSet is closed.", ExceptionUtils.SQL_STATE_CONNECTION_EXCEPTION);
         }
@@ -79,7 +79,7 @@ public class ResultSetImpl implements ResultSet, JdbcV2Wrapper {
         checkClosed();
 
         try {
-            return reader.next() != null;
+            return reader.advance();
         } catch (Exception e) {
             throw ExceptionUtils.toSqlState(e);
         }
@@ -0,0 +1,342 @@
+package com.clickhouse.jdbc;
+
+import com.clickhouse.client.api.data_formats.ClickHouseBinaryFormatReader;
+import com.clickhouse.client.api.data_formats.RowBinaryFormatReader;
+import com.clickhouse.client.api.data_formats.RowBinaryWithNamesAndTypesFormatReader;
+import com.clickhouse.client.api.data_formats.internal.BinaryStreamReader;
+import com.clickhouse.client.api.data_formats.internal.BufferedBinaryInputStream;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.client.api.query.QueryResponse;
+import com.clickhouse.client.api.query.QuerySettings;
+import com.clickhouse.data.ClickHouseFormat;
+import com.clickhouse.jdbc.internal.ExceptionUtils;
+import com.clickhouse.jdbc.internal.SegmentedByteStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Collections;
+
+/**
+ * Scrollable result set. All rows of a response are read into {@link SegmentedByteStore} when the result set is
+ * created and offset of each row is remembered, so the cursor moves to any row without reading rows before it.
+ * Rows are kept in the raw {@code RowBinary} encoding and decoded when the cursor is on them. Row offsets are
+ * kept in another store sharing the memory limit, so neither rows nor offsets take heap. Both are spilled
+ * to a temporary file when they do not fit into memory limit, and their memory is released on close.
+ * <p>
+ * Result set does not see changes made after the query, so its type is {@link java.sql.ResultSet#TYPE_SCROLL_INSENSITIVE}.
+ * </p>
+ */
+public class ScrollableResultSetImpl extends ResultSetImpl {
+
+    private static final Logger log = LoggerFactory.getLogger(ScrollableResultSetImpl.class);
+
+    // multiple of 8, so an offset never spans two segments
+    private static final int OFFSETS_SEGMENT_SIZE = 64 * 1024;
+
+    private final SegmentedByteStore store;
+
+    private final QuerySettings settings;
+
+    private final TableSchema schema;
+
+    // offset of each row in the store, 8 bytes per row
+    private final SegmentedByteStore rowOffsets;
+
+    private final int rowCount;
+
+    // 0 - before first row, rowCount + 1 - after last row
+    private int row;
+
+    // last row read by the reader, next row is read by advance()
+    private int readerRow;
+
+    private int fetchDirection = FETCH_FORWARD;
+
+    private ScrollableResultSetImpl(StatementImpl parentStatement, QueryResponse response, SegmentedByteStore store,
+                                    TableSchema schema, long dataOffset, SegmentedByteStore rowOffsets, int rowCount) {
+        super(parentStatement, response, null);
+        this.store = store;
+        this.settings = response.getSettings();
+        this.schema = schema;
+        this.rowOffsets = rowOffsets;
+        this.rowCount = rowCount;
+        this.reader = openReader(dataOffset);
+        this.row = 0;
+        this.readerRow = 0;
+    }
+
+    /**
+     * Reads all rows of the response and creates result set over them.
+     *
+     * @param parentStatement - statement
+     * @param response - response in {@link ClickHouseFormat#RowBinaryWithNamesAndTypes} format
+     * @param memoryLimit - maximum size of rows kept in memory
+     * @return result set
+     * @throws SQLException - when response has another format or can not be read
+     */
+    static ScrollableResultSetImpl create(StatementImpl parentStatement, QueryResponse response, long memoryLimit)
+            throws SQLException {
+        if (response.getFormat() != ClickHouseFormat.RowBinaryWithNamesAndTypes) {
+            throw new SQLFeatureNotSupportedException("Scrollable result set supports only RowBinaryWithNamesAndTypes format",
+                    ExceptionUtils.SQL_STATE_FEATURE_NOT_SUPPORTED);
+        }
+
+        SegmentedByteStore store = new SegmentedByteStore(memoryLimit, SegmentedByteStore.DEFAULT_SEGMENT_SIZE);
+        SegmentedByteStore rowOffsets = store.newStore(OFFSETS_SEGMENT_SIZE);
+        try {
+            SpoolingInputStream spool = new SpoolingInputStream(response.getInputStream(), store);
+            BufferedBinaryInputStream input = new BufferedBinaryInputStream(spool);
+            TableSchema schema;
+            long dataOffset;
+            int rowCount = 0;
+            try (RowBinaryWithNamesAndTypesFormatReader scanner = new RowBinaryWithNamesAndTypesFormatReader(input,
+                    response.getSettings(), new BinaryStreamReader.DefaultByteBufferAllocator())) {
+                schema = scanner.getSchema();
+                // bytes read ahead by the buffer belong to the next row
+                dataOffset = spool.count - input.available();
+                if (schema == null) {
+                    schema = new TableSchema(Collections.emptyList());
+                } else if (!schema.getColumns().isEmpty()) {
+                    long offset = dataOffset;
+                    while (scanner.readToPOJO(Collections.emptyMap(), null)) {
+                        if (rowCount == Integer.MAX_VALUE - 1) {
+                            throw new SQLException("Too many rows for scrollable result set",
+                                    ExceptionUtils.SQL_STATE_CLIENT_ERROR);
+                        }
+                        rowOffsets.writeLong(offset);
+                        rowCount++;
+                        offset = spool.count - input.available();
+                    }
+                }
+            }
+            store.seal();
+            rowOffsets.seal();
+            log.debug("Scrollable result set has {} rows of {} bytes (spilled to file: {})", rowCount, store.size(),
+                    store.isSpilled());
+            return new ScrollableResultSetImpl(parentStatement, response, store, schema, dataOffset, rowOffsets, rowCount);
+        } catch (Exception e) {
+            closeQuietly(rowOffsets, e);
+            closeQuietly(store, e);
+            try {
+                response.close();
+            } catch (Exception ce) {
+                e.addSuppressed(ce);
+            }
+            throw e instanceof SQLException ? (SQLException) e : ExceptionUtils.toSqlState(e);
+        }
+    }
+
+    private static void closeQuietly(SegmentedByteStore store, Exception e) {
+        try {
+            store.close();
+        } catch (IOException ce) {
+            e.addSuppressed(ce);
+        }
+    }
+
+    private ClickHouseBinaryFormatReader openReader(long offset) {
+        return new RowBinaryFormatReader(store.newInputStream(offset), settings, schema,
+                new BinaryStreamReader.DefaultByteBufferAllocator());
+    }
+
+    private boolean moveTo(long target) throws SQLException {
+        checkClosed();
+        if (target < 1) {
+            row = 0;
+            return false;
+        } else if (target > rowCount) {
+            row = rowCount + 1;
+            return false;
+        }
+
+        int next = (int) target;
+        try {
+            if (readerRow != next - 1) {
+                ClickHouseBinaryFormatReader previous = reader;
+                reader = openReader(rowOffsets.readLong((next - 1L) * Long.BYTES));
+                previous.close();
+            }
+            reader.advance();
+            readerRow = next;
+            row = next;
+            return true;
+        } catch (Exception e) {
+            throw ExceptionUtils.toSqlState(e);
+        }
+    }
+
+    @Override
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        return moveTo(row + 1L);
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        return moveTo(row - 1L);
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        return moveTo(1);
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        return moveTo(rowCount);
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        moveTo(0);
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        moveTo(rowCount + 1L);
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        return moveTo(row >= 0 ? row : rowCount + 1L + row);
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        return moveTo((long) row + rows);
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        checkClosed();
+        return row > rowCount ? 0 : row;
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        checkClosed();
+        return row == 0 && rowCount > 0;
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        checkClosed();
+        return row > rowCount && rowCount > 0;
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        checkClosed();
+        return row == 1 && rowCount > 0;
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        checkClosed();
+        return row == rowCount && rowCount > 0;
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        checkClosed();
+        return fetchDirection;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        checkClosed();
+        if (direction != FETCH_FORWARD && direction != FETCH_REVERSE && direction != FETCH_UNKNOWN) {
+            throw new SQLException("Invalid fetch direction: " + direction, ExceptionUtils.SQL_STATE_CLIENT_ERROR);
+        }
+        fetchDirection = direction;
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        checkClosed();
+        return TYPE_SCROLL_INSENSITIVE;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            super.close();
+        } finally {
+            for (SegmentedByteStore s : new SegmentedByteStore[] {rowOffsets, store}) {
+                try {
+                    s.close();
+                } catch (IOException e) {
+                    log.debug("Error closing row store", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies data read from a response into the store. Reports no available bytes, so bytes buffered by a reader
+     * are exactly {@link java.io.InputStream#available()} of its buffer.
+     */
+    private static final class SpoolingInputStream extends FilterInputStream {
+
+        private final SegmentedByteStore store;
+
+        private long count;
+
+        private final byte[] singleByte = new byte[1];
+
+        SpoolingInputStream(InputStream in, SegmentedByteStore store) {
+            super(in);
+            this.store = store;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                singleByte[0] = (byte) b;
+                store.write(singleByte, 0, 1);
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                store.write(b, off, n);
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            for (int r; skipped < n && (r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped))) > 0; ) {
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.clickhouse.jdbc;
 
 import com.clickhouse.client.api.ClientConfigProperties;
+import com.clickhouse.client.api.DataStreamWriter;
 import com.clickhouse.client.api.data_formats.ClickHouseBinaryFormatReader;
+import com.clickhouse.client.api.insert.InsertResponse;
+import com.clickhouse.client.api.insert.InsertSettings;
 import com.clickhouse.client.api.internal.ServerSettings;
 import com.clickhouse.client.api.metrics.OperationMetrics;
 import com.clickhouse.client.api.metrics.ServerMetrics;
 import com.clickhouse.client.api.query.QueryResponse;
 import com.clickhouse.client.api.query.QuerySettings;
+import com.clickhouse.data.ClickHouseFormat;
+import com.clickhouse.jdbc.internal.DriverProperties;
 import com.clickhouse.jdbc.internal.JdbcUtils;
 import com.clickhouse.jdbc.internal.ExceptionUtils;
 import org.slf4j.Logger;
@@ -36,9 +41,19 @@ public class StatementImpl implements Statement, JdbcV2Wrapper {
     protected List<String> batch;
     private String lastSql;
     private volatile String lastQueryId;
-    private String schema;
+    String schema;
     private int maxRows;
+    private final int resultSetType;
+    private final long scrollableResultSetMemoryLimit;
     public StatementImpl(ConnectionImpl connection) throws SQLException {
+        this(connection, ResultSet.TYPE_FORWARD_ONLY);
+    }
+
+    /**
+     * Creates statement producing result sets of the type. Scroll sensitive result sets are not supported,
+     * so {@link ResultSet#TYPE_SCROLL_SENSITIVE} is replaced with {@link ResultSet#TYPE_SCROLL_INSENSITIVE}.
+     */
+    public StatementImpl(ConnectionImpl connection, int resultSetType) throws SQLException {
         this.connection = connection;
         this.queryTimeout = 0;
         this.closed = false;
@@ -47,6 +62,11 @@ public class StatementImpl implements Statement, JdbcV2Wrapper {
         this.batch = new ArrayList<>();
         this.schema = connection.getSchema();// remember DB name
         this.maxRows = 0;
+        this.resultSetType = resultSetType == ResultSet.TYPE_FORWARD_ONLY ? ResultSet.TYPE_FORWARD_ONLY
+                : ResultSet.TYPE_SCROLL_INSENSITIVE;
+        this.scrollableResultSetMemoryLimit = Long.parseLong(connection.config.getDriverProperty(
+                DriverProperties.SCROLLABLE_RESULT_SET_MEMORY_LIMIT.getKey(),
+                DriverProperties.SCROLLABLE_RESULT_SET_MEMORY_LIMIT.getDefaultValue()));
     }
 
     protected void checkClosed() throws SQLException {
@@ -194,9 +214,12 @@ public class StatementImpl implements Statement, JdbcV2Wrapper {
                 throw new SQLException("Only RowBinaryWithNameAndTypes is supported for output format. Please check your query.",
                         ExceptionUtils.SQL_STATE_CLIENT_ERROR);
             }
-            ClickHouseBinaryFormatReader reader = connection.client.newBinaryFormatReader(response);
-
-            currentResultSet = new ResultSetImpl(this, response, reader);
+            if (resultSetType == ResultSet.TYPE_SCROLL_INSENSITIVE) {
+                currentResultSet = ScrollableResultSetImpl.create(this, response, scrollableResultSetMemoryLimit);
+            } else {
+                ClickHouseBinaryFormatReader reader = connection.client.newBinaryFormatReader(response);
+                currentResultSet = new ResultSetImpl(this, response, reader);
+            }
             metrics = response.getMetrics();
         } catch (Exception e) {
             throw ExceptionUtils.toSqlState(e);
@@ -244,6 +267,50 @@ public class StatementImpl implements Statement, JdbcV2Wrapper {
             throw ExceptionUtils.toSqlState(e);
         }
 
+        if (type == StatementType.CREATE || type == StatementType.DROP || type == StatementType.ALTER
+                || type == StatementType.OTHER) {
+            // statement may change a table (OTHER includes RENAME and EXCHANGE) so cached schemas are dropped
+            connection.client.invalidateTableSchemas();
+        }
+
+        return updateCount;
+    }
+
+    /**
+     * Sends insert request with data written by the {@code writer}.
+     *
+     * @param tableName - target table
+     * @param columns - target columns or empty list for all columns
+     * @param writer - writes data in the {@code format}
+     * @param format - data format
+     * @return number of written rows
+     */
+    protected int executeInsert(String tableName, List<String> columns, DataStreamWriter writer,
+                                ClickHouseFormat format) throws SQLException {
+        checkClosed();
+        // Closing before trying to do next request. Otherwise, deadlock because previous connection will not be
+        // release before this one completes.
+        closePreviousResultSet();
+
+        InsertSettings settings = new InsertSettings(connection.getDefaultQuerySettings().getAllSettings());
+        if (schema != null) {
+            settings.setDatabase(schema);
+        }
+        lastQueryId = UUID.randomUUID().toString();
+        settings.setQueryId(lastQueryId);
+
+        int updateCount;
+        try (InsertResponse response = queryTimeout == 0
+                ? connection.client.insert(tableName, columns, writer, format, settings).get()
+                : connection.client.insert(tableName, columns, writer, format, settings).get(queryTimeout, TimeUnit.SECONDS)) {
+            currentResultSet = null;
+            updateCount = Math.max(0, (int) response.getWrittenRows());
+            metrics = response.getMetrics();
+            lastQueryId = response.getQueryId();
+        } catch (Exception e) {
+            throw ExceptionUtils.toSqlState(e);
+        }
+
         return updateCount;
     }
 
@@ -365,10 +432,11 @@ public class StatementImpl implements Statement, JdbcV2Wrapper {
                         }
                     }
 
+                    // client may be shared with other connections so roles are set for this connection only
                     if (JdbcUtils.containsIgnoresCase(roles, "NONE")) {
-                        connection.client.setDBRoles(Collections.emptyList());
+                        connection.getDefaultQuerySettings().setDBRoles(Collections.emptyList());
                     } else {
-                        connection.client.setDBRoles(roles);
+                        connection.getDefaultQuerySettings().setDBRoles(roles);
                     }
                 }
             }
@@ -447,7 +515,7 @@ public class StatementImpl implements Statement, JdbcV2Wrapper {
     @Override
     public int getResultSetType() throws SQLException {
         checkClosed();
-        return ResultSet.TYPE_FORWARD_ONLY;
+        return resultSetType;
     }
 
     @Override
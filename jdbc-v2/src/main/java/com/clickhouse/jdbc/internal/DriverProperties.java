@@ -22,7 +22,42 @@ public enum DriverProperties {
      * query settings to be passed along with query operation.
      * {@see com.clickhouse.client.api.query.QuerySettings}
      */
-    DEFAULT_QUERY_SETTINGS("default_query_settings", null);
+    DEFAULT_QUERY_SETTINGS("default_query_settings", null),
+
+    /**
+     * Indicates if batch of {@code INSERT INTO table VALUES (?, ...)} prepared statement should be sent
+     * in RowBinary format instead of SQL text.
+     */
+    BINARY_BATCH_INSERT("jdbc_binary_batch_insert", "true"),
+
+    /**
+     * Maximum number of rows an insert batch of prepared statement keeps in memory. When limit is reached
+     * rows are sent to the server from {@code addBatch()} and {@code executeBatch()} returns update count
+     * for each sent part. Zero (default) means no limit and whole batch is sent by {@code executeBatch()}.
+     * <p>
+     * When enabled, a batch is sent in several independent inserts: {@code addBatch()} may fail with
+     * an error of the server, and parts sent before {@code clearBatch()}, a rollback or a failure of
+     * a later part stay in the table.
+     */
+    BATCH_FLUSH_ROWS("jdbc_batch_flush_rows", "0"),
+
+    /**
+     * Maximum size in bytes of an insert batch of prepared statement kept in memory. Works the same way
+     * as {@link #BATCH_FLUSH_ROWS}, including partial sending of a batch. Zero (default) means no limit.
+     */
+    BATCH_FLUSH_BYTES("jdbc_batch_flush_bytes", "0"),
+
+    /**
+     * Indicates if connections with the same endpoint and properties should share one client and
+     * its HTTP connection pool.
+     */
+    SHARED_CLIENT("jdbc_shared_client", "true"),
+
+    /**
+     * Maximum size in bytes of rows a scrollable result set keeps in off-heap memory. Rows above the limit
+     * are spilled to a temporary file. Zero means all rows are written to a file.
+     */
+    SCROLLABLE_RESULT_SET_MEMORY_LIMIT("jdbc_scrollable_result_set_memory_limit", String.valueOf(64 * 1024 * 1024));
     private final String key;
 
     private final String defaultValue;
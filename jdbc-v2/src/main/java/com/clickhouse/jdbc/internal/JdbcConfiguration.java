@@ -251,7 +251,11 @@ public class JdbcConfiguration {
     }
 
     public void updateUserClient(String clientName, Client client) {
-        client.updateClientName((clientName == null || clientName.isEmpty() ? "" : clientName) + ' ' + getDefaultClientName());
+        client.updateClientName(getUserClientName(clientName));
+    }
+
+    public static String getUserClientName(String clientName) {
+        return (clientName == null || clientName.isEmpty() ? "" : clientName) + ' ' + getDefaultClientName();
     }
 
     public static String getDefaultClientName() {
@@ -0,0 +1,359 @@
+package com.clickhouse.jdbc.internal;
+
+import com.clickhouse.client.api.data_formats.internal.SerializerUtils;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.ClickHouseDataType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes rows of prepared statement parameters in {@code RowBinaryWithDefaults} format.
+ *
+ * <p>Parameter values are converted to types the binary serializer expects. Conversion is done
+ * only when the result is the same as a server would get from a SQL literal of the value. If a value
+ * cannot be converted {@link #convertRow(Object[])} returns {@code null} and a caller should send
+ * the row as SQL text.</p>
+ *
+ * <p>{@code NULL} written into a not nullable column is replaced with the column default, the same way
+ * a server handles {@code NULL} literal in {@code VALUES}.</p>
+ */
+public class RowBinaryEncoder {
+
+    private static final Object UNSUPPORTED = new Object();
+
+    private final List<ClickHouseColumn> columns;
+
+    private final ZoneId serverTimeZone;
+
+    /**
+     * Creates encoder.
+     *
+     * @param columns - target columns in the order of parameters
+     * @param serverTimeZone - timezone used to interpret local date and time values
+     */
+    public RowBinaryEncoder(List<ClickHouseColumn> columns, ZoneId serverTimeZone) {
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.serverTimeZone = serverTimeZone;
+    }
+
+    public List<ClickHouseColumn> getColumns() {
+        return columns;
+    }
+
+    public List<String> getColumnNames() {
+        List<String> names = new ArrayList<>(columns.size());
+        for (ClickHouseColumn column : columns) {
+            names.add(column.getColumnName());
+        }
+        return names;
+    }
+
+    /**
+     * Converts parameter values to types expected by the binary serializer.
+     *
+     * @param parameters - row parameters
+     * @return converted row or {@code null} if some value cannot be written in binary format
+     */
+    public Object[] convertRow(Object[] parameters) throws SQLException {
+        if (parameters.length != columns.size()) {
+            return null;
+        }
+
+        Object[] row = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Object value = convertValue(parameters[i], columns.get(i));
+            if (value == UNSUPPORTED) {
+                return null;
+            }
+            row[i] = value;
+        }
+        return row;
+    }
+
+    /**
+     * Writes row converted by {@link #convertRow(Object[])}.
+     *
+     * @param out - output stream
+     * @param row - converted row
+     * @throws IOException when IO error occurs
+     */
+    public void writeRow(OutputStream out, Object[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            ClickHouseColumn column = columns.get(i);
+            Object value = row[i];
+            if (value == null) {
+                if (column.isNullable()) {
+                    SerializerUtils.writeNonNull(out);
+                    SerializerUtils.writeNull(out);
+                } else {
+                    SerializerUtils.writeNull(out); // use default value
+                }
+                continue;
+            }
+
+            SerializerUtils.writeNonNull(out);
+            if (column.isNullable()) {
+                SerializerUtils.writeNonNull(out);
+            }
+            SerializerUtils.serializeData(out, value, column);
+        }
+    }
+
+    private Object convertValue(Object value, ClickHouseColumn column) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+
+        ClickHouseDataType dataType = column.getDataType();
+        switch (dataType) {
+            case Int8:
+                return toLong(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+            case Int16:
+                return toLong(value, Short.MIN_VALUE, Short.MAX_VALUE);
+            case Int32:
+                return toLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case UInt8:
+                return toLong(value, 0, 0xFFL);
+            case UInt16:
+                return toLong(value, 0, 0xFFFFL);
+            case UInt32:
+                return toLong(value, 0, 0xFFFFFFFFL);
+            case Int64:
+                return toLong(value);
+            case UInt64:
+                if (value instanceof BigInteger) {
+                    BigInteger v = (BigInteger) value;
+                    // lower 64 bits are the unsigned value
+                    return v.signum() >= 0 && v.bitLength() <= 64 ? v.longValue() : UNSUPPORTED;
+                }
+                return toLong(value);
+            case Int128:
+            case Int256:
+            case UInt128:
+            case UInt256:
+                if (value instanceof BigInteger) {
+                    return value;
+                } else if (isInteger(value)) {
+                    return BigInteger.valueOf(((Number) value).longValue());
+                } else if (value instanceof String) {
+                    try {
+                        return new BigInteger((String) value);
+                    } catch (NumberFormatException e) {
+                        return UNSUPPORTED;
+                    }
+                }
+                return UNSUPPORTED;
+            case Float32:
+                if (value instanceof Number) {
+                    return ((Number) value).floatValue();
+                } else if (value instanceof String) {
+                    try {
+                        return Float.parseFloat((String) value);
+                    } catch (NumberFormatException e) {
+                        return UNSUPPORTED;
+                    }
+                }
+                return UNSUPPORTED;
+            case Float64:
+                if (value instanceof Number) {
+                    return ((Number) value).doubleValue();
+                } else if (value instanceof String) {
+                    try {
+                        return Double.parseDouble((String) value);
+                    } catch (NumberFormatException e) {
+                        return UNSUPPORTED;
+                    }
+                }
+                return UNSUPPORTED;
+            case Decimal:
+            case Decimal32:
+            case Decimal64:
+            case Decimal128:
+            case Decimal256:
+                if (value instanceof BigDecimal || value instanceof BigInteger || isInteger(value)) {
+                    return value;
+                } else if (value instanceof Float || value instanceof Double) {
+                    return new BigDecimal(value.toString());
+                } else if (value instanceof String) {
+                    try {
+                        return new BigDecimal((String) value);
+                    } catch (NumberFormatException e) {
+                        return UNSUPPORTED;
+                    }
+                }
+                return UNSUPPORTED;
+            case Bool:
+                if (value instanceof Boolean) {
+                    return value;
+                } else if (isInteger(value)) {
+                    return ((Number) value).longValue() != 0;
+                }
+                return UNSUPPORTED;
+            case String:
+            case FixedString:
+                return value instanceof String ? value : UNSUPPORTED;
+            case UUID:
+                if (value instanceof UUID) {
+                    return value;
+                } else if (value instanceof String) {
+                    try {
+                        return UUID.fromString((String) value);
+                    } catch (IllegalArgumentException e) {
+                        return UNSUPPORTED;
+                    }
+                }
+                return UNSUPPORTED;
+            case Date:
+            case Date32:
+                if (value instanceof LocalDate) {
+                    return value;
+                } else if (value instanceof Date) {
+                    return ((Date) value).toLocalDate();
+                } else if (value instanceof LocalDateTime) {
+                    return ((LocalDateTime) value).toLocalDate();
+                }
+                Instant instant = toInstant(value);
+                return instant == null ? UNSUPPORTED : instant.atZone(serverTimeZone).toLocalDate();
+            case DateTime:
+            case DateTime64: {
+                if (value instanceof Instant || value instanceof ZonedDateTime || value instanceof OffsetDateTime) {
+                    return value;
+                }
+                ZoneId zoneId = column.getTimeZone() == null ? serverTimeZone : column.getTimeZone().toZoneId();
+                if (value instanceof LocalDateTime) {
+                    return ((LocalDateTime) value).atZone(zoneId);
+                } else if (value instanceof Timestamp) {
+                    return ((Timestamp) value).toLocalDateTime().atZone(zoneId);
+                } else if (value instanceof LocalDate) {
+                    return ((LocalDate) value).atStartOfDay(zoneId);
+                } else if (value instanceof Date) {
+                    return ((Date) value).toLocalDate().atStartOfDay(zoneId);
+                }
+                return UNSUPPORTED;
+            }
+            case Enum8:
+            case Enum16:
+                if (value instanceof Enum<?>) {
+                    value = ((Enum<?>) value).name();
+                }
+                if (value instanceof String) {
+                    try {
+                        column.getEnumConstants().value((String) value);
+                        return value;
+                    } catch (IllegalArgumentException e) {
+                        return UNSUPPORTED;
+                    }
+                }
+                return isInteger(value) ? value : UNSUPPORTED;
+            case IPv4:
+                return value instanceof Inet4Address ? value : UNSUPPORTED;
+            case IPv6:
+                return value instanceof Inet6Address ? value : UNSUPPORTED;
+            case Array:
+                return convertArray(value, column);
+            default:
+                return UNSUPPORTED;
+        }
+    }
+
+    private Object convertArray(Object value, ClickHouseColumn column) throws SQLException {
+        if (value instanceof java.sql.Array) {
+            value = ((java.sql.Array) value).getArray();
+        }
+
+        ClickHouseColumn elementColumn = column.getNestedColumns().get(0);
+        List<Object> list;
+        if (value instanceof List<?>) {
+            List<?> source = (List<?>) value;
+            list = new ArrayList<>(source.size());
+            for (Object item : source) {
+                list.add(item);
+            }
+        } else if (value.getClass().isArray()) {
+            int len = Array.getLength(value);
+            list = new ArrayList<>(len);
+            for (int i = 0; i < len; i++) {
+                list.add(Array.get(value, i));
+            }
+        } else {
+            return UNSUPPORTED;
+        }
+
+        for (int i = 0; i < list.size(); i++) {
+            Object item = list.get(i);
+            if (item == null) {
+                if (!elementColumn.isNullable()) {
+                    return UNSUPPORTED;
+                }
+                continue;
+            }
+            Object converted = convertValue(item, elementColumn);
+            if (converted == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            list.set(i, converted);
+        }
+        return list;
+    }
+
+    private static Object toLong(Object value) {
+        if (isInteger(value)) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1L : 0L;
+        } else if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return UNSUPPORTED;
+            }
+        }
+        return UNSUPPORTED;
+    }
+
+    /**
+     * Converts value to a long in the range of a column type. Values out of the range are left for a server
+     * to handle as SQL literals because the binary serializer rejects them.
+     */
+    private static Object toLong(Object value, long min, long max) {
+        Object v = toLong(value);
+        if (v instanceof Long && ((Long) v) >= min && ((Long) v) <= max) {
+            return v;
+        }
+        return UNSUPPORTED;
+    }
+
+    private static boolean isInteger(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static Instant toInstant(Object value) {
+        if (value instanceof Instant) {
+            return (Instant) value;
+        } else if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toInstant();
+        } else if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,374 @@
+package com.clickhouse.jdbc.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only byte store made of fixed size segments. Segments are allocated off-heap until the memory limit
+ * is reached, the rest of data is written to a temporary file which is memory mapped when the store is sealed.
+ * Data can be read from any position without reading data before it.
+ * <p>
+ * Temporary file is deleted and memory of segments is released when the store is closed, streams of a closed
+ * store fail to read. Writing is not thread-safe, but the store may be closed while another thread reads it.
+ * </p>
+ */
+public class SegmentedByteStore implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentedByteStore.class);
+
+    // memory limit shared by the store and stores created with newStore()
+    private final long[] memoryLeft;
+
+    private final int segmentSize;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+
+    // last memory segment or write buffer of the file
+    private ByteBuffer current;
+
+    private FileChannel file;
+
+    private long size;
+
+    private boolean sealed;
+
+    private boolean closed;
+
+    private final byte[] longBuffer = new byte[Long.BYTES];
+
+    /**
+     * Creates store.
+     *
+     * @param memoryLimit - maximum size of data kept in memory. Zero means all data is written to a file.
+     * @param segmentSize - size of a segment
+     */
+    public SegmentedByteStore(long memoryLimit, int segmentSize) {
+        if (memoryLimit < 0) {
+            throw new IllegalArgumentException("Memory limit should not be negative");
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size should be positive");
+        }
+        this.memoryLeft = new long[] {memoryLimit};
+        this.segmentSize = segmentSize;
+    }
+
+    private SegmentedByteStore(long[] memoryLeft, int segmentSize) {
+        this.memoryLeft = memoryLeft;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Creates another store that shares memory limit with this one: segments allocated by any of them count
+     * towards the limit. Stores are closed separately.
+     *
+     * @param segmentSize - size of a segment of the new store
+     * @return new store
+     */
+    public SegmentedByteStore newStore(int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size should be positive");
+        }
+        return new SegmentedByteStore(memoryLeft, segmentSize);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (sealed) {
+            throw new IllegalStateException("Store is sealed");
+        }
+        while (len > 0) {
+            if (current == null || !current.hasRemaining()) {
+                nextSegment();
+            }
+            int n = Math.min(len, current.remaining());
+            current.put(b, off, n);
+            off += n;
+            len -= n;
+            size += n;
+        }
+    }
+
+    /**
+     * Writes value as 8 bytes in big-endian order.
+     *
+     * @param value - value to write
+     * @throws IOException - when data can not be written to the file
+     */
+    public void writeLong(long value) throws IOException {
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            longBuffer[i] = (byte) value;
+            value >>>= 8;
+        }
+        write(longBuffer, 0, Long.BYTES);
+    }
+
+    /**
+     * Reads value written by {@link #writeLong(long)}. Store should be sealed.
+     *
+     * @param position - position of the first byte of the value
+     * @return value
+     */
+    public synchronized long readLong(long position) {
+        checkReadable();
+        if (position < 0 || position > size - Long.BYTES) {
+            throw new IndexOutOfBoundsException("Position " + position + " is out of store of size " + size);
+        }
+        int segmentOffset = (int) (position % segmentSize);
+        ByteBuffer segment = segments.get((int) (position / segmentSize));
+        if (segmentOffset + Long.BYTES <= segment.limit()) {
+            return segment.getLong(segmentOffset);
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++, position++) {
+            segment = segments.get((int) (position / segmentSize));
+            value = (value << 8) | (segment.get((int) (position % segmentSize)) & 0xFF);
+        }
+        return value;
+    }
+
+    private void nextSegment() throws IOException {
+        if (file != null) {
+            writeToFile();
+        } else if (reserveMemory()) {
+            current = ByteBuffer.allocateDirect(segmentSize);
+            segments.add(current);
+        } else {
+            Path path = Files.createTempFile("chc-resultset-", ".tmp");
+            file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+            current = ByteBuffer.allocateDirect(segmentSize);
+        }
+    }
+
+    private boolean reserveMemory() {
+        synchronized (memoryLeft) {
+            if (memoryLeft[0] <= 0) {
+                return false;
+            }
+            memoryLeft[0] -= segmentSize;
+            return true;
+        }
+    }
+
+    private void writeToFile() throws IOException {
+        ((Buffer) current).flip();
+        while (current.hasRemaining()) {
+            file.write(current);
+        }
+        ((Buffer) current).clear();
+    }
+
+    /**
+     * Completes writing. Data written to the file is mapped into memory segments.
+     *
+     * @throws IOException - when the file can not be written or mapped
+     */
+    public void seal() throws IOException {
+        if (sealed) {
+            return;
+        }
+        sealed = true;
+        if (file != null) {
+            writeToFile();
+            current = null;
+            long fileSize = file.size();
+            for (long position = 0; position < fileSize; position += segmentSize) {
+                segments.add(file.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(segmentSize, fileSize - position)));
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * Returns stream reading data from the position. Store should be sealed. Closing the stream does not
+     * affect the store.
+     *
+     * @param position - position of the first byte
+     * @return input stream
+     */
+    public InputStream newInputStream(long position) {
+        checkReadable();
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("Position " + position + " is out of store of size " + size);
+        }
+        return new SegmentInputStream(position);
+    }
+
+    private void checkReadable() {
+        if (closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+        if (!sealed) {
+            throw new IllegalStateException("Store should be sealed before reading");
+        }
+    }
+
+    /**
+     * Releases memory of segments and deletes temporary file. Memory is released right away instead of waiting
+     * for garbage collector, which may not run for a long time when heap usage is low.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        sealed = true;
+        // a segment of the file mapping is not the write buffer, so release both
+        if (current != null && (segments.isEmpty() || segments.get(segments.size() - 1) != current)) {
+            Cleaner.release(current);
+        }
+        long memorySegments = 0;
+        for (ByteBuffer segment : segments) {
+            if (!segment.isReadOnly()) {
+                memorySegments++;
+            }
+            Cleaner.release(segment);
+        }
+        synchronized (memoryLeft) {
+            memoryLeft[0] += memorySegments * segmentSize;
+        }
+        segments.clear();
+        current = null;
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    private final class SegmentInputStream extends InputStream {
+
+        private long position;
+
+        SegmentInputStream(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            synchronized (SegmentedByteStore.this) {
+                checkOpen();
+                if (position >= size) {
+                    return -1;
+                }
+                ByteBuffer segment = segments.get((int) (position / segmentSize));
+                int b = segment.get((int) (position % segmentSize)) & 0xFF;
+                position++;
+                return b;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            synchronized (SegmentedByteStore.this) {
+                checkOpen();
+                if (position >= size) {
+                    return -1;
+                }
+                int segmentOffset = (int) (position % segmentSize);
+                int n = (int) Math.min(len, Math.min(segmentSize - segmentOffset, size - position));
+                ByteBuffer segment = segments.get((int) (position / segmentSize)).duplicate();
+                ((Buffer) segment).position(segmentOffset);
+                segment.get(b, off, n);
+                position += n;
+                return n;
+            }
+        }
+
+        private void checkOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Store is closed");
+            }
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, size - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(size - position, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Frees memory of direct and mapped buffers without waiting for garbage collector. Uses
+     * {@code sun.misc.Unsafe#invokeCleaner} on Java 9+ and the buffer cleaner on Java 8. When neither is
+     * accessible memory is left to garbage collector. Released buffer must not be used.
+     */
+    static final class Cleaner {
+
+        private static final Object UNSAFE;
+
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+            } catch (Exception | LinkageError e) {
+                // Java 8 - buffer cleaner is used instead
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        static void release(ByteBuffer buffer) {
+            if (buffer == null || !buffer.isDirect()) {
+                return;
+            }
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } else {
+                    Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(buffer);
+                    if (cleaner != null) {
+                        cleaner.getClass().getMethod("clean").invoke(cleaner);
+                    }
+                }
+            } catch (Exception | LinkageError e) {
+                LOG.debug("Failed to release buffer memory, it is left to garbage collector", e);
+            }
+        }
+
+        private Cleaner() {
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.clickhouse.jdbc.internal;
+
+import com.clickhouse.client.api.Client;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps clients shared by connections with the same configuration. Each client owns an HTTP connection pool and
+ * information about the server, so connections created by a pool like HikariCP reuse sockets and do not repeat
+ * the server info request.
+ *
+ * <p>Client is created by the first connection and closed when the last connection releases it. Clients are created
+ * and closed outside of the map, so a slow server does not block connections with other keys.</p>
+ */
+public final class SharedClients {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedClients.class);
+
+    private static final ConcurrentHashMap<String, Entry> clients = new ConcurrentHashMap<>();
+
+    private SharedClients() {
+    }
+
+    /**
+     * Returns key identifying clients that can be shared. Clients are shared only when endpoint and all
+     * client properties including credentials are the same. Key is a digest, so it does not keep a password.
+     *
+     * @param config - connection configuration
+     * @param clientName - client name used by a connection
+     * @return key for {@link #acquire(String, Supplier)}
+     */
+    public static String key(JdbcConfiguration config, String clientName) {
+        String properties = config.getConnectionUrl() + '\n' + clientName + '\n'
+                + new TreeMap<>(config.getClientProperties());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(properties.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Returns a client for the key. Creates a new one with {@code factory} if there is no client yet.
+     * Connections acquiring the same key while the client is created wait for it.
+     * Every call should be paired with {@link #release(String, Client)}.
+     *
+     * @param key - key returned by {@link #key(JdbcConfiguration, String)}
+     * @param factory - creates and initializes a new client
+     * @return shared client
+     */
+    public static Client acquire(String key, Supplier<Client> factory) {
+        while (true) {
+            Entry created = null;
+            Entry entry = clients.get(key);
+            if (entry == null) {
+                created = new Entry();
+                entry = clients.putIfAbsent(key, created);
+                if (entry == null) {
+                    entry = created;
+                }
+            }
+            if (!entry.retain()) {
+                // last reference was released concurrently, the entry is being removed
+                clients.remove(key, entry);
+                continue;
+            }
+
+            if (entry == created) {
+                try {
+                    created.client.complete(factory.get());
+                } catch (RuntimeException | Error e) {
+                    created.fail();
+                    clients.remove(key, created);
+                    created.client.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            try {
+                return entry.client.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Releases a client returned by {@link #acquire(String, Supplier)}. Client is closed when it is not used anymore.
+     *
+     * @param key - key the client was acquired with
+     * @param client - client to release
+     */
+    public static void release(String key, Client client) {
+        Entry entry = clients.get(key);
+        if (entry == null || entry.client.getNow(null) != client || !entry.release()) {
+            return;
+        }
+        clients.remove(key, entry);
+        try {
+            client.close();
+        } catch (Exception e) {
+            LOG.warn("Failed to close shared client", e);
+        }
+    }
+
+    private static final class Entry {
+        final CompletableFuture<Client> client = new CompletableFuture<>();
+
+        private int references;
+
+        private boolean removed;
+
+        synchronized boolean retain() {
+            if (removed) {
+                return false;
+            }
+            references++;
+            return true;
+        }
+
+        /**
+         * Returns {@code true} when the last reference is released and the client should be closed.
+         */
+        synchronized boolean release() {
+            if (removed || --references > 0) {
+                return false;
+            }
+            removed = true;
+            return true;
+        }
+
+        synchronized void fail() {
+            removed = true;
+        }
+    }
+}
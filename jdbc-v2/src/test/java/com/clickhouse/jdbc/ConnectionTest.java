@@ -41,6 +41,18 @@ import static org.testng.Assert.fail;
 
 public class ConnectionTest extends JdbcIntegrationTest {
 
+    // From wireshark dump as C Array
+    private static final char[] SELECT_SERVER_INFO = { /* Packet 11901 */
+            0x03, 0x04, 0x75, 0x73, 0x65, 0x72, 0x08, 0x74,
+            0x69, 0x6d, 0x65, 0x7a, 0x6f, 0x6e, 0x65, 0x07,
+            0x76, 0x65, 0x72, 0x73, 0x69, 0x6f, 0x6e, 0x06,
+            0x53, 0x74, 0x72, 0x69, 0x6e, 0x67, 0x06, 0x53,
+            0x74, 0x72, 0x69, 0x6e, 0x67, 0x06, 0x53, 0x74,
+            0x72, 0x69, 0x6e, 0x67, 0x07, 0x64, 0x65, 0x66,
+            0x61, 0x75, 0x6c, 0x74, 0x03, 0x55, 0x54, 0x43,
+            0x0b, 0x32, 0x34, 0x2e, 0x33, 0x2e, 0x31, 0x2e,
+            0x32, 0x36, 0x37, 0x32 };
+
     @Test(groups = { "integration" }, enabled = false)
     public void createAndCloseStatementTest() throws SQLException {
         Connection localConnection = this.getJdbcConnection();
@@ -501,18 +513,6 @@ public class ConnectionTest extends JdbcIntegrationTest {
                     .map(s -> Base64.getEncoder().encodeToString(s.getBytes(StandardCharsets.UTF_8)))
                     .reduce((s1, s2) -> s1 + "." + s2).get();
 
-            // From wireshark dump as C Array
-            char select_server_info[] = { /* Packet 11901 */
-                    0x03, 0x04, 0x75, 0x73, 0x65, 0x72, 0x08, 0x74,
-                    0x69, 0x6d, 0x65, 0x7a, 0x6f, 0x6e, 0x65, 0x07,
-                    0x76, 0x65, 0x72, 0x73, 0x69, 0x6f, 0x6e, 0x06,
-                    0x53, 0x74, 0x72, 0x69, 0x6e, 0x67, 0x06, 0x53,
-                    0x74, 0x72, 0x69, 0x6e, 0x67, 0x06, 0x53, 0x74,
-                    0x72, 0x69, 0x6e, 0x67, 0x07, 0x64, 0x65, 0x66,
-                    0x61, 0x75, 0x6c, 0x74, 0x03, 0x55, 0x54, 0x43,
-                    0x0b, 0x32, 0x34, 0x2e, 0x33, 0x2e, 0x31, 0x2e,
-                    0x32, 0x36, 0x37, 0x32 };
-
             char select1_res[] = { /* Packet 11909 */
                     0x01, 0x01, 0x31, 0x05, 0x55, 0x49, 0x6e, 0x74,
                     0x38, 0x01 };
@@ -529,7 +529,7 @@ public class ConnectionTest extends JdbcIntegrationTest {
                     .withHeader("Authorization", WireMock.equalTo("Bearer " + jwtToken1))
                     .withRequestBody(WireMock.equalTo("SELECT currentUser() AS user, timezone() AS timezone, version() AS version LIMIT 1"))
                     .willReturn(
-                            WireMock.ok(new String(select_server_info))
+                            WireMock.ok(new String(SELECT_SERVER_INFO))
                                     .withHeader("X-ClickHouse-Summary",
                                             "{ \"read_bytes\": \"10\", \"read_rows\": \"1\"}")).build());
 
@@ -547,6 +547,57 @@ public class ConnectionTest extends JdbcIntegrationTest {
             mockServer.stop();
         }
     }
+
+    @Test(groups = { "integration" })
+    public void testSharedClient() throws Exception {
+        if (isCloud()) {
+            return; // mocked server
+        }
+
+        WireMockServer mockServer = new WireMockServer( WireMockConfiguration
+                .options().dynamicPort().notifier(new ConsoleNotifier(false)));
+        mockServer.start();
+
+        try {
+            mockServer.addStubMapping(WireMock.post(WireMock.anyUrl())
+                    .withRequestBody(WireMock.equalTo("SELECT currentUser() AS user, timezone() AS timezone, version() AS version LIMIT 1"))
+                    .willReturn(
+                            WireMock.ok(new String(SELECT_SERVER_INFO))
+                                    .withHeader("X-ClickHouse-Summary",
+                                            "{ \"read_bytes\": \"10\", \"read_rows\": \"1\"}")).build());
+
+            Properties properties = new Properties();
+            properties.put("user", "default");
+            properties.put("password", "");
+            properties.put("compress", "false");
+            String jdbcUrl = "jdbc:clickhouse://" + "localhost" + ":" + mockServer.port();
+
+            ConnectionImpl conn1 = new ConnectionImpl(jdbcUrl, properties);
+            ConnectionImpl conn2 = new ConnectionImpl(jdbcUrl, properties);
+            Assert.assertSame(conn1.getClient(), conn2.getClient());
+            Assert.assertEquals(mockServer.getAllServeEvents().size(), 1); // server info is loaded once
+
+            Properties otherProperties = new Properties();
+            otherProperties.putAll(properties);
+            otherProperties.put(DriverProperties.SHARED_CLIENT.getKey(), "false");
+            try (ConnectionImpl conn3 = new ConnectionImpl(jdbcUrl, otherProperties)) {
+                Assert.assertNotSame(conn3.getClient(), conn1.getClient());
+            }
+
+            conn1.close();
+            Assert.assertFalse(conn2.isClosed());
+            conn2.close();
+
+            // last connection closed the client so a new one is created
+            try (ConnectionImpl conn4 = new ConnectionImpl(jdbcUrl, properties)) {
+                Assert.assertNotSame(conn4.getClient(), conn1.getClient());
+            }
+            Assert.assertEquals(mockServer.getAllServeEvents().size(), 3);
+        } finally {
+            mockServer.stop();
+        }
+    }
+
     @Test(groups = { "integration" })
     public void testJWTWithCloud() throws Exception {
         if (!isCloud()) {
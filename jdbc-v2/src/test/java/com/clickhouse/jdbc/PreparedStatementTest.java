@@ -1,5 +1,6 @@
 package com.clickhouse.jdbc;
 
+import com.clickhouse.jdbc.internal.DriverProperties;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.testng.annotations.Ignore;
 import org.testng.annotations.Test;
@@ -12,6 +13,7 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.util.Arrays;
 import java.util.GregorianCalendar;
+import java.util.Properties;
 import java.util.TimeZone;
 
 import static org.testng.Assert.assertEquals;
@@ -449,4 +451,107 @@ public class PreparedStatementTest extends JdbcIntegrationTest {
             }
         }
     }
+
+    @Test(groups = { "integration" })
+    void testBinaryBatchInsert() throws Exception {
+        try (Connection conn = getJdbcConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE binary_batch (`id` UInt32, `name` String, `score` Float32, "
+                        + "`opt` Nullable(Int16), `ts` DateTime64(3, 'UTC'), `tags` Array(String), "
+                        + "`status` String DEFAULT 'new') ENGINE = Memory");
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO binary_batch (id, name, score, opt, ts, tags) VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < 100; i++) {
+                    stmt.setInt(1, i);
+                    stmt.setString(2, "name_" + i);
+                    stmt.setDouble(3, i / 2.0);
+                    if (i % 2 == 0) {
+                        stmt.setNull(4, Types.SMALLINT);
+                    } else {
+                        stmt.setShort(4, (short) i);
+                    }
+                    stmt.setObject(5, java.time.Instant.ofEpochMilli(1700000000000L + i));
+                    stmt.setObject(6, Arrays.asList("a", "b" + i));
+                    stmt.addBatch();
+                }
+                int[] result = stmt.executeBatch();
+                assertEquals(result.length, 1);
+                assertEquals(result[0], 100);
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT * FROM binary_batch ORDER BY id")) {
+                for (int i = 0; i < 100; i++) {
+                    assertTrue(rs.next());
+                    assertEquals(rs.getInt("id"), i);
+                    assertEquals(rs.getString("name"), "name_" + i);
+                    assertEquals(rs.getFloat("score"), i / 2.0f);
+                    if (i % 2 == 0) {
+                        rs.getShort("opt");
+                        assertTrue(rs.wasNull());
+                    } else {
+                        assertEquals(rs.getShort("opt"), (short) i);
+                    }
+                    assertEquals(rs.getTimestamp("ts").getTime(), 1700000000000L + i);
+                    assertEquals(rs.getString("status"), "new");
+                }
+                assertFalse(rs.next());
+            }
+
+            // values that cannot be sent in binary format fall back to SQL
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO binary_batch VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                stmt.setInt(1, 100);
+                stmt.setString(2, "text");
+                stmt.setString(3, "1.5");
+                stmt.setNull(4, Types.SMALLINT);
+                stmt.setString(5, "2024-01-01 00:00:00");
+                stmt.setObject(6, Arrays.asList("x"));
+                stmt.setString(7, "done");
+                stmt.addBatch();
+                stmt.executeBatch();
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT status FROM binary_batch WHERE id = 100")) {
+                assertTrue(rs.next());
+                assertEquals(rs.getString(1), "done");
+            }
+        }
+    }
+
+    @Test(groups = { "integration" })
+    public void testBatchFlushThreshold() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(DriverProperties.BATCH_FLUSH_ROWS.getKey(), "10");
+        try (Connection conn = getJdbcConnection(properties)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE batch_flush (`id` UInt32, `ts` DateTime) ENGINE = Memory");
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO batch_flush VALUES (?, ?)")) {
+                for (int i = 0; i < 95; i++) {
+                    stmt.setInt(1, i);
+                    if (i < 50) {
+                        stmt.setObject(2, java.time.Instant.ofEpochSecond(1700000000L + i));
+                    } else {
+                        // string value is sent as SQL
+                        stmt.setString(2, "2024-01-01 00:00:00");
+                    }
+                    stmt.addBatch();
+                }
+                int[] result = stmt.executeBatch();
+                assertEquals(result.length, 10);
+                assertEquals(Arrays.stream(result).sum(), 95);
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT count(*), uniqExact(id) FROM batch_flush")) {
+                assertTrue(rs.next());
+                assertEquals(rs.getInt(1), 95);
+                assertEquals(rs.getInt(2), 95);
+            }
+        }
+    }
 }
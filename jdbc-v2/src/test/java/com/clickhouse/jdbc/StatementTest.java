@@ -4,11 +4,13 @@ import com.clickhouse.client.api.ClientConfigProperties;
 import com.clickhouse.client.api.ClientException;
 import com.clickhouse.client.api.query.GenericRecord;
 import com.clickhouse.client.api.query.QuerySettings;
+import com.clickhouse.jdbc.internal.DriverProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import com.clickhouse.data.ClickHouseVersion;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.net.Inet4Address;
@@ -372,14 +374,14 @@ public class StatementTest extends JdbcIntegrationTest {
         info.setProperty("password", userPass);
 
         try (ConnectionImpl conn = new ConnectionImpl(getEndpointString(), info)) {
-            GenericRecord record = conn.client.queryAll("SELECT currentRoles()").get(0);
+            GenericRecord record = conn.client.queryAll("SELECT currentRoles()", QuerySettings.merge(conn.getDefaultQuerySettings(), null)).get(0);
             assertEquals(record.getList(1).size(), 0);
 
             try (Statement stmt = conn.createStatement()) {
                 stmt.execute("SET ROLE role1");
             }
 
-            record = conn.client.queryAll("SELECT currentRoles()").get(0);
+            record = conn.client.queryAll("SELECT currentRoles()", QuerySettings.merge(conn.getDefaultQuerySettings(), null)).get(0);
             assertEquals(record.getList(1).size(), 1);
             assertEquals(record.getList(1).get(0), "role1");
 
@@ -387,7 +389,7 @@ public class StatementTest extends JdbcIntegrationTest {
                 stmt.execute("SET ROLE role2");
             }
 
-            record = conn.client.queryAll("SELECT currentRoles()").get(0);
+            record = conn.client.queryAll("SELECT currentRoles()", QuerySettings.merge(conn.getDefaultQuerySettings(), null)).get(0);
             assertEquals(record.getList(1).size(), 1);
             assertEquals(record.getList(1).get(0), "role2");
 
@@ -395,14 +397,14 @@ public class StatementTest extends JdbcIntegrationTest {
                 stmt.execute("SET ROLE NONE");
             }
 
-            record = conn.client.queryAll("SELECT currentRoles()").get(0);
+            record = conn.client.queryAll("SELECT currentRoles()", QuerySettings.merge(conn.getDefaultQuerySettings(), null)).get(0);
             assertEquals(record.getList(1).size(), 0);
 
             try (Statement stmt = conn.createStatement()) {
                 stmt.execute("SET ROLE \"role1\",\"role2\"");
             }
 
-            record = conn.client.queryAll("SELECT currentRoles()").get(0);
+            record = conn.client.queryAll("SELECT currentRoles()", QuerySettings.merge(conn.getDefaultQuerySettings(), null)).get(0);
             assertEquals(record.getList(1).size(), 2);
             assertEquals(record.getList(1).get(0), "role1");
             assertEquals(record.getList(1).get(1), "role2");
@@ -411,7 +413,7 @@ public class StatementTest extends JdbcIntegrationTest {
                 stmt.execute("SET ROLE \"role1\",\"role2\",\"role3\"");
             }
 
-            record = conn.client.queryAll("SELECT currentRoles()").get(0);
+            record = conn.client.queryAll("SELECT currentRoles()", QuerySettings.merge(conn.getDefaultQuerySettings(), null)).get(0);
             assertEquals(record.getList(1).size(), 3);
             assertEquals(record.getList(1).get(0), "role1");
             assertEquals(record.getList(1).get(1), "role2");
@@ -711,4 +713,46 @@ public class StatementTest extends JdbcIntegrationTest {
         }
     }
 
+    @Test(groups = { "integration" }, dataProvider = "scrollableMemoryLimits")
+    public void testScrollableResultSet(String memoryLimit) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(DriverProperties.SCROLLABLE_RESULT_SET_MEMORY_LIMIT.getKey(), memoryLimit);
+        try (Connection conn = getJdbcConnection(properties);
+             Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)) {
+            assertEquals(stmt.getResultSetType(), ResultSet.TYPE_SCROLL_INSENSITIVE);
+            try (ResultSet rs = stmt.executeQuery("SELECT number AS num, toString(number) AS str FROM numbers(1000)")) {
+                assertEquals(rs.getType(), ResultSet.TYPE_SCROLL_INSENSITIVE);
+                assertTrue(rs.isBeforeFirst());
+                assertTrue(rs.last());
+                assertEquals(rs.getRow(), 1000);
+                assertEquals(rs.getLong("num"), 999);
+                assertTrue(rs.absolute(500));
+                assertEquals(rs.getLong(1), 499);
+                assertEquals(rs.getString("str"), "499");
+                assertTrue(rs.next());
+                assertEquals(rs.getLong(1), 500);
+                assertTrue(rs.previous());
+                assertTrue(rs.previous());
+                assertEquals(rs.getLong(1), 498);
+                assertTrue(rs.relative(-10));
+                assertEquals(rs.getLong(1), 488);
+                assertTrue(rs.absolute(-1));
+                assertEquals(rs.getLong(1), 999);
+                assertFalse(rs.next());
+                assertTrue(rs.isAfterLast());
+                assertTrue(rs.first());
+                assertEquals(rs.getLong(1), 0);
+                assertFalse(rs.previous());
+                assertTrue(rs.isBeforeFirst());
+                assertFalse(rs.absolute(1001));
+                assertEquals(rs.getRow(), 0);
+            }
+        }
+    }
+
+    @DataProvider(name = "scrollableMemoryLimits")
+    public static Object[][] scrollableMemoryLimits() {
+        // all rows in memory and all rows in a temporary file
+        return new Object[][] {{"67108864"}, {"0"}};
+    }
 }
@@ -0,0 +1,96 @@
+package com.clickhouse.jdbc.internal;
+
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.format.BinaryStreamUtils;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class RowBinaryEncoderTest {
+
+    private static final List<ClickHouseColumn> COLUMNS = ClickHouseColumn.parse("i8 Int8, u64 UInt64, "
+            + "f32 Float32, f64 Float64, dec Decimal(10, 2), flag Bool, str String, opt Nullable(String), "
+            + "d Date, dt DateTime, arr Array(Float32), def Int32");
+
+    @Test(groups = { "unit" })
+    public void testWriteRow() throws Exception {
+        RowBinaryEncoder encoder = new RowBinaryEncoder(COLUMNS, ZoneId.of("Asia/Tokyo"));
+        Object[] row = encoder.convertRow(new Object[] {(byte) 1, 2, 1.5d, 2.5f, 3.25d, 1, "a", null,
+                Instant.parse("2024-01-01T20:00:00Z"), LocalDateTime.of(2024, 1, 1, 9, 0), new double[] {1, 2},
+                null});
+        assertNotNull(row);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeRow(out, row);
+        byte[] bytes = out.toByteArray();
+
+        // RowBinaryWithDefaults: each value starts with "use default" marker
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(0);
+        BinaryStreamUtils.writeInt8(expected, 1);
+        expected.write(0);
+        BinaryStreamUtils.writeInt64(expected, 2);
+        expected.write(0);
+        BinaryStreamUtils.writeFloat32(expected, 1.5f);
+        expected.write(0);
+        BinaryStreamUtils.writeFloat64(expected, 2.5d);
+        expected.write(0);
+        BinaryStreamUtils.writeDecimal(expected, new BigDecimal("3.25"), 10, 2);
+        expected.write(0);
+        BinaryStreamUtils.writeBoolean(expected, true);
+        expected.write(0);
+        BinaryStreamUtils.writeString(expected, "a");
+        expected.write(0);
+        expected.write(1); // NULL
+        expected.write(0);
+        // next day in server timezone
+        BinaryStreamUtils.writeUnsignedInt16(expected, (int) LocalDate.of(2024, 1, 2).toEpochDay());
+        expected.write(0);
+        BinaryStreamUtils.writeUnsignedInt32(expected, Instant.parse("2024-01-01T00:00:00Z").getEpochSecond());
+        expected.write(0);
+        BinaryStreamUtils.writeVarInt(expected, 2);
+        BinaryStreamUtils.writeFloat32(expected, 1f);
+        BinaryStreamUtils.writeFloat32(expected, 2f);
+        expected.write(1); // default
+        assertEquals(bytes, expected.toByteArray());
+    }
+
+    @Test(groups = { "unit" })
+    public void testUnsupportedValues() throws Exception {
+        RowBinaryEncoder encoder = new RowBinaryEncoder(ClickHouseColumn.parse("v Int32"), ZoneId.of("UTC"));
+        assertNull(encoder.convertRow(new Object[] {"not a number"}));
+        assertNull(encoder.convertRow(new Object[] {Long.MAX_VALUE}));
+        assertNull(encoder.convertRow(new Object[] {1, 2}));
+        assertTrue(Arrays.equals(encoder.convertRow(new Object[] {"42"}), new Object[] {42L}));
+
+        // values out of the column type range are sent as SQL text
+        encoder = new RowBinaryEncoder(ClickHouseColumn.parse("i8 Int8, i16 Int16, u8 UInt8, u16 UInt16, u32 UInt32"),
+                ZoneId.of("UTC"));
+        assertTrue(Arrays.equals(encoder.convertRow(new Object[] {-128, 32767, 255, 65535, 4294967295L}),
+                new Object[] {-128L, 32767L, 255L, 65535L, 4294967295L}));
+        assertNull(encoder.convertRow(new Object[] {300, 0, 0, 0, 0}));
+        assertNull(encoder.convertRow(new Object[] {-129, 0, 0, 0, 0}));
+        assertNull(encoder.convertRow(new Object[] {0, 32768, 0, 0, 0}));
+        assertNull(encoder.convertRow(new Object[] {0, 0, 256, 0, 0}));
+        assertNull(encoder.convertRow(new Object[] {0, 0, -1, 0, 0}));
+        assertNull(encoder.convertRow(new Object[] {0, 0, 0, -1, 0}));
+        assertNull(encoder.convertRow(new Object[] {0, 0, 0, 65536, 0}));
+        assertNull(encoder.convertRow(new Object[] {0, 0, 0, 0, -1}));
+
+        encoder = new RowBinaryEncoder(ClickHouseColumn.parse("v String, d DateTime"), ZoneId.of("UTC"));
+        assertNull(encoder.convertRow(new Object[] {1, null}));
+        assertNull(encoder.convertRow(new Object[] {"a", "2024-01-01 00:00:00"}));
+    }
+}
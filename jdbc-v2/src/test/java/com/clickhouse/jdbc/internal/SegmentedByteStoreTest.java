@@ -0,0 +1,118 @@
+package com.clickhouse.jdbc.internal;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class SegmentedByteStoreTest {
+
+    @Test(groups = { "unit" }, dataProvider = "memoryLimits")
+    public void testReadFromPosition(long memoryLimit, boolean spilled) throws Exception {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        try (SegmentedByteStore store = new SegmentedByteStore(memoryLimit, 64)) {
+            for (int off = 0; off < data.length; off += 7) {
+                store.write(data, off, Math.min(7, data.length - off));
+            }
+            store.seal();
+            assertEquals(store.size(), data.length);
+            assertEquals(store.isSpilled(), spilled);
+
+            for (int position : new int[] {0, 63, 64, 500, 999, 1000}) {
+                InputStream in = store.newInputStream(position);
+                assertEquals(in.available(), data.length - position);
+                byte[] read = new byte[data.length - position];
+                int n = 0;
+                for (int r; n < read.length && (r = in.read(read, n, read.length - n)) > 0; ) {
+                    n += r;
+                }
+                assertEquals(n, read.length);
+                for (int i = 0; i < read.length; i++) {
+                    assertEquals(read[i], data[position + i]);
+                }
+                assertEquals(in.read(), -1);
+            }
+
+            InputStream in = store.newInputStream(100);
+            assertEquals(in.read(), 100);
+            assertEquals(in.skip(27), 27);
+            assertEquals(in.read(), 128);
+        }
+    }
+
+    @DataProvider(name = "memoryLimits")
+    public static Object[][] memoryLimits() {
+        return new Object[][] {{1024L, false}, {256L, true}, {0L, true}};
+    }
+
+    @Test(groups = { "unit" }, dataProvider = "memoryLimits")
+    public void testLongs(long memoryLimit, boolean spilled) throws Exception {
+        // segment size is not a multiple of 8, so some values span two segments
+        try (SegmentedByteStore store = new SegmentedByteStore(memoryLimit, 60)) {
+            store.write(new byte[] {1, 2, 3}, 0, 3);
+            for (long i = 0; i < 100; i++) {
+                store.writeLong(i * 0x0102030405060708L);
+            }
+            store.seal();
+            for (int i = 99; i >= 0; i--) {
+                assertEquals(store.readLong(3 + i * 8L), i * 0x0102030405060708L);
+            }
+        }
+    }
+
+    @Test(groups = { "unit" })
+    public void testSharedMemoryLimit() throws Exception {
+        try (SegmentedByteStore store = new SegmentedByteStore(128, 64);
+             SegmentedByteStore other = store.newStore(64)) {
+            store.write(new byte[64], 0, 64);
+            other.write(new byte[64], 0, 64);
+            assertFalse(store.isSpilled());
+            assertFalse(other.isSpilled());
+            store.write(new byte[1], 0, 1);
+            assertTrue(store.isSpilled());
+        }
+    }
+
+    @Test(groups = { "unit" }, dataProvider = "memoryLimits")
+    public void testClosedStoreIsNotReadable(long memoryLimit, boolean spilled) throws Exception {
+        SegmentedByteStore store = new SegmentedByteStore(memoryLimit, 64);
+        store.write(new byte[200], 0, 200);
+        store.seal();
+        InputStream in = store.newInputStream(10);
+        assertEquals(in.read(), 0);
+        store.close();
+        store.close();
+        try {
+            in.read(new byte[10], 0, 10);
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("closed"));
+            return;
+        }
+        throw new AssertionError("Read from closed store should fail");
+    }
+
+    @Test(groups = { "unit" })
+    public void testSealedStoreIsReadOnly() throws Exception {
+        try (SegmentedByteStore store = new SegmentedByteStore(0, 16)) {
+            assertFalse(store.isSpilled());
+            store.seal();
+            assertEquals(store.newInputStream(0).read(), -1);
+            try {
+                store.write(new byte[1], 0, 1);
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().contains("sealed"));
+                return;
+            }
+            throw new AssertionError("Write to sealed store should fail");
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.clickhouse.benchmark;
 
 import com.clickhouse.benchmark.clients.*;
+import com.clickhouse.benchmark.data.GeneratedDataSet;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.profile.MemPoolProfiler;
@@ -16,6 +17,7 @@ import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 import static com.clickhouse.benchmark.TestEnvironment.isCloud;
+import static com.clickhouse.benchmark.TestEnvironment.isOffline;
 
 
 public class BenchmarkRunner {
@@ -25,14 +27,15 @@ public class BenchmarkRunner {
         LOGGER.info("Starting Benchmarks");
         Map<String, String> options = parseArgs(args);
         System.out.println("Start Benchmarks with options: " + options);
-        final String env = isCloud() ? "cloud" : "local";
+        final boolean offline = isOffline() || Boolean.parseBoolean(options.getOrDefault("-o", "false"));
+        final String env = offline ? "offline" : isCloud() ? "cloud" : "local";
         final long time = System.currentTimeMillis();
 
         final int measurementIterations = Integer.parseInt(options.getOrDefault("-m", "10"));
         final int measurementTime = Integer.parseInt(options.getOrDefault("-t", "" + (isCloud() ? 30 : 10)));
         final String resultFile = String.format("jmh-results-%s-%s.json", env, time);
         final String outputFile = String.format("jmh-results-%s-%s.out", env, time);
-        final String datasetName = options.getOrDefault("-d", "file://default.csv");
+        final String datasetName = options.getOrDefault("-d", offline ? GeneratedDataSet.NAME : "file://default.csv");
         final String[] limits = options.getOrDefault("-l", "300000,100000,10000").split(",");
 
         System.out.println("Measurement iterations: " + measurementIterations);
@@ -60,6 +63,12 @@ public class BenchmarkRunner {
                 .result(resultFile)
                 .shouldFailOnError(true);
 
+        if (offline) {
+            // forked JVM should use local stand-in too. Client V1 benchmarks need a real server.
+            optBuilder.jvmArgsAppend("-Dbenchmark.offline=true")
+                    .exclude(V1_SERVER_BENCHMARKS);
+        }
+
         String testMask = options.getOrDefault("-b", "q,i");
         String[] testMaskParts = testMask.split(",");
 
@@ -83,6 +92,9 @@ public class BenchmarkRunner {
         new Runner(optBuilder.build()).run();
     }
 
+    private static final String V1_SERVER_BENCHMARKS =
+            ".*\\.(queryV1|insertV1\\w*|\\w*JDBCV1\\w*|SerializerOutputStreamV1|mixed_v1)$";
+
     private static final Map<String, String> BENCHMARK_FLAGS = buildBenchmarkFlags();
 
     private static Map<String, String> buildBenchmarkFlags() {
@@ -0,0 +1,438 @@
+package com.clickhouse.benchmark;
+
+import com.clickhouse.benchmark.data.DataSet;
+import com.clickhouse.client.api.data_formats.RowBinaryFormatSerializer;
+import com.clickhouse.client.api.data_formats.internal.SerializerUtils;
+import com.clickhouse.client.api.internal.ClickHouseLZ4InputStream;
+import com.clickhouse.client.api.internal.ClickHouseLZ4OutputStream;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.ClickHouseDataType;
+import com.clickhouse.data.ClickHouseFormat;
+import com.clickhouse.data.format.BinaryStreamUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.jpountz.lz4.LZ4Factory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in of ClickHouse HTTP interface. It lets benchmarks measure client overhead (decoding, encoding,
+ * compression, connection pooling) without a server and network.
+ * <p>
+ * Tables are registered with a {@link DataSet}. {@code SELECT} from a table returns all rows of the data set in
+ * {@code RowBinaryWithNamesAndTypes}, {@code RowBinary} or {@code Native} format, LZ4 compressed when the client asks
+ * for it. Response bodies are encoded once and then served from memory, so the stand-in spends as little time as
+ * possible in the measured process. Insert bodies are read fully but not parsed. Only the number of received bytes
+ * is counted, also for tables that are not registered, like ones created by {@code CREATE TABLE}. DDL and other
+ * statements are accepted and ignored.
+ * </p>
+ */
+public class LocalClickHouseServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalClickHouseServer.class);
+
+    public static final String USER = "default";
+
+    public static final String PASSWORD = "";
+
+    private static final String VERSION = "25.3.1.1";
+
+    // same as default max_block_size and max_compress_block_size of the server
+    private static final int NATIVE_BLOCK_ROWS = 65536;
+
+    private static final int COMPRESS_BLOCK_SIZE = 1024 * 1024;
+
+    private static final Pattern FORMAT_CLAUSE = Pattern.compile("(?is).*\\bFORMAT\\s+(\\w+)\\s*;?\\s*$");
+
+    private static final Pattern INSERT_TABLE = Pattern.compile("(?is)^\\s*INSERT\\s+INTO\\s+(?:TABLE\\s+)?([`\"\\w.]+)");
+
+    private static final Pattern FROM_TABLE = Pattern.compile("(?is)\\bFROM\\s+([`\"\\w.]+)");
+
+    private static final Pattern TRUNCATE_TABLE = Pattern.compile("(?is)^\\s*TRUNCATE\\s+(?:TABLE\\s+)?(?:IF\\s+EXISTS\\s+)?([`\"\\w.]+)");
+
+    private static final Pattern DESCRIBE_TABLE = Pattern.compile("(?is)^\\s*(?:DESCRIBE|DESC)\\s+(?:TABLE\\s+)?([`\"\\w.]+)");
+
+    private static final TableSchema SERVER_INFO_SCHEMA = new TableSchema(Arrays.asList(
+            ClickHouseColumn.of("user", "String"),
+            ClickHouseColumn.of("timezone", "String"),
+            ClickHouseColumn.of("version", "String")));
+
+    private static final TableSchema COUNT_SCHEMA = new TableSchema(
+            Collections.singletonList(ClickHouseColumn.of("count()", "UInt64")));
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final LZ4Factory lz4Factory = LZ4Factory.fastestInstance();
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+
+    // bytes received by inserts per table name, registered or not
+    private final Map<String, AtomicLong> insertedBytes = new ConcurrentHashMap<>();
+
+    public LocalClickHouseServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "local-clickhouse-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        LOGGER.info("Local ClickHouse server is listening on {}:{}", getHost(), getPort());
+    }
+
+    public String getHost() {
+        return server.getAddress().getHostString();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Registers a table. Queries to the table return rows of the data set.
+     *
+     * @param tableName - table name without database
+     * @param dataSet - data set with schema and ordered rows
+     */
+    public void addTable(String tableName, DataSet dataSet) {
+        tables.put(tableName, new Table(dataSet.getSchema(), dataSet.getRowsOrdered()));
+        insertedBytes.remove(tableName);
+    }
+
+    /**
+     * Registers a table without rows. The table is usually a target of inserts.
+     *
+     * @param tableName - table name without database
+     * @param schema - table schema
+     */
+    public void addEmptyTable(String tableName, TableSchema schema) {
+        tables.put(tableName, new Table(schema, Collections.emptyList()));
+        insertedBytes.remove(tableName);
+    }
+
+    /**
+     * Returns number of bytes received by inserts into the table since it was registered or truncated.
+     * Tables do not need to be registered to count inserts.
+     *
+     * @param tableName - table name without database
+     * @return number of bytes of uncompressed insert data
+     */
+    public long getInsertedBytes(String tableName) {
+        AtomicLong bytes = insertedBytes.get(tableName);
+        return bytes == null ? 0 : bytes.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> params = parseParams(exchange.getRequestURI().getRawQuery());
+            if (exchange.getRequestURI().getPath().startsWith("/ping")) {
+                respond(exchange, 200, "text/plain", "Ok.\n".getBytes(StandardCharsets.UTF_8), Collections.emptyMap());
+                return;
+            }
+
+            InputStream body = exchange.getRequestBody();
+            if ("1".equals(params.get("decompress"))) {
+                body = new ClickHouseLZ4InputStream(body, lz4Factory.fastDecompressor(), COMPRESS_BLOCK_SIZE);
+            }
+            String sql = params.get("query");
+            long sqlBytes = 0;
+            if (sql == null) {
+                byte[] bytes = readAll(body);
+                sql = new String(bytes, StandardCharsets.UTF_8);
+                sqlBytes = bytes.length;
+            }
+
+            ClickHouseFormat format = responseFormat(exchange, params, sql);
+            boolean compress = "1".equals(params.get("compress"));
+            String statement = sql.trim().toUpperCase();
+            Map<String, String> headers = new HashMap<>();
+            byte[] response = new byte[0];
+            Matcher matcher;
+            if ((matcher = INSERT_TABLE.matcher(sql)).find()) {
+                // values of INSERT ... VALUES are sent within the statement
+                long received = sqlBytes + discard(body);
+                insertedBytes.computeIfAbsent(tableName(matcher.group(1)), k -> new AtomicLong()).addAndGet(received);
+                headers.put("X-ClickHouse-Summary", summary(0, 0, received));
+            } else if ((matcher = TRUNCATE_TABLE.matcher(sql)).find()) {
+                insertedBytes.remove(tableName(matcher.group(1)));
+            } else if ((matcher = DESCRIBE_TABLE.matcher(sql)).find()) {
+                Table table = tables.get(tableName(matcher.group(1)));
+                if (table == null) {
+                    throw new UnknownTableException(matcher.group(1));
+                }
+                response = describe(table.schema);
+                format = ClickHouseFormat.TSKV;
+            } else if (statement.startsWith("SELECT") && statement.contains("CURRENTUSER()")) {
+                response = encode(SERVER_INFO_SCHEMA, Collections.singletonList(Arrays.asList(USER, "UTC", VERSION)),
+                        format, compress);
+                headers.put("X-ClickHouse-Summary", summary(1, response.length, 0));
+            } else if (statement.startsWith("SELECT") && (matcher = FROM_TABLE.matcher(sql)).find()) {
+                Table table = tables.get(tableName(matcher.group(1)));
+                if (table == null) {
+                    throw new UnknownTableException(matcher.group(1));
+                }
+                if (statement.startsWith("SELECT COUNT(")) {
+                    response = encode(COUNT_SCHEMA, Collections.singletonList(
+                            Collections.singletonList((long) table.rows.size())), format, compress);
+                    headers.put("X-ClickHouse-Summary", summary(1, response.length, 0));
+                } else {
+                    response = table.body(format, compress);
+                    headers.put("X-ClickHouse-Summary", summary(table.rows.size(), response.length, 0));
+                }
+            } else if (statement.startsWith("SELECT")) {
+                // constant query like SELECT 1
+                response = encode(new TableSchema(Collections.singletonList(ClickHouseColumn.of("1", "UInt8"))),
+                        Collections.singletonList(Collections.singletonList((short) 1)), format, compress);
+                headers.put("X-ClickHouse-Summary", summary(1, response.length, 0));
+            }
+            headers.put("X-ClickHouse-Format", format.name());
+            respond(exchange, 200, "application/octet-stream", response, headers);
+        } catch (UnknownTableException e) {
+            respondError(exchange, 60, "Code: 60. DB::Exception: Unknown table " + e.getMessage() + ". (UNKNOWN_TABLE)");
+        } catch (Exception e) {
+            LOGGER.error("Failed to handle request", e);
+            respondError(exchange, 1000, "Code: 1000. DB::Exception: " + e + ". (POCO_EXCEPTION)");
+        }
+    }
+
+    private ClickHouseFormat responseFormat(HttpExchange exchange, Map<String, String> params, String sql) {
+        Matcher matcher = FORMAT_CLAUSE.matcher(sql);
+        String format = matcher.matches() ? matcher.group(1) : exchange.getRequestHeaders().getFirst("X-ClickHouse-Format");
+        if (format == null) {
+            format = params.getOrDefault("default_format", ClickHouseFormat.RowBinaryWithNamesAndTypes.name());
+        }
+        return ClickHouseFormat.valueOf(format);
+    }
+
+    private byte[] encode(TableSchema schema, List<List<Object>> rows, ClickHouseFormat format, boolean compress)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream stream = compress ? new ClickHouseLZ4OutputStream(out, lz4Factory.fastCompressor(), COMPRESS_BLOCK_SIZE) : out;
+        switch (format) {
+            case RowBinaryWithNamesAndTypes:
+                BinaryStreamUtils.writeVarInt(stream, schema.getColumns().size());
+                for (ClickHouseColumn column : schema.getColumns()) {
+                    BinaryStreamUtils.writeString(stream, column.getColumnName());
+                }
+                for (ClickHouseColumn column : schema.getColumns()) {
+                    BinaryStreamUtils.writeString(stream, column.getOriginalTypeName());
+                }
+                writeRowBinary(stream, schema, rows);
+                break;
+            case RowBinary:
+                writeRowBinary(stream, schema, rows);
+                break;
+            case Native:
+                writeNative(stream, schema, rows);
+                break;
+            default:
+                throw new IllegalArgumentException("Format " + format + " is not supported by local server");
+        }
+        stream.close();
+        return out.toByteArray();
+    }
+
+    private static void writeRowBinary(OutputStream out, TableSchema schema, List<List<Object>> rows) throws IOException {
+        List<ClickHouseColumn> columns = schema.getColumns();
+        for (List<Object> row : rows) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (RowBinaryFormatSerializer.writeValuePreamble(out, false, columns.get(i), row.get(i))) {
+                    SerializerUtils.serializeData(out, row.get(i), columns.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes rows as blocks of columns. Only columns of scalar types, optionally {@code Nullable}, are supported
+     * because other types have own column layout.
+     */
+    private static void writeNative(OutputStream out, TableSchema schema, List<List<Object>> rows) throws IOException {
+        List<ClickHouseColumn> columns = schema.getColumns();
+        for (ClickHouseColumn column : columns) {
+            if (column.isArray() || column.isMap() || column.isTuple() || column.isNested()
+                    || column.isLowCardinality() || column.getDataType() == ClickHouseDataType.Variant
+                    || column.getDataType() == ClickHouseDataType.Dynamic
+                    || column.getDataType() == ClickHouseDataType.JSON) {
+                throw new IllegalArgumentException("Native format is not supported for column '"
+                        + column.getColumnName() + "' of type " + column.getOriginalTypeName());
+            }
+        }
+
+        for (int start = 0; start < rows.size(); start += NATIVE_BLOCK_ROWS) {
+            List<List<Object>> block = rows.subList(start, Math.min(rows.size(), start + NATIVE_BLOCK_ROWS));
+            BinaryStreamUtils.writeVarInt(out, columns.size());
+            BinaryStreamUtils.writeVarInt(out, block.size());
+            for (int col = 0; col < columns.size(); col++) {
+                ClickHouseColumn column = columns.get(col);
+                BinaryStreamUtils.writeString(out, column.getColumnName());
+                BinaryStreamUtils.writeString(out, column.getOriginalTypeName());
+                Object filler = null;
+                if (column.isNullable()) {
+                    for (List<Object> row : block) {
+                        Object value = row.get(col);
+                        out.write(value == null ? 1 : 0);
+                        if (filler == null) {
+                            filler = value;
+                        }
+                    }
+                }
+                for (List<Object> row : block) {
+                    Object value = row.get(col);
+                    if (value == null) {
+                        // value under null is not read, any value of the type will do
+                        if (filler == null) {
+                            throw new IllegalArgumentException("Column '" + column.getColumnName()
+                                    + "' has only null values in a block");
+                        }
+                        value = filler;
+                    }
+                    SerializerUtils.serializeData(out, value, column);
+                }
+            }
+        }
+    }
+
+    private static byte[] describe(TableSchema schema) {
+        StringBuilder sb = new StringBuilder();
+        for (ClickHouseColumn column : schema.getColumns()) {
+            sb.append("name=").append(column.getColumnName())
+                    .append("\ttype=").append(column.getOriginalTypeName())
+                    .append("\tdefault_type=\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String summary(long readRows, long readBytes, long writtenBytes) {
+        return "{\"read_rows\":\"" + readRows + "\",\"read_bytes\":\"" + readBytes
+                + "\",\"written_rows\":\"0\",\"written_bytes\":\"" + writtenBytes
+                + "\",\"total_rows_to_read\":\"" + readRows + "\",\"result_rows\":\"" + readRows
+                + "\",\"result_bytes\":\"" + readBytes + "\",\"elapsed_ns\":\"0\"}";
+    }
+
+    private static void respond(HttpExchange exchange, int code, String contentType, byte[] body,
+                                Map<String, String> headers) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.getResponseHeaders().add("X-ClickHouse-Timezone", "UTC");
+        exchange.getResponseHeaders().add("X-ClickHouse-Server-Display-Name", "local");
+        String queryId = exchange.getRequestHeaders().getFirst("X-ClickHouse-Query-Id");
+        if (queryId != null) {
+            exchange.getResponseHeaders().add("X-ClickHouse-Query-Id", queryId);
+        }
+        headers.forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+        exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private static void respondError(HttpExchange exchange, int errorCode, String message) throws IOException {
+        respond(exchange, 500, "text/plain", message.getBytes(StandardCharsets.UTF_8),
+                Collections.singletonMap("X-ClickHouse-Exception-Code", String.valueOf(errorCode)));
+    }
+
+    private static Map<String, String> parseParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private static String tableName(String qualifiedName) {
+        String name = qualifiedName.replace("`", "").replace("\"", "");
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static long discard(InputStream in) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        for (int n; (n = in.read(buffer)) >= 0; ) {
+            total += n;
+        }
+        return total;
+    }
+
+    private final class Table {
+
+        final TableSchema schema;
+
+        final List<List<Object>> rows;
+
+        // response bodies by format and compression
+        final Map<String, byte[]> bodies = new ConcurrentHashMap<>();
+
+        Table(TableSchema schema, List<List<Object>> rows) {
+            this.schema = schema;
+            this.rows = rows == null ? Collections.emptyList() : rows;
+        }
+
+        byte[] body(ClickHouseFormat format, boolean compress) throws IOException {
+            String key = format.name() + (compress ? "/lz4" : "");
+            byte[] body = bodies.get(key);
+            if (body == null) {
+                body = encode(schema, rows, format, compress);
+                bodies.put(key, body);
+                LOGGER.info("Encoded {} rows in {} format, {} bytes (compressed: {})", rows.size(), format,
+                        body.length, compress);
+            }
+            return body;
+        }
+    }
+
+    private static final class UnknownTableException extends Exception {
+
+        UnknownTableException(String table) {
+            super(table);
+        }
+    }
+}
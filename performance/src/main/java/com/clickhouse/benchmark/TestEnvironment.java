@@ -22,13 +22,20 @@ public class TestEnvironment {
     private static final String CLICKHOUSE_DOCKER_IMAGE = "clickhouse/clickhouse-server:latest";
     private static ClickHouseNode serverNode;
     private static ClickHouseContainer container;
+    private static LocalClickHouseServer localServer;
 
 
     //Environment Variables
+    public static boolean isOffline() {
+        return Boolean.getBoolean("benchmark.offline") || "true".equalsIgnoreCase(System.getenv("BENCHMARK_OFFLINE"));
+    }
     public static boolean isCloud() {
-        return System.getenv("CLICKHOUSE_HOST") != null;
+        return !isOffline() && System.getenv("CLICKHOUSE_HOST") != null;
     }
     public static String getHost() {
+        if (isOffline()) {
+            return localServer.getHost();
+        }
         String host = System.getenv("CLICKHOUSE_HOST");
         if (host == null) {
             host = container.getHost();
@@ -37,6 +44,9 @@ public class TestEnvironment {
         return host;
     }
     public static int getPort() {
+        if (isOffline()) {
+            return localServer.getPort();
+        }
         String port = System.getenv("CLICKHOUSE_PORT");
         if (port == null) {
             if (isCloud()) {//Default handling for ClickHouse Cloud
@@ -49,6 +59,9 @@ public class TestEnvironment {
         return Integer.parseInt(port);
     }
     public static String getPassword() {
+        if (isOffline()) {
+            return LocalClickHouseServer.PASSWORD;
+        }
         String password = System.getenv("CLICKHOUSE_PASSWORD");
         if (password == null) {
             if (isCloud()) {
@@ -60,6 +73,9 @@ public class TestEnvironment {
         return password;
     }
     public static String getUsername() {
+        if (isOffline()) {
+            return LocalClickHouseServer.USER;
+        }
         String username = System.getenv("CLICKHOUSE_USERNAME");
         if (username == null) {
             if (isCloud()) {
@@ -73,13 +89,20 @@ public class TestEnvironment {
     public static ClickHouseNode getServer() {
         return serverNode;
     }
+    public static LocalClickHouseServer getLocalServer() {
+        return localServer;
+    }
 
 
     //Initialization and Teardown methods
     public static void setupEnvironment() {
         LOGGER.info("Initializing ClickHouse test environment...");
 
-        if (isCloud()) {
+        if (isOffline()) {
+            LOGGER.info("Using local ClickHouse stand-in");
+            container = null;
+            localServer = new LocalClickHouseServer();
+        } else if (isCloud()) {
             LOGGER.info("Using ClickHouse Cloud");
             container = null;
         } else {
@@ -111,6 +134,11 @@ public class TestEnvironment {
             container.stop();
             container = null;
         }
+
+        if (localServer != null) {
+            localServer.close();
+            localServer = null;
+        }
     }
 
     public static void createDatabase() {
@@ -2,6 +2,7 @@ package com.clickhouse.benchmark.clients;
 
 import com.clickhouse.benchmark.data.DataSet;
 import com.clickhouse.benchmark.data.FileDataSet;
+import com.clickhouse.benchmark.data.GeneratedDataSet;
 import com.clickhouse.benchmark.data.SimpleDataSet;
 import com.clickhouse.benchmark.data.SyntheticDataSet;
 import com.clickhouse.client.*;
@@ -43,9 +44,12 @@ public class BenchmarkBase {
     @Setup(Level.Iteration)
     public void setUpIteration() {
         LOGGER.info("BenchmarkBase::setUpIteration");
-        clientV1 = getClientV1();
+        if (!isOffline()) {
+            // local stand-in serves only client-v2 and jdbc-v2
+            clientV1 = getClientV1();
+            jdbcV1 = getJdbcV1();
+        }
         clientV2 = getClientV2();
-        jdbcV1 = getJdbcV1();
         jdbcV2 = getJdbcV2();
     }
 
@@ -129,7 +133,12 @@ public class BenchmarkBase {
         LOGGER.info("BenchmarkBase::setup");
         setupEnvironment();
         LOGGER.info("Setup benchmarks using dataset: {}", dataState.datasetSourceName);
-        if (dataState.dataSet == null && "simple".equals(dataState.datasetSourceName)) {
+        if (dataState.dataSet == null && GeneratedDataSet.NAME.equals(dataState.datasetSourceName)) {
+            dataState.dataSet = new GeneratedDataSet(dataState.limit);
+        } else if (isOffline() && !GeneratedDataSet.NAME.equals(dataState.datasetSourceName)) {
+            throw new IllegalArgumentException("Offline benchmarks support only '" + GeneratedDataSet.NAME
+                    + "' dataset but got '" + dataState.datasetSourceName + "'");
+        } else if (dataState.dataSet == null && "simple".equals(dataState.datasetSourceName)) {
             dataState.dataSet = new SimpleDataSet();
         } else if (dataState.dataSet == null && dataState.datasetSourceName.startsWith("file://")) {
             LOGGER.info("Loading data from file " + dataState.datasetSourceName + " with limit " + dataState.limit);
@@ -146,6 +155,11 @@ public class BenchmarkBase {
 
     public static void initializeTables(DataState dataState) {
         LOGGER.info("Initializing tables: {}, {}", dataState.tableNameFilled, dataState.tableNameEmpty);
+        if (isOffline()) {
+            getLocalServer().addTable(dataState.tableNameFilled, dataState.dataSet);
+            getLocalServer().addEmptyTable(dataState.tableNameEmpty, dataState.dataSet.getSchema());
+            return;
+        }
         LOGGER.debug("Create {}: {}", dataState.tableNameFilled, dataState.dataSet.getCreateTableString(dataState.tableNameFilled));
         LOGGER.debug("Create {}: {}", dataState.tableNameEmpty, dataState.dataSet.getCreateTableString(dataState.tableNameEmpty));
         runAndSyncQuery(dataState.dataSet.getCreateTableString(dataState.tableNameEmpty), dataState.tableNameEmpty);
@@ -214,6 +228,12 @@ public class BenchmarkBase {
 
 
     public static boolean verifyCount(String tableName, long expectedCount) {
+        if (isOffline()) {
+            // local stand-in does not parse inserted data
+            long insertedBytes = getLocalServer().getInsertedBytes(tableName);
+            LOGGER.info("Bytes received: {}", insertedBytes);
+            return insertedBytes > 0;
+        }
         syncQuery(tableName);
         List<GenericRecord> records = runQuery(getSelectCountQuery(tableName));
         BigInteger count = records.get(0).getBigInteger(1);
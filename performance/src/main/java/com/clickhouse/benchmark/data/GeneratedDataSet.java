@@ -0,0 +1,173 @@
+package com.clickhouse.benchmark.data;
+
+import com.clickhouse.client.api.data_formats.RowBinaryFormatSerializer;
+import com.clickhouse.client.api.data_formats.internal.SerializerUtils;
+import com.clickhouse.client.api.metadata.TableSchema;
+import com.clickhouse.data.ClickHouseColumn;
+import com.clickhouse.data.ClickHouseDataProcessor;
+import com.clickhouse.data.ClickHouseFormat;
+import com.clickhouse.data.ClickHouseRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Data set generated in memory. Schema and values are known without a server, so the data set is used by offline
+ * benchmarks. Values are generated from a fixed seed, so every run gets the same data.
+ */
+public class GeneratedDataSet implements DataSet {
+
+    public static final String NAME = "generated";
+
+    private static final List<ClickHouseColumn> COLUMNS = Arrays.asList(
+            ClickHouseColumn.of("id", "UInt64"),
+            ClickHouseColumn.of("name", "String"),
+            ClickHouseColumn.of("quantity", "Int32"),
+            ClickHouseColumn.of("price", "Float64"),
+            ClickHouseColumn.of("comment", "Nullable(String)"),
+            ClickHouseColumn.of("created", "DateTime64(3)"));
+
+    private final int size;
+
+    private final TableSchema schema = new TableSchema(COLUMNS);
+
+    private final List<List<Object>> rowsOrdered;
+
+    private final List<Map<String, Object>> rows;
+
+    private final List<byte[]> rowBinary;
+
+    private List<ClickHouseRecord> clickHouseRecords = Collections.emptyList();
+
+    private ClickHouseDataProcessor dataProcessor;
+
+    public GeneratedDataSet(int size) {
+        this.size = size;
+        this.rowsOrdered = new ArrayList<>(size);
+        this.rows = new ArrayList<>(size);
+        this.rowBinary = new ArrayList<>(size);
+
+        Random random = new Random(size);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            for (int i = 0; i < size; i++) {
+                List<Object> row = Arrays.asList(
+                        (long) i,
+                        "name_" + random.nextInt(10000),
+                        random.nextInt(1000),
+                        random.nextDouble() * 1000,
+                        i % 5 == 0 ? null : "comment " + random.nextLong(),
+                        start.plusSeconds(i).plusNanos(random.nextInt(1000) * 1_000_000L));
+                Map<String, Object> namedRow = new HashMap<>();
+                for (int col = 0; col < COLUMNS.size(); col++) {
+                    ClickHouseColumn column = COLUMNS.get(col);
+                    namedRow.put(column.getColumnName(), row.get(col));
+                    if (RowBinaryFormatSerializer.writeValuePreamble(out, false, column, row.get(col))) {
+                        SerializerUtils.serializeData(out, row.get(col), column);
+                    }
+                }
+                rowBinary.add(out.toByteArray());
+                out.reset();
+                rowsOrdered.add(row);
+                rows.add(namedRow);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate data set", e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getCreateTableString(String tableName) {
+        return "CREATE TABLE IF NOT EXISTS " + tableName + " (\n" +
+                "    id          UInt64,\n" +
+                "    name        String,\n" +
+                "    quantity    Int32,\n" +
+                "    price       Float64,\n" +
+                "    comment     Nullable(String),\n" +
+                "    created     DateTime64(3)\n" +
+                ")\n" +
+                "ENGINE = MergeTree\n" +
+                "ORDER BY id;";
+    }
+
+    @Override
+    public ClickHouseFormat getFormat() {
+        return ClickHouseFormat.RowBinary;
+    }
+
+    @Override
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public List<ClickHouseFormat> supportedFormats() {
+        return Collections.singletonList(ClickHouseFormat.RowBinary);
+    }
+
+    @Override
+    public List<byte[]> getBytesList(ClickHouseFormat format) {
+        if (format != ClickHouseFormat.RowBinary) {
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+        return rowBinary;
+    }
+
+    @Override
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+
+    @Override
+    public List<ClickHouseRecord> getClickHouseRecords() {
+        return clickHouseRecords;
+    }
+
+    @Override
+    public List<Map<String, Object>> getRowsLimit(int numRows) {
+        return rows.subList(0, numRows);
+    }
+
+    @Override
+    public List<ClickHouseRecord> getClickHouseRecordsLimit(int numRows) {
+        return clickHouseRecords.subList(0, numRows);
+    }
+
+    @Override
+    public List<List<Object>> getRowsOrdered() {
+        return rowsOrdered;
+    }
+
+    @Override
+    public void setClickHouseRecords(List<ClickHouseRecord> records) {
+        this.clickHouseRecords = records;
+    }
+
+    @Override
+    public void setClickHouseDataProcessor(ClickHouseDataProcessor dataProcessor) {
+        this.dataProcessor = dataProcessor;
+    }
+
+    @Override
+    public ClickHouseDataProcessor getClickHouseDataProcessor() {
+        return dataProcessor;
+    }
+}
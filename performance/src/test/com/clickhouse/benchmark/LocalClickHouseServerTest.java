@@ -0,0 +1,67 @@
+package com.clickhouse.benchmark;
+
+import com.clickhouse.benchmark.data.GeneratedDataSet;
+import com.clickhouse.client.api.Client;
+import com.clickhouse.client.api.enums.Protocol;
+import com.clickhouse.client.api.insert.InsertResponse;
+import com.clickhouse.client.api.query.GenericRecord;
+import com.clickhouse.data.ClickHouseFormat;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class LocalClickHouseServerTest {
+
+    private static Client newClient(LocalClickHouseServer server) {
+        return new Client.Builder()
+                .addEndpoint(Protocol.HTTP, server.getHost(), server.getPort(), false)
+                .setUsername(LocalClickHouseServer.USER)
+                .setPassword(LocalClickHouseServer.PASSWORD)
+                .setMaxRetries(0)
+                .build();
+    }
+
+    @Test(groups = {"unit"})
+    public void testQueryRegisteredTable() throws Exception {
+        GeneratedDataSet dataSet = new GeneratedDataSet(100);
+        try (LocalClickHouseServer server = new LocalClickHouseServer(); Client client = newClient(server)) {
+            server.addTable("data_filled", dataSet);
+
+            List<GenericRecord> records = client.queryAll("SELECT * FROM data_filled");
+            Assert.assertEquals(records.size(), dataSet.getSize());
+            for (int i = 0; i < records.size(); i++) {
+                List<Object> row = dataSet.getRowsOrdered().get(i);
+                Assert.assertEquals(records.get(i).getLong("id"), row.get(0));
+                Assert.assertEquals(records.get(i).getString("name"), row.get(1));
+            }
+            Assert.assertEquals(client.queryAll("SELECT count() FROM data_filled").get(0).getLong(1), 100L);
+
+            Assert.expectThrows(Exception.class, () -> client.queryAll("SELECT * FROM unknown_table"));
+        }
+    }
+
+    @Test(groups = {"unit"})
+    public void testInsertIntoCreatedTable() throws Exception {
+        GeneratedDataSet dataSet = new GeneratedDataSet(100);
+        long dataSize = 0;
+        for (byte[] row : dataSet.getBytesList(ClickHouseFormat.RowBinary)) {
+            dataSize += row.length;
+        }
+        // same steps as ConcurrentInsertClient: table is created by a query and never registered
+        String table = "concurrent_data_empty_1";
+        try (LocalClickHouseServer server = new LocalClickHouseServer(); Client client = newClient(server)) {
+            client.queryAll(dataSet.getCreateTableString(table));
+            Assert.assertEquals(server.getInsertedBytes(table), 0L);
+
+            try (InsertResponse ignored = client.insert(table, dataSet.getInputStream(ClickHouseFormat.RowBinary),
+                    ClickHouseFormat.RowBinary).get()) {
+                Assert.assertTrue(server.getInsertedBytes(table) >= dataSize,
+                        "Received " + server.getInsertedBytes(table) + " bytes of " + dataSize);
+            }
+
+            client.queryAll("TRUNCATE TABLE IF EXISTS `default`.`" + table + "`");
+            Assert.assertEquals(server.getInsertedBytes(table), 0L);
+        }
+    }
+}